@@ -0,0 +1,110 @@
+package com.example.stock.benchmark;
+
+import com.example.stock.dto.StockHistoryDTO;
+import com.example.stock.entity.StockHistory;
+import com.example.stock.service.client.stub.SinaStubResponses;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试用的确定性合成行情
+ * 同一种子总是生成相同的价格序列（随机游走，跳过周末），均价/均量按真实滚动平均计算
+ */
+final class BenchmarkData {
+
+    static final long SEED = 20240101L;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 生成单只股票的K线序列
+     * @param symbol 股票代码
+     * @param bars K线数量
+     * @param seed 随机种子
+     * @return 按日期升序排列的K线
+     */
+    static List<StockHistory> histories(String symbol, int bars, long seed) {
+        Random random = new Random(seed);
+        List<StockHistory> histories = new ArrayList<>(bars);
+        // 日期以今天为终点，使按当前日期计算窗口的筛选条件能命中数据；价格序列只由种子决定
+        LocalDate day = LocalDate.now().minusDays(bars * 7L / 5 + 7);
+        double close = 5 + random.nextInt(50);
+        double sumClose5 = 0, sumClose10 = 0, sumClose30 = 0;
+        long sumVolume5 = 0, sumVolume10 = 0, sumVolume30 = 0;
+        for (int i = 0; i < bars; i++) {
+            do {
+                day = day.plusDays(1);
+            } while (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY);
+
+            double open = round(close * (1 + random.nextGaussian() * 0.005));
+            close = Math.max(0.5, round(close * (1 + random.nextGaussian() * 0.02)));
+            double high = round(Math.max(open, close) * (1 + random.nextDouble() * 0.015));
+            double low = round(Math.min(open, close) * (1 - random.nextDouble() * 0.015));
+            long volume = 500_000L + random.nextInt(5_000_000);
+
+            StockHistory history = new StockHistory();
+            history.setSymbol(symbol);
+            history.setCode(symbol.substring(2));
+            history.setDay(day);
+            history.setOpen(open);
+            history.setHigh(high);
+            history.setLow(low);
+            history.setClose(close);
+            history.setVolume(volume);
+            histories.add(history);
+
+            sumClose5 += close - (i >= 5 ? histories.get(i - 5).getClose() : 0);
+            sumClose10 += close - (i >= 10 ? histories.get(i - 10).getClose() : 0);
+            sumClose30 += close - (i >= 30 ? histories.get(i - 30).getClose() : 0);
+            sumVolume5 += volume - (i >= 5 ? histories.get(i - 5).getVolume() : 0);
+            sumVolume10 += volume - (i >= 10 ? histories.get(i - 10).getVolume() : 0);
+            sumVolume30 += volume - (i >= 30 ? histories.get(i - 30).getVolume() : 0);
+            history.setMaPrice5(i >= 4 ? round(sumClose5 / 5) : 0);
+            history.setMaPrice10(i >= 9 ? round(sumClose10 / 10) : 0);
+            history.setMaPrice30(i >= 29 ? round(sumClose30 / 30) : 0);
+            history.setMaVolume5(i >= 4 ? sumVolume5 / 5 : 0);
+            history.setMaVolume10(i >= 9 ? sumVolume10 / 10 : 0);
+            history.setMaVolume30(i >= 29 ? sumVolume30 / 30 : 0);
+        }
+        return histories;
+    }
+
+    /**
+     * 按新浪K线接口的格式输出JSON（价格和成交量为字符串，均价均量为数字）
+     */
+    static String sinaJson(List<StockHistory> histories) {
+        return SinaStubResponses.kLineJson(histories);
+    }
+
+    static List<StockHistoryDTO> dtos(List<StockHistory> histories) {
+        List<StockHistoryDTO> dtos = new ArrayList<>(histories.size());
+        for (StockHistory h : histories) {
+            StockHistoryDTO dto = new StockHistoryDTO();
+            dto.setSymbol(h.getSymbol());
+            dto.setCode(h.getCode());
+            dto.setDay(h.getDay());
+            dto.setOpen(h.getOpen());
+            dto.setHigh(h.getHigh());
+            dto.setLow(h.getLow());
+            dto.setClose(h.getClose());
+            dto.setVolume(h.getVolume());
+            dto.setMaPrice5(h.getMaPrice5());
+            dto.setMaPrice10(h.getMaPrice10());
+            dto.setMaPrice30(h.getMaPrice30());
+            dto.setMaVolume5(h.getMaVolume5());
+            dto.setMaVolume10(h.getMaVolume10());
+            dto.setMaVolume30(h.getMaVolume30());
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
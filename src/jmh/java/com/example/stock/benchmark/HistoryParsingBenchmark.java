@@ -0,0 +1,78 @@
+package com.example.stock.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+import com.example.stock.dto.StockHistoryDTO;
+import com.example.stock.entity.StockHistory;
+import com.example.stock.service.client.SinaKLineParser;
+import com.example.stock.service.mapper.StockMapper;
+import com.example.stock.service.mapper.StockMapperImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 历史K线解析与映射基准测试
+ * fastjsonParse：Fastjson把完整响应字符串解析为DTO列表（getStockHistory的路径）；
+ * streamingParse：SinaKLineParser从字节流直接生成实体（getStockHistoryRows的路径）；
+ * mapperToEntities：MapStruct把DTO列表转换为实体列表
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoryParsingBenchmark {
+
+    @Param({"1000", "10000", "70000"})
+    public int bars;
+
+    private final StockMapper stockMapper = new StockMapperImpl();
+
+    private String json;
+    private byte[] jsonBytes;
+    private List<StockHistoryDTO> dtos;
+
+    @Setup
+    public void setUp() {
+        List<StockHistory> histories = BenchmarkData.histories("sh600000", bars, BenchmarkData.SEED);
+        json = BenchmarkData.sinaJson(histories);
+        jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+        dtos = BenchmarkData.dtos(histories);
+    }
+
+    @Benchmark
+    public List<StockHistoryDTO> fastjsonParse() {
+        return JSON.parseObject(json, new TypeReference<List<StockHistoryDTO>>() {});
+    }
+
+    @Benchmark
+    public List<StockHistory> streamingParse() throws IOException {
+        List<StockHistory> rows = new ArrayList<>();
+        new SinaKLineParser(new ByteArrayInputStream(jsonBytes)).parse(bar -> {
+            StockHistory history = new StockHistory();
+            history.setDay(bar.day);
+            history.setOpen(bar.open);
+            history.setHigh(bar.high);
+            history.setLow(bar.low);
+            history.setClose(bar.close);
+            history.setVolume(bar.volume);
+            history.setMaPrice5(bar.maPrice5);
+            history.setMaPrice10(bar.maPrice10);
+            history.setMaPrice30(bar.maPrice30);
+            rows.add(history);
+        });
+        return rows;
+    }
+
+    @Benchmark
+    public List<StockHistory> mapperToEntities() {
+        return stockMapper.toStockHistoryList(dtos);
+    }
+}
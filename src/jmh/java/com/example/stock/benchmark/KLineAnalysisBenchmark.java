@@ -0,0 +1,61 @@
+package com.example.stock.benchmark;
+
+import com.example.stock.entity.StockHistory;
+import com.example.stock.service.KLineAnalysisService;
+import com.example.stock.service.KLineIndicatorState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * K线技术分析基准测试
+ * analyzeLatestBar：按历史列表分析最新一根K线（每日同步的旧路径）；
+ * analyzeIncrementalPerBar：按增量状态顺序分析整段序列，结果为每根K线的平均耗时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KLineAnalysisBenchmark {
+
+    @Param({"1000", "10000", "70000"})
+    public int bars;
+
+    private final KLineAnalysisService service = new KLineAnalysisService();
+
+    private List<StockHistory> ascending;
+    private List<StockHistory> descending;
+
+    @Setup
+    public void setUp() {
+        ascending = BenchmarkData.histories("sh600000", bars, BenchmarkData.SEED);
+        descending = new ArrayList<>(ascending);
+        Collections.reverse(descending);
+    }
+
+    @Benchmark
+    public StockHistory analyzeLatestBar() {
+        StockHistory current = descending.get(0);
+        service.analyzeKLine(current, descending.get(1), descending);
+        return current;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(70000)
+    public void analyzeIncrementalPerBar(Blackhole blackhole) {
+        KLineIndicatorState state = new KLineIndicatorState();
+        // 不足70000根时重复推进，保持每次调用的K线数与OperationsPerInvocation一致
+        for (int done = 0; done < 70000; done += bars) {
+            for (StockHistory history : ascending) {
+                service.analyzeKLineIncremental(history, state);
+            }
+        }
+        blackhole.consume(state);
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.stock.benchmark;
+
+import com.example.stock.entity.StockHistory;
+import com.example.stock.service.analysis.PriceSeries;
+import com.example.stock.service.analysis.PriceSeriesAnalyzer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 列式序列与实体列表的指标计算对比基准测试
+ * 三个基准计算同一组整列指标（SMA5/10/30、MACD、RSI6/12/24、BOLL20、250日滚动最高价），结果写入同一组预先分配的输出数组，
+ * 区别只在数据的读取方式：
+ * entityList —— 按KLineAnalysisService的方式经historyList.get(i).getClose()读取StockHistory实体；
+ * priceSeries —— PriceSeriesAnalyzer直接扫描PriceSeries的基本类型数组；
+ * priceSeriesWithConversion —— 先由实体列表构建PriceSeries再计算，计入转换成本。
+ * 配合 -prof gc 查看每次调用的分配量（gc.alloc.rate.norm），priceSeries应接近0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PriceSeriesBenchmark {
+
+    private static final int RSI_SHORT = 6;
+    private static final int RSI_MEDIUM = 12;
+    private static final int RSI_LONG = 24;
+    private static final int BOLL_PERIOD = 20;
+    private static final double BOLL_K = 2.0;
+    private static final int HIGH_WINDOW = 250;
+
+    @Param({"1000", "10000", "70000"})
+    public int bars;
+
+    private List<StockHistory> histories;
+    private PriceSeries series;
+
+    private double[] ma5;
+    private double[] ma10;
+    private double[] ma30;
+    private double[] dif;
+    private double[] dea;
+    private double[] macdBar;
+    private double[] rsi6;
+    private double[] rsi12;
+    private double[] rsi24;
+    private double[] bollMiddle;
+    private double[] bollUpper;
+    private double[] bollLower;
+    private double[] rollingHigh;
+    private int[] deque;
+
+    @Setup
+    public void setUp() {
+        histories = BenchmarkData.histories("sh600000", bars, BenchmarkData.SEED);
+        series = PriceSeries.fromHistories("sh600000", histories);
+        ma5 = new double[bars];
+        ma10 = new double[bars];
+        ma30 = new double[bars];
+        dif = new double[bars];
+        dea = new double[bars];
+        macdBar = new double[bars];
+        rsi6 = new double[bars];
+        rsi12 = new double[bars];
+        rsi24 = new double[bars];
+        bollMiddle = new double[bars];
+        bollUpper = new double[bars];
+        bollLower = new double[bars];
+        rollingHigh = new double[bars];
+        deque = new int[bars];
+    }
+
+    @Benchmark
+    public void entityList(Blackhole blackhole) {
+        EntityIndicators.sma(histories, 5, ma5);
+        EntityIndicators.sma(histories, 10, ma10);
+        EntityIndicators.sma(histories, 30, ma30);
+        EntityIndicators.macd(histories, dif, dea, macdBar);
+        EntityIndicators.rsi(histories, RSI_SHORT, rsi6);
+        EntityIndicators.rsi(histories, RSI_MEDIUM, rsi12);
+        EntityIndicators.rsi(histories, RSI_LONG, rsi24);
+        EntityIndicators.boll(histories, BOLL_PERIOD, BOLL_K, bollMiddle, bollUpper, bollLower);
+        EntityIndicators.rollingHigh(histories, HIGH_WINDOW, rollingHigh, deque);
+        consume(blackhole);
+    }
+
+    @Benchmark
+    public void priceSeries(Blackhole blackhole) {
+        analyze(series);
+        consume(blackhole);
+    }
+
+    @Benchmark
+    public void priceSeriesWithConversion(Blackhole blackhole) {
+        analyze(PriceSeries.fromHistories("sh600000", histories));
+        consume(blackhole);
+    }
+
+    private void analyze(PriceSeries prices) {
+        double[] closes = prices.closes();
+        int size = prices.size();
+        PriceSeriesAnalyzer.sma(closes, size, 5, ma5);
+        PriceSeriesAnalyzer.sma(closes, size, 10, ma10);
+        PriceSeriesAnalyzer.sma(closes, size, 30, ma30);
+        PriceSeriesAnalyzer.macd(closes, size, dif, dea, macdBar);
+        PriceSeriesAnalyzer.rsi(closes, size, RSI_SHORT, rsi6);
+        PriceSeriesAnalyzer.rsi(closes, size, RSI_MEDIUM, rsi12);
+        PriceSeriesAnalyzer.rsi(closes, size, RSI_LONG, rsi24);
+        PriceSeriesAnalyzer.boll(closes, size, BOLL_PERIOD, BOLL_K, bollMiddle, bollUpper, bollLower);
+        PriceSeriesAnalyzer.rollingMax(prices.highs(), size, HIGH_WINDOW, rollingHigh, deque);
+    }
+
+    private void consume(Blackhole blackhole) {
+        int last = bars - 1;
+        blackhole.consume(ma5[last] + ma10[last] + ma30[last] + macdBar[last] + rsi6[last] + rsi12[last]
+                + rsi24[last] + bollUpper[last] + bollLower[last] + rollingHigh[last]);
+    }
+
+    /**
+     * 与PriceSeriesAnalyzer相同公式的实体列表版本，逐根经getter读取StockHistory（升序）
+     */
+    static final class EntityIndicators {
+
+        private EntityIndicators() {
+        }
+
+        static void sma(List<StockHistory> histories, int period, double[] out) {
+            double sum = 0;
+            for (int i = 0; i < histories.size(); i++) {
+                sum += histories.get(i).getClose();
+                if (i >= period) {
+                    sum -= histories.get(i - period).getClose();
+                }
+                out[i] = i + 1 >= period ? sum / period : Double.NaN;
+            }
+        }
+
+        static void macd(List<StockHistory> histories, double[] dif, double[] dea, double[] bar) {
+            double m12 = 2.0 / 13;
+            double m26 = 2.0 / 27;
+            double m9 = 2.0 / 10;
+            double ema12 = 0;
+            double ema26 = 0;
+            double signal = 0;
+            for (int i = 0; i < histories.size(); i++) {
+                double close = histories.get(i).getClose();
+                if (i == 0) {
+                    ema12 = close;
+                    ema26 = close;
+                } else {
+                    ema12 = (close - ema12) * m12 + ema12;
+                    ema26 = (close - ema26) * m26 + ema26;
+                }
+                double d = ema12 - ema26;
+                signal = i == 0 ? d : (d - signal) * m9 + signal;
+                boolean ready = i + 1 >= PriceSeriesAnalyzer.MACD_MIN_BARS;
+                dif[i] = ready ? d : Double.NaN;
+                dea[i] = ready ? signal : Double.NaN;
+                bar[i] = ready ? 2 * (d - signal) : Double.NaN;
+            }
+        }
+
+        static void rsi(List<StockHistory> histories, int period, double[] out) {
+            double gain = 0;
+            double loss = 0;
+            for (int i = 0; i < histories.size(); i++) {
+                if (i > 0) {
+                    double change = histories.get(i).getClose() - histories.get(i - 1).getClose();
+                    if (change > 0) {
+                        gain += change;
+                    } else {
+                        loss -= change;
+                    }
+                }
+                if (i > period) {
+                    double evicted = histories.get(i - period).getClose() - histories.get(i - period - 1).getClose();
+                    if (evicted > 0) {
+                        gain = Math.max(0, gain - evicted);
+                    } else {
+                        loss = Math.max(0, loss + evicted);
+                    }
+                }
+                out[i] = i < period ? Double.NaN : loss <= 1e-9 ? 100.0 : 100 - 100 / (1 + gain / loss);
+            }
+        }
+
+        static void boll(List<StockHistory> histories, int period, double k,
+                         double[] middle, double[] upper, double[] lower) {
+            double sum = 0;
+            double sumSq = 0;
+            for (int i = 0; i < histories.size(); i++) {
+                double close = histories.get(i).getClose();
+                sum += close;
+                sumSq += close * close;
+                if (i >= period) {
+                    double evicted = histories.get(i - period).getClose();
+                    sum -= evicted;
+                    sumSq -= evicted * evicted;
+                }
+                if (i + 1 < period) {
+                    middle[i] = Double.NaN;
+                    upper[i] = Double.NaN;
+                    lower[i] = Double.NaN;
+                } else {
+                    double mean = sum / period;
+                    double std = Math.sqrt(Math.max(0, sumSq / period - mean * mean));
+                    middle[i] = mean;
+                    upper[i] = mean + k * std;
+                    lower[i] = mean - k * std;
+                }
+            }
+        }
+
+        static void rollingHigh(List<StockHistory> histories, int window, double[] out, int[] deque) {
+            int head = 0;
+            int tail = 0;
+            for (int i = 0; i < histories.size(); i++) {
+                double high = histories.get(i).getHigh();
+                while (tail > head && histories.get(deque[tail - 1]).getHigh() <= high) {
+                    tail--;
+                }
+                deque[tail++] = i;
+                if (deque[head] <= i - window) {
+                    head++;
+                }
+                out[i] = histories.get(deque[head]).getHigh();
+            }
+        }
+    }
+}
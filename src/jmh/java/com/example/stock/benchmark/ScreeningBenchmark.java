@@ -0,0 +1,162 @@
+package com.example.stock.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.stock.dto.StockAnalysisDTO;
+import com.example.stock.entity.StockHistory;
+import com.example.stock.service.StockLatestSummaryService;
+import com.example.stock.service.analysis.MarketSnapshot;
+import com.example.stock.service.analysis.MarketSnapshotService;
+import com.example.stock.service.analysis.PriceSeries;
+import com.example.stock.service.screen.GoldenCrossDetector;
+import com.example.stock.service.screen.ScreeningCondition;
+import com.example.stock.service.screen.ScreeningEngine;
+import com.example.stock.service.screen.ScreeningParams;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 筛选条件基准测试
+ * 合成行情按每只股票250根K线切分后放入内存快照，bars为快照中的K线总数。
+ * 条件1和条件4在生产中读取stock_latest_summary，由summary参数区分两种情况：
+ * ready —— 汇总表可用，每次调用按汇总表查询的条件扫描一遍内存中的汇总行（每只股票一行，setup时由K线算出）；
+ * fallback —— 汇总表不可用，两个条件都退回在快照上用PriceSeriesAnalyzer计算。
+ * 其余条件在两种情况下都在快照上计算。引擎日志在setup中关闭，避免控制台输出计入耗时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScreeningBenchmark {
+
+    private static final int BARS_PER_SYMBOL = 250;
+
+    @Param({"1000", "10000", "70000"})
+    public int bars;
+
+    @Param({"ready", "fallback"})
+    public String summary;
+
+    private ScreeningEngine engine;
+    private List<String> allConditions;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger("com.example.stock")).setLevel(Level.OFF);
+
+        Map<String, PriceSeries> seriesBySymbol = new HashMap<>();
+        List<SummaryRow> summaryRows = new ArrayList<>();
+        int symbols = Math.max(1, bars / BARS_PER_SYMBOL);
+        for (int i = 0; i < symbols; i++) {
+            String symbol = String.format("sz%06d", i);
+            List<StockHistory> histories = BenchmarkData.histories(symbol, BARS_PER_SYMBOL, BenchmarkData.SEED + i);
+            seriesBySymbol.put(symbol, PriceSeries.fromHistories(symbol, histories));
+            LocalDate yearStart = histories.get(histories.size() - 1).getDay().minusYears(1);
+            summaryRows.add(new SummaryRow(symbol, histories.get(histories.size() - 1).getClose(),
+                    histories.stream().mapToDouble(StockHistory::getHigh).max().orElse(0),
+                    histories.stream().filter(history -> history.getDay().isAfter(yearStart))
+                            .mapToDouble(StockHistory::getHigh).max().orElse(0)));
+        }
+        MarketSnapshot snapshot = MarketSnapshot.of(seriesBySymbol);
+
+        MarketSnapshotService snapshotService = new MarketSnapshotService(null, 400, 300) {
+            @Override
+            public MarketSnapshot getSnapshot() {
+                return snapshot;
+            }
+        };
+        StockLatestSummaryService summaryService = "ready".equals(summary)
+                ? new SummaryTable(summaryRows)
+                : new StockLatestSummaryService(null, null) {
+                    // 预先创建的异常：只测量快照上的回退计算，不测量异常栈的填充
+                    private final IllegalStateException unavailable = new IllegalStateException("汇总表不可用");
+
+                    @Override
+                    public List<Map<String, Object>> findBelowHistoricalHigh(LocalDate startDate, double dropPercentage) {
+                        throw unavailable;
+                    }
+
+                    @Override
+                    public List<Map<String, Object>> findNearYearHigh(double withinPercentage) {
+                        return null;
+                    }
+                };
+        engine = new ScreeningEngine(snapshotService, summaryService,
+                new GoldenCrossDetector(snapshotService, null));
+        allConditions = Arrays.stream(ScreeningCondition.values()).map(ScreeningCondition::getCode).toList();
+    }
+
+    /**
+     * stock_latest_summary中筛选用到的列
+     */
+    private record SummaryRow(String symbol, double close, double allTimeHigh, double high52w) {
+    }
+
+    /**
+     * 内存中的汇总表：每次调用按StockLatestSummaryRepository中两条查询的WHERE条件扫描全部汇总行，
+     * 并像JDBC结果映射一样为每个命中行构造Map
+     */
+    private static final class SummaryTable extends StockLatestSummaryService {
+        private final List<SummaryRow> rows;
+
+        SummaryTable(List<SummaryRow> rows) {
+            super(null, null);
+            this.rows = rows;
+        }
+
+        @Override
+        public List<Map<String, Object>> findBelowHistoricalHigh(LocalDate startDate, double dropPercentage) {
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (SummaryRow row : rows) {
+                if (row.close() < row.allTimeHigh() * (1 - dropPercentage / 100)) {
+                    results.add(Map.of("symbol", row.symbol(), "max_high", row.allTimeHigh(),
+                            "current_price", row.close()));
+                }
+            }
+            return results;
+        }
+
+        @Override
+        public List<Map<String, Object>> findNearYearHigh(double withinPercentage) {
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (SummaryRow row : rows) {
+                if (row.high52w() > 0 && row.close() <= row.high52w()
+                        && row.close() >= row.high52w() * (1 - withinPercentage / 100)) {
+                    results.add(Map.of("symbol", row.symbol(), "year_high", row.high52w(),
+                            "current_price", row.close()));
+                }
+            }
+            return results;
+        }
+    }
+
+    /**
+     * 单条件参数，只用于singleCondition，避免allConditions随条件参数重复运行
+     */
+    @State(Scope.Benchmark)
+    public static class Condition {
+        @Param({"below_75_percent", "high_volatility_low_price", "continuous_rise",
+                "near_year_high", "volume_surge", "ma_golden_cross"})
+        public String code;
+    }
+
+    @Benchmark
+    public List<StockAnalysisDTO> singleCondition(Condition condition) {
+        return engine.screen(List.of(condition.code), ScreeningParams.defaults());
+    }
+
+    @Benchmark
+    public List<StockAnalysisDTO> allConditions() {
+        return engine.screen(allConditions, ScreeningParams.defaults());
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.stock.config;
 
+import com.example.stock.service.StockHistorySyncPipeline;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
@@ -26,5 +28,38 @@ public class ExecutorConfig {
         executor.initialize(); //必须初始化
         return executor;
     }
-}
 
+    /**
+     * 配置历史K线并发拉取的线程池
+     * 线程数即同时处理的股票数，实际请求速率由SinaRateLimiter统一控制
+     * @param concurrency 并发工作线程数
+     * @return TaskExecutor线程池实例
+     */
+    @Bean(name = "historyFetchExecutor")
+    public TaskExecutor historyFetchExecutor(@Value("${stock.sync.concurrency:4}") int concurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setThreadNamePrefix("history-fetch-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 配置历史数据同步流水线
+     * 网络阶段复用historyFetchExecutor，计算阶段的线程由流水线按此配置在每次同步时创建，
+     * 写入阶段由StockHistoryBatchWriter跨股票合并（stock.history.write-behind.*）
+     * @param analysisThreads 计算阶段线程数，默认为CPU核数
+     * @param queueCapacity 网络与计算阶段之间的队列容量（股票数）
+     * @return 流水线配置
+     */
+    @Bean
+    public StockHistorySyncPipeline.Options syncPipelineOptions(
+            @Value("${stock.sync.pipeline.analysis-threads:0}") int analysisThreads,
+            @Value("${stock.sync.pipeline.queue-capacity:64}") int queueCapacity) {
+        int threads = analysisThreads > 0 ? analysisThreads : Runtime.getRuntime().availableProcessors();
+        return new StockHistorySyncPipeline.Options(threads, queueCapacity);
+    }
+}
@@ -1,56 +1,181 @@
 package com.example.stock.config;
 
+import com.example.stock.service.client.HttpTransportMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.client.ClientHttpResponse;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
-import java.time.Duration;
 
 /**
  * RestTemplate配置类
- * 配置用于HTTP请求的RestTemplate实例，优化超时设置
+ * 配置用于HTTP请求的RestTemplate实例，底层使用Apache HttpClient 5连接池
  */
 @Slf4j
 @Configuration
 public class RestTemplateConfig {
 
+    @Value("${stock.http.pool.max-total:20}")
+    private int maxTotal;
+
+    @Value("${stock.http.pool.max-per-route:10}")
+    private int maxPerRoute;
+
+    @Value("${stock.http.pool.idle-evict-seconds:30}")
+    private long idleEvictSeconds;
+
+    @Value("${stock.http.pool.connection-ttl-seconds:300}")
+    private long connectionTtlSeconds;
+
+    @Value("${stock.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${stock.http.read-timeout-ms:15000}")
+    private long readTimeoutMs;
+
+    /**
+     * 配置HTTP连接池
+     * 按路由（主机）限制连接数，连续请求同一主机时复用keep-alive连接，避免每次都重新建立TCP+TLS连接
+     * @return 连接池管理器
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager() {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))  // 连接超时
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))      // 读取超时
+                        .setTimeToLive(TimeValue.ofSeconds(connectionTtlSeconds))
+                        .build())
+                .build();
+    }
+
+    /**
+     * 配置HTTP客户端
+     * 1. 使用连接池并定期清理空闲和过期连接
+     * 2. 默认开启内容压缩协商：请求携带Accept-Encoding，响应的gzip/deflate自动解压
+     * @param connectionManager 连接池管理器
+     * @return HttpClient实例
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager) {
+        log.info("HTTP连接池配置: 总连接数={}, 单路由连接数={}, 空闲清理={}s, 连接存活={}s",
+                maxTotal, maxPerRoute, idleEvictSeconds, connectionTtlSeconds);
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(readTimeoutMs))  // 等待连接池分配连接的超时
+                        .build())
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictSeconds))
+                .evictExpiredConnections()
+                .build();
+    }
+
     /**
      * 配置RestTemplate实例，用于发送HTTP请求
      * 优化点：
-     * 1. 设置合理的超时时间，防止请求阻塞
-     * 2. 添加请求计时日志
+     * 1. 使用连接池和keep-alive复用连接
+     * 2. 设置合理的超时时间，防止请求阻塞
+     * 3. 添加请求计时日志和传输指标
      * @return RestTemplate实例
      */
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        // 使用RestTemplateBuilder配置超时
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient httpClient,
+                                     HttpTransportMetrics transportMetrics) {
         RestTemplate restTemplate = builder
-                .setConnectTimeout(Duration.ofSeconds(5))  // 连接超时：5秒
-                .setReadTimeout(Duration.ofSeconds(15))    // 读取超时：15秒
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
                 .build();
-        
+
         // 设置字符串消息转换器字符集为UTF-8
         restTemplate.getMessageConverters().stream()
                 .filter(converter -> converter instanceof StringHttpMessageConverter)
                 .forEach(converter -> ((StringHttpMessageConverter) converter).setDefaultCharset(StandardCharsets.UTF_8));
-        
-        // 添加请求计时拦截器
+
+        // 添加请求计时拦截器：响应体由解析器流式读取，耗时在RestTemplate读完并关闭响应时记录，包含传输响应体的时间
         restTemplate.getInterceptors().add((request, body, execution) -> {
-            long start = System.currentTimeMillis();
-            ClientHttpResponse response = execution.execute(request, body);
-            long duration = System.currentTimeMillis() - start;
-            log.debug("HTTP请求: {} - 状态:{}, 耗时:{}ms", 
-                    request.getURI(), response.getStatusCode(), duration);
-            return response;
+            long start = System.nanoTime();
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                return new TimedClientHttpResponse(response, start, request.getURI(), transportMetrics);
+            } catch (IOException e) {
+                transportMetrics.record(System.nanoTime() - start, false);
+                throw e;
+            }
         });
-        
+
         return restTemplate;
     }
-}
 
+    /**
+     * 关闭时记录请求耗时的响应包装
+     * RestTemplate在响应体提取完成后关闭响应，因此记录的是从发出请求到响应体读取完毕的时间
+     */
+    private static final class TimedClientHttpResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final long start;
+        private final URI uri;
+        private final HttpTransportMetrics transportMetrics;
+        private boolean closed;
+
+        TimedClientHttpResponse(ClientHttpResponse delegate, long start, URI uri, HttpTransportMetrics transportMetrics) {
+            this.delegate = delegate;
+            this.start = start;
+            this.uri = uri;
+            this.transportMetrics = transportMetrics;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                if (!closed) {
+                    closed = true;
+                    long duration = System.nanoTime() - start;
+                    transportMetrics.record(duration, true);
+                    log.debug("HTTP请求: {} - 耗时:{}ms", uri, duration / 1_000_000);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.stock.config;
+
+import com.example.stock.service.client.stub.RecordedSinaData;
+import com.example.stock.service.client.stub.SinaStubData;
+import com.example.stock.service.client.stub.SinaStubOptions;
+import com.example.stock.service.client.stub.SinaStubServer;
+import com.example.stock.service.client.stub.SyntheticSinaData;
+import com.example.stock.service.synthetic.SyntheticMarketSpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 新浪接口替身服务配置
+ * stock.sina.stub.enabled=true 时随应用启动本地替身服务；需同时把 stock.sina.kline-url 和
+ * stock.sina.hq-node-url 指向该端口，同步流程即可在不访问新浪的情况下完整运行
+ */
+@Configuration
+@ConditionalOnProperty(name = "stock.sina.stub.enabled", havingValue = "true")
+public class SinaStubServerConfig {
+
+    @Value("${stock.sina.stub.port:18080}")
+    private int port;
+
+    @Value("${stock.sina.stub.recorded-dir:}")
+    private String recordedDir;
+
+    @Value("${stock.sina.stub.latency-ms:0}")
+    private long latencyMillis;
+
+    @Value("${stock.sina.stub.jitter-ms:0}")
+    private long jitterMillis;
+
+    @Value("${stock.sina.stub.error-rate:0}")
+    private double errorRate;
+
+    @Value("${stock.sina.stub.throttle-rate:0}")
+    private double throttleRate;
+
+    @Value("${stock.sina.stub.max-requests-per-second:0}")
+    private int maxRequestsPerSecond;
+
+    @Value("${stock.synthetic.symbols:5000}")
+    private int symbols;
+
+    @Value("${stock.synthetic.years:20}")
+    private int years;
+
+    @Value("${stock.synthetic.seed:" + SyntheticMarketSpec.DEFAULT_SEED + "}")
+    private long seed;
+
+    /**
+     * 配置了录制目录时回放录制的响应，否则按 stock.synthetic.* 规格生成合成行情
+     * @return 已启动的替身服务
+     */
+    @Bean(destroyMethod = "close")
+    public SinaStubServer sinaStubServer() throws IOException {
+        SinaStubData data = StringUtils.hasText(recordedDir)
+                ? new RecordedSinaData(Path.of(recordedDir))
+                : new SyntheticSinaData(new SyntheticMarketSpec(symbols, years, seed, null));
+        return SinaStubServer.start(port, data, new SinaStubOptions(latencyMillis, jitterMillis, errorRate,
+                throttleRate, maxRequestsPerSecond, seed));
+    }
+}
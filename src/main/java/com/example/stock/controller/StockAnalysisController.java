@@ -2,6 +2,8 @@ package com.example.stock.controller;
 
 import com.example.stock.dto.StockAnalysisDTO;
 import com.example.stock.service.StockAnalysisService;
+import com.example.stock.service.screen.MaPair;
+import com.example.stock.service.screen.ScreeningParams;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -12,8 +14,6 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
@@ -35,6 +35,37 @@ public class StockAnalysisController {
      */
     @GetMapping
     public String analysisPage(Model model) {
+        model.addAttribute("screenDates", stockAnalysisService.findScreenDates());
+        return "stocks/analysis";
+    }
+
+    /**
+     * 查看某个交易日落表的筛选结果（默认参数），不重新计算
+     * @param date 交易日（可选，默认最近一个已落表的交易日）
+     * @param conditions 筛选条件（可选，默认全部条件）
+     * @param model 视图模型
+     * @return 股票分析页面视图名称
+     */
+    @GetMapping("/daily")
+    public String dailyResults(
+            @RequestParam(value = "date", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(value = "conditions", required = false) List<String> conditions,
+            Model model
+    ) {
+        List<LocalDate> screenDates = stockAnalysisService.findScreenDates();
+        model.addAttribute("screenDates", screenDates);
+        LocalDate screenDate = date != null ? date : (screenDates.isEmpty() ? null : screenDates.get(0));
+        if (screenDate == null) {
+            model.addAttribute("message", "暂无每日筛选结果，历史数据同步完成后自动生成");
+            return "stocks/analysis";
+        }
+
+        List<StockAnalysisDTO> results = stockAnalysisService.findScreenResults(conditions, screenDate);
+        model.addAttribute("results", results);
+        model.addAttribute("selectedConditions", conditions);
+        model.addAttribute("resultCount", results.size());
+        model.addAttribute("screenDate", screenDate);
         return "stocks/analysis";
     }
 
@@ -43,7 +74,9 @@ public class StockAnalysisController {
      * @param conditions 筛选条件（多选）
      * @param startDate 开始日期（可选，用于条件1）
      * @param dropPercentage 跌幅百分比（可选，用于条件1，默认25%）
-     * @param goldenCrossDate 均线金叉日期（可选，用于条件6，默认当前日期）
+     * @param goldenCrossDate 均线金叉开始日期（可选，用于条件6，默认最新交易日）
+     * @param goldenCrossEndDate 均线金叉结束日期（可选，用于条件6，默认与开始日期相同）
+     * @param maPair 均线组合（可选，用于条件6，5_10 / 10_30 / 5_30，默认5_10）
      * @param model 视图模型
      * @return 股票分析页面视图名称
      */
@@ -55,74 +88,31 @@ public class StockAnalysisController {
             @RequestParam(value = "dropPercentage", required = false) Double dropPercentage,
             @RequestParam(value = "goldenCrossDate", required = false)
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate goldenCrossDate,
+            @RequestParam(value = "goldenCrossEndDate", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate goldenCrossEndDate,
+            @RequestParam(value = "maPair", required = false) String maPair,
             Model model
     ) {
         if (conditions == null || conditions.isEmpty()) {
+            model.addAttribute("screenDates", stockAnalysisService.findScreenDates());
             model.addAttribute("message", "请至少选择一个筛选条件");
             return "stocks/analysis";
         }
 
-        List<StockAnalysisDTO> results = analyzeStocksWithParams(conditions, startDate, dropPercentage, goldenCrossDate);
+        ScreeningParams params = new ScreeningParams(startDate, dropPercentage, goldenCrossDate, goldenCrossEndDate,
+                MaPair.fromCode(maPair));
+        List<StockAnalysisDTO> results = stockAnalysisService.analyzeStocks(conditions, params);
         
+        model.addAttribute("screenDates", stockAnalysisService.findScreenDates());
         model.addAttribute("results", results);
         model.addAttribute("selectedConditions", conditions);
         model.addAttribute("resultCount", results.size());
         model.addAttribute("startDate", startDate);
         model.addAttribute("dropPercentage", dropPercentage);
         model.addAttribute("goldenCrossDate", goldenCrossDate);
+        model.addAttribute("goldenCrossEndDate", goldenCrossEndDate);
+        model.addAttribute("maPair", params.maPairOrDefault().getCode());
         
         return "stocks/analysis";
     }
-    
-    /**
-     * 根据条件筛选股票（带参数）
-     * @param conditions 筛选条件（多选）
-     * @param startDate 开始日期（可选，用于条件1）
-     * @param dropPercentage 跌幅百分比（可选，用于条件1，默认25%）
-     * @param goldenCrossDate 均线金叉日期（可选，用于条件6，默认当前日期）
-     * @return 股票分析结果列表
-     */
-    private List<StockAnalysisDTO> analyzeStocksWithParams(List<String> conditions, LocalDate startDate, 
-            Double dropPercentage, LocalDate goldenCrossDate) {
-        long startTime = System.currentTimeMillis();
-        log.info("开始根据条件分析股票: {}, startDate: {}, dropPercentage: {}, goldenCrossDate: {}", 
-                conditions, startDate, dropPercentage, goldenCrossDate);
-        
-        List<StockAnalysisDTO> allResults = new ArrayList<>();
-        
-        if (conditions == null || conditions.isEmpty()) {
-            log.info("条件列表为空，返回空结果");
-            return allResults;
-        }
-        
-        // 条件1: 跌幅超过指定百分比的股票
-        if (conditions.contains("below_75_percent")) {
-            // 只处理条件1，不处理其他条件
-            List<String> condition1Only = Collections.singletonList("below_75_percent");
-            allResults.addAll(stockAnalysisService.analyzeStocks(condition1Only, startDate, dropPercentage));
-        }
-        
-        // 条件2-5: 其他条件保持不变
-        List<String> otherConditions = new ArrayList<>();
-        for (String condition : conditions) {
-            if (!condition.equals("below_75_percent") && !condition.equals("ma_golden_cross")) {
-                otherConditions.add(condition);
-            }
-        }
-        
-        if (!otherConditions.isEmpty()) {
-            allResults.addAll(stockAnalysisService.analyzeStocks(otherConditions));
-        }
-        
-        // 条件6: 均线金叉（5日均线上穿10日均线）
-        if (conditions.contains("ma_golden_cross")) {
-            LocalDate dateToUse = goldenCrossDate != null ? goldenCrossDate : LocalDate.now();
-            allResults.addAll(stockAnalysisService.findGoldenCrossStocksWithDate(dateToUse));
-        }
-        
-        long totalTime = System.currentTimeMillis() - startTime;
-        log.info("条件分析完成，共找到 {} 只符合条件的股票，总耗时 {}ms", allResults.size(), totalTime);
-        
-        return allResults;
-    }
-}
\ No newline at end of file
+}
@@ -1,24 +1,29 @@
 package com.example.stock.controller;
 
 import com.example.stock.service.StockDataFetchService;
+import com.example.stock.service.search.SymbolMatch;
+import com.example.stock.service.search.SymbolSearchService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * 股票数据API控制器
- * 提供股票数据同步相关的REST API接口
+ * 提供股票数据同步和股票检索相关的REST API接口
  */
 @RestController
 @RequestMapping("/api/stocks")
 @RequiredArgsConstructor
 public class StockApiController {
     private final StockDataFetchService dataFetchService;
+    private final SymbolSearchService symbolSearchService;
 
     /**
      * 手动触发数据同步接口
@@ -38,4 +43,17 @@ public class StockApiController {
         }
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * 股票检索接口
+     * 按代码、数字代码、名称或拼音首字母前缀检索股票，用于输入框联想
+     * @param q 输入前缀（如 sh600、600、浦发、pfyh）
+     * @param limit 最多返回的条数（默认10，最大50）
+     * @return 命中的股票列表
+     */
+    @GetMapping("/search")
+    public List<SymbolMatch> searchSymbols(@RequestParam("q") String q,
+                                           @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return symbolSearchService.suggest(q, Math.max(1, Math.min(50, limit)));
+    }
 }
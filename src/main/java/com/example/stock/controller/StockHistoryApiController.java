@@ -0,0 +1,52 @@
+package com.example.stock.controller;
+
+import com.example.stock.dto.StockHistoryCursor;
+import com.example.stock.dto.StockHistoryPage;
+import com.example.stock.service.StockHistoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 股票历史数据API控制器
+ * 提供键集分页的历史数据查询接口
+ */
+@RestController
+@RequestMapping("/api/stock-history")
+@RequiredArgsConstructor
+public class StockHistoryApiController {
+
+    private final StockHistoryService stockHistoryService;
+
+    /**
+     * 键集分页查询历史数据
+     * 响应中的nextCursor/prevCursor原样传回after/before参数即可翻页，为null表示没有更多数据
+     * @param symbol 股票代码（可选），代码、数字代码、名称或拼音首字母的前缀
+     * @param after 下一页游标（可选）
+     * @param before 上一页游标（可选）
+     * @param last 是否返回最后一页
+     * @param size 每页大小（默认30，最大500）
+     * @return 分页结果；游标格式不正确时返回400
+     */
+    @GetMapping
+    public ResponseEntity<?> listHistory(
+            @RequestParam(value = "symbol", required = false) String symbol,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "before", required = false) String before,
+            @RequestParam(value = "last", defaultValue = "false") boolean last,
+            @RequestParam(value = "size", defaultValue = "30") int size
+    ) {
+        try {
+            StockHistoryPage page = stockHistoryService.findHistoryPage(symbol, StockHistoryCursor.parse(after),
+                    last ? StockHistoryCursor.OLDEST : StockHistoryCursor.parse(before), size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+}
@@ -1,12 +1,9 @@
 package com.example.stock.controller;
 
-import com.example.stock.entity.StockHistory;
+import com.example.stock.dto.StockHistoryCursor;
+import com.example.stock.dto.StockHistoryPage;
 import com.example.stock.service.StockHistoryService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -26,9 +23,11 @@ public class StockHistoryController {
 
     /**
      * 股票历史数据页面
-     * 支持按股票代码搜索和分页展示历史价格数据
+     * 支持按股票代码搜索，按 (交易日期, 股票代码) 键集分页展示历史价格数据，翻页深度不影响查询耗时
      * @param symbol 股票代码搜索参数（可选）
-     * @param page 页码（默认0）
+     * @param after 下一页游标（可选）
+     * @param before 上一页游标（可选）
+     * @param last 是否跳到最后一页
      * @param size 每页大小（默认30）
      * @param model 视图模型
      * @return 股票历史数据页面视图名称
@@ -36,16 +35,22 @@ public class StockHistoryController {
     @GetMapping
     public String listHistory(
             @RequestParam(value = "symbol", required = false) String symbol,
-            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "before", required = false) String before,
+            @RequestParam(value = "last", defaultValue = "false") boolean last,
             @RequestParam(value = "size", defaultValue = "30") int size,
             Model model
     ) {
-        // 创建分页请求，按交易日期降序排列
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "day"));
-        
-        Page<StockHistory> historyData = stockHistoryService.findHistoryBySymbol(symbol, pageable);
+        StockHistoryPage historyData;
+        try {
+            historyData = stockHistoryService.findHistoryPage(symbol, StockHistoryCursor.parse(after),
+                    last ? StockHistoryCursor.OLDEST : StockHistoryCursor.parse(before), size);
+        } catch (IllegalArgumentException e) {
+            model.addAttribute("message", e.getMessage());
+            historyData = stockHistoryService.findHistoryPage(symbol, null, null, size);
+        }
         model.addAttribute("historyData", historyData);
         model.addAttribute("symbol", symbol);
         return "stocks/history_price";
     }
-}
\ No newline at end of file
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * 股票分析结果DTO
@@ -57,7 +58,12 @@ public class StockAnalysisDTO {
     private Integer volatilityCount;
     
     /**
-     * 匹配的条件描述
+     * 匹配的条件描述（命中多个条件时以分号连接）
      */
     private String matchedCondition;
+    
+    /**
+     * 命中的全部条件描述
+     */
+    private List<String> matchedConditions;
 }
\ No newline at end of file
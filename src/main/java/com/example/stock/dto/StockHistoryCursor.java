@@ -0,0 +1,61 @@
+package com.example.stock.dto;
+
+import com.example.stock.entity.StockHistory;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 历史数据键集分页游标
+ * 对应一条记录的 (trade_date, symbol)，编码为 yyyyMMdd-symbol（如 20240628-sh600000），可直接放在URL中
+ * @param day 交易日期
+ * @param symbol 股票代码
+ */
+public record StockHistoryCursor(LocalDate day, String symbol) {
+
+    /**
+     * 晚于所有记录的游标，从它向后翻页即第一页
+     */
+    public static final StockHistoryCursor NEWEST = new StockHistoryCursor(LocalDate.of(9999, 12, 31), "");
+
+    /**
+     * 早于所有记录的游标，从它向前翻页即最后一页
+     */
+    public static final StockHistoryCursor OLDEST = new StockHistoryCursor(LocalDate.of(1000, 1, 1), "");
+
+    public static StockHistoryCursor of(StockHistory history) {
+        return new StockHistoryCursor(history.getDay(), history.getSymbol());
+    }
+
+    /**
+     * 解析游标
+     * @param value 编码后的游标，为空时返回null
+     * @throws IllegalArgumentException 格式不正确
+     */
+    public static StockHistoryCursor parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        int separator = value.indexOf('-');
+        if (separator != 8) {
+            throw new IllegalArgumentException("分页游标格式不正确: " + value);
+        }
+        try {
+            return new StockHistoryCursor(
+                    LocalDate.parse(value.substring(0, separator), DateTimeFormatter.BASIC_ISO_DATE),
+                    value.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("分页游标格式不正确: " + value, e);
+        }
+    }
+
+    public String encode() {
+        return day.format(DateTimeFormatter.BASIC_ISO_DATE) + "-" + symbol;
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.stock.dto;
+
+import com.example.stock.entity.StockHistory;
+
+import java.util.List;
+
+/**
+ * 历史数据键集分页结果
+ * 不包含总数和页码，只提供前后翻页的游标
+ * @param content 本页记录，按 (trade_date, symbol) 降序排列
+ * @param size 每页大小
+ * @param symbol 股票代码过滤条件（可能为空）
+ * @param nextCursor 下一页（更早记录）的游标，没有下一页时为null
+ * @param prevCursor 上一页（更新记录）的游标，没有上一页时为null
+ */
+public record StockHistoryPage(List<StockHistory> content, int size, String symbol,
+                               String nextCursor, String prevCursor) {
+
+    public boolean isHasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean isHasPrevious() {
+        return prevCursor != null;
+    }
+}
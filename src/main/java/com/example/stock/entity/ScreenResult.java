@@ -0,0 +1,68 @@
+package com.example.stock.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 每日筛选结果实体类
+ * 映射数据库中的screen_result表，每轮同步完成后按最新交易日对每个内置条件（默认参数）求值并落表，
+ * 每个 (交易日, 条件, 股票) 一行；分析页面直接读取，历史交易日的结果保留供回看
+ */
+@Entity
+@Table(name = "screen_result",
+        uniqueConstraints = @UniqueConstraint(name = "uk_date_condition_symbol",
+                columnNames = {"trade_date", "condition_code", "symbol"}))
+@Data
+public class ScreenResult {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 筛选所基于的交易日
+     */
+    @Column(name = "trade_date", nullable = false)
+    private LocalDate tradeDate;
+
+    /**
+     * 条件代码（与页面表单一致，如below_75_percent）
+     */
+    @Column(name = "condition_code", nullable = false, length = 40)
+    private String conditionCode;
+
+    @Column(name = "symbol", nullable = false, length = 20)
+    private String symbol;
+
+    @Column(name = "current_price")
+    private Double currentPrice;
+
+    @Column(name = "historical_high")
+    private Double historicalHigh;
+
+    @Column(name = "historical_low")
+    private Double historicalLow;
+
+    @Column(name = "drop_percentage")
+    private Double dropPercentage;
+
+    @Column(name = "volatility_count")
+    private Integer volatilityCount;
+
+    /**
+     * 命中条件的描述
+     */
+    @Column(name = "matched_condition", length = 200)
+    private String matchedCondition;
+
+    /**
+     * 计算所基于的stock_history主键水位，用于判断落表结果是否仍是最新数据
+     */
+    @Column(name = "data_watermark")
+    private Long dataWatermark;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
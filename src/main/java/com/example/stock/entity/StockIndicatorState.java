@@ -0,0 +1,116 @@
+package com.example.stock.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 股票技术指标增量状态实体类
+ * 映射数据库中的stock_indicator_state表，保存每只股票最后一根K线之后的指标中间状态，
+ * 每日增量同步时据此以常数时间计算新K线的指标，无需重新加载历史数据
+ */
+@Entity
+@Table(name = "stock_indicator_state")
+@Data
+public class StockIndicatorState {
+    /**
+     * 股票代码（如sh600000）
+     */
+    @Id
+    @Column(name = "symbol", nullable = false, length = 20)
+    private String symbol;
+
+    /**
+     * 状态对应的最后一根K线的交易日期
+     */
+    @Column(name = "trade_date", nullable = false)
+    private LocalDate tradeDate;
+
+    /**
+     * 已累计的K线数量
+     */
+    @Column(name = "bar_count", nullable = false)
+    private int barCount;
+
+    /**
+     * 最后一根K线的5/10/30日均价，用于判断均线交叉
+     */
+    @Column(name = "last_ma_price5")
+    private double lastMaPrice5;
+
+    @Column(name = "last_ma_price10")
+    private double lastMaPrice10;
+
+    @Column(name = "last_ma_price30")
+    private double lastMaPrice30;
+
+    /**
+     * 最后一根K线的连续涨跌天数
+     */
+    @Column(name = "last_consecutive_days")
+    private int lastConsecutiveDays;
+
+    /**
+     * EMA12 / EMA26 / DEA 当前值
+     */
+    @Column(name = "ema12")
+    private double ema12;
+
+    @Column(name = "ema26")
+    private double ema26;
+
+    @Column(name = "dea")
+    private double dea;
+
+    /**
+     * 最后一根K线输出的DIF/DEA（未输出MACD时为null），用于判断MACD交叉
+     */
+    @Column(name = "last_macd_dif")
+    private Double lastMacdDif;
+
+    @Column(name = "last_macd_dea")
+    private Double lastMacdDea;
+
+    /**
+     * RSI6/12/24 窗口内的累计涨幅与跌幅
+     */
+    @Column(name = "rsi6_gain")
+    private double rsi6Gain;
+
+    @Column(name = "rsi6_loss")
+    private double rsi6Loss;
+
+    @Column(name = "rsi12_gain")
+    private double rsi12Gain;
+
+    @Column(name = "rsi12_loss")
+    private double rsi12Loss;
+
+    @Column(name = "rsi24_gain")
+    private double rsi24Gain;
+
+    @Column(name = "rsi24_loss")
+    private double rsi24Loss;
+
+    /**
+     * 布林带窗口内收盘价之和与平方和
+     */
+    @Column(name = "boll_sum")
+    private double bollSum;
+
+    @Column(name = "boll_sum_sq")
+    private double bollSumSq;
+
+    /**
+     * 最近的收盘价/最高价/最低价窗口（逗号分隔，按日期升序）
+     */
+    @Column(name = "recent_closes", length = 1000)
+    private String recentCloses;
+
+    @Column(name = "recent_highs", length = 800)
+    private String recentHighs;
+
+    @Column(name = "recent_lows", length = 800)
+    private String recentLows;
+}
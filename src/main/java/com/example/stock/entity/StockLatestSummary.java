@@ -0,0 +1,82 @@
+package com.example.stock.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 股票最新行情汇总实体类
+ * 映射数据库中的stock_latest_summary表，每只股票一行，保存最新K线、历史最高价和52周高低点，
+ * 由StockHistoryCustomRepositoryImpl在批量写入stock_history的同一事务中维护，
+ * 筛选条件直接读取本表，无需对stock_history做全表分组聚合
+ */
+@Entity
+@Table(name = "stock_latest_summary")
+@Data
+public class StockLatestSummary {
+    /**
+     * 股票代码（如sh600000）
+     */
+    @Id
+    @Column(name = "symbol", nullable = false, length = 20)
+    private String symbol;
+
+    /**
+     * 最新交易日期
+     */
+    @Column(name = "latest_date", nullable = false)
+    private LocalDate latestDate;
+
+    /**
+     * 最新收盘价
+     */
+    @Column(name = "close")
+    private double close;
+
+    /**
+     * 最新一根K线的5/10/30日均价
+     */
+    @Column(name = "ma_price5")
+    private double maPrice5;
+
+    @Column(name = "ma_price10")
+    private double maPrice10;
+
+    @Column(name = "ma_price30")
+    private double maPrice30;
+
+    /**
+     * 全部历史最高价及其日期
+     */
+    @Column(name = "all_time_high")
+    private double allTimeHigh;
+
+    @Column(name = "all_time_high_date")
+    private LocalDate allTimeHighDate;
+
+    /**
+     * 最新交易日之前52周（不含一年前当日）的最高价及其日期
+     */
+    @Column(name = "high_52w")
+    private double high52w;
+
+    @Column(name = "high_52w_date")
+    private LocalDate high52wDate;
+
+    /**
+     * 最新交易日之前52周的最低价及其日期
+     */
+    @Column(name = "low_52w")
+    private double low52w;
+
+    @Column(name = "low_52w_date")
+    private LocalDate low52wDate;
+
+    /**
+     * 最后更新时间
+     */
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
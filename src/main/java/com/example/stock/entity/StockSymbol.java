@@ -0,0 +1,56 @@
+package com.example.stock.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * 股票代码全集实体类
+ * 映射数据库中的stock_symbol表，记录真实存在的上市股票，历史数据同步只遍历此表中的代码
+ */
+@Entity
+@Table(name = "stock_symbol")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSymbol {
+    /**
+     * 股票唯一标识（如sh600000）
+     */
+    @Id
+    @Column(name = "symbol", nullable = false, length = 20)
+    private String symbol;
+
+    /**
+     * 股票代码（如600000）
+     */
+    @Column(name = "code", nullable = false, length = 10)
+    private String code;
+
+    /**
+     * 股票名称（来自行情列表，历史数据中发现的代码可能为空）
+     */
+    @Column(name = "name", length = 50)
+    private String name;
+
+    /**
+     * 代码来源：LISTING=行情列表，HISTORY=已有历史数据
+     */
+    @Column(name = "source", nullable = false, length = 10)
+    private String source;
+
+    /**
+     * 首次发现日期
+     */
+    @Column(name = "first_seen", nullable = false)
+    private LocalDate firstSeen;
+
+    /**
+     * 最近一次在行情列表中出现的日期
+     */
+    @Column(name = "last_seen", nullable = false)
+    private LocalDate lastSeen;
+}
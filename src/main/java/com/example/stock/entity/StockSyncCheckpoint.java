@@ -0,0 +1,45 @@
+package com.example.stock.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 同步号段检查点实体类
+ * 映射数据库中的stock_sync_checkpoint表，记录某次同步在每个号段内已完成到的股票代码：
+ * 号段内按代码升序处理，cursor_symbol及之前的代码均已处理完毕
+ */
+@Entity
+@Table(name = "stock_sync_checkpoint",
+        uniqueConstraints = @UniqueConstraint(name = "uk_run_segment", columnNames = {"run_id", "segment"}))
+@Data
+public class StockSyncCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    /**
+     * 号段标识（如600-605）
+     */
+    @Column(name = "segment", nullable = false, length = 20)
+    private String segment;
+
+    /**
+     * 号段内最后一个已完成的股票代码，尚未开始时为null
+     */
+    @Column(name = "cursor_symbol", length = 20)
+    private String cursorSymbol;
+
+    /**
+     * 号段是否已全部完成
+     */
+    @Column(name = "completed", nullable = false)
+    private boolean completed;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
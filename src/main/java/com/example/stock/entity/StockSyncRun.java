@@ -0,0 +1,61 @@
+package com.example.stock.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 历史数据同步运行记录实体类
+ * 映射数据库中的stock_sync_run表，每次批量同步一条记录，
+ * 进程在同步途中退出时状态停留在RUNNING，下次同步据此从各号段的检查点续跑
+ */
+@Entity
+@Table(name = "stock_sync_run")
+@Data
+public class StockSyncRun {
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_ABANDONED = "ABANDONED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 运行状态：RUNNING / COMPLETED / FAILED / ABANDONED（过期未续跑）
+     */
+    @Column(name = "status", nullable = false, length = 16)
+    private String status;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    /**
+     * 最近一次推进检查点的时间
+     */
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    /**
+     * 被续跑的次数
+     */
+    @Column(name = "resume_count", nullable = false)
+    private int resumeCount;
+
+    /**
+     * 累计（含续跑前）新处理、跳过、失败的股票数
+     */
+    @Column(name = "processed_count", nullable = false)
+    private int processedCount;
+
+    @Column(name = "skipped_count", nullable = false)
+    private int skippedCount;
+
+    @Column(name = "failed_count", nullable = false)
+    private int failedCount;
+}
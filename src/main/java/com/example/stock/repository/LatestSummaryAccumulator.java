@@ -0,0 +1,171 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.StockLatestSummary;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * 单只股票最新行情汇总的累加器
+ * 逐行接收K线（顺序不限），得到最新K线、历史最高价以及相对最新交易日的52周高低点；
+ * 也用于把一批新写入的K线合并到已有汇总上
+ */
+final class LatestSummaryAccumulator {
+
+    private final String symbol;
+
+    private LocalDate latestDate;
+    private double close;
+    private double maPrice5;
+    private double maPrice10;
+    private double maPrice30;
+
+    private double allTimeHigh = Double.NEGATIVE_INFINITY;
+    private LocalDate allTimeHighDate;
+
+    /**
+     * 全部K线的日期与最高/最低价，用于在最终的最新交易日确定后计算52周窗口
+     */
+    private int[] epochDays = new int[16];
+    private double[] highs = new double[16];
+    private double[] lows = new double[16];
+    private int size;
+
+    LatestSummaryAccumulator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    String getSymbol() {
+        return symbol;
+    }
+
+    LocalDate getLatestDate() {
+        return latestDate;
+    }
+
+    /**
+     * @return 最早一根K线的日期，没有K线时为null
+     */
+    LocalDate getEarliestDate() {
+        if (size == 0) {
+            return null;
+        }
+        int earliest = epochDays[0];
+        for (int i = 1; i < size; i++) {
+            earliest = Math.min(earliest, epochDays[i]);
+        }
+        return LocalDate.ofEpochDay(earliest);
+    }
+
+    void add(LocalDate date, double high, double low, double close,
+             double maPrice5, double maPrice10, double maPrice30) {
+        if (latestDate == null || !date.isBefore(latestDate)) {
+            this.latestDate = date;
+            this.close = close;
+            this.maPrice5 = maPrice5;
+            this.maPrice10 = maPrice10;
+            this.maPrice30 = maPrice30;
+        }
+        if (high > allTimeHigh) {
+            allTimeHigh = high;
+            allTimeHighDate = date;
+        }
+        if (size == epochDays.length) {
+            epochDays = Arrays.copyOf(epochDays, size * 2);
+            highs = Arrays.copyOf(highs, size * 2);
+            lows = Arrays.copyOf(lows, size * 2);
+        }
+        epochDays[size] = (int) date.toEpochDay();
+        highs[size] = high;
+        lows[size] = low;
+        size++;
+    }
+
+    /**
+     * @return 由已接收的全部K线得到的汇总
+     */
+    StockLatestSummary toSummary() {
+        StockLatestSummary summary = new StockLatestSummary();
+        summary.setSymbol(symbol);
+        summary.setAllTimeHigh(allTimeHigh);
+        summary.setAllTimeHighDate(allTimeHighDate);
+        applyLatest(summary);
+        int windowStart = windowStart(latestDate);
+        for (int i = 0; i < size; i++) {
+            if (epochDays[i] >= windowStart) {
+                LocalDate date = LocalDate.ofEpochDay(epochDays[i]);
+                if (summary.getHigh52wDate() == null || highs[i] > summary.getHigh52w()) {
+                    summary.setHigh52w(highs[i]);
+                    summary.setHigh52wDate(date);
+                }
+                if (summary.getLow52wDate() == null || lows[i] < summary.getLow52w()) {
+                    summary.setLow52w(lows[i]);
+                    summary.setLow52wDate(date);
+                }
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * 把本批K线合并到已有汇总上
+     * 只有本批全部晚于已有最新交易日、且已有52周高低点仍在新窗口内时才能直接合并
+     * @return 合并后的汇总；需要从stock_history重新计算时为null
+     */
+    StockLatestSummary mergeInto(StockLatestSummary existing) {
+        LocalDate earliest = getEarliestDate();
+        if (earliest == null || !earliest.isAfter(existing.getLatestDate())) {
+            // 回补或改写了已有日期的K线，旧的极值可能已失效
+            return null;
+        }
+        int windowStart = windowStart(latestDate);
+        if (existing.getHigh52wDate() == null || existing.getLow52wDate() == null
+                || existing.getHigh52wDate().toEpochDay() < windowStart
+                || existing.getLow52wDate().toEpochDay() < windowStart) {
+            return null;
+        }
+        StockLatestSummary batch = toSummary();
+        StockLatestSummary merged = new StockLatestSummary();
+        merged.setSymbol(symbol);
+        applyLatest(merged);
+        if (batch.getAllTimeHigh() > existing.getAllTimeHigh()) {
+            merged.setAllTimeHigh(batch.getAllTimeHigh());
+            merged.setAllTimeHighDate(batch.getAllTimeHighDate());
+        } else {
+            merged.setAllTimeHigh(existing.getAllTimeHigh());
+            merged.setAllTimeHighDate(existing.getAllTimeHighDate());
+        }
+        if (batch.getHigh52w() > existing.getHigh52w()) {
+            merged.setHigh52w(batch.getHigh52w());
+            merged.setHigh52wDate(batch.getHigh52wDate());
+        } else {
+            merged.setHigh52w(existing.getHigh52w());
+            merged.setHigh52wDate(existing.getHigh52wDate());
+        }
+        if (batch.getLow52w() < existing.getLow52w()) {
+            merged.setLow52w(batch.getLow52w());
+            merged.setLow52wDate(batch.getLow52wDate());
+        } else {
+            merged.setLow52w(existing.getLow52w());
+            merged.setLow52wDate(existing.getLow52wDate());
+        }
+        return merged;
+    }
+
+    private void applyLatest(StockLatestSummary summary) {
+        summary.setLatestDate(latestDate);
+        summary.setClose(close);
+        summary.setMaPrice5(maPrice5);
+        summary.setMaPrice10(maPrice10);
+        summary.setMaPrice30(maPrice30);
+        summary.setUpdatedAt(LocalDateTime.now());
+    }
+
+    /**
+     * 52周窗口起点（含）：一年前当日的下一天
+     */
+    private static int windowStart(LocalDate latestDate) {
+        return (int) latestDate.minusYears(1).plusDays(1).toEpochDay();
+    }
+}
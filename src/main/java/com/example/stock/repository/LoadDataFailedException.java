@@ -0,0 +1,15 @@
+package com.example.stock.repository;
+
+import org.springframework.dao.NonTransientDataAccessResourceException;
+
+/**
+ * LOAD DATA LOCAL INFILE语句本身执行失败
+ * 通常是连接未开启allowLoadLocalInfile或服务端关闭了local_infile，与同一事务中其他语句的失败区分开，
+ * 只有这种失败才让StockHistoryBulkLoader改用批量插入
+ */
+public class LoadDataFailedException extends NonTransientDataAccessResourceException {
+
+    public LoadDataFailedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
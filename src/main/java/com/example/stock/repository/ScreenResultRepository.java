@@ -0,0 +1,49 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.ScreenResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 每日筛选结果仓库接口
+ * 表内容由ScreenMaterializationService在同步完成后整日替换写入，这里只提供读取
+ */
+@Repository
+public interface ScreenResultRepository extends JpaRepository<ScreenResult, Long> {
+
+    /**
+     * 查询已落表的交易日
+     * @return 交易日列表，最近的在前
+     */
+    @Query("SELECT DISTINCT r.tradeDate FROM ScreenResult r ORDER BY r.tradeDate DESC")
+    List<LocalDate> findTradeDates();
+
+    /**
+     * 查询指定交易日、指定条件的筛选结果
+     * @param tradeDate 交易日
+     * @param conditionCodes 条件代码
+     * @return 按股票代码排序的结果，同一股票命中多个条件时有多行
+     */
+    @Query("""
+            SELECT r FROM ScreenResult r
+            WHERE r.tradeDate = :tradeDate AND r.conditionCode IN :conditionCodes
+            ORDER BY r.symbol
+            """)
+    List<ScreenResult> findByTradeDateAndConditions(@Param("tradeDate") LocalDate tradeDate,
+                                                    @Param("conditionCodes") Collection<String> conditionCodes);
+
+    /**
+     * 查询基于不早于指定水位的数据落表的交易日
+     * 每次落表都写入快照的最新交易日，水位最高的一次落表即最近一次，因此结果为空说明最近一次落表之后数据又有变化
+     * @param watermark stock_history主键水位
+     * @return 交易日，没有满足条件的落表结果时为null
+     */
+    @Query("SELECT MAX(r.tradeDate) FROM ScreenResult r WHERE r.dataWatermark >= :watermark")
+    LocalDate findLatestTradeDateSince(@Param("watermark") long watermark);
+}
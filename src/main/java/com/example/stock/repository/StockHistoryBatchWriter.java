@@ -0,0 +1,218 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.StockHistory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 历史数据跨股票合并写入器（write-behind）
+ * 增量同步时每只股票通常只有1~3条新记录，逐只调用batchInsertStockHistory无法形成有效的多行插入。
+ * 写入器把多只股票提交的新记录暂存起来，累计达到stock.history.write-behind.max-rows条，
+ * 或最早一条已等待stock.history.write-behind.max-latency-ms时，由后台线程合并为一次batchInsertStockHistory写入；
+ * 合并写入失败时逐只股票重试，只有出错的股票失败。
+ * 暂存行数达到上限的4倍时提交方阻塞等待（背压），应用关闭时写出剩余记录
+ */
+@Slf4j
+@Component
+public class StockHistoryBatchWriter {
+
+    private record PendingWrite(String symbol, List<StockHistory> rows, CompletableFuture<Integer> result) {
+    }
+
+    private final StockHistoryRepository stockHistoryRepository;
+    private final int maxRows;
+    private final long maxLatencyNanos;
+    private final int maxBufferedRows;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushNeeded = lock.newCondition();
+    private final Condition spaceAvailable = lock.newCondition();
+    private List<PendingWrite> pending = new ArrayList<>();
+    private int pendingRows;
+    private long oldestPendingNanos;
+    private boolean closed;
+
+    private final Thread flusher;
+
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong flushedSymbols = new AtomicLong();
+    private final AtomicLong isolatedFlushes = new AtomicLong();
+
+    public StockHistoryBatchWriter(StockHistoryRepository stockHistoryRepository,
+                                   @Value("${stock.history.write-behind.max-rows:5000}") int maxRows,
+                                   @Value("${stock.history.write-behind.max-latency-ms:200}") long maxLatencyMillis) {
+        this.stockHistoryRepository = stockHistoryRepository;
+        this.maxRows = Math.max(1, maxRows);
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxLatencyMillis));
+        this.maxBufferedRows = this.maxRows * 4;
+        this.flusher = new Thread(this::runFlusher, "history-write-behind");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * 提交一只股票的新记录
+     * @param symbol 股票代码
+     * @param rows 新记录（同一股票）
+     * @return 合并写入完成后得到该股票写入的记录数，该股票写入失败时异常完成
+     */
+    public CompletableFuture<Integer> submit(String symbol, List<StockHistory> rows) {
+        if (rows.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        lock.lock();
+        try {
+            while (!closed && pendingRows > 0 && pendingRows + rows.size() > maxBufferedRows) {
+                spaceAvailable.awaitUninterruptibly();
+            }
+            if (closed) {
+                throw new IllegalStateException("历史数据写入器已关闭");
+            }
+            if (pending.isEmpty()) {
+                oldestPendingNanos = System.nanoTime();
+            }
+            pending.add(new PendingWrite(symbol, rows, result));
+            pendingRows += rows.size();
+            if (pendingRows >= maxRows || pending.size() == 1) {
+                flushNeeded.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * 立即写出暂存的记录（在调用线程中执行）
+     * @return 写出的股票数
+     */
+    public int flush() {
+        List<PendingWrite> batch = drain();
+        write(batch);
+        return batch.size();
+    }
+
+    private List<PendingWrite> drain() {
+        lock.lock();
+        try {
+            List<PendingWrite> batch = pending;
+            pending = new ArrayList<>();
+            pendingRows = 0;
+            spaceAvailable.signalAll();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runFlusher() {
+        while (true) {
+            List<PendingWrite> batch;
+            lock.lock();
+            try {
+                // 等待：有数据且（达到行数上限或最早一条已超过等待时间）
+                while (!closed && (pending.isEmpty()
+                        || (pendingRows < maxRows && System.nanoTime() - oldestPendingNanos < maxLatencyNanos))) {
+                    if (pending.isEmpty()) {
+                        flushNeeded.awaitUninterruptibly();
+                    } else {
+                        long waitNanos = maxLatencyNanos - (System.nanoTime() - oldestPendingNanos);
+                        try {
+                            flushNeeded.awaitNanos(Math.max(1, waitNanos));
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                }
+                if (closed && pending.isEmpty()) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            batch = drain();
+            write(batch);
+        }
+    }
+
+    private void write(List<PendingWrite> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<StockHistory> rows = new ArrayList<>();
+        batch.forEach(write -> rows.addAll(write.rows()));
+        flushCount.incrementAndGet();
+        flushedRows.addAndGet(rows.size());
+        flushedSymbols.addAndGet(batch.size());
+        long startTime = System.currentTimeMillis();
+        try {
+            stockHistoryRepository.batchInsertStockHistory(rows);
+            batch.forEach(write -> write.result().complete(write.rows().size()));
+            log.debug("合并写入{}只股票共{}条记录，耗时{}ms", batch.size(), rows.size(),
+                    System.currentTimeMillis() - startTime);
+        } catch (RuntimeException e) {
+            // 整批在一个事务中已回滚，逐只重试以隔离出错的股票
+            log.warn("合并写入{}只股票失败，逐只重试: {}", batch.size(), e.getMessage());
+            isolatedFlushes.incrementAndGet();
+            for (PendingWrite write : batch) {
+                try {
+                    stockHistoryRepository.batchInsertStockHistory(write.rows());
+                    write.result().complete(write.rows().size());
+                } catch (RuntimeException symbolError) {
+                    log.error("写入股票历史数据失败: symbol={}, 错误: {}", write.symbol(), symbolError.getMessage());
+                    write.result().completeExceptionally(symbolError);
+                }
+            }
+        } catch (Throwable e) {
+            batch.forEach(write -> write.result().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * 应用关闭时写出剩余记录并停止后台线程
+     */
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            flushNeeded.signalAll();
+            spaceAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        log.info("历史数据写入器关闭: 合并写入{}次, 共{}只股票{}条记录, 逐只重试{}次",
+                flushCount.get(), flushedSymbols.get(), flushedRows.get(), isolatedFlushes.get());
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public long getFlushedRows() {
+        return flushedRows.get();
+    }
+
+    public long getIsolatedFlushes() {
+        return isolatedFlushes.get();
+    }
+}
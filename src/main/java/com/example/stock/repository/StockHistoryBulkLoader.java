@@ -0,0 +1,122 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.StockHistory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 历史数据全量回补装载器
+ * 首次同步一只股票时一次写入多达数万条K线，逐条绑定约50个参数的批量插入是瓶颈。
+ * 开启stock.history.bulk-load.enabled且数据源为MySQL时改用LOAD DATA LOCAL INFILE从内存流装载；
+ * H2等不支持的数据源、或LOAD DATA语句本身失败（如服务端未开启local_infile）时，回退为batchInsertStockHistory（失败后本进程内不再尝试）；
+ * 同一事务中维护汇总等其他失败照常抛出，不影响之后的LOAD DATA。
+ * stock_history为空（首次全市场回补）时可先删除二级索引、装载结束后一次性重建（stock.history.bulk-load.defer-indexes）。
+ * 两条路径分别统计行数和耗时，便于对比吞吐
+ */
+@Slf4j
+@Component
+public class StockHistoryBulkLoader {
+
+    private final StockHistoryRepository stockHistoryRepository;
+    private final boolean deferIndexes;
+    private volatile boolean bulkLoadEnabled;
+
+    private final AtomicLong bulkRows = new AtomicLong();
+    private final AtomicLong bulkNanos = new AtomicLong();
+    private final AtomicLong batchRows = new AtomicLong();
+    private final AtomicLong batchNanos = new AtomicLong();
+
+    public StockHistoryBulkLoader(StockHistoryRepository stockHistoryRepository,
+                                  @Value("${stock.history.bulk-load.enabled:true}") boolean enabled,
+                                  @Value("${stock.history.bulk-load.defer-indexes:true}") boolean deferIndexes) {
+        this.stockHistoryRepository = stockHistoryRepository;
+        this.bulkLoadEnabled = enabled;
+        this.deferIndexes = deferIndexes;
+    }
+
+    /**
+     * 写入全量回补的K线（数据库中尚无这些股票的记录）
+     * @param rows 一只或多只股票的K线
+     * @return 写入的记录数
+     */
+    public int load(List<StockHistory> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        if (isBulkLoadAvailable()) {
+            long start = System.nanoTime();
+            try {
+                int loaded = stockHistoryRepository.bulkLoadStockHistory(rows);
+                bulkRows.addAndGet(rows.size());
+                bulkNanos.addAndGet(System.nanoTime() - start);
+                return loaded;
+            } catch (LoadDataFailedException e) {
+                bulkLoadEnabled = false;
+                log.warn("LOAD DATA装载失败，本进程改用批量插入（检查连接参数allowLoadLocalInfile及服务端local_infile）: {}",
+                        e.getMessage());
+            }
+        }
+        long start = System.nanoTime();
+        int inserted = stockHistoryRepository.batchInsertStockHistory(rows).length;
+        batchRows.addAndGet(rows.size());
+        batchNanos.addAndGet(System.nanoTime() - start);
+        return inserted;
+    }
+
+    /**
+     * 首次全市场回补前调用：stock_history为空且允许延迟建索引时删除二级索引
+     * @return 需在回补结束后交给restoreIndexes的索引定义，无需重建时为空
+     */
+    public List<String> deferIndexesIfEmpty() {
+        if (!deferIndexes || !isBulkLoadAvailable() || stockHistoryRepository.existsByIdNotNull()) {
+            return List.of();
+        }
+        try {
+            return stockHistoryRepository.dropSecondaryIndexes();
+        } catch (DataAccessException e) {
+            log.warn("删除二级索引失败，按原索引装载: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * 回补结束后重建deferIndexesIfEmpty删除的索引
+     * @param definitions deferIndexesIfEmpty的返回值
+     */
+    public void restoreIndexes(List<String> definitions) {
+        if (!definitions.isEmpty()) {
+            stockHistoryRepository.restoreSecondaryIndexes(definitions);
+        }
+    }
+
+    private boolean isBulkLoadAvailable() {
+        return bulkLoadEnabled && stockHistoryRepository.supportsBulkLoad();
+    }
+
+    /**
+     * 输出两条写入路径的累计吞吐
+     */
+    public void logSummary() {
+        log.info("全量回补写入统计: LOAD DATA {}条 {}ms ({}条/秒), 批量插入 {}条 {}ms ({}条/秒)",
+                bulkRows.get(), TimeUnit.NANOSECONDS.toMillis(bulkNanos.get()), rowsPerSecond(bulkRows, bulkNanos),
+                batchRows.get(), TimeUnit.NANOSECONDS.toMillis(batchNanos.get()), rowsPerSecond(batchRows, batchNanos));
+    }
+
+    private static long rowsPerSecond(AtomicLong rows, AtomicLong nanos) {
+        return nanos.get() == 0 ? 0 : rows.get() * TimeUnit.SECONDS.toNanos(1) / nanos.get();
+    }
+
+    public long getBulkRows() {
+        return bulkRows.get();
+    }
+
+    public long getBatchRows() {
+        return batchRows.get();
+    }
+}
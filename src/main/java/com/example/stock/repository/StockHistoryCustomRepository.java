@@ -2,7 +2,9 @@ package com.example.stock.repository;
 
 import com.example.stock.entity.StockHistory;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 股票历史数据自定义仓库接口
@@ -10,10 +12,51 @@ import java.util.List;
  */
 public interface StockHistoryCustomRepository {
     /**
-     * 批量插入股票历史数据
+     * 批量插入股票历史数据，同时更新这些股票的最新行情汇总
      * @param histories 股票历史数据列表
      * @return 插入结果数组
      */
     int[] batchInsertStockHistory(List<StockHistory> histories);
-}
 
+    /**
+     * 用LOAD DATA LOCAL INFILE从内存流装载股票历史数据，同时更新这些股票的最新行情汇总
+     * 仅用于数据库中尚无这些股票记录的全量回补，重复记录被忽略；调用前需确认supportsBulkLoad()
+     * @param histories 股票历史数据列表
+     * @return 装载的记录数
+     * @throws LoadDataFailedException LOAD DATA语句本身执行失败
+     */
+    int bulkLoadStockHistory(List<StockHistory> histories);
+
+    /**
+     * 当前数据源是否支持LOAD DATA LOCAL INFILE（MySQL驱动）；H2等其他数据库应走batchInsertStockHistory
+     */
+    boolean supportsBulkLoad();
+
+    /**
+     * 暂时删除stock_history的非唯一二级索引，供全量回补前调用
+     * @return 重建索引所需的定义，不支持时为空
+     */
+    List<String> dropSecondaryIndexes();
+
+    /**
+     * 重建dropSecondaryIndexes删除的索引
+     * @param definitions dropSecondaryIndexes的返回值
+     */
+    void restoreSecondaryIndexes(List<String> definitions);
+
+    /**
+     * 从stock_history全量重建最新行情汇总表
+     * @return 重建的股票数量
+     */
+    int rebuildLatestSummary();
+
+    /**
+     * 逐只股票流式读取历史数据，用于全市场分析
+     * 以只进游标按固定fetch size分批取行，读完一只股票即把它按日期升序的K线交给consumer，
+     * 内存占用以单只股票的历史为上限，而不是整张表
+     * @param since 最早日期（含），为null时读取全部历史
+     * @param consumer 接收一只股票的K线序列（trade_date升序），跨股票累积序列会失去内存上界
+     * @return 读取的股票数量
+     */
+    int streamSymbolSeries(LocalDate since, Consumer<List<StockHistory>> consumer);
+}
@@ -1,22 +1,41 @@
 package com.example.stock.repository;
 
 import com.example.stock.entity.StockHistory;
+import com.example.stock.entity.StockLatestSummary;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.LoggerFactory;
+import com.mysql.cj.jdbc.JdbcConnection;
+import com.mysql.cj.jdbc.JdbcStatement;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * 股票历史数据自定义仓库实现类
- * 提供股票历史数据的批量插入功能
+ * 提供股票历史数据的批量插入和LOAD DATA批量装载功能，并在同一事务中维护stock_latest_summary汇总表
  */
 @Repository
 @RequiredArgsConstructor
@@ -24,6 +43,40 @@ public class StockHistoryCustomRepositoryImpl implements StockHistoryCustomRepos
     private static final org.slf4j.Logger logger = LoggerFactory.getLogger(StockHistoryCustomRepositoryImpl.class);
     private final JdbcTemplate jdbcTemplate;
     private static final int BATCH_SIZE = 1000; // 每批处理1000条
+    private static final int SUMMARY_SYMBOL_CHUNK_SIZE = 500; // 汇总表按股票分批读取
+    private static final int STREAM_FETCH_SIZE = 1000; // 流式读取每次从服务端取回的行数
+
+    /**
+     * stock_history的写入列，顺序与setStockHistoryValues、appendLoadDataRow一致；布尔列均以is_开头
+     */
+    private static final String HISTORY_COLUMNS = """
+            symbol, code, trade_date, open, high, low, close, volume,
+            ma_price5, ma_price10, ma_price30, ma_volume5, ma_volume10, ma_volume30,
+            change_percent, amplitude, turnover_rate,
+            is_ma5_golden_cross, is_ma5_death_cross, is_ma10_golden_cross, is_ma10_death_cross,
+            is_ma_bullish, is_ma_bearish,
+            kline_type, upper_shadow_ratio, lower_shadow_ratio, body_ratio,
+            is_doji, is_hammer, is_inverted_hammer,
+            consecutive_rise_days, is_break_high, is_break_low,
+            volume_ratio, is_volume_surge, is_volume_shrink, is_price_volume_match,
+            macd_dif, macd_dea, macd_bar, is_macd_golden_cross, is_macd_death_cross,
+            rsi6, rsi12, rsi24, is_overbought, is_oversold,
+            boll_upper, boll_middle, boll_lower, is_touch_boll_upper, is_touch_boll_lower""";
+
+    /**
+     * LOAD DATA语句：BIT列不能直接装载文本"0"/"1"，布尔列先读入用户变量再转换
+     */
+    private static final String LOAD_DATA_SQL = buildLoadDataSql();
+
+    /**
+     * 是否可以使用LOAD DATA LOCAL INFILE（连接为MySQL驱动时为true），首次使用时检测
+     */
+    private volatile Boolean bulkLoadSupported;
+
+    private static final String SUMMARY_SOURCE_COLUMNS = """
+            SELECT symbol, trade_date, high, low, close, ma_price5, ma_price10, ma_price30
+            FROM stock_history
+            """;
 
     /**
      * 批量插入股票历史数据
@@ -38,20 +91,7 @@ public class StockHistoryCustomRepositoryImpl implements StockHistoryCustomRepos
             return new int[0];
         }
 
-        String sql = """
-            INSERT INTO stock_history
-                (symbol, code, trade_date, open, high, low, close, volume,
-                 ma_price5, ma_price10, ma_price30, ma_volume5, ma_volume10, ma_volume30,
-                 change_percent, amplitude, turnover_rate,
-                 is_ma5_golden_cross, is_ma5_death_cross, is_ma10_golden_cross, is_ma10_death_cross,
-                 is_ma_bullish, is_ma_bearish,
-                 kline_type, upper_shadow_ratio, lower_shadow_ratio, body_ratio,
-                 is_doji, is_hammer, is_inverted_hammer,
-                 consecutive_rise_days, is_break_high, is_break_low,
-                 volume_ratio, is_volume_surge, is_volume_shrink, is_price_volume_match,
-                 macd_dif, macd_dea, macd_bar, is_macd_golden_cross, is_macd_death_cross,
-                 rsi6, rsi12, rsi24, is_overbought, is_oversold,
-                 boll_upper, boll_middle, boll_lower, is_touch_boll_upper, is_touch_boll_lower)
+        String sql = "INSERT INTO stock_history (" + HISTORY_COLUMNS + ") " + """
             VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?,
                     ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?,
                     ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
@@ -128,10 +168,567 @@ public class StockHistoryCustomRepositoryImpl implements StockHistoryCustomRepos
         long duration = System.currentTimeMillis() - startTime;
         logger.info("批量插入完成: 记录数={}, 耗时={}ms, 平均={}/ms", 
                 totalSize, duration, String.format("%.2f", (double)totalSize / duration));
+
+        // 同一事务内维护最新行情汇总
+        updateLatestSummaries(histories, false);
         
         return results;
     }
 
+    /**
+     * 用LOAD DATA LOCAL INFILE装载股票历史数据（全量回补用）
+     * 记录先编码为制表符分隔的文本放在内存中，经驱动的JdbcStatement.setLocalInfileInputStream直接发送，不落盘；
+     * 与主键/唯一键重复的记录被忽略（全量回补时数据库中没有这些股票的记录），同一事务内维护最新行情汇总。
+     * 调用前应确认supportsBulkLoad()为true；LOAD DATA语句本身失败（如服务端未开启local_infile）时抛出LoadDataFailedException，
+     * 维护汇总等其他失败按原异常抛出
+     * @param histories 股票历史数据列表
+     * @return 装载的记录数
+     */
+    @Override
+    @Transactional
+    public int bulkLoadStockHistory(List<StockHistory> histories) {
+        if (histories == null || histories.isEmpty()) {
+            return 0;
+        }
+        long startTime = System.currentTimeMillis();
+        byte[] data = encodeLoadData(histories);
+        Integer loaded;
+        try {
+            loaded = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.unwrap(JdbcStatement.class).setLocalInfileInputStream(new ByteArrayInputStream(data));
+                    return statement.executeUpdate(LOAD_DATA_SQL);
+                }
+            });
+        } catch (DataAccessException e) {
+            throw new LoadDataFailedException("LOAD DATA执行失败: " + e.getMessage(), e);
+        }
+        long duration = System.currentTimeMillis() - startTime;
+        logger.info("LOAD DATA装载完成: 记录数={}, 装载{}条, 数据{}KB, 耗时={}ms", histories.size(), loaded,
+                data.length / 1024, duration);
+
+        // 全量回补：本批即这些股票的全部K线，没有汇总的股票直接由本批得到，不再回读stock_history
+        updateLatestSummaries(histories, true);
+        return loaded == null ? 0 : loaded;
+    }
+
+    @Override
+    public boolean supportsBulkLoad() {
+        Boolean supported = bulkLoadSupported;
+        if (supported == null) {
+            supported = Boolean.TRUE.equals(jdbcTemplate.execute(
+                    (ConnectionCallback<Boolean>) connection -> connection.isWrapperFor(JdbcConnection.class)));
+            bulkLoadSupported = supported;
+        }
+        return supported;
+    }
+
+    /**
+     * 删除stock_history上的非唯一二级索引
+     * 主键和唯一索引保留（LOAD DATA依靠唯一键去重）；非MySQL数据库不做任何操作
+     * @return 重建这些索引所需的 ADD INDEX 子句，交给restoreSecondaryIndexes
+     */
+    @Override
+    public List<String> dropSecondaryIndexes() {
+        if (!supportsBulkLoad()) {
+            return List.of();
+        }
+        Map<String, List<String>> indexes = new LinkedHashMap<>();
+        jdbcTemplate.query("""
+                SELECT index_name, column_name, collation, sub_part
+                FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = 'stock_history' AND non_unique = 1
+                ORDER BY index_name, seq_in_index
+                """, (RowCallbackHandler) rs -> {
+            String column = "`" + rs.getString("column_name") + "`";
+            long subPart = rs.getLong("sub_part");
+            if (!rs.wasNull()) {
+                column += "(" + subPart + ")";
+            }
+            if ("D".equals(rs.getString("collation"))) {
+                column += " DESC";
+            }
+            indexes.computeIfAbsent(rs.getString("index_name"), name -> new ArrayList<>()).add(column);
+        });
+        if (indexes.isEmpty()) {
+            return List.of();
+        }
+        List<String> definitions = new ArrayList<>();
+        indexes.forEach((name, columns) ->
+                definitions.add("ADD INDEX `" + name + "` (" + String.join(", ", columns) + ")"));
+        jdbcTemplate.execute("ALTER TABLE stock_history " + indexes.keySet().stream()
+                .map(name -> "DROP INDEX `" + name + "`")
+                .collect(Collectors.joining(", ")));
+        logger.warn("已暂时删除stock_history二级索引{}个，装载结束后重建；若进程中途退出，请手动执行: ALTER TABLE stock_history {}",
+                definitions.size(), String.join(", ", definitions));
+        return definitions;
+    }
+
+    /**
+     * 用一条ALTER TABLE重建dropSecondaryIndexes删除的索引，所有索引在一次排序构建中完成
+     * @param definitions dropSecondaryIndexes返回的 ADD INDEX 子句
+     */
+    @Override
+    public void restoreSecondaryIndexes(List<String> definitions) {
+        if (definitions == null || definitions.isEmpty()) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        jdbcTemplate.execute("ALTER TABLE stock_history " + String.join(", ", definitions));
+        logger.info("stock_history二级索引重建完成: {}个, 耗时{}ms", definitions.size(),
+                System.currentTimeMillis() - startTime);
+    }
+
+    private static String buildLoadDataSql() {
+        List<String> targets = new ArrayList<>();
+        List<String> assignments = new ArrayList<>();
+        for (String column : HISTORY_COLUMNS.split(",")) {
+            column = column.strip();
+            if (column.startsWith("is_")) {
+                targets.add("@" + column);
+                assignments.add(column + " = CAST(@" + column + " AS UNSIGNED)");
+            } else {
+                targets.add(column);
+            }
+        }
+        return "LOAD DATA LOCAL INFILE 'stock_history.tsv' IGNORE INTO TABLE stock_history CHARACTER SET utf8mb4"
+                + " FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n'"
+                + " (" + String.join(", ", targets) + ")"
+                + " SET " + String.join(", ", assignments);
+    }
+
+    /**
+     * 把记录编码为LOAD DATA的默认文本格式：制表符分隔、换行结束、NULL写作\N
+     */
+    static byte[] encodeLoadData(List<StockHistory> histories) {
+        StringBuilder text = new StringBuilder(histories.size() * 320);
+        for (StockHistory history : histories) {
+            appendLoadDataRow(text, history);
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendLoadDataRow(StringBuilder row, StockHistory history) {
+        // 基础字段
+        appendText(row, history.getSymbol());
+        appendText(row, history.getCode());
+        appendValue(row, history.getDay());
+        appendValue(row, history.getOpen());
+        appendValue(row, history.getHigh());
+        appendValue(row, history.getLow());
+        appendValue(row, history.getClose());
+        appendValue(row, history.getVolume());
+        appendValue(row, history.getMaPrice5());
+        appendValue(row, history.getMaPrice10());
+        appendValue(row, history.getMaPrice30());
+        appendValue(row, history.getMaVolume5());
+        appendValue(row, history.getMaVolume10());
+        appendValue(row, history.getMaVolume30());
+
+        // K线分析字段
+        appendValue(row, history.getChangePercent());
+        appendValue(row, history.getAmplitude());
+        appendValue(row, history.getTurnoverRate());
+
+        // 均线系统分析
+        appendValue(row, history.getIsMa5GoldenCross());
+        appendValue(row, history.getIsMa5DeathCross());
+        appendValue(row, history.getIsMa10GoldenCross());
+        appendValue(row, history.getIsMa10DeathCross());
+        appendValue(row, history.getIsMaBullish());
+        appendValue(row, history.getIsMaBearish());
+
+        // K线形态分析
+        appendValue(row, history.getKlineType());
+        appendValue(row, history.getUpperShadowRatio());
+        appendValue(row, history.getLowerShadowRatio());
+        appendValue(row, history.getBodyRatio());
+        appendValue(row, history.getIsDoji());
+        appendValue(row, history.getIsHammer());
+        appendValue(row, history.getIsInvertedHammer());
+
+        // 趋势分析
+        appendValue(row, history.getConsecutiveRiseDays());
+        appendValue(row, history.getIsBreakHigh());
+        appendValue(row, history.getIsBreakLow());
+
+        // 成交量分析
+        appendValue(row, history.getVolumeRatio());
+        appendValue(row, history.getIsVolumeSurge());
+        appendValue(row, history.getIsVolumeShrink());
+        appendValue(row, history.getIsPriceVolumeMatch());
+
+        // 技术指标
+        appendValue(row, history.getMacdDif());
+        appendValue(row, history.getMacdDea());
+        appendValue(row, history.getMacdBar());
+        appendValue(row, history.getIsMacdGoldenCross());
+        appendValue(row, history.getIsMacdDeathCross());
+        appendValue(row, history.getRsi6());
+        appendValue(row, history.getRsi12());
+        appendValue(row, history.getRsi24());
+        appendValue(row, history.getIsOverbought());
+        appendValue(row, history.getIsOversold());
+        appendValue(row, history.getBollUpper());
+        appendValue(row, history.getBollMiddle());
+        appendValue(row, history.getBollLower());
+        appendValue(row, history.getIsTouchBollUpper());
+        appendValue(row, history.getIsTouchBollLower());
+
+        // 最后一个字段后的制表符换成换行
+        row.setCharAt(row.length() - 1, '\n');
+    }
+
+    private static void appendValue(StringBuilder row, Object value) {
+        if (value == null) {
+            row.append("\\N");
+        } else if (value instanceof Boolean flag) {
+            row.append(flag ? '1' : '0');
+        } else {
+            row.append(value);
+        }
+        row.append('\t');
+    }
+
+    private static void appendText(StringBuilder row, String value) {
+        if (value == null) {
+            row.append("\\N\t");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> row.append("\\\\");
+                case '\t' -> row.append("\\t");
+                case '\n' -> row.append("\\n");
+                default -> row.append(c);
+            }
+        }
+        row.append('\t');
+    }
+
+    /**
+     * 按本批写入的K线更新stock_latest_summary
+     * 新K线全部晚于已有最新交易日时直接合并；回补历史、首次写入或52周极值滑出窗口的股票从stock_history重新计算
+     * @param histories 本批写入的股票历史数据
+     * @param fullHistory 本批是否为这些股票的全部K线（全量回补）；是则尚无汇总的股票直接由本批计算
+     */
+    void updateLatestSummaries(List<StockHistory> histories, boolean fullHistory) {
+        Map<String, LatestSummaryAccumulator> batches = new LinkedHashMap<>();
+        for (StockHistory history : histories) {
+            batches.computeIfAbsent(history.getSymbol(), LatestSummaryAccumulator::new)
+                    .add(history.getDay(), history.getHigh(), history.getLow(), history.getClose(),
+                            history.getMaPrice5(), history.getMaPrice10(), history.getMaPrice30());
+        }
+
+        List<String> symbols = new ArrayList<>(batches.keySet());
+        Map<String, StockLatestSummary> existing = loadLatestSummaries(symbols);
+        List<StockLatestSummary> merged = new ArrayList<>(symbols.size());
+        List<String> recompute = new ArrayList<>();
+        for (LatestSummaryAccumulator batch : batches.values()) {
+            StockLatestSummary current = existing.get(batch.getSymbol());
+            StockLatestSummary summary = current != null ? batch.mergeInto(current)
+                    : fullHistory ? batch.toSummary() : null;
+            if (summary != null) {
+                merged.add(summary);
+            } else {
+                recompute.add(batch.getSymbol());
+            }
+        }
+        for (int from = 0; from < recompute.size(); from += SUMMARY_SYMBOL_CHUNK_SIZE) {
+            List<String> chunk = recompute.subList(from, Math.min(from + SUMMARY_SYMBOL_CHUNK_SIZE, recompute.size()));
+            SummaryCollector collector = new SummaryCollector(merged::add);
+            jdbcTemplate.query(SUMMARY_SOURCE_COLUMNS + " WHERE symbol IN (" + placeholders(chunk.size()) + ")"
+                    + " ORDER BY symbol, trade_date", collector, chunk.toArray());
+            collector.finish();
+        }
+        upsertLatestSummaries(merged);
+        logger.debug("最新行情汇总已更新: 直接合并或由本批计算{}只, 重新计算{}只", symbols.size() - recompute.size(), recompute.size());
+    }
+
+    /**
+     * 从stock_history全量重建stock_latest_summary
+     * 按 (symbol, trade_date) 顺序流式扫描一遍（与streamSymbolSeries相同的只进游标），每只股票的汇总在内存中累加后分批写入
+     * @return 重建的股票数量
+     */
+    @Override
+    @Transactional
+    public int rebuildLatestSummary() {
+        long startTime = System.currentTimeMillis();
+        List<StockLatestSummary> pending = new ArrayList<>(BATCH_SIZE);
+        int[] count = new int[1];
+        SummaryCollector collector = new SummaryCollector(summary -> {
+            pending.add(summary);
+            count[0]++;
+            if (pending.size() >= BATCH_SIZE) {
+                upsertLatestSummaries(pending);
+                pending.clear();
+            }
+        });
+        // 全表扫描必须流式读取，否则驱动会把整张表缓冲在堆内
+        jdbcTemplate.query(forwardOnly(SUMMARY_SOURCE_COLUMNS + " ORDER BY symbol, trade_date"), collector);
+        collector.finish();
+        upsertLatestSummaries(pending);
+        logger.info("最新行情汇总重建完成: 股票{}只, 耗时{}ms", count[0], System.currentTimeMillis() - startTime);
+        return count[0];
+    }
+
+    /**
+     * 逐只股票流式读取历史数据
+     * 语句为TYPE_FORWARD_ONLY/CONCUR_READ_ONLY并设置fetch size：MySQL在连接参数useCursorFetch=true时使用服务端游标，
+     * 每次取回STREAM_FETCH_SIZE行，且不独占连接，consumer中仍可执行其他查询
+     */
+    @Override
+    public int streamSymbolSeries(LocalDate since, Consumer<List<StockHistory>> consumer) {
+        long startTime = System.currentTimeMillis();
+        String sql = "SELECT " + HISTORY_COLUMNS + " FROM stock_history"
+                + (since != null ? " WHERE trade_date >= ?" : "") + " ORDER BY symbol, trade_date";
+        SeriesCollector collector = new SeriesCollector(consumer);
+        jdbcTemplate.query(since != null ? forwardOnly(sql, Date.valueOf(since)) : forwardOnly(sql), collector);
+        collector.finish();
+        logger.info("流式读取历史数据完成: 股票{}只, 记录{}条, 耗时{}ms",
+                collector.symbols, collector.rows, System.currentTimeMillis() - startTime);
+        return collector.symbols;
+    }
+
+    /**
+     * 流式读取用的语句：TYPE_FORWARD_ONLY/CONCUR_READ_ONLY并设置fetch size，每次从服务端取回STREAM_FETCH_SIZE行
+     */
+    private static PreparedStatementCreator forwardOnly(String sql, Object... args) {
+        return connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            for (int i = 0; i < args.length; i++) {
+                ps.setObject(i + 1, args[i]);
+            }
+            return ps;
+        };
+    }
+
+        private Map<String, StockLatestSummary> loadLatestSummaries(List<String> symbols) {
+        Map<String, StockLatestSummary> summaries = new HashMap<>(symbols.size() * 2);
+        for (int from = 0; from < symbols.size(); from += SUMMARY_SYMBOL_CHUNK_SIZE) {
+            List<String> chunk = symbols.subList(from, Math.min(from + SUMMARY_SYMBOL_CHUNK_SIZE, symbols.size()));
+            jdbcTemplate.query("SELECT * FROM stock_latest_summary WHERE symbol IN (" + placeholders(chunk.size()) + ")",
+                    rs -> {
+                        StockLatestSummary summary = new StockLatestSummary();
+                        summary.setSymbol(rs.getString("symbol"));
+                        summary.setLatestDate(rs.getDate("latest_date").toLocalDate());
+                        summary.setClose(rs.getDouble("close"));
+                        summary.setMaPrice5(rs.getDouble("ma_price5"));
+                        summary.setMaPrice10(rs.getDouble("ma_price10"));
+                        summary.setMaPrice30(rs.getDouble("ma_price30"));
+                        summary.setAllTimeHigh(rs.getDouble("all_time_high"));
+                        summary.setAllTimeHighDate(toLocalDate(rs.getDate("all_time_high_date")));
+                        summary.setHigh52w(rs.getDouble("high_52w"));
+                        summary.setHigh52wDate(toLocalDate(rs.getDate("high_52w_date")));
+                        summary.setLow52w(rs.getDouble("low_52w"));
+                        summary.setLow52wDate(toLocalDate(rs.getDate("low_52w_date")));
+                        summaries.put(summary.getSymbol(), summary);
+                    }, chunk.toArray());
+        }
+        return summaries;
+    }
+
+    private void upsertLatestSummaries(List<StockLatestSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return;
+        }
+        String sql = """
+            INSERT INTO stock_latest_summary
+                (symbol, latest_date, close, ma_price5, ma_price10, ma_price30,
+                 all_time_high, all_time_high_date, high_52w, high_52w_date, low_52w, low_52w_date, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                latest_date = VALUES(latest_date),
+                close = VALUES(close),
+                ma_price5 = VALUES(ma_price5),
+                ma_price10 = VALUES(ma_price10),
+                ma_price30 = VALUES(ma_price30),
+                all_time_high = VALUES(all_time_high),
+                all_time_high_date = VALUES(all_time_high_date),
+                high_52w = VALUES(high_52w),
+                high_52w_date = VALUES(high_52w_date),
+                low_52w = VALUES(low_52w),
+                low_52w_date = VALUES(low_52w_date),
+                updated_at = VALUES(updated_at)
+            """;
+        jdbcTemplate.batchUpdate(sql, summaries, summaries.size(), (ps, summary) -> {
+            int idx = 1;
+            ps.setString(idx++, summary.getSymbol());
+            ps.setDate(idx++, Date.valueOf(summary.getLatestDate()));
+            ps.setDouble(idx++, summary.getClose());
+            ps.setDouble(idx++, summary.getMaPrice5());
+            ps.setDouble(idx++, summary.getMaPrice10());
+            ps.setDouble(idx++, summary.getMaPrice30());
+            ps.setDouble(idx++, summary.getAllTimeHigh());
+            ps.setDate(idx++, Date.valueOf(summary.getAllTimeHighDate()));
+            ps.setDouble(idx++, summary.getHigh52w());
+            ps.setDate(idx++, Date.valueOf(summary.getHigh52wDate()));
+            ps.setDouble(idx++, summary.getLow52w());
+            ps.setDate(idx++, Date.valueOf(summary.getLow52wDate()));
+            ps.setTimestamp(idx, Timestamp.valueOf(summary.getUpdatedAt()));
+        });
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date != null ? date.toLocalDate() : null;
+    }
+
+    /**
+     * 把按 (symbol, trade_date) 排序的结果集逐只股票累加为汇总
+     */
+    private static final class SummaryCollector implements RowCallbackHandler {
+        private final Consumer<StockLatestSummary> sink;
+        private LatestSummaryAccumulator current;
+
+        SummaryCollector(Consumer<StockLatestSummary> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            String symbol = rs.getString("symbol");
+            if (current == null || !current.getSymbol().equals(symbol)) {
+                finish();
+                current = new LatestSummaryAccumulator(symbol);
+            }
+            current.add(rs.getDate("trade_date").toLocalDate(), rs.getDouble("high"), rs.getDouble("low"),
+                    rs.getDouble("close"), rs.getDouble("ma_price5"), rs.getDouble("ma_price10"),
+                    rs.getDouble("ma_price30"));
+        }
+
+        void finish() {
+            if (current != null) {
+                sink.accept(current.toSummary());
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * 把按 (symbol, trade_date) 排序的结果集逐只股票收集为K线序列，换股票时交给consumer
+     */
+    private static final class SeriesCollector implements RowCallbackHandler {
+        private final Consumer<List<StockHistory>> sink;
+        private List<StockHistory> current = new ArrayList<>();
+        private int symbols;
+        private long rows;
+
+        SeriesCollector(Consumer<List<StockHistory>> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            StockHistory history = mapStockHistory(rs);
+            if (!current.isEmpty() && !current.get(0).getSymbol().equals(history.getSymbol())) {
+                finish();
+            }
+            current.add(history);
+            rows++;
+        }
+
+        void finish() {
+            if (!current.isEmpty()) {
+                symbols++;
+                sink.accept(current);
+                current = new ArrayList<>();
+            }
+        }
+    }
+
+    /**
+     * 从结果集读取stock_history一行，列与HISTORY_COLUMNS一致
+     */
+    private static StockHistory mapStockHistory(ResultSet rs) throws SQLException {
+        StockHistory history = new StockHistory();
+        history.setSymbol(rs.getString("symbol"));
+        history.setCode(rs.getString("code"));
+        history.setDay(rs.getDate("trade_date").toLocalDate());
+        history.setOpen(rs.getDouble("open"));
+        history.setHigh(rs.getDouble("high"));
+        history.setLow(rs.getDouble("low"));
+        history.setClose(rs.getDouble("close"));
+        history.setVolume(rs.getLong("volume"));
+        history.setMaPrice5(rs.getDouble("ma_price5"));
+        history.setMaPrice10(rs.getDouble("ma_price10"));
+        history.setMaPrice30(rs.getDouble("ma_price30"));
+        history.setMaVolume5(rs.getLong("ma_volume5"));
+        history.setMaVolume10(rs.getLong("ma_volume10"));
+        history.setMaVolume30(rs.getLong("ma_volume30"));
+
+        // K线分析字段
+        history.setChangePercent(getDoubleOrNull(rs, "change_percent"));
+        history.setAmplitude(getDoubleOrNull(rs, "amplitude"));
+        history.setTurnoverRate(getDoubleOrNull(rs, "turnover_rate"));
+
+        // 均线系统分析
+        history.setIsMa5GoldenCross(getBooleanOrNull(rs, "is_ma5_golden_cross"));
+        history.setIsMa5DeathCross(getBooleanOrNull(rs, "is_ma5_death_cross"));
+        history.setIsMa10GoldenCross(getBooleanOrNull(rs, "is_ma10_golden_cross"));
+        history.setIsMa10DeathCross(getBooleanOrNull(rs, "is_ma10_death_cross"));
+        history.setIsMaBullish(getBooleanOrNull(rs, "is_ma_bullish"));
+        history.setIsMaBearish(getBooleanOrNull(rs, "is_ma_bearish"));
+
+        // K线形态分析
+        history.setKlineType(getIntegerOrNull(rs, "kline_type"));
+        history.setUpperShadowRatio(getDoubleOrNull(rs, "upper_shadow_ratio"));
+        history.setLowerShadowRatio(getDoubleOrNull(rs, "lower_shadow_ratio"));
+        history.setBodyRatio(getDoubleOrNull(rs, "body_ratio"));
+        history.setIsDoji(getBooleanOrNull(rs, "is_doji"));
+        history.setIsHammer(getBooleanOrNull(rs, "is_hammer"));
+        history.setIsInvertedHammer(getBooleanOrNull(rs, "is_inverted_hammer"));
+
+        // 趋势分析
+        history.setConsecutiveRiseDays(getIntegerOrNull(rs, "consecutive_rise_days"));
+        history.setIsBreakHigh(getBooleanOrNull(rs, "is_break_high"));
+        history.setIsBreakLow(getBooleanOrNull(rs, "is_break_low"));
+
+        // 成交量分析
+        history.setVolumeRatio(getDoubleOrNull(rs, "volume_ratio"));
+        history.setIsVolumeSurge(getBooleanOrNull(rs, "is_volume_surge"));
+        history.setIsVolumeShrink(getBooleanOrNull(rs, "is_volume_shrink"));
+        history.setIsPriceVolumeMatch(getBooleanOrNull(rs, "is_price_volume_match"));
+
+        // 技术指标
+        history.setMacdDif(getDoubleOrNull(rs, "macd_dif"));
+        history.setMacdDea(getDoubleOrNull(rs, "macd_dea"));
+        history.setMacdBar(getDoubleOrNull(rs, "macd_bar"));
+        history.setIsMacdGoldenCross(getBooleanOrNull(rs, "is_macd_golden_cross"));
+        history.setIsMacdDeathCross(getBooleanOrNull(rs, "is_macd_death_cross"));
+        history.setRsi6(getDoubleOrNull(rs, "rsi6"));
+        history.setRsi12(getDoubleOrNull(rs, "rsi12"));
+        history.setRsi24(getDoubleOrNull(rs, "rsi24"));
+        history.setIsOverbought(getBooleanOrNull(rs, "is_overbought"));
+        history.setIsOversold(getBooleanOrNull(rs, "is_oversold"));
+        history.setBollUpper(getDoubleOrNull(rs, "boll_upper"));
+        history.setBollMiddle(getDoubleOrNull(rs, "boll_middle"));
+        history.setBollLower(getDoubleOrNull(rs, "boll_lower"));
+        history.setIsTouchBollUpper(getBooleanOrNull(rs, "is_touch_boll_upper"));
+        history.setIsTouchBollLower(getBooleanOrNull(rs, "is_touch_boll_lower"));
+        return history;
+    }
+
+    private static Double getDoubleOrNull(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Boolean getBooleanOrNull(ResultSet rs, String column) throws SQLException {
+        boolean value = rs.getBoolean(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Integer getIntegerOrNull(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
     /**
      * 设置PreparedStatement的参数值
      * @param ps PreparedStatement对象
@@ -0,0 +1,269 @@
+package com.example.stock.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * stock_history索引管理
+ * 表结构由ddl-auto=update维护，但它不会创建实体中没有声明的索引。应用启动后按INDEXES补齐缺失的索引：
+ * (symbol, trade_date) 唯一键（批量写入的 ON DUPLICATE KEY 和 LOAD DATA 去重都依赖它）、
+ * 区间最高价筛选的覆盖索引、横截面查询和键集分页用的 (trade_date, symbol) 索引。
+ * 已有索引的列以声明的列开头即视为满足，不重复创建；被其他索引覆盖的旧索引只在日志中提示。
+ * 随后对热点查询执行EXPLAIN，报告各查询使用的索引，全表扫描且没有可用索引时输出缺失索引告警。
+ * 非MySQL数据源不做任何操作
+ */
+@Slf4j
+@Component
+public class StockHistoryIndexManager {
+
+    /**
+     * 声明的索引
+     * @param name 索引名
+     * @param unique 是否唯一
+     * @param columns 索引列（按顺序）
+     */
+    record IndexSpec(String name, boolean unique, List<String> columns) {
+    }
+
+    static final List<IndexSpec> INDEXES = List.of(
+            new IndexSpec("uk_symbol_trade_date", true, List.of("symbol", "trade_date")),
+            new IndexSpec("idx_symbol_date_high_close", false, List.of("symbol", "trade_date", "high", "close")),
+            new IndexSpec("idx_trade_date_symbol", false, List.of("trade_date", "symbol")));
+
+    /**
+     * 一条热点查询的执行计划检查结果
+     * @param query 查询名称
+     * @param table 表或别名
+     * @param accessType 访问类型（EXPLAIN的type列）
+     * @param key 实际使用的索引，未使用时为null
+     * @param rows 估计扫描行数
+     * @param missingIndex 是否全表扫描且没有可用索引
+     */
+    public record QueryPlanCheck(String query, String table, String accessType, String key, long rows,
+                                 boolean missingIndex) {
+    }
+
+    record HotQuery(String name, String sql, Object[] args) {
+    }
+
+    private static final Pattern NAMED_PARAMETER = Pattern.compile(":(\\w+)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean manage;
+    private final boolean explainOnStartup;
+
+    public StockHistoryIndexManager(JdbcTemplate jdbcTemplate,
+                                    @Value("${stock.history.indexes.manage:true}") boolean manage,
+                                    @Value("${stock.history.indexes.explain-on-startup:true}") boolean explainOnStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.manage = manage;
+        this.explainOnStartup = explainOnStartup;
+    }
+
+    /**
+     * 应用启动后补齐索引并检查热点查询的执行计划
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            if (!isMySql()) {
+                return;
+            }
+            if (manage) {
+                ensureIndexes();
+            }
+            if (explainOnStartup) {
+                checkQueryPlans();
+            }
+        } catch (RuntimeException e) {
+            log.error("检查stock_history索引失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 创建缺失的索引，所有缺失索引在一条ALTER TABLE中在线创建（不阻塞读写）
+     * @return 新创建的索引名
+     */
+    public List<String> ensureIndexes() {
+        Map<String, List<String>> existing = new LinkedHashMap<>();
+        Map<String, Boolean> uniqueness = new LinkedHashMap<>();
+        jdbcTemplate.query("""
+                SELECT index_name, column_name, non_unique
+                FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = 'stock_history'
+                ORDER BY index_name, seq_in_index
+                """, rs -> {
+            String name = rs.getString("index_name");
+            existing.computeIfAbsent(name, key -> new ArrayList<>()).add(rs.getString("column_name"));
+            uniqueness.put(name, rs.getInt("non_unique") == 0);
+        });
+
+        List<String> clauses = new ArrayList<>();
+        List<String> created = new ArrayList<>();
+        for (IndexSpec spec : INDEXES) {
+            boolean satisfied = existing.entrySet().stream()
+                    .anyMatch(index -> satisfies(index.getValue(), uniqueness.get(index.getKey()), spec));
+            if (!satisfied) {
+                clauses.add("ADD " + (spec.unique() ? "UNIQUE " : "") + "INDEX `" + spec.name() + "` ("
+                        + String.join(", ", spec.columns()) + ")");
+                created.add(spec.name());
+            }
+        }
+        reportRedundant(existing, uniqueness);
+        if (clauses.isEmpty()) {
+            log.info("stock_history索引完整: {}", existing.keySet());
+            return created;
+        }
+
+        long startTime = System.currentTimeMillis();
+        try {
+            jdbcTemplate.execute("ALTER TABLE stock_history " + String.join(", ", clauses)
+                    + ", ALGORITHM=INPLACE, LOCK=NONE");
+        } catch (RuntimeException e) {
+            log.error("创建stock_history索引{}失败（唯一键失败通常是存在重复的 (symbol, trade_date) 记录，需先去重）: {}",
+                    created, e.getMessage());
+            return List.of();
+        }
+        log.info("stock_history已创建索引{}, 耗时{}ms", created, System.currentTimeMillis() - startTime);
+        return created;
+    }
+
+    /**
+     * 已有索引是否满足声明：列以声明的列开头；唯一索引要求列完全一致且同为唯一
+     */
+    static boolean satisfies(List<String> existingColumns, boolean existingUnique, IndexSpec spec) {
+        if (spec.unique()) {
+            return existingUnique && existingColumns.equals(spec.columns());
+        }
+        return existingColumns.size() >= spec.columns().size()
+                && existingColumns.subList(0, spec.columns().size()).equals(spec.columns());
+    }
+
+    private void reportRedundant(Map<String, List<String>> existing, Map<String, Boolean> uniqueness) {
+        for (Map.Entry<String, List<String>> index : existing.entrySet()) {
+            if ("PRIMARY".equals(index.getKey()) || uniqueness.get(index.getKey())) {
+                continue;
+            }
+            for (IndexSpec spec : INDEXES) {
+                if (!spec.name().equals(index.getKey()) && index.getValue().size() < spec.columns().size()
+                        && spec.columns().subList(0, index.getValue().size()).equals(index.getValue())) {
+                    log.info("索引{}{}是{}的前缀，可以删除以减少写入开销", index.getKey(), index.getValue(), spec.name());
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 对热点查询执行EXPLAIN并输出报告
+     * @return 每个查询中每张表的检查结果
+     */
+    public List<QueryPlanCheck> checkQueryPlans() {
+        List<QueryPlanCheck> checks = new ArrayList<>();
+        for (HotQuery query : hotQueries()) {
+            try {
+                checks.addAll(evaluate(query.name(), jdbcTemplate.queryForList("EXPLAIN " + query.sql(), query.args())));
+            } catch (RuntimeException e) {
+                log.warn("EXPLAIN {} 失败: {}", query.name(), e.getMessage());
+            }
+        }
+        for (QueryPlanCheck check : checks) {
+            if (check.missingIndex()) {
+                log.warn("缺失索引: {} 对{}全表扫描，估计{}行", check.query(), check.table(), check.rows());
+            } else {
+                log.info("执行计划: {} 表{} 访问类型{} 索引{} 估计{}行", check.query(), check.table(),
+                        check.accessType(), check.key(), check.rows());
+            }
+        }
+        return checks;
+    }
+
+    /**
+     * 解析EXPLAIN结果，派生表（&lt;derivedN&gt;等）跳过
+     */
+    static List<QueryPlanCheck> evaluate(String query, List<Map<String, Object>> plan) {
+        List<QueryPlanCheck> checks = new ArrayList<>();
+        for (Map<String, Object> row : plan) {
+            String table = (String) row.get("table");
+            if (table == null || table.startsWith("<")) {
+                continue;
+            }
+            String type = (String) row.get("type");
+            Object rows = row.get("rows");
+            checks.add(new QueryPlanCheck(query, table, type, (String) row.get("key"),
+                    rows instanceof Number number ? number.longValue() : 0,
+                    "ALL".equals(type) && row.get("possible_keys") == null));
+        }
+        return checks;
+    }
+
+    private List<HotQuery> hotQueries() {
+        LocalDate today = LocalDate.now();
+        String symbol = jdbcTemplate.queryForList("SELECT symbol FROM stock_history LIMIT 1", String.class)
+                .stream().findFirst().orElse("sh600000");
+        List<HotQuery> queries = new ArrayList<>();
+        queries.add(repositoryQuery("增量同步最新日期", "findLatestTradeDateBySymbolSince",
+                Map.of("symbol", symbol, "since", Date.valueOf(today.minusYears(1).withDayOfYear(1))),
+                String.class, LocalDate.class));
+        queries.add(repositoryQuery("前一交易日", "findPreviousTradeDateSince",
+                Map.of("currentDate", Date.valueOf(today), "since", Date.valueOf(today.minusDays(31))),
+                LocalDate.class, LocalDate.class));
+        queries.add(repositoryQuery("低于区间最高价筛选", "findStocksBelowHistoricalHighWithParams",
+                Map.of("startDate", today.minusYears(1).toString(), "dropPercentage", 25.0),
+                String.class, Double.class));
+        queries.add(new HotQuery("历史数据键集分页", """
+                SELECT id FROM stock_history
+                WHERE trade_date < ? OR (trade_date = ? AND symbol < ?)
+                ORDER BY trade_date DESC, symbol DESC LIMIT 20
+                """, new Object[]{Date.valueOf(today), Date.valueOf(today), symbol}));
+        queries.add(new HotQuery("横截面查询", "SELECT symbol, close FROM stock_history WHERE trade_date = ?",
+                new Object[]{Date.valueOf(today.minusDays(1))}));
+        return queries;
+    }
+
+    /**
+     * 取StockHistoryRepository上原生查询的SQL，把命名参数替换为位置参数，保证检查的是实际执行的语句
+     */
+    private static HotQuery repositoryQuery(String name, String method, Map<String, Object> params,
+                                            Class<?>... parameterTypes) {
+        try {
+            Method repositoryMethod = StockHistoryRepository.class.getMethod(method, parameterTypes);
+            return toPositional(name, repositoryMethod.getAnnotation(Query.class).value(), params);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("StockHistoryRepository缺少方法" + method, e);
+        }
+    }
+
+    static HotQuery toPositional(String name, String sql, Map<String, Object> params) {
+        List<Object> args = new ArrayList<>();
+        Matcher matcher = NAMED_PARAMETER.matcher(sql);
+        StringBuilder positional = new StringBuilder();
+        while (matcher.find()) {
+            args.add(params.get(matcher.group(1)));
+            matcher.appendReplacement(positional, "?");
+        }
+        matcher.appendTail(positional);
+        return new HotQuery(name, positional.toString(), args.toArray());
+    }
+
+    private boolean isMySql() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "MySQL".equals(connection.getMetaData().getDatabaseProductName())));
+    }
+}
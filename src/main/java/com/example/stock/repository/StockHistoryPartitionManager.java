@@ -0,0 +1,171 @@
+package com.example.stock.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * stock_history按年分区管理
+ * 表按 RANGE COLUMNS(trade_date) 每年一个分区（p1990 ... pYYYY），最后是兜底分区pmax；
+ * 近期窗口的筛选和每日同步的查询带trade_date下界，只访问最近一两个分区。
+ * 每次同步开始前调用ensurePartitions()：
+ * 表未分区且为空时直接转换（主键改为 (id, trade_date)，MySQL要求分区列包含在每个唯一键中）；
+ * 表未分区但已有数据时，只在stock.history.partitioning.convert-existing=true时转换（需重建整表），否则输出转换语句；
+ * 已分区时把pmax拆分出未来stock.history.partitioning.future-years年的分区（pmax为空，拆分只改元数据）。
+ * 非MySQL数据源不做任何操作
+ */
+@Slf4j
+@Component
+public class StockHistoryPartitionManager {
+
+    static final String MAX_PARTITION = "pmax";
+
+    /**
+     * 空表转换时的第一个分区年份（A股1990年12月开市）
+     */
+    static final int FIRST_YEAR = 1990;
+
+    private static final Pattern YEAR_PARTITION = Pattern.compile("p(\\d{4})");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final boolean convertExisting;
+    private final int futureYears;
+
+    public StockHistoryPartitionManager(JdbcTemplate jdbcTemplate,
+                                        @Value("${stock.history.partitioning.enabled:true}") boolean enabled,
+                                        @Value("${stock.history.partitioning.convert-existing:false}") boolean convertExisting,
+                                        @Value("${stock.history.partitioning.future-years:2}") int futureYears) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.convertExisting = convertExisting;
+        this.futureYears = Math.max(1, futureYears);
+    }
+
+    /**
+     * 确保stock_history已按年分区，并且存在到未来若干年的分区
+     * 失败只记录日志：分区只影响查询代价，不影响同步和筛选结果
+     */
+    public void ensurePartitions() {
+        if (!enabled || !isMySql()) {
+            return;
+        }
+        try {
+            int untilYear = LocalDate.now().getYear() + futureYears;
+            List<String> partitions = jdbcTemplate.queryForList("""
+                    SELECT partition_name FROM information_schema.partitions
+                    WHERE table_schema = DATABASE() AND table_name = 'stock_history' AND partition_name IS NOT NULL
+                    ORDER BY partition_ordinal_position
+                    """, String.class);
+            if (partitions.isEmpty()) {
+                convert(untilYear);
+            } else {
+                addFuturePartitions(partitions, untilYear);
+            }
+        } catch (RuntimeException e) {
+            log.error("维护stock_history分区失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private void convert(int untilYear) {
+        List<String> uniqueWithoutDate = jdbcTemplate.queryForList("""
+                SELECT index_name FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = 'stock_history'
+                    AND non_unique = 0 AND index_name <> 'PRIMARY'
+                GROUP BY index_name
+                HAVING SUM(column_name = 'trade_date') = 0
+                """, String.class);
+        if (!uniqueWithoutDate.isEmpty()) {
+            log.error("stock_history的唯一索引{}不包含trade_date，无法按年分区", uniqueWithoutDate);
+            return;
+        }
+        boolean empty = jdbcTemplate.queryForList("SELECT 1 FROM stock_history LIMIT 1").isEmpty();
+        Integer firstYear = empty ? null
+                : jdbcTemplate.queryForObject("SELECT YEAR(MIN(trade_date)) FROM stock_history", Integer.class);
+        int fromYear = firstYear == null ? FIRST_YEAR : Math.min(firstYear, FIRST_YEAR);
+        String sql = "ALTER TABLE stock_history DROP PRIMARY KEY, ADD PRIMARY KEY (id, trade_date) "
+                + partitionClause(fromYear, untilYear);
+        if (!empty && !convertExisting) {
+            log.warn("stock_history尚未分区，已有数据时需重建整表，未自动转换；"
+                    + "设置stock.history.partitioning.convert-existing=true或在维护窗口手动执行: {}", sql);
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        jdbcTemplate.execute(sql);
+        log.info("stock_history已按年分区: {}~{}年, 耗时{}ms", fromYear, untilYear, System.currentTimeMillis() - startTime);
+    }
+
+    private void addFuturePartitions(List<String> partitions, int untilYear) {
+        List<Integer> missing = missingYears(partitions, untilYear);
+        if (missing.isEmpty()) {
+            return;
+        }
+        if (!partitions.contains(MAX_PARTITION)) {
+            log.warn("stock_history分区中没有{}，无法自动追加未来分区: {}", MAX_PARTITION, partitions);
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE stock_history REORGANIZE PARTITION " + MAX_PARTITION + " INTO ("
+                + yearPartitions(missing) + ")");
+        log.info("stock_history新增分区: {}", missing.stream().map(year -> "p" + year).toList());
+    }
+
+    /**
+     * 生成按年分区子句
+     * @param fromYear 第一个分区年份（其下界之前的数据也落在该分区）
+     * @param untilYear 最后一个年份分区
+     */
+    static String partitionClause(int fromYear, int untilYear) {
+        List<Integer> years = new ArrayList<>();
+        for (int year = fromYear; year <= untilYear; year++) {
+            years.add(year);
+        }
+        return "PARTITION BY RANGE COLUMNS(trade_date) (" + yearPartitions(years) + ")";
+    }
+
+    private static String yearPartitions(List<Integer> years) {
+        StringBuilder clause = new StringBuilder();
+        for (int year : years) {
+            clause.append("PARTITION p").append(year)
+                    .append(" VALUES LESS THAN ('").append(year + 1).append("-01-01'), ");
+        }
+        return clause.append("PARTITION ").append(MAX_PARTITION).append(" VALUES LESS THAN (MAXVALUE)").toString();
+    }
+
+    /**
+     * 计算需要追加的年份分区：最后一个年份分区之后直到untilYear
+     * @param partitions 现有分区名
+     * @param untilYear 需要覆盖到的年份
+     * @return 需要追加的年份（升序）
+     */
+    static List<Integer> missingYears(List<String> partitions, int untilYear) {
+        TreeSet<Integer> years = new TreeSet<>();
+        for (String partition : partitions) {
+            Matcher matcher = YEAR_PARTITION.matcher(partition);
+            if (matcher.matches()) {
+                years.add(Integer.parseInt(matcher.group(1)));
+            }
+        }
+        List<Integer> missing = new ArrayList<>();
+        if (years.isEmpty()) {
+            return missing;
+        }
+        for (int year = years.last() + 1; year <= untilYear; year++) {
+            missing.add(year);
+        }
+        return missing;
+    }
+
+    private boolean isMySql() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "MySQL".equals(connection.getMetaData().getDatabaseProductName())));
+    }
+}
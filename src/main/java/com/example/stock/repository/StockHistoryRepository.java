@@ -8,9 +8,9 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -21,6 +21,11 @@ import java.util.Map;
 @Repository
 public interface StockHistoryRepository extends JpaRepository<StockHistory, Long> , StockHistoryCustomRepository{
 
+    /**
+     * 查找前一个交易日时先查找的天数，覆盖春节等最长休市
+     */
+    int RECENT_TRADE_DATE_WINDOW_DAYS = 31;
+
     /**
      * 根据股票代码查询所有历史记录
      * @param symbol 股票代码
@@ -58,13 +63,13 @@ public interface StockHistoryRepository extends JpaRepository<StockHistory, Long
     int insertStockHistory(@Param("entity") StockHistory stockHistory);
 
     /**
-     * 按股票代码模糊查询 + 分页（无总数统计）
-     * @param symbol 股票代码
+     * 按股票代码列表查询 + 分页（无总数统计）
+     * @param symbols 股票代码列表（由代码检索服务解析得到）
      * @param pageable 分页参数
      * @return 股票历史实体分页结果
      */
-    @Query("SELECT sh FROM StockHistory sh WHERE sh.symbol LIKE %:symbol% ORDER BY sh.day DESC")
-    Page<StockHistory> findBySymbolContainingWithoutCount(@Param("symbol") String symbol, Pageable pageable);
+    @Query("SELECT sh FROM StockHistory sh WHERE sh.symbol IN :symbols ORDER BY sh.day DESC")
+    Page<StockHistory> findBySymbolInWithoutCount(@Param("symbols") Collection<String> symbols, Pageable pageable);
 
     /**
      * 查询所有历史数据 + 分页（无总数统计）
@@ -75,70 +80,91 @@ public interface StockHistoryRepository extends JpaRepository<StockHistory, Long
     Page<StockHistory> findAllWithoutCount(Pageable pageable);
 
     /**
-     * 按股票代码模糊查询 + 分页
-     * @param symbol 股票代码
+     * 按股票代码列表查询 + 分页
+     * @param symbols 股票代码列表（由代码检索服务解析得到）
      * @param pageable 分页参数
      * @return 股票历史实体分页结果
      */
-    Page<StockHistory> findBySymbolContaining(String symbol, Pageable pageable);
+    Page<StockHistory> findBySymbolIn(Collection<String> symbols, Pageable pageable);
 
     /**
-     * 使用数据库聚合查询：筛选低于历史最高值25%以上的股票（默认参数）
-     * 返回: symbol, 历史最高价, 最新价格
-     * 优化: 单次查询完成，避免N+1查询问题
-     * 优化版本3: 使用简单的GROUP BY和子查询，直接在数据库层过滤
+     * 键集分页：按 (trade_date, symbol) 降序取游标之后（更早）的记录，不统计总数，耗时与页码无关
+     * @param day 游标日期
+     * @param symbol 游标股票代码
+     * @param limit 最多返回的记录数
+     * @return 按 (trade_date, symbol) 降序排列的记录
      */
-    @Query(value = """
-        SELECT 
-            t1.symbol,
-            t1.max_high,
-            t2.current_price
-        FROM (
-            SELECT symbol, MAX(high) as max_high
-            FROM stock_history
-            GROUP BY symbol
-        ) t1
-        INNER JOIN (
-            SELECT sh.symbol, sh.close as current_price
-            FROM stock_history sh
-            INNER JOIN (
-                SELECT symbol, MAX(trade_date) as latest_date
-                FROM stock_history
-                GROUP BY symbol
-            ) latest ON sh.symbol = latest.symbol AND sh.trade_date = latest.latest_date
-        ) t2 ON t1.symbol = t2.symbol
-        WHERE t2.current_price < (t1.max_high * 0.75)
-        """, nativeQuery = true)
-    List<Map<String, Object>> findStocksBelowHistoricalHigh();
+    @Query("""
+            SELECT sh FROM StockHistory sh
+            WHERE sh.day < :day OR (sh.day = :day AND sh.symbol < :symbol)
+            ORDER BY sh.day DESC, sh.symbol DESC LIMIT :limit
+            """)
+    List<StockHistory> findPageOlderThan(@Param("day") LocalDate day, @Param("symbol") String symbol,
+                                         @Param("limit") int limit);
+
+    /**
+     * 键集分页：按 (trade_date, symbol) 升序取游标之前（更新）的记录，用于上一页
+     * @return 按 (trade_date, symbol) 升序排列的记录，调用方需反转
+     */
+    @Query("""
+            SELECT sh FROM StockHistory sh
+            WHERE sh.day > :day OR (sh.day = :day AND sh.symbol > :symbol)
+            ORDER BY sh.day ASC, sh.symbol ASC LIMIT :limit
+            """)
+    List<StockHistory> findPageNewerThan(@Param("day") LocalDate day, @Param("symbol") String symbol,
+                                         @Param("limit") int limit);
+
+    /**
+     * 指定股票的键集分页：symbol IN 等值条件走 (symbol, trade_date) 唯一索引，取游标之后（更早）的记录
+     * @param symbols 股票代码列表（由代码检索服务解析得到）
+     * @return 按 (trade_date, symbol) 降序排列的记录
+     */
+    @Query("""
+            SELECT sh FROM StockHistory sh
+            WHERE sh.symbol IN :symbols
+                AND (sh.day < :day OR (sh.day = :day AND sh.symbol < :symbol))
+            ORDER BY sh.day DESC, sh.symbol DESC LIMIT :limit
+            """)
+    List<StockHistory> findSymbolsPageOlderThan(@Param("symbols") Collection<String> symbols,
+                                                @Param("day") LocalDate day, @Param("symbol") String symbol,
+                                                @Param("limit") int limit);
+
+    /**
+     * 指定股票的键集分页：取游标之前（更新）的记录，用于上一页
+     * @return 按 (trade_date, symbol) 升序排列的记录，调用方需反转
+     */
+    @Query("""
+            SELECT sh FROM StockHistory sh
+            WHERE sh.symbol IN :symbols
+                AND (sh.day > :day OR (sh.day = :day AND sh.symbol > :symbol))
+            ORDER BY sh.day ASC, sh.symbol ASC LIMIT :limit
+            """)
+    List<StockHistory> findSymbolsPageNewerThan(@Param("symbols") Collection<String> symbols,
+                                                @Param("day") LocalDate day, @Param("symbol") String symbol,
+                                                @Param("limit") int limit);
 
     /**
      * 使用数据库聚合查询：筛选低于历史最高值指定百分比的股票（带参数）
+     * 一次分组同时求区间最高价和最新交易日，回表取最新收盘价时也带上日期下界，
+     * stock_history按年分区时只访问开始日期之后的分区
      * @param startDate 开始日期（YYYY-MM-DD格式字符串），只统计此日期之后的历史数据
      * @param dropPercentage 跌幅百分比阈值（如输入25表示低于最高价25%）
      * @return 符合条件的股票列表，包含symbol, max_high, current_price
      */
     @Query(value = """
-        SELECT 
-            t1.symbol,
-            t1.max_high,
-            t2.current_price
+        SELECT
+            t.symbol,
+            t.max_high,
+            sh.close AS current_price
         FROM (
-            SELECT symbol, MAX(high) as max_high
+            SELECT symbol, MAX(high) AS max_high, MAX(trade_date) AS latest_date
             FROM stock_history
             WHERE trade_date >= :startDate
             GROUP BY symbol
-        ) t1
-        INNER JOIN (
-            SELECT sh.symbol, sh.close as current_price
-            FROM stock_history sh
-            INNER JOIN (
-                SELECT symbol, MAX(trade_date) as latest_date
-                FROM stock_history
-                WHERE trade_date >= :startDate
-                GROUP BY symbol
-            ) latest ON sh.symbol = latest.symbol AND sh.trade_date = latest.latest_date
-        ) t2 ON t1.symbol = t2.symbol
-        WHERE t2.current_price < (t1.max_high * (1 - :dropPercentage / 100))
+        ) t
+        INNER JOIN stock_history sh
+            ON sh.symbol = t.symbol AND sh.trade_date = t.latest_date AND sh.trade_date >= :startDate
+        WHERE sh.close < (t.max_high * (1 - :dropPercentage / 100))
         """, nativeQuery = true)
     List<Map<String, Object>> findStocksBelowHistoricalHighWithParams(
             @Param("startDate") String startDate,
@@ -146,75 +172,42 @@ public interface StockHistoryRepository extends JpaRepository<StockHistory, Long
     );
 
     /**
-     * 数据库聚合查询：找出均线金叉的股票
-     * 条件：5日均线上穿10日均线（昨天5日均线<=10日均线，今天5日均线>10日均线）
-     * 返回：symbol, current_price
-     * 优化：使用自连接和索引优化，避免多重子查询的性能问题
-     */
-    @Query(value = """
-        SELECT DISTINCT
-            t1.symbol,
-            t1.close as current_price
-        FROM stock_history t1
-        INNER JOIN (
-            SELECT symbol, MAX(id) as max_id
-            FROM stock_history
-            GROUP BY symbol
-        ) latest ON t1.symbol = latest.symbol AND t1.id = latest.max_id
-        LEFT JOIN stock_history t2 ON t1.symbol = t2.symbol AND t2.id = (
-            SELECT MAX(id) FROM stock_history 
-            WHERE symbol = t1.symbol AND id < t1.id
-        )
-        WHERE t1.ma_price5 > t1.ma_price10
-            AND t1.ma_price5 IS NOT NULL 
-            AND t1.ma_price10 IS NOT NULL
-            AND t2.ma_price5 <= t2.ma_price10
-        """, nativeQuery = true)
-    List<Map<String, Object>> findGoldenCrossStocksOptimized();
-
-    /**
-     * 获取最近两个交易日的所有股票数据
-     * 优化方案：先获取最近两个交易日的数据，然后通过代码过滤出金叉股票
-     * @param latestDate 最新交易日
-     * @param previousDate 前一个交易日
-     * @return 股票历史数据列表
+     * 查询指定日期之前的最近一个交易日
+     * 先在最近RECENT_TRADE_DATE_WINDOW_DAYS天内查找（按年分区时只访问一两个分区），找不到再查全部历史
+     * @param currentDate 当前日期
+     * @return 前一个交易日，如果不存在则返回null
      */
-    @Query("SELECT sh FROM StockHistory sh WHERE sh.day IN (:latestDate, :previousDate) ORDER BY sh.symbol, sh.day DESC")
-    List<StockHistory> findLatestTwoDaysData(@Param("latestDate") LocalDate latestDate, @Param("previousDate") LocalDate previousDate);
+    default LocalDate findPreviousTradeDate(LocalDate currentDate) {
+        LocalDate recent = findPreviousTradeDateSince(currentDate, currentDate.minusDays(RECENT_TRADE_DATE_WINDOW_DAYS));
+        return recent != null ? recent : findPreviousTradeDateSince(currentDate, LocalDate.of(1900, 1, 1));
+    }
 
     /**
-     * 查询指定日期之前的最近一个交易日
+     * 查询指定日期之前、不早于since的最近一个交易日
      * @param currentDate 当前日期
+     * @param since 最早日期（含），作为分区裁剪的下界
      * @return 前一个交易日，如果不存在则返回null
      */
     @Query(value = """
-        SELECT MAX(trade_date) 
-        FROM stock_history 
-        WHERE trade_date < :currentDate
+        SELECT MAX(trade_date)
+        FROM stock_history
+        WHERE trade_date < :currentDate AND trade_date >= :since
         """, nativeQuery = true)
-    LocalDate findPreviousTradeDate(@Param("currentDate") LocalDate currentDate);
+    LocalDate findPreviousTradeDateSince(@Param("currentDate") LocalDate currentDate, @Param("since") LocalDate since);
 
     /**
-     * 查询指定股票在指定日期之前的最近一条交易数据
+     * 查询指定股票最近的若干条历史数据，用于在缺少指标状态时重建增量计算状态
      * @param symbol 股票代码
-     * @param currentDate 当前日期
-     * @return 前一个交易日的股票数据，如果不存在则返回null
+     * @param limit 最多返回的记录数
+     * @return 按日期降序排列的历史数据
      */
-    @Query("SELECT sh FROM StockHistory sh WHERE sh.symbol = :symbol AND sh.day < :currentDate ORDER BY sh.day DESC LIMIT 1")
-    StockHistory findPreviousDayDataForStock(@Param("symbol") String symbol, @Param("currentDate") LocalDate currentDate);
+    @Query("SELECT sh FROM StockHistory sh WHERE sh.symbol = :symbol ORDER BY sh.day DESC LIMIT :limit")
+    List<StockHistory> findRecentBySymbol(@Param("symbol") String symbol, @Param("limit") int limit);
 
     /**
-     * 创建必要的索引以优化查询性能
-     * 索引1: symbol + trade_date (用于按股票代码和日期排序)
-     * 索引2: symbol + high (用于聚合查询最高价)
+     * stock_history中是否已有任何记录（比count()代价小，用于判断是否为首次全量回补）
      */
-    @Modifying
-    @Transactional
-    @Query(value = """
-        CREATE INDEX IF NOT EXISTS idx_symbol_date ON stock_history(symbol, trade_date DESC);
-        CREATE INDEX IF NOT EXISTS idx_symbol_high ON stock_history(symbol, high DESC);
-        """, nativeQuery = true)
-    void createIndexes();
+    boolean existsByIdNotNull();
 
     /**
      * 获取所有股票代码
@@ -239,21 +232,27 @@ public interface StockHistoryRepository extends JpaRepository<StockHistory, Long
 
     /**
      * 查询指定股票的最新交易日期
-     * 用于增量同步，避免重新获取已有的历史数据
+     * 用于增量同步，避免重新获取已有的历史数据。
+     * 先查去年1月1日以来的记录（按年分区时只访问最近两个年份分区），没有时（新股或长期停牌）再查全部历史
      * @param symbol 股票代码
      * @return 最新交易日期，如果表中无数据则返回null
      */
-    @Query(value = """
-        SELECT MAX(trade_date) 
-        FROM stock_history 
-        WHERE symbol = :symbol
-        """, nativeQuery = true)
-    LocalDate findLatestTradeDateBySymbol(@Param("symbol") String symbol);
+    default LocalDate findLatestTradeDateBySymbol(String symbol) {
+        LocalDate recent = findLatestTradeDateBySymbolSince(symbol,
+                LocalDate.now().minusYears(1).withDayOfYear(1));
+        return recent != null ? recent : findLatestTradeDateBySymbolSince(symbol, LocalDate.of(1900, 1, 1));
+    }
 
     /**
-     * 批量查询多个股票的历史数据
-     * @param symbols 股票代码列表
-     * @return 股票历史数据列表
+     * 查询指定股票不早于since的最新交易日期
+     * @param symbol 股票代码
+     * @param since 最早日期（含），作为分区裁剪的下界
+     * @return 最新交易日期，没有记录时返回null
      */
-    List<StockHistory> findBySymbolInOrderBySymbolAscDayDesc(@Param("symbols") List<String> symbols);
+    @Query(value = """
+        SELECT MAX(trade_date)
+        FROM stock_history
+        WHERE symbol = :symbol AND trade_date >= :since
+        """, nativeQuery = true)
+    LocalDate findLatestTradeDateBySymbolSince(@Param("symbol") String symbol, @Param("since") LocalDate since);
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.StockIndicatorState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 股票技术指标增量状态 Repository
+ */
+@Repository
+public interface StockIndicatorStateRepository extends JpaRepository<StockIndicatorState, String> {
+}
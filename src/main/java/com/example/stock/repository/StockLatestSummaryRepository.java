@@ -0,0 +1,44 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.StockLatestSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 股票最新行情汇总仓库接口
+ * 表内容由StockHistoryCustomRepository.batchInsertStockHistory维护，这里只提供读取
+ */
+@Repository
+public interface StockLatestSummaryRepository extends JpaRepository<StockLatestSummary, String> {
+
+    /**
+     * 筛选最新收盘价低于历史最高价指定百分比的股票
+     * @param dropPercentage 跌幅百分比阈值（如输入25表示低于最高价25%）
+     * @return 符合条件的股票列表，包含symbol, max_high, current_price
+     */
+    @Query(value = """
+        SELECT symbol, all_time_high AS max_high, close AS current_price
+        FROM stock_latest_summary
+        WHERE close < all_time_high * (1 - :dropPercentage / 100)
+        """, nativeQuery = true)
+    List<Map<String, Object>> findBelowAllTimeHigh(@Param("dropPercentage") Double dropPercentage);
+
+    /**
+     * 筛选最新收盘价在52周最高价指定百分比以内的股票
+     * @param withinPercentage 与52周最高价的最大差距（百分比）
+     * @return 符合条件的股票列表，包含symbol, year_high, current_price
+     */
+    @Query(value = """
+        SELECT symbol, high_52w AS year_high, close AS current_price
+        FROM stock_latest_summary
+        WHERE high_52w > 0
+            AND close <= high_52w
+            AND close >= high_52w * (1 - :withinPercentage / 100)
+        """, nativeQuery = true)
+    List<Map<String, Object>> findNearYearHigh(@Param("withinPercentage") Double withinPercentage);
+}
@@ -82,12 +82,12 @@ public interface StockRepository extends JpaRepository<Stock, Long> {
     void upsertStock(@Param("entity") Stock entity);
 
     /**
-     * 按股票代码模糊查询 + 分页
-     * @param symbol 股票代码
+     * 按股票代码列表查询 + 分页
+     * @param symbols 股票代码列表（由代码检索服务解析得到）
      * @param pageable 分页参数
      * @return 股票实体分页结果
      */
-    Page<Stock> findBySymbolContaining(String symbol, Pageable pageable);
+    Page<Stock> findBySymbolIn(java.util.Collection<String> symbols, Pageable pageable);
 
     /**
      * 批量查询指定代码的股票
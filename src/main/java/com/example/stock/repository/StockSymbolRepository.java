@@ -0,0 +1,42 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.StockSymbol;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 股票代码全集 Repository
+ */
+@Repository
+public interface StockSymbolRepository extends JpaRepository<StockSymbol, String> {
+    /**
+     * 按代码升序查询全部股票代码
+     */
+    @Query("SELECT s.symbol FROM StockSymbol s ORDER BY s.symbol")
+    List<String> findAllSymbols();
+
+    /**
+     * 查询行情列表最近一次刷新日期
+     */
+    @Query("SELECT MAX(s.lastSeen) FROM StockSymbol s WHERE s.source = 'LISTING'")
+    LocalDate findLatestListingDate();
+
+    /**
+     * 批量标记仍在行情列表中的代码：一条UPDATE更新最近出现日期和来源
+     * @param symbols 股票代码
+     * @param lastSeen 最近出现日期
+     * @return 更新的行数
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StockSymbol s SET s.lastSeen = :lastSeen, s.source = 'LISTING' WHERE s.symbol IN :symbols")
+    int markListed(@Param("symbols") Collection<String> symbols, @Param("lastSeen") LocalDate lastSeen);
+}
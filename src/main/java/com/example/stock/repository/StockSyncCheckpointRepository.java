@@ -0,0 +1,18 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.StockSyncCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 同步号段检查点 Repository
+ */
+@Repository
+public interface StockSyncCheckpointRepository extends JpaRepository<StockSyncCheckpoint, Long> {
+    /**
+     * 查询某次同步的全部号段检查点
+     */
+    List<StockSyncCheckpoint> findByRunId(Long runId);
+}
@@ -0,0 +1,18 @@
+package com.example.stock.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * 股票同步日志自定义仓库接口
+ * 提供同步日志的批量写入方法
+ */
+public interface StockSyncLogCustomRepository {
+    /**
+     * 批量写入同步日志：不存在的股票插入，已存在的更新同步日期
+     * @param symbols 股票代码
+     * @param syncDate 同步日期
+     * @return 写入的股票数
+     */
+    int batchUpsertSyncDate(Collection<String> symbols, LocalDate syncDate);
+}
@@ -0,0 +1,52 @@
+package com.example.stock.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 股票同步日志自定义仓库实现类
+ * 用多行 INSERT ... VALUES (...), (...) ON DUPLICATE KEY UPDATE 一条语句写入多只股票，
+ * 代替逐只股票经JPA先查询再插入/更新
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockSyncLogCustomRepositoryImpl implements StockSyncLogCustomRepository {
+    private static final int ROWS_PER_STATEMENT = 500; // 每条语句最多写入的行数
+
+    private static final String UPSERT_PREFIX = "INSERT INTO stock_sync_log (symbol, sync_date) VALUES ";
+    private static final String UPSERT_SUFFIX = " ON DUPLICATE KEY UPDATE sync_date = VALUES(sync_date)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public int batchUpsertSyncDate(Collection<String> symbols, LocalDate syncDate) {
+        if (symbols == null || symbols.isEmpty()) {
+            return 0;
+        }
+        Date date = Date.valueOf(syncDate);
+        List<String> all = new ArrayList<>(symbols);
+        for (int from = 0; from < all.size(); from += ROWS_PER_STATEMENT) {
+            List<String> chunk = all.subList(from, Math.min(all.size(), from + ROWS_PER_STATEMENT));
+            StringBuilder sql = new StringBuilder(UPSERT_PREFIX.length() + chunk.size() * 8 + UPSERT_SUFFIX.length());
+            sql.append(UPSERT_PREFIX);
+            Object[] args = new Object[chunk.size() * 2];
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+                args[i * 2] = chunk.get(i);
+                args[i * 2 + 1] = date;
+            }
+            sql.append(UPSERT_SUFFIX);
+            jdbcTemplate.update(sql.toString(), args);
+        }
+        return all.size();
+    }
+}
@@ -4,7 +4,6 @@ import com.example.stock.entity.StockSyncLog;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,7 +11,7 @@ import java.util.Optional;
  * 股票同步日志 Repository
  */
 @Repository
-public interface StockSyncLogRepository extends JpaRepository<StockSyncLog, String> {
+public interface StockSyncLogRepository extends JpaRepository<StockSyncLog, String>, StockSyncLogCustomRepository {
     /**
      * 查询所有同步日志
      */
@@ -0,0 +1,19 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.StockSyncRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 同步运行记录 Repository
+ */
+@Repository
+public interface StockSyncRunRepository extends JpaRepository<StockSyncRun, Long> {
+    /**
+     * 查询指定状态的运行记录（最新的在前）
+     */
+    List<StockSyncRun> findByStatusInOrderByIdDesc(Collection<String> statuses);
+}
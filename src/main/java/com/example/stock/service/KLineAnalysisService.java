@@ -27,6 +27,7 @@ public class KLineAnalysisService {
     private static final double RSI_OVERSOLD = 20;
     private static final int BOLL_PERIOD = 20;
     private static final double BOLL_STD_MULTIPLIER = 2.0;
+    private static final double RSI_ZERO_LOSS = 1e-9;
     
     /**
      * 对单条历史数据进行技术分析
@@ -70,22 +71,168 @@ public class KLineAnalysisService {
         }
     }
     
+    /**
+     * 基于增量状态对新K线进行技术分析
+     * 只读取状态中保存的EMA、滚动和及价格窗口，每根K线为常数次运算，不需要加载历史数据
+     * 分析完成后状态推进到当前K线，调用方须按日期升序逐根传入
+     * 与analyzeKLine的差异：EMA/DEA以首根K线为初值递推（不再截断在100根以内），连续涨跌天数不受历史列表长度限制
+     * @param currentData 当前交易日数据
+     * @param state 截至前一交易日的指标状态，新股票传入空状态
+     */
+    public void analyzeKLineIncremental(StockHistory currentData, KLineIndicatorState state) {
+        if (currentData == null || state == null) {
+            return;
+        }
+        
+        double close = currentData.getClose();
+        boolean hasPrevious = state.barCount > 0;
+        double previousClose = hasPrevious ? state.closes.get(0) : 0;
+        int bars = state.barCount + 1; // 含当前K线
+        
+        // 推进EMA、RSI和布林带的滚动状态
+        if (hasPrevious) {
+            state.ema12 = nextEma(state.ema12, close, 12);
+            state.ema26 = nextEma(state.ema26, close, 26);
+        } else {
+            state.ema12 = close;
+            state.ema26 = close;
+        }
+        double dif = state.ema12 - state.ema26;
+        state.dea = hasPrevious ? nextEma(state.dea, dif, 9) : dif;
+        
+        if (hasPrevious) {
+            double change = close - previousClose;
+            int[] periods = KLineIndicatorState.RSI_PERIODS;
+            for (int i = 0; i < periods.length; i++) {
+                accumulateChange(state, i, change, 1);
+                // 窗口已满时移出最早的一个涨跌幅
+                if (state.closes.size() > periods[i]) {
+                    accumulateChange(state, i, state.closes.get(periods[i] - 1) - state.closes.get(periods[i]), -1);
+                }
+            }
+        }
+        state.bollSum += close;
+        state.bollSumSq += close * close;
+        if (state.closes.size() >= BOLL_PERIOD) {
+            double evicted = state.closes.get(BOLL_PERIOD - 1);
+            state.bollSum -= evicted;
+            state.bollSumSq -= evicted * evicted;
+        }
+        
+        try {
+            // 1. 计算基础涨跌数据
+            applyBasicMetrics(currentData, previousClose);
+            
+            // 2. 分析均线系统
+            if (hasPrevious) {
+                applyMaSignals(currentData, state.lastMaPrice5, state.lastMaPrice10, state.lastMaPrice30);
+            }
+            
+            // 3. 分析K线形态
+            analyzeKLinePattern(currentData);
+            
+            // 4. 分析趋势
+            currentData.setConsecutiveRiseDays(nextConsecutiveDays(state, close));
+            if (hasPrevious) {
+                applyBreakSignals(currentData,
+                    Math.max(currentData.getHigh(), state.highs.max()),
+                    Math.min(currentData.getLow(), state.lows.min()));
+            }
+            
+            // 5. 分析成交量
+            analyzeVolume(currentData);
+            
+            // 6. 计算MACD指标
+            if (bars >= 26) {
+                applyMacd(currentData, dif, state.dea, state.lastMacdDif, state.lastMacdDea);
+            }
+            
+            // 7. 计算RSI指标
+            int[] periods = KLineIndicatorState.RSI_PERIODS;
+            Double[] rsi = new Double[periods.length];
+            for (int i = 0; i < periods.length; i++) {
+                rsi[i] = bars >= periods[i] + 1 ? rsiFromSums(state.rsiGain[i], state.rsiLoss[i]) : null;
+            }
+            applyRsi(currentData, rsi[0], rsi[1], rsi[2]);
+            
+            // 8. 计算布林带
+            if (bars >= BOLL_PERIOD) {
+                double middle = state.bollSum / BOLL_PERIOD;
+                double variance = Math.max(0, state.bollSumSq / BOLL_PERIOD - middle * middle);
+                applyBoll(currentData, middle, Math.sqrt(variance));
+            }
+            
+        } catch (Exception e) {
+            log.error("增量分析K线数据失败: symbol={}, date={}, error={}", 
+                currentData.getSymbol(), currentData.getDay(), e.getMessage());
+        }
+        
+        // 状态推进到当前K线
+        state.lastMaPrice5 = currentData.getMaPrice5();
+        state.lastMaPrice10 = currentData.getMaPrice10();
+        state.lastMaPrice30 = currentData.getMaPrice30();
+        Integer consecutiveDays = currentData.getConsecutiveRiseDays();
+        state.lastConsecutiveDays = consecutiveDays != null ? consecutiveDays : 0;
+        state.lastMacdDif = bars >= 26 ? dif : null;
+        state.lastMacdDea = bars >= 26 ? state.dea : null;
+        state.closes.add(close);
+        state.highs.add(currentData.getHigh());
+        state.lows.add(currentData.getLow());
+        state.tradeDate = currentData.getDay();
+        state.barCount = bars;
+    }
+    
+    private static double nextEma(double previousEma, double value, int period) {
+        return (value - previousEma) * (2.0 / (period + 1)) + previousEma;
+    }
+    
+    /**
+     * 把一个涨跌幅计入（sign=1）或移出（sign=-1）RSI滚动和，浮点误差导致的微小负数归零
+     */
+    private static void accumulateChange(KLineIndicatorState state, int index, double change, int sign) {
+        if (change > 0) {
+            state.rsiGain[index] = Math.max(0, state.rsiGain[index] + sign * change);
+        } else {
+            state.rsiLoss[index] = Math.max(0, state.rsiLoss[index] - sign * change);
+        }
+    }
+    
+    /**
+     * 由前一日连续涨跌天数推出当日值，与analyzeTrend的计算口径一致
+     */
+    private static int nextConsecutiveDays(KLineIndicatorState state, double close) {
+        if (state.closes.size() < 2) {
+            return 0;
+        }
+        int direction = close > state.closes.get(0) ? 1 : -1;
+        boolean previousRising = state.closes.get(0) > state.closes.get(1);
+        if ((direction > 0) != previousRising) {
+            return direction;
+        }
+        int last = state.lastConsecutiveDays;
+        return Integer.signum(last) == direction ? last + direction : direction * 2;
+    }
+    
     /**
      * 计算基础涨跌数据
      */
     private void calculateBasicMetrics(StockHistory current, StockHistory previous) {
-        if (previous == null || previous.getClose() == 0) {
+        applyBasicMetrics(current, previous == null ? 0 : previous.getClose());
+    }
+    
+    private void applyBasicMetrics(StockHistory current, double previousClose) {
+        if (previousClose == 0) {
             current.setChangePercent(0.0);
             current.setAmplitude(0.0);
             return;
         }
         
         // 涨跌幅 = (当前收盘价 - 前收盘价) / 前收盘价 * 100
-        double changePercent = (current.getClose() - previous.getClose()) / previous.getClose() * 100;
+        double changePercent = (current.getClose() - previousClose) / previousClose * 100;
         current.setChangePercent(changePercent);
         
         // 振幅 = (最高价 - 最低价) / 前收盘价 * 100
-        double amplitude = (current.getHigh() - current.getLow()) / previous.getClose() * 100;
+        double amplitude = (current.getHigh() - current.getLow()) / previousClose * 100;
         current.setAmplitude(amplitude);
     }
     
@@ -98,36 +245,40 @@ public class KLineAnalysisService {
         }
         
         // 获取前一天的数据用于判断金叉死叉
-        StockHistory previous = historyList.size() > 1 ? historyList.get(1) : null;
-        
-        if (previous != null) {
-            // MA5金叉死叉判断
-            if (current.getMaPrice5() > 0 && current.getMaPrice10() > 0 
-                && previous.getMaPrice5() > 0 && previous.getMaPrice10() > 0) {
-                
-                // 金叉: 前一天MA5 <= MA10, 今天MA5 > MA10
-                boolean isGoldenCross = previous.getMaPrice5() <= previous.getMaPrice10() 
-                    && current.getMaPrice5() > current.getMaPrice10();
-                current.setIsMa5GoldenCross(isGoldenCross);
-                
-                // 死叉: 前一天MA5 >= MA10, 今天MA5 < MA10
-                boolean isDeathCross = previous.getMaPrice5() >= previous.getMaPrice10() 
-                    && current.getMaPrice5() < current.getMaPrice10();
-                current.setIsMa5DeathCross(isDeathCross);
-            }
+        StockHistory previous = historyList.get(1);
+        applyMaSignals(current, previous.getMaPrice5(), previous.getMaPrice10(), previous.getMaPrice30());
+    }
+    
+    /**
+     * 根据前一天的均线值判断金叉死叉，并判断当日均线排列
+     */
+    private void applyMaSignals(StockHistory current, double prevMa5, double prevMa10, double prevMa30) {
+        // MA5金叉死叉判断
+        if (current.getMaPrice5() > 0 && current.getMaPrice10() > 0 
+            && prevMa5 > 0 && prevMa10 > 0) {
             
-            // MA10金叉死叉判断
-            if (current.getMaPrice10() > 0 && current.getMaPrice30() > 0 
-                && previous.getMaPrice10() > 0 && previous.getMaPrice30() > 0) {
-                
-                boolean isGoldenCross = previous.getMaPrice10() <= previous.getMaPrice30() 
-                    && current.getMaPrice10() > current.getMaPrice30();
-                current.setIsMa10GoldenCross(isGoldenCross);
-                
-                boolean isDeathCross = previous.getMaPrice10() >= previous.getMaPrice30() 
-                    && current.getMaPrice10() < current.getMaPrice30();
-                current.setIsMa10DeathCross(isDeathCross);
-            }
+            // 金叉: 前一天MA5 <= MA10, 今天MA5 > MA10
+            boolean isGoldenCross = prevMa5 <= prevMa10 
+                && current.getMaPrice5() > current.getMaPrice10();
+            current.setIsMa5GoldenCross(isGoldenCross);
+            
+            // 死叉: 前一天MA5 >= MA10, 今天MA5 < MA10
+            boolean isDeathCross = prevMa5 >= prevMa10 
+                && current.getMaPrice5() < current.getMaPrice10();
+            current.setIsMa5DeathCross(isDeathCross);
+        }
+        
+        // MA10金叉死叉判断
+        if (current.getMaPrice10() > 0 && current.getMaPrice30() > 0 
+            && prevMa10 > 0 && prevMa30 > 0) {
+            
+            boolean isGoldenCross = prevMa10 <= prevMa30 
+                && current.getMaPrice10() > current.getMaPrice30();
+            current.setIsMa10GoldenCross(isGoldenCross);
+            
+            boolean isDeathCross = prevMa10 >= prevMa30 
+                && current.getMaPrice10() < current.getMaPrice30();
+            current.setIsMa10DeathCross(isDeathCross);
         }
         
         // 均线多头排列: MA5 > MA10 > MA30
@@ -249,11 +400,15 @@ public class KLineAnalysisService {
                 minLow = Math.min(minLow, history.getLow());
             }
             
-            current.setIsBreakHigh(currentClose > maxHigh);
-            current.setIsBreakLow(currentClose < minLow);
+            applyBreakSignals(current, maxHigh, minLow);
         }
     }
     
+    private void applyBreakSignals(StockHistory current, double maxHigh, double minLow) {
+        current.setIsBreakHigh(current.getClose() > maxHigh);
+        current.setIsBreakLow(current.getClose() < minLow);
+    }
+    
     /**
      * 分析成交量
      */
@@ -298,10 +453,19 @@ public class KLineAnalysisService {
         
         // DIF = EMA12 - EMA26
         double dif = ema12 - ema26;
-        current.setMacdDif(dif);
         
         // 计算DEA (DIF的9日EMA)
         double dea = calculateDEAFromHistory(historyList, 9);
+        
+        StockHistory previous = historyList.get(1);
+        applyMacd(current, dif, dea, previous.getMacdDif(), previous.getMacdDea());
+    }
+    
+    /**
+     * 写入MACD指标并根据前一天的DIF/DEA判断金叉死叉
+     */
+    private void applyMacd(StockHistory current, double dif, double dea, Double prevDif, Double prevDea) {
+        current.setMacdDif(dif);
         current.setMacdDea(dea);
         
         // MACD柱状图 = 2 * (DIF - DEA)
@@ -309,19 +473,14 @@ public class KLineAnalysisService {
         current.setMacdBar(bar);
         
         // 判断金叉死叉
-        if (historyList.size() > 1) {
-            StockHistory previous = historyList.get(1);
-            if (previous.getMacdDif() != null && previous.getMacdDea() != null) {
-                // 金叉: 前一天DIF <= DEA, 今天DIF > DEA
-                boolean isGoldenCross = previous.getMacdDif() <= previous.getMacdDea() 
-                    && dif > dea;
-                current.setIsMacdGoldenCross(isGoldenCross);
-                
-                // 死叉: 前一天DIF >= DEA, 今天DIF < DEA
-                boolean isDeathCross = previous.getMacdDif() >= previous.getMacdDea() 
-                    && dif < dea;
-                current.setIsMacdDeathCross(isDeathCross);
-            }
+        if (prevDif != null && prevDea != null) {
+            // 金叉: 前一天DIF <= DEA, 今天DIF > DEA
+            boolean isGoldenCross = prevDif <= prevDea && dif > dea;
+            current.setIsMacdGoldenCross(isGoldenCross);
+            
+            // 死叉: 前一天DIF >= DEA, 今天DIF < DEA
+            boolean isDeathCross = prevDif >= prevDea && dif < dea;
+            current.setIsMacdDeathCross(isDeathCross);
         }
     }
     
@@ -401,17 +560,18 @@ public class KLineAnalysisService {
      * RS = 平均涨幅 / 平均跌幅
      */
     private void calculateRSI(StockHistory current, List<StockHistory> historyList) {
-        // 计算RSI6
-        current.setRsi6(calculateRSIForPeriod(historyList, 6));
-        
-        // 计算RSI12
-        current.setRsi12(calculateRSIForPeriod(historyList, 12));
-        
-        // 计算RSI24
-        current.setRsi24(calculateRSIForPeriod(historyList, 24));
+        applyRsi(current,
+            calculateRSIForPeriod(historyList, 6),
+            calculateRSIForPeriod(historyList, 12),
+            calculateRSIForPeriod(historyList, 24));
+    }
+    
+    private void applyRsi(StockHistory current, Double rsi6, Double rsi12, Double rsi24) {
+        current.setRsi6(rsi6);
+        current.setRsi12(rsi12);
+        current.setRsi24(rsi24);
         
         // 判断超买超卖
-        Double rsi6 = current.getRsi6();
         if (rsi6 != null) {
             current.setIsOverbought(rsi6 > RSI_OVERBOUGHT);
             current.setIsOversold(rsi6 < RSI_OVERSOLD);
@@ -441,16 +601,19 @@ public class KLineAnalysisService {
             }
         }
         
-        if (sumLoss == 0) {
+        return rsiFromSums(sumGain, sumLoss);
+    }
+    
+    /**
+     * 由窗口内累计涨幅和跌幅计算RSI（平均涨跌幅之比与累计值之比相同）
+     */
+    private static double rsiFromSums(double sumGain, double sumLoss) {
+        if (sumLoss <= RSI_ZERO_LOSS) {
             return 100.0; // 全部上涨
         }
         
-        double avgGain = sumGain / period;
-        double avgLoss = sumLoss / period;
-        double rs = avgGain / avgLoss;
-        double rsi = 100 - (100 / (1 + rs));
-        
-        return rsi;
+        double rs = sumGain / sumLoss;
+        return 100 - (100 / (1 + rs));
     }
     
     /**
@@ -470,7 +633,6 @@ public class KLineAnalysisService {
             sum += historyList.get(i).getClose();
         }
         double middle = sum / BOLL_PERIOD;
-        current.setBollMiddle(middle);
         
         // 计算标准差
         double variance = 0;
@@ -480,6 +642,12 @@ public class KLineAnalysisService {
         }
         double stdDev = Math.sqrt(variance / BOLL_PERIOD);
         
+        applyBoll(current, middle, stdDev);
+    }
+    
+    private void applyBoll(StockHistory current, double middle, double stdDev) {
+        current.setBollMiddle(middle);
+        
         // 计算上下轨
         double upper = middle + BOLL_STD_MULTIPLIER * stdDev;
         double lower = middle - BOLL_STD_MULTIPLIER * stdDev;
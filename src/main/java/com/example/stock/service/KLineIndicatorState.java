@@ -0,0 +1,207 @@
+package com.example.stock.service;
+
+import com.example.stock.entity.StockIndicatorState;
+
+import java.time.LocalDate;
+
+/**
+ * 单只股票技术指标的增量计算状态
+ * 保存EMA、RSI/布林带滚动和以及最近若干根K线的价格窗口，
+ * 每根新K线只需常数次运算即可得到指标，由KLineAnalysisService.analyzeKLineIncremental推进
+ * 与持久化实体StockIndicatorState相互转换，非线程安全
+ */
+public class KLineIndicatorState {
+
+    /**
+     * 收盘价窗口长度：RSI24需要移出第25个价格之前的涨跌幅
+     */
+    static final int CLOSE_WINDOW = 25;
+
+    /**
+     * 最高/最低价窗口长度：用于判断突破20日前高/跌破前低
+     */
+    static final int HIGH_LOW_WINDOW = 20;
+
+    /**
+     * RSI周期：RSI6 / RSI12 / RSI24
+     */
+    static final int[] RSI_PERIODS = {6, 12, 24};
+
+    LocalDate tradeDate;
+    int barCount;
+
+    double lastMaPrice5;
+    double lastMaPrice10;
+    double lastMaPrice30;
+    int lastConsecutiveDays;
+
+    double ema12;
+    double ema26;
+    double dea;
+    Double lastMacdDif;
+    Double lastMacdDea;
+
+    /**
+     * 各RSI周期窗口内的累计涨幅与跌幅，下标与RSI_PERIODS对应
+     */
+    final double[] rsiGain = new double[RSI_PERIODS.length];
+    final double[] rsiLoss = new double[RSI_PERIODS.length];
+
+    double bollSum;
+    double bollSumSq;
+
+    final DoubleWindow closes = new DoubleWindow(CLOSE_WINDOW);
+    final DoubleWindow highs = new DoubleWindow(HIGH_LOW_WINDOW);
+    final DoubleWindow lows = new DoubleWindow(HIGH_LOW_WINDOW);
+
+    /**
+     * @return 状态对应的最后一根K线的交易日期，尚未处理任何K线时为null
+     */
+    public LocalDate getTradeDate() {
+        return tradeDate;
+    }
+
+    /**
+     * @return 已累计的K线数量
+     */
+    public int getBarCount() {
+        return barCount;
+    }
+
+    /**
+     * 从持久化实体恢复状态
+     */
+    public static KLineIndicatorState fromEntity(StockIndicatorState entity) {
+        KLineIndicatorState state = new KLineIndicatorState();
+        state.tradeDate = entity.getTradeDate();
+        state.barCount = entity.getBarCount();
+        state.lastMaPrice5 = entity.getLastMaPrice5();
+        state.lastMaPrice10 = entity.getLastMaPrice10();
+        state.lastMaPrice30 = entity.getLastMaPrice30();
+        state.lastConsecutiveDays = entity.getLastConsecutiveDays();
+        state.ema12 = entity.getEma12();
+        state.ema26 = entity.getEma26();
+        state.dea = entity.getDea();
+        state.lastMacdDif = entity.getLastMacdDif();
+        state.lastMacdDea = entity.getLastMacdDea();
+        state.rsiGain[0] = entity.getRsi6Gain();
+        state.rsiLoss[0] = entity.getRsi6Loss();
+        state.rsiGain[1] = entity.getRsi12Gain();
+        state.rsiLoss[1] = entity.getRsi12Loss();
+        state.rsiGain[2] = entity.getRsi24Gain();
+        state.rsiLoss[2] = entity.getRsi24Loss();
+        state.bollSum = entity.getBollSum();
+        state.bollSumSq = entity.getBollSumSq();
+        state.closes.parse(entity.getRecentCloses());
+        state.highs.parse(entity.getRecentHighs());
+        state.lows.parse(entity.getRecentLows());
+        return state;
+    }
+
+    /**
+     * 转换为持久化实体
+     * @param symbol 股票代码
+     */
+    public StockIndicatorState toEntity(String symbol) {
+        StockIndicatorState entity = new StockIndicatorState();
+        entity.setSymbol(symbol);
+        entity.setTradeDate(tradeDate);
+        entity.setBarCount(barCount);
+        entity.setLastMaPrice5(lastMaPrice5);
+        entity.setLastMaPrice10(lastMaPrice10);
+        entity.setLastMaPrice30(lastMaPrice30);
+        entity.setLastConsecutiveDays(lastConsecutiveDays);
+        entity.setEma12(ema12);
+        entity.setEma26(ema26);
+        entity.setDea(dea);
+        entity.setLastMacdDif(lastMacdDif);
+        entity.setLastMacdDea(lastMacdDea);
+        entity.setRsi6Gain(rsiGain[0]);
+        entity.setRsi6Loss(rsiLoss[0]);
+        entity.setRsi12Gain(rsiGain[1]);
+        entity.setRsi12Loss(rsiLoss[1]);
+        entity.setRsi24Gain(rsiGain[2]);
+        entity.setRsi24Loss(rsiLoss[2]);
+        entity.setBollSum(bollSum);
+        entity.setBollSumSq(bollSumSq);
+        entity.setRecentCloses(closes.format());
+        entity.setRecentHighs(highs.format());
+        entity.setRecentLows(lows.format());
+        return entity;
+    }
+
+    /**
+     * 定长环形窗口，按时间先后保存最近的若干个值
+     */
+    static final class DoubleWindow {
+        private final double[] values;
+        private int start;
+        private int size;
+
+        DoubleWindow(int capacity) {
+            this.values = new double[capacity];
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * @param ago 0表示最近一个值，1表示前一个，依此类推
+         */
+        double get(int ago) {
+            return values[(start + size - 1 - ago) % values.length];
+        }
+
+        /**
+         * 追加一个值，窗口已满时覆盖最早的值
+         */
+        void add(double value) {
+            if (size < values.length) {
+                values[(start + size) % values.length] = value;
+                size++;
+            } else {
+                values[start] = value;
+                start = (start + 1) % values.length;
+            }
+        }
+
+        double max() {
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < size; i++) {
+                max = Math.max(max, values[i]);
+            }
+            return max;
+        }
+
+        double min() {
+            double min = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < size; i++) {
+                min = Math.min(min, values[i]);
+            }
+            return min;
+        }
+
+        String format() {
+            StringBuilder sb = new StringBuilder(size * 10);
+            for (int i = size - 1; i >= 0; i--) {
+                if (sb.length() > 0) {
+                    sb.append(',');
+                }
+                sb.append(get(i));
+            }
+            return sb.toString();
+        }
+
+        void parse(String text) {
+            start = 0;
+            size = 0;
+            if (text == null || text.isEmpty()) {
+                return;
+            }
+            for (String part : text.split(",")) {
+                add(Double.parseDouble(part));
+            }
+        }
+    }
+}
@@ -5,8 +5,18 @@ import com.example.stock.entity.Stock;
 import com.example.stock.entity.StockHistory;
 import com.example.stock.repository.StockHistoryRepository;
 import com.example.stock.repository.StockRepository;
+import com.example.stock.service.analysis.MarketSnapshotService;
+import com.example.stock.service.screen.GoldenCross;
+import com.example.stock.service.screen.GoldenCrossDetector;
+import com.example.stock.service.screen.MaPair;
+import com.example.stock.service.screen.ScreenMaterializationService;
+import com.example.stock.service.screen.ScreeningCondition;
+import com.example.stock.service.screen.ScreeningEngine;
+import com.example.stock.service.screen.ScreeningParams;
+import com.example.stock.service.screen.ScreeningResultCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -26,23 +36,17 @@ public class StockAnalysisService {
 
     private final StockRepository stockRepository;
 
-    private static final double LOW_PRICE_RATIO_THRESHOLD = 0.4;
-    private static final double NEAR_YEAR_HIGH_PCT = 5.0;
-    private static final double VOLUME_SURGE_MULTIPLIER = 2.0;
+    private final ScreeningEngine screeningEngine;
 
-    /**
-     * 批量获取所有股票的历史数据并按symbol分组
-     * 避免N+1查询问题
-     */
-    private Map<String, List<StockHistory>> fetchAllHistoriesGroupedBySymbol() {
-        List<String> allSymbols = stockHistoryRepository.findAllSymbols();
-        if (allSymbols.isEmpty()) {
-            return Collections.emptyMap();
-        }
-        List<StockHistory> allHistories = stockHistoryRepository.findBySymbolInOrderBySymbolAscDayDesc(allSymbols);
-        return allHistories.stream()
-                .collect(Collectors.groupingBy(StockHistory::getSymbol));
-    }
+    private final GoldenCrossDetector goldenCrossDetector;
+
+    private final StockLatestSummaryService stockLatestSummaryService;
+
+    private final MarketSnapshotService marketSnapshotService;
+
+    private final ScreeningResultCache screeningResultCache;
+
+    private final ScreenMaterializationService screenMaterializationService;
 
     /**
      * 根据多个条件分析股票
@@ -61,56 +65,90 @@ public class StockAnalysisService {
      * @return 股票分析结果列表
      */
     public List<StockAnalysisDTO> analyzeStocks(List<String> conditions, LocalDate startDate, Double dropPercentage) {
-        long startTime = System.currentTimeMillis();
-        log.info("开始根据条件分析股票: {}, startDate: {}, dropPercentage: {}", conditions, startDate, dropPercentage);
-        
-        List<StockAnalysisDTO> allResults = new ArrayList<>();
-        
-        if (conditions == null || conditions.isEmpty()) {
+        return analyzeStocks(conditions, startDate, dropPercentage, null);
+    }
+
+    /**
+     * 根据多个条件分析股票（带金叉日期）
+     * @param goldenCrossDate 均线金叉日期（可选，用于条件6，默认最新交易日）
+     */
+    public List<StockAnalysisDTO> analyzeStocks(List<String> conditions, LocalDate startDate, Double dropPercentage,
+                                                LocalDate goldenCrossDate) {
+        return analyzeStocks(conditions, new ScreeningParams(startDate, dropPercentage, goldenCrossDate, null, null));
+    }
+
+    /**
+     * 根据多个条件分析股票（带全部参数）
+     * 所选条件在一次遍历中同时求值，每只股票只返回一行，matchedConditions列出命中的全部条件；
+     * 结果按 (条件集合, 参数, stock_history主键水位, 当天日期) 缓存，两次同步之间的重复查询直接返回；
+     * 水位是一次索引查询，读汇总表和screen_result的查询不需要等待行情快照构建；
+     * 默认参数且screen_result基于当前水位的数据落表时读表，不再现场计算
+     * @param conditions 筛选条件列表
+     * @param params 筛选参数（条件1的开始日期和跌幅，条件6的日期区间和均线组合）
+     * @return 股票分析结果列表
+     */
+    public List<StockAnalysisDTO> analyzeStocks(List<String> conditions, ScreeningParams params) {
+        log.info("开始根据条件分析股票: {}, 参数: {}", conditions, params);
+
+        Set<ScreeningCondition> selected = ScreeningCondition.fromCodes(conditions);
+        if (selected.isEmpty()) {
             log.info("条件列表为空，返回空结果");
-            return allResults;
+            return new ArrayList<>();
         }
-        
-        // 条件1: 跌幅超过指定百分比的股票
-        if (conditions.contains("below_75_percent")) {
-            if (startDate != null || dropPercentage != null) {
-                // 使用带参数的版本
-                allResults.addAll(findStocksBelowHistoricalHighWithParams(startDate, dropPercentage));
-            } else {
-                // 使用默认版本
-                allResults.addAll(findStocksBelowHistoricalHigh());
+
+        ScreeningParams actualParams = params != null ? params : ScreeningParams.defaults();
+        long watermark = marketSnapshotService.getWatermark();
+        ScreeningResultCache.Key key = new ScreeningResultCache.Key(selected, actualParams, watermark, LocalDate.now());
+        return screeningResultCache.get(key, () -> {
+            if (actualParams.isDefault()) {
+                Optional<List<StockAnalysisDTO>> materialized = screenMaterializationService.findLatest(conditions, watermark);
+                if (materialized.isPresent()) {
+                    return materialized.get();
+                }
             }
+            return screeningEngine.screen(conditions, actualParams);
+        });
+    }
+
+    /**
+     * 历史数据同步完成后清空筛选结果缓存，并按新数据重新计算最近使用的几组条件
+     * 先刷新行情快照（已被其他监听器刷新时只是一次水位查询），保证预热使用新版本；
+     * 落表监听器尚未运行时screen_result的水位低于当前水位，预热现场计算，不会缓存旧的落表结果
+     */
+    @EventListener
+    public void onSyncCompleted(StockHistorySyncCompletedEvent event) {
+        try {
+            marketSnapshotService.refresh();
+            List<ScreeningResultCache.Key> recent = screeningResultCache.invalidateAll();
+            long startTime = System.currentTimeMillis();
+            for (ScreeningResultCache.Key key : recent) {
+                analyzeStocks(key.conditions().stream().map(ScreeningCondition::getCode).toList(), key.params());
+            }
+            log.info("同步完成后预热筛选结果缓存: {}组条件, 耗时{}ms", recent.size(), System.currentTimeMillis() - startTime);
+            screeningResultCache.logSummary();
+        } catch (Exception e) {
+            log.error("同步完成后预热筛选结果缓存失败: {}", e.getMessage(), e);
         }
-        
-        // 条件2: 最近半年出现至少3次最高值和最低值差距大于20%，并且当前价格处于低点的股票
-        if (conditions.contains("high_volatility_low_price")) {
-            allResults.addAll(findHighVolatilityLowPriceStocks());
-        }
-        
-        // 条件3: 连续上涨趋势（最近10个交易日有8天收盘价高于开盘价）
-        if (conditions.contains("continuous_rise")) {
-            allResults.addAll(findContinuousRiseStocks());
-        }
-        
-        // 条件4: 接近年度最高点（距离年度最高价5%以内）
-        if (conditions.contains("near_year_high")) {
-            allResults.addAll(findNearYearHighStocks());
-        }
-        
-        // 条件5: 成交量激增（最近一天成交量是前30天平均成交量的2倍以上）
-        if (conditions.contains("volume_surge")) {
-            allResults.addAll(findVolumeSurgeStocks());
-        }
-        
-        // 条件6: 均线金叉（5日均线上穿10日均线）
-        if (conditions.contains("ma_golden_cross")) {
-            allResults.addAll(findGoldenCrossStocks());
-        }
-        
-        long totalTime = System.currentTimeMillis() - startTime;
-        log.info("条件分析完成，共找到 {} 只符合条件的股票，总耗时 {}ms", allResults.size(), totalTime);
-        
-        return allResults;
+    }
+
+    /**
+     * 查看某个交易日落表的筛选结果（默认参数），用于回看历史交易日
+     * @param conditions 筛选条件列表，为空时返回全部条件的结果
+     * @param tradeDate 交易日
+     * @return 股票分析结果列表
+     */
+    public List<StockAnalysisDTO> findScreenResults(List<String> conditions, LocalDate tradeDate) {
+        List<String> codes = conditions == null || conditions.isEmpty()
+                ? Arrays.stream(ScreeningCondition.values()).map(ScreeningCondition::getCode).toList()
+                : conditions;
+        return screenMaterializationService.findByDate(tradeDate, codes);
+    }
+
+    /**
+     * @return 已落表筛选结果的交易日，最近的在前
+     */
+    public List<LocalDate> findScreenDates() {
+        return screenMaterializationService.findTradeDates();
     }
 
     /**
@@ -119,38 +157,16 @@ public class StockAnalysisService {
      * @return 股票分析结果列表
      */
     public List<StockAnalysisDTO> getAllAnalysisResults() {
-        long startTime = System.currentTimeMillis();
         log.info("开始执行所有股票筛选条件");
-
-        List<StockAnalysisDTO> allResults = new ArrayList<>();
-
-        // 条件1: 跌幅超过25%的股票
-        allResults.addAll(findStocksBelowHistoricalHigh());
-
-        // 条件2: 最近半年出现至少3次最高值和最低值差距大于20%，并且当前价格处于低点的股票
-        allResults.addAll(findHighVolatilityLowPriceStocks());
-
-        // 条件3: 连续上涨趋势（最近10个交易日有8天收盘价高于开盘价）
-        allResults.addAll(findContinuousRiseStocks());
-
-        // 条件4: 接近年度最高点（距离年度最高价5%以内）
-        allResults.addAll(findNearYearHighStocks());
-
-        // 条件5: 成交量激增（最近一天成交量是前30天平均成交量的2倍以上）
-        allResults.addAll(findVolumeSurgeStocks());
-
-        // 条件6: 均线金叉（5日均线上穿10日均线）
-        allResults.addAll(findGoldenCrossStocks());
-
-        long totalTime = System.currentTimeMillis() - startTime;
-        log.info("所有筛选条件执行完成，共找到 {} 只符合条件的股票，总耗时 {}ms", allResults.size(), totalTime);
-
-        return allResults;
+        List<String> allConditions = Arrays.stream(ScreeningCondition.values())
+                .map(ScreeningCondition::getCode)
+                .collect(Collectors.toList());
+        return analyzeStocks(allConditions, ScreeningParams.defaults());
     }
 
     /**
      * 条件1: 跌幅超过25%的股票（相对于历史最高点）
-     * 优化：使用数据库聚合查询一次性完成筛选，避免N+1查询问题
+     * 优化：读取stock_latest_summary汇总表，避免对stock_history分组聚合
      */
     public List<StockAnalysisDTO> findStocksBelowHistoricalHigh() {
         return findStocksBelowHistoricalHighWithParams(null, 25.0);
@@ -169,16 +185,8 @@ public class StockAnalysisService {
         try {
             // 使用数据库聚合查询一次性找出所有符合条件的股票
             long queryStart = System.currentTimeMillis();
-            List<Map<String, Object>> queryResults;
-            
-            if (startDate != null) {
-                // 使用带参数的查询
-                queryResults = stockHistoryRepository.findStocksBelowHistoricalHighWithParams(
-                    startDate.toString(), actualDropPercentage);
-            } else {
-                // 使用默认查询（全部历史数据）
-                queryResults = stockHistoryRepository.findStocksBelowHistoricalHigh();
-            }
+            List<Map<String, Object>> queryResults =
+                    stockLatestSummaryService.findBelowHistoricalHigh(startDate, actualDropPercentage);
             
             long queryTime = System.currentTimeMillis() - queryStart;
             log.info("数据库查询完成，找到{}条符合条件的记录，耗时{}ms", queryResults.size(), queryTime);
@@ -211,401 +219,70 @@ public class StockAnalysisService {
 
     /**
      * 回退方案：当数据库查询失败时使用
+     * 逐只股票流式读取开始日期以来的K线，内存中只保留一只股票的序列
      */
     private List<StockAnalysisDTO> findStocksBelowHistoricalHighFallback(LocalDate startDate, double dropPercentage) {
         log.info("使用回退方案：应用层查询模式，跌幅阈值: {}%，开始日期: {}", dropPercentage, startDate);
         List<StockAnalysisDTO> results = new ArrayList<>();
 
-        Map<String, List<StockHistory>> groupedHistories = fetchAllHistoriesGroupedBySymbol();
-
-        for (Map.Entry<String, List<StockHistory>> entry : groupedHistories.entrySet()) {
-            String symbol = entry.getKey();
-            List<StockHistory> histories = entry.getValue();
-
-            if (startDate != null) {
-                histories = histories.stream()
-                        .filter(h -> !h.getDay().isBefore(startDate))
-                        .collect(Collectors.toList());
-            }
-
-            if (!histories.isEmpty()) {
-                double maxHigh = histories.stream()
-                        .mapToDouble(StockHistory::getHigh)
-                        .max()
-                        .orElse(0);
-
-                StockHistory latest = histories.get(0);
-
-                double currentPrice = latest.getClose();
-                double actualDropPercentage = ((maxHigh - currentPrice) / maxHigh) * 100;
-
-                if (actualDropPercentage >= dropPercentage) {
-                    results.add(StockAnalysisDTO.builder()
-                            .symbol(symbol)
-                            .currentPrice(currentPrice)
-                            .historicalHigh(maxHigh)
-                            .dropPercentage(actualDropPercentage)
-                            .matchedCondition("低于历史最高值" + String.format("%.1f", dropPercentage) + "%以上")
-                            .build());
-                }
-            }
-        }
-
-        log.info("回退方案完成，找到 {} 只符合条件的股票", results.size());
-        return results;
-    }
-
-    /**
-     * 条件2: 最近半年出现至少3次最高值和最低值差距大于20%，并且当前价格处于低点的股票
-     */
-    private List<StockAnalysisDTO> findHighVolatilityLowPriceStocks() {
-        long startTime = System.currentTimeMillis();
-        log.info("开始筛选高波动低价位股票");
-        List<StockAnalysisDTO> results = new ArrayList<>();
-        LocalDate halfYearAgo = LocalDate.now().minusMonths(6);
-
-        Map<String, List<StockHistory>> groupedHistories = fetchAllHistoriesGroupedBySymbol();
-
-        for (Map.Entry<String, List<StockHistory>> entry : groupedHistories.entrySet()) {
-            String symbol = entry.getKey();
-            List<StockHistory> histories = entry.getValue();
-
-            List<StockHistory> recentHistories = histories.stream()
-                    .filter(h -> h.getDay().isAfter(halfYearAgo))
-                    .collect(Collectors.toList());
-
-            if (recentHistories.size() < 30) continue;
-
-            int volatilityCount = 0;
-            for (StockHistory history : recentHistories) {
-                double dayRange = ((history.getHigh() - history.getLow()) / history.getLow()) * 100;
-                if (dayRange > 20) {
-                    volatilityCount++;
-                }
-            }
-
-            if (volatilityCount >= 3) {
-                StockHistory latest = recentHistories.get(0);
-                double recentHigh = recentHistories.stream()
-                        .mapToDouble(StockHistory::getHigh)
-                        .max()
-                        .orElse(0);
-                double recentLow = recentHistories.stream()
-                        .mapToDouble(StockHistory::getLow)
-                        .min()
-                        .orElse(0);
-
-                double currentPrice = latest.getClose();
-                double lowThreshold = recentLow + (recentHigh - recentLow) * LOW_PRICE_RATIO_THRESHOLD;
-
-                if (currentPrice <= lowThreshold) {
-                    results.add(StockAnalysisDTO.builder()
-                            .symbol(symbol)
-                            .currentPrice(currentPrice)
-                            .historicalHigh(recentHigh)
-                            .historicalLow(recentLow)
-                            .volatilityCount(volatilityCount)
-                            .matchedCondition("高波动且处于低位（半年内波动" + volatilityCount + "次）")
-                            .build());
-                }
-            }
-        }
-
-        long totalTime = System.currentTimeMillis() - startTime;
-        log.info("找到 {} 只符合条件的股票，总耗时{}ms", results.size(), totalTime);
-        return results;
-    }
-
-    /**
-     * 条件3: 连续上涨趋势（最近10个交易日有8天收盘价高于开盘价）
-     */
-    private List<StockAnalysisDTO> findContinuousRiseStocks() {
-        long startTime = System.currentTimeMillis();
-        log.info("开始筛选连续上涨趋势股票");
-        List<StockAnalysisDTO> results = new ArrayList<>();
-
-        Map<String, List<StockHistory>> groupedHistories = fetchAllHistoriesGroupedBySymbol();
-
-        for (Map.Entry<String, List<StockHistory>> entry : groupedHistories.entrySet()) {
-            String symbol = entry.getKey();
-            List<StockHistory> histories = entry.getValue();
-
-            List<StockHistory> recent10Days = histories.stream()
-                    .limit(10)
-                    .collect(Collectors.toList());
-
-            if (recent10Days.size() < 10) continue;
-
-            long riseDays = recent10Days.stream()
-                    .filter(h -> h.getClose() > h.getOpen())
-                    .count();
-
-            if (riseDays >= 8) {
-                StockHistory latest = recent10Days.get(0);
-                results.add(StockAnalysisDTO.builder()
-                        .symbol(symbol)
-                        .currentPrice(latest.getClose())
-                        .matchedCondition("连续上涨（10天中" + riseDays + "天上涨）")
-                        .build());
-            }
-        }
-
-        long totalTime = System.currentTimeMillis() - startTime;
-        log.info("找到 {} 只符合条件的股票，总耗时{}ms", results.size(), totalTime);
-        return results;
-    }
-
-    /**
-     * 条件4: 接近年度最高点（距离年度最高价5%以内）
-     */
-    private List<StockAnalysisDTO> findNearYearHighStocks() {
-        long startTime = System.currentTimeMillis();
-        log.info("开始筛选接近年度最高点的股票");
-        List<StockAnalysisDTO> results = new ArrayList<>();
-        LocalDate oneYearAgo = LocalDate.now().minusYears(1);
-
-        Map<String, List<StockHistory>> groupedHistories = fetchAllHistoriesGroupedBySymbol();
-
-        for (Map.Entry<String, List<StockHistory>> entry : groupedHistories.entrySet()) {
-            String symbol = entry.getKey();
-            List<StockHistory> histories = entry.getValue();
-
-            List<StockHistory> yearHistories = histories.stream()
-                    .filter(h -> h.getDay().isAfter(oneYearAgo))
-                    .collect(Collectors.toList());
-
-            if (yearHistories.isEmpty()) continue;
-
-            double yearHigh = yearHistories.stream()
+        stockHistoryRepository.streamSymbolSeries(startDate, histories -> {
+            double maxHigh = histories.stream()
                     .mapToDouble(StockHistory::getHigh)
                     .max()
                     .orElse(0);
 
-            StockHistory latest = yearHistories.get(0);
-
-            if (yearHigh == 0) continue;
+            StockHistory latest = histories.get(histories.size() - 1);
 
             double currentPrice = latest.getClose();
-            double difference = ((yearHigh - currentPrice) / yearHigh) * 100;
+            double actualDropPercentage = ((maxHigh - currentPrice) / maxHigh) * 100;
 
-            if (difference <= NEAR_YEAR_HIGH_PCT && difference >= 0) {
+            if (actualDropPercentage >= dropPercentage) {
                 results.add(StockAnalysisDTO.builder()
-                        .symbol(symbol)
+                        .symbol(latest.getSymbol())
                         .currentPrice(currentPrice)
-                        .historicalHigh(yearHigh)
-                        .dropPercentage(difference)
-                        .matchedCondition("接近年度最高点（相差" + String.format("%.2f", difference) + "%）")
-                        .build());
-            }
-        }
-
-        long totalTime = System.currentTimeMillis() - startTime;
-        log.info("找到 {} 只符合条件的股票，总耗时{}ms", results.size(), totalTime);
-        return results;
-    }
-
-    /**
-     * 条件5: 成交量激增（最近一天成交量是前30天平均成交量的2倍以上）
-     */
-    private List<StockAnalysisDTO> findVolumeSurgeStocks() {
-        long startTime = System.currentTimeMillis();
-        log.info("开始筛选成交量激增股票");
-        List<StockAnalysisDTO> results = new ArrayList<>();
-
-        Map<String, List<StockHistory>> groupedHistories = fetchAllHistoriesGroupedBySymbol();
-
-        for (Map.Entry<String, List<StockHistory>> entry : groupedHistories.entrySet()) {
-            String symbol = entry.getKey();
-            List<StockHistory> histories = entry.getValue();
-
-            List<StockHistory> recent31Days = histories.stream()
-                    .limit(31)
-                    .collect(Collectors.toList());
-
-            if (recent31Days.size() < 31) continue;
-
-            StockHistory latest = recent31Days.get(0);
-            long latestVolume = latest.getVolume();
-
-            double avgVolume = recent31Days.stream()
-                    .skip(1)
-                    .mapToLong(StockHistory::getVolume)
-                    .average()
-                    .orElse(0);
-
-            if (avgVolume > 0 && latestVolume > avgVolume * VOLUME_SURGE_MULTIPLIER) {
-                results.add(StockAnalysisDTO.builder()
-                        .symbol(symbol)
-                        .currentPrice(latest.getClose())
-                        .matchedCondition("成交量激增（是平均量的" + String.format("%.2f", latestVolume / avgVolume) + "倍）")
+                        .historicalHigh(maxHigh)
+                        .dropPercentage(actualDropPercentage)
+                        .matchedCondition("低于历史最高值" + String.format("%.1f", dropPercentage) + "%以上")
                         .build());
             }
-        }
+        });
 
-        long totalTime = System.currentTimeMillis() - startTime;
-        log.info("找到 {} 只符合条件的股票，总耗时{}ms", results.size(), totalTime);
+        log.info("回退方案完成，找到 {} 只符合条件的股票", results.size());
         return results;
     }
 
     /**
-     * 条件6: 均线金叉（5日均线上穿10日均线）
+     * 条件6: 均线金叉（5日均线上穿10日均线），检测快照中的最新交易日
      */
     public List<StockAnalysisDTO> findGoldenCrossStocks() {
-        // 使用默认日期（当前日期）
-        return findGoldenCrossStocksWithDate(LocalDate.now());
-    }
-    
-    /**
-     * 条件6: 均线金叉（5日均线上穿10日均线）
-     * @param latestDate 用户指定的最新交易日
-     */
-    public List<StockAnalysisDTO> findGoldenCrossStocksWithDate(LocalDate latestDate) {
-        return findGoldenCrossStocksWithDateInternal(latestDate);
+        return findGoldenCrossStocks(MaPair.MA5_MA10, null, null);
     }
-    
-    /**
-     * 原始的数据库查询方案（备选）
-     */
-    private List<StockAnalysisDTO> findGoldenCrossStocksOriginal() {
-        long startTime = System.currentTimeMillis();
-        log.info("开始筛选均线金叉股票（原始方案）");
-        List<StockAnalysisDTO> results = new ArrayList<>();
-
-        try {
-            // 使用数据库聚合查询一次性找出所有金叉股票
-            long queryStart = System.currentTimeMillis();
-            List<Map<String, Object>> queryResults = stockHistoryRepository.findGoldenCrossStocksOptimized();
-            long queryTime = System.currentTimeMillis() - queryStart;
-            log.info("数据库查询完成，找到{}条符合条件的记录，耗时{}ms", queryResults.size(), queryTime);
-
-            for (Map<String, Object> row : queryResults) {
-                String symbol = (String) row.get("symbol");
-                Double currentPrice = row.get("current_price") != null ? ((Number) row.get("current_price")).doubleValue() : 0.0;
-
-                results.add(StockAnalysisDTO.builder()
-                        .symbol(symbol)
-                        .currentPrice(currentPrice)
-                        .matchedCondition("均线金叉（5日均线上穿10日均线）")
-                        .build());
-            }
 
-            long totalTime = System.currentTimeMillis() - startTime;
-            log.info("找到 {} 只符合条件的股票，总耗时{}ms（数据库查询{}ms）",
-                    results.size(), totalTime, queryTime);
-            return results;
-        } catch (Exception e) {
-            log.error("数据库查询失败: {}", e.getMessage());
-            return results; // 返回空列表
-        }
-    }
-    
     /**
      * 条件6: 均线金叉（5日均线上穿10日均线）
-     * 优化方案：使用IN查询获取最近两个交易日的数据
-     * @param latestDate 用户指定的最新交易日
+     * @param latestDate 用户指定的交易日
      */
-    private List<StockAnalysisDTO> findGoldenCrossStocksWithDateInternal(LocalDate latestDate) {
-        // 查询前一个交易日
-        LocalDate previousDate = stockHistoryRepository.findPreviousTradeDate(latestDate);
-        if (previousDate == null) {
-            log.warn("找不到{}之前的交易日期", latestDate);
-            return Collections.emptyList();
-        }
-        
-        long startTime = System.currentTimeMillis();
-        log.info("开始筛选均线金叉股票，最新日期: {}, 前一交易日: {}", latestDate, previousDate);
-        
-        // 获取最近两个交易日的所有股票数据
-        long queryStart = System.currentTimeMillis();
-        List<StockHistory> latestTwoDaysData = stockHistoryRepository.findLatestTwoDaysData(latestDate, previousDate);
-        long queryTime = System.currentTimeMillis() - queryStart;
-        log.info("获取最近两个交易日数据完成，共{}条记录，耗时{}ms", latestTwoDaysData.size(), queryTime);
-
-        // 按股票代码分组
-        Map<String, List<StockHistory>> groupedBySymbol = latestTwoDaysData.stream()
-                .collect(Collectors.groupingBy(StockHistory::getSymbol));
-
-        // 分析金叉
-        List<StockAnalysisDTO> results = new ArrayList<>();
-        for (Map.Entry<String, List<StockHistory>> entry : groupedBySymbol.entrySet()) {
-            String symbol = entry.getKey();
-            List<StockHistory> histories = entry.getValue();
-
-            // 处理停牌情况：如果只有当天数据而没有前一天数据，单独获取这个股票的上一个交易日数据
-            if (histories.size() < 2) {
-                // 查询该股票的上一个交易日数据
-                StockHistory previousDayData = stockHistoryRepository.findPreviousDayDataForStock(symbol, latestDate);
-                if (previousDayData != null) {
-                    histories.add(previousDayData);
-                } else {
-                    continue; // 仍然没有足够数据，跳过
-                }
-            }
-
-            // 按日期排序，最新的在前
-            histories.sort(Comparator.comparing(StockHistory::getDay).reversed());
-            StockHistory today = histories.get(0);
-            StockHistory yesterday = histories.get(1);
-
-            // 验证数据日期
-            if (!today.getDay().equals(latestDate)) {
-                continue; // 最新数据不是指定日期，跳过
-            }
-
-            // 判断金叉：昨天5日均线<=10日均线，今天5日均线>10日均线
-            // 同时确保均线数据不为null且大于0
-            if (yesterday.getMaPrice5() > 0 && yesterday.getMaPrice10() > 0 && 
-                today.getMaPrice5() > 0 && today.getMaPrice10() > 0 &&
-                yesterday.getMaPrice5() <= yesterday.getMaPrice10() && 
-                today.getMaPrice5() > today.getMaPrice10()) {
-                
-                results.add(StockAnalysisDTO.builder()
-                        .symbol(symbol)
-                        .currentPrice(today.getClose())
-                        .matchedCondition("均线金叉（5日均线上穿10日均线）")
-                        .build());
-            }
-        }
-        
-        long totalTime = System.currentTimeMillis() - startTime;
-        log.info("金叉分析完成，找到 {} 只符合条件的股票，总耗时{}ms", results.size(), totalTime);
-        return results;
+    public List<StockAnalysisDTO> findGoldenCrossStocksWithDate(LocalDate latestDate) {
+        return findGoldenCrossStocks(MaPair.MA5_MA10, latestDate, latestDate);
     }
 
     /**
-     * 回退方案：当数据库查询失败时使用
+     * 条件6: 指定均线组合在日期区间内的金叉
+     * 每只股票的前一根K线由内存序列或一条集合查询解析，不再逐只股票查询
+     * @param pair 均线组合
+     * @param from 开始日期（可选，默认最新交易日）
+     * @param to 结束日期（可选，默认与开始日期相同）
+     * @return 每只股票一行，取区间内最后一次金叉
      */
-    private List<StockAnalysisDTO> findGoldenCrossStocksFallback() {
-        log.info("使用回退方案：应用层查询模式");
+    public List<StockAnalysisDTO> findGoldenCrossStocks(MaPair pair, LocalDate from, LocalDate to) {
         List<StockAnalysisDTO> results = new ArrayList<>();
-
-        Map<String, List<StockHistory>> groupedHistories = fetchAllHistoriesGroupedBySymbol();
-
-        for (Map.Entry<String, List<StockHistory>> entry : groupedHistories.entrySet()) {
-            String symbol = entry.getKey();
-            List<StockHistory> histories = entry.getValue();
-
-            List<StockHistory> recent2Days = histories.stream()
-                    .limit(2)
-                    .collect(Collectors.toList());
-
-            if (recent2Days.size() < 2) continue;
-
-            StockHistory today = recent2Days.get(0);
-            StockHistory yesterday = recent2Days.get(1);
-
-            if (yesterday.getMaPrice5() <= yesterday.getMaPrice10() &&
-                today.getMaPrice5() > today.getMaPrice10()) {
-
-                results.add(StockAnalysisDTO.builder()
-                        .symbol(symbol)
-                        .currentPrice(today.getClose())
-                        .matchedCondition("均线金叉（5日均线上穿10日均线）")
-                        .build());
-            }
+        for (GoldenCross cross : GoldenCrossDetector.latestBySymbol(goldenCrossDetector.detect(pair, from, to)).values()) {
+            results.add(StockAnalysisDTO.builder()
+                    .symbol(cross.symbol())
+                    .currentPrice(cross.close())
+                    .matchedCondition("均线金叉（" + pair.getDescription() + "，" + cross.tradeDate() + "）")
+                    .build());
         }
-
-        log.info("回退方案完成，找到 {} 只符合条件的股票", results.size());
         return results;
     }
 
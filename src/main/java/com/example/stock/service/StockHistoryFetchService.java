@@ -1,22 +1,35 @@
 package com.example.stock.service;
 
-import com.example.stock.dto.StockHistoryDTO;
 import com.example.stock.entity.StockHistory;
-import com.example.stock.entity.StockSyncLog;
+import com.example.stock.entity.StockIndicatorState;
+import com.example.stock.entity.StockSyncRun;
+import com.example.stock.repository.StockHistoryBatchWriter;
+import com.example.stock.repository.StockHistoryBulkLoader;
+import com.example.stock.repository.StockHistoryPartitionManager;
 import com.example.stock.repository.StockHistoryRepository;
-import com.example.stock.repository.StockSyncLogRepository;
+import com.example.stock.repository.StockIndicatorStateRepository;
+import com.example.stock.service.client.HttpTransportMetrics;
+import com.example.stock.service.client.SinaRateLimiter;
 import com.example.stock.service.client.SinaStockClient;
-import com.example.stock.service.mapper.StockMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDate;
-import java.util.HashMap;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -29,119 +42,255 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class StockHistoryFetchService {
     private final SinaStockClient stockClient;
     private final StockHistoryRepository stockHistoryRepository;
-    private final StockSyncLogRepository stockSyncLogRepository;
-    private final StockMapper stockMapper;
+    private final StockSyncStateStore syncStateStore;
     private final KLineAnalysisService kLineAnalysisService;
     private final TaskExecutor syncTaskExecutor;
 
-    private static final long BATCH_THROTTLE_MS = 2000;
+    private final TaskExecutor historyFetchExecutor;
+    private final SinaRateLimiter rateLimiter;
+    private final HttpTransportMetrics transportMetrics;
+    private final StockSymbolUniverseService symbolUniverseService;
+    private final StockIndicatorStateRepository indicatorStateRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockSyncRunService syncRunService;
+    private final StockHistorySyncPipeline.Options pipelineOptions;
+    private final StockHistoryBatchWriter batchWriter;
+    private final StockHistoryBulkLoader bulkLoader;
+    private final StockHistoryPartitionManager partitionManager;
+
+    /**
+     * 流水线写入成功、尚未保存的指标状态
+     */
+    private final Queue<StockIndicatorState> pendingStates = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 防止启动同步与定时同步重叠执行
+     */
+    private final AtomicBoolean syncing = new AtomicBoolean(false);
+
+    /**
+     * 缺少指标状态时用于重建状态的历史K线数量
+     */
+    private static final int INDICATOR_BOOTSTRAP_BARS = 250;
+
+    /**
+     * 同步号段定义，按顺序处理
+     */
+    private record SyncSegment(String name, int codeFrom, int codeTo, String codeRange) {
+        boolean contains(int code) {
+            return code >= codeFrom && code <= codeTo;
+        }
+    }
+
+    private static final List<SyncSegment> SEGMENTS = List.of(
+            new SyncSegment("沪市主板", 600000, 605999, "600-605"),
+            new SyncSegment("沪市新增号段", 607000, 609999, "607-609"),
+            new SyncSegment("沪市科创板", 688000, 688999, "688"),
+            new SyncSegment("深市主板", 1, 3999, "000-003"),
+            new SyncSegment("深市创业板", 300000, 399999, "300"));
 
     /**
      * 批量获取所有A股股票历史数据
+     * 只遍历股票代码全集中的真实上市代码，按号段分组后提交到同步流水线：网络、计算、写入三个阶段并行，
+     * 请求速率由SinaRateLimiter统一控制；代码全集不可用时回退为逐段探测。
+     * 每个号段按代码升序分批处理，每批完成后推进检查点，同步日志经StockSyncStateStore缓冲后批量写入，
+     * 进程中途退出后下次同步从检查点续跑，最多重做一批
      */
     public void fetchAllStockHistory() {
-        log.info("开始批量获取所有A股股票历史数据...");
-
-        List<StockSyncLog> syncLogs = stockSyncLogRepository.findAll();
-        Map<String, StockSyncLog> syncLogMap = new HashMap<>();
-        for (StockSyncLog log : syncLogs) {
-            syncLogMap.put(log.getSymbol(), log);
+        if (!syncing.compareAndSet(false, true)) {
+            log.warn("已有历史数据同步正在进行，本次触发忽略");
+            return;
+        }
+        try {
+            doFetchAllStockHistory();
+        } finally {
+            syncing.set(false);
         }
+    }
+
+    private void doFetchAllStockHistory() {
+        log.info("开始批量获取所有A股股票历史数据...");
+        long startTime = System.currentTimeMillis();
+        long acquiredBefore = rateLimiter.getAcquiredCount();
 
+        StockSyncRunService.SyncRun run = syncRunService.startOrResume();
         AtomicInteger processed = new AtomicInteger(0);
         AtomicInteger skipped = new AtomicInteger(0);
+        try {
+            Map<SyncSegment, List<String>> segmentSymbols = groupBySegment(symbolUniverseService.refreshAndGetSymbols());
+            if (segmentSymbols.values().stream().allMatch(List::isEmpty)) {
+                log.warn("股票代码全集为空，回退为按号段逐个探测代码");
+                segmentSymbols = probeAllSegments();
+            }
+
+            // 按年分区并追加未来年份的分区；首次全市场回补时先删除二级索引，全部写入后一次性重建
+            partitionManager.ensurePartitions();
+            List<String> deferredIndexes = bulkLoader.deferIndexesIfEmpty();
+            try (StockHistorySyncPipeline pipeline = new StockHistorySyncPipeline(this::fetchStage,
+                    this::analyzeStage, this::writeBehindStage, historyFetchExecutor, pipelineOptions)) {
+                for (Map.Entry<SyncSegment, List<String>> entry : segmentSymbols.entrySet()) {
+                    runStockBatch(pipeline, run, entry.getKey(), entry.getValue(), processed, skipped);
+                }
+            } finally {
+                bulkLoader.restoreIndexes(deferredIndexes);
+            }
+            syncStateStore.flush();
+        } catch (RuntimeException e) {
+            syncRunService.finish(run, StockSyncRun.STATUS_FAILED);
+            throw e;
+        }
+        syncRunService.finish(run, StockSyncRun.STATUS_COMPLETED);
 
-        runStockBatch("沪市主板", 600000, 605999, "600-605", syncLogMap, processed, skipped);
-        runStockBatch("沪市新增号段", 607000, 609999, "607-609", syncLogMap, processed, skipped);
-        runStockBatch("沪市科创板", 688000, 688999, "688", syncLogMap, processed, skipped);
-        runStockBatch("深市主板", 1, 3999, "000-003", syncLogMap, processed, skipped);
-        runStockBatch("深市创业板", 300000, 399999, "300", syncLogMap, processed, skipped);
+        long totalSeconds = Math.max(1, (System.currentTimeMillis() - startTime) / 1000);
+        long requests = rateLimiter.getAcquiredCount() - acquiredBefore;
+        log.info("✅ 所有A股股票历史数据获取完成, 本次处理: {}只, 跳过: {}只, 远程请求: {}次, 平均{}次/秒, 耗时{}s",
+                processed.get(), skipped.get(), requests, String.format("%.2f", (double) requests / totalSeconds), totalSeconds);
+        transportMetrics.logSummary();
+        bulkLoader.logSummary();
 
-        log.info("✅ 所有A股股票历史数据获取完成, 本次处理: {}只, 跳过: {}只", processed.get(), skipped.get());
+        eventPublisher.publishEvent(new StockHistorySyncCompletedEvent(processed.get(), skipped.get(), LocalDateTime.now()));
     }
 
-    private void runStockBatch(String name, int codeFrom, int codeTo, String codeRange,
-            Map<String, StockSyncLog> syncLogMap, AtomicInteger processed, AtomicInteger skipped) {
+    private void runStockBatch(StockHistorySyncPipeline pipeline, StockSyncRunService.SyncRun run,
+            SyncSegment segment, List<String> symbols, AtomicInteger processed, AtomicInteger skipped) {
+        if (run.isSegmentCompleted(segment.codeRange())) {
+            log.info("{} ({}): 上次运行已完成，跳过", segment.name(), segment.codeRange());
+            return;
+        }
+        // 号段内按代码升序处理，检查点之前（含）的代码已在上次运行中完成
+        String cursor = run.cursorOf(segment.codeRange());
+        List<String> pending = symbols.stream()
+                .filter(symbol -> cursor == null || symbol.compareTo(cursor) > 0)
+                .sorted()
+                .toList();
+        if (cursor != null) {
+            log.info("{} ({}): 从检查点{}之后续跑，剩余{}只", segment.name(), segment.codeRange(), cursor, pending.size());
+        }
+
         int batchSkipped = 0;
         int batchProcessed = 0;
-
-        for (int code = codeFrom; code <= codeTo; code++) {
-            int result = processStock(code, syncLogMap);
-            if (result == 0) {
-                batchSkipped++;
-            } else if (result > 0) {
-                batchProcessed++;
-            }
-            // result < 0 means error, don't count
+        int checkpointInterval = syncRunService.getCheckpointInterval();
+        for (int from = 0; from < pending.size(); from += checkpointInterval) {
+            List<String> chunk = pending.subList(from, Math.min(pending.size(), from + checkpointInterval));
+            ChunkResult result = processChunk(pipeline, chunk);
+            syncRunService.checkpoint(run, segment.codeRange(), chunk.get(chunk.size() - 1), false,
+                    result.processed(), result.skipped(), result.failed());
+            batchProcessed += result.processed();
+            batchSkipped += result.skipped();
         }
+        syncRunService.checkpoint(run, segment.codeRange(), null, true, 0, 0, 0);
 
         processed.addAndGet(batchProcessed);
         skipped.addAndGet(batchSkipped);
 
-        log.info("{} ({}): 已跳过 {}只, 新处理 {}只, 总范围: {}", name, codeRange, batchSkipped, batchProcessed, codeTo - codeFrom + 1);
+        log.info("{} ({}): 已跳过 {}只, 新处理 {}只, 上市代码: {}只", segment.name(), segment.codeRange(),
+                batchSkipped, batchProcessed, symbols.size());
+    }
+
+    /**
+     * 把一批股票提交到同步流水线并等待全部写入完成
+     * 当天（周末为任意一天）已同步过的股票由同步状态缓存判断，只有缓存中没有的股票才查询数据库
+     */
+    private ChunkResult processChunk(StockHistorySyncPipeline pipeline, List<String> chunk) {
+        LocalDate today = LocalDate.now();
+        Set<String> synced = syncStateStore.findSyncedSince(chunk, isWeekend(today) ? LocalDate.MIN : today);
 
-        // 号段间限速：降低 CPU 和磁盘压力
+        AtomicInteger chunkSkipped = new AtomicInteger(0);
+        AtomicInteger chunkProcessed = new AtomicInteger(0);
+        AtomicInteger chunkFailed = new AtomicInteger(0);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(chunk.size());
+        for (String symbol : chunk) {
+            if (synced.contains(symbol)) {
+                chunkSkipped.incrementAndGet();
+                continue;
+            }
+            futures.add(pipeline.submit(symbol).handle((inserted, error) -> {
+                if (error != null) {
+                    logStockFailure(symbol, error instanceof CompletionException ? error.getCause() : error);
+                    chunkFailed.incrementAndGet();
+                    return null;
+                }
+                syncStateStore.record(symbol, today);
+                if (inserted > 0) {
+                    chunkProcessed.incrementAndGet();
+                } else {
+                    chunkSkipped.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
         try {
-            Thread.sleep(BATCH_THROTTLE_MS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            savePendingStates();
+        } catch (RuntimeException e) {
+            log.error("保存指标状态失败，下次同步时将从已入库数据重建: {}", e.getMessage(), e);
         }
+        return new ChunkResult(chunkProcessed.get(), chunkSkipped.get(), chunkFailed.get());
+    }
+
+    private record ChunkResult(int processed, int skipped, int failed) {
     }
 
     /**
-     * 处理单个股票代码
-     * @return 0=已跳过, >0=成功插入的记录数, -1=出错
+     * 将股票代码按同步号段分组，不属于任何号段的代码被忽略
+     * @param symbols 股票代码列表
+     * @return 号段到代码列表的有序映射
      */
-    private int processStock(int code, Map<String, StockSyncLog> syncLogMap) {
-        String symbol = generateSymbol(code);
-        if (symbol == null) {
-            return 0;
-        }
-        try {
-            if (syncLogMap.containsKey(symbol)) {
-                StockSyncLog syncLog = syncLogMap.get(symbol);
-                LocalDate syncDate = syncLog.getSyncDate();
-                LocalDate nowDate = LocalDate.now();
-                if (isWeekend(nowDate) || syncDate.equals(nowDate)) {
-                    return 0;
-                }
+    private Map<SyncSegment, List<String>> groupBySegment(List<String> symbols) {
+        Map<SyncSegment, List<String>> grouped = new LinkedHashMap<>();
+        SEGMENTS.forEach(segment -> grouped.put(segment, new ArrayList<>()));
+        for (String symbol : symbols) {
+            int code;
+            try {
+                code = Integer.parseInt(symbol.substring(2));
+            } catch (RuntimeException e) {
+                continue;
             }
-
-            int insertedCount = fetchAndSaveHistory(symbol);
-            if (syncLogMap.containsKey(symbol)) {
-                StockSyncLog syncLog = syncLogMap.get(symbol);
-                syncLog.setSyncDate(LocalDate.now());
-                stockSyncLogRepository.save(syncLog);
-            } else {
-                StockSyncLog syncLog = new StockSyncLog();
-                syncLog.setSymbol(symbol);
-                syncLog.setSyncDate(LocalDate.now());
-                stockSyncLogRepository.save(syncLog);
-                syncLogMap.put(symbol, syncLog);
+            if (!symbol.equals(generateSymbol(code))) {
+                continue;
             }
+            for (SyncSegment segment : SEGMENTS) {
+                if (segment.contains(code)) {
+                    grouped.get(segment).add(symbol);
+                    break;
+                }
+            }
+        }
+        return grouped;
+    }
 
-            if (insertedCount > 0) {
-                try {
-                    log.info("成功插入{}条新记录，执行延时", insertedCount);
-                    Thread.sleep(3000 + insertedCount * 5L);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    log.warn("延时被中断", e);
+    /**
+     * 回退方案：按号段生成全部候选代码
+     */
+    private Map<SyncSegment, List<String>> probeAllSegments() {
+        Map<SyncSegment, List<String>> grouped = new LinkedHashMap<>();
+        for (SyncSegment segment : SEGMENTS) {
+            List<String> symbols = new ArrayList<>();
+            for (int code = segment.codeFrom(); code <= segment.codeTo(); code++) {
+                String symbol = generateSymbol(code);
+                if (symbol != null) {
+                    symbols.add(symbol);
                 }
             }
-            return insertedCount;
-        } catch (org.springframework.dao.DataAccessResourceFailureException e) {
-            log.error("数据库连接异常，跳过该股票: symbol={}, 错误: {}", symbol, e.getMessage());
-            return -1;
-        } catch (Exception e) {
-            log.error("处理股票时发生异常: symbol={}, 错误: {}", symbol, e.getMessage(), e);
-            return -1;
+            grouped.put(segment, symbols);
+        }
+        return grouped;
+    }
+
+    private void logStockFailure(String symbol, Throwable error) {
+        if (error instanceof org.springframework.dao.DataAccessResourceFailureException) {
+            log.error("数据库连接异常，跳过该股票: symbol={}, 错误: {}", symbol, error.getMessage());
+        } else {
+            log.error("处理股票时发生异常: symbol={}, 错误: {}", symbol, error.getMessage(), error);
         }
     }
 
     /**
      * 获取并保存单个股票的历史数据
-     * 优化：第一次获取全部数据，然后基于数据库最新记录日期实现增量同步
+     * 优化：第一次获取全部数据，然后基于数据库最新记录日期实现增量同步。
+     * 依次执行拉取、分析、写入三个阶段；批量同步时前两个阶段由StockHistorySyncPipeline并行执行，
+     * 写入交给StockHistoryBatchWriter与其他股票合并
      * @param symbol 股票Symbol（例如 "sh600000"）
      * @return 实际插入数据库的记录数，如果没有插入任何数据则返回0
      */
@@ -154,11 +303,29 @@ public class StockHistoryFetchService {
         log.info("开始获取股票历史数据: symbol={}", symbol);
         long totalStartTime = System.currentTimeMillis();
 
+        StockHistorySyncPipeline.Fetched fetched = fetchStage(symbol);
+        if (fetched == null) {
+            return 0;
+        }
+        StockHistorySyncPipeline.Analyzed analyzed = analyzeStage(fetched);
+        if (analyzed == null) {
+            return 0;
+        }
+        int inserted = writeStage(List.of(analyzed));
+
+        log.info("✅ 成功保存股票历史数据: symbol={}, 新增数据数={}, 总耗时={}ms",
+                symbol, inserted, System.currentTimeMillis() - totalStartTime);
+        return inserted;  // 返回实际插入的记录数
+    }
+
+    /**
+     * 网络阶段：根据数据库最新记录日期决定全量或增量拉取，并流式解析为实体
+     * @param symbol 股票代码
+     * @return 拉取结果；数据库已是最近交易日或未获取到数据时为null
+     */
+    StockHistorySyncPipeline.Fetched fetchStage(String symbol) {
         // 1. 查询数据库中此股票的最新记录日期，判断是增量还是全量同步
         LocalDate latestDbDate = stockHistoryRepository.findLatestTradeDateBySymbol(symbol);
-        boolean isFullSync = latestDbDate == null;  // 记录是否为全量获取
-
-        // ... existing code ...
 
         // 优化：如果数据库最新记录就是最近的交易日，则跳过API调用
         LocalDate today = LocalDate.now();
@@ -168,7 +335,7 @@ public class StockHistoryFetchService {
             // 只有当数据库最新记录就是最近的交易日时，才跳过API调用
             if (latestDbDate.equals(lastTradingDay)) {
                 log.info("✅ 数据库中最新记录已是最近的交易日({})，无需调用API，直接跳过", latestDbDate);
-                return 0;
+                return null;
             }
         }
 
@@ -187,28 +354,34 @@ public class StockHistoryFetchService {
             log.info("数据库中无此股票数据，将推出全量获取");
         }
 
-        // 2. 获取数据阶段
+        // 2. 获取数据阶段：流式解析响应，直接生成实体，不再经过原始字符串和DTO列表
         long fetchStartTime = System.currentTimeMillis();
-        List<StockHistoryDTO> historyList = stockClient.getStockHistory(symbol, datalen);
+        List<StockHistory> entities = stockClient.getStockHistoryRows(symbol, datalen);
         long fetchDuration = System.currentTimeMillis() - fetchStartTime;
-        log.info("⏱️ 获取数据耗时: {}ms, symbol={}", fetchDuration, symbol);
+        log.info("⏱️ 获取并解析数据耗时: {}ms, symbol={}, 记录数={}", fetchDuration, symbol, entities.size());
 
-        if (historyList == null || historyList.isEmpty()) {
+        if (entities.isEmpty()) {
             log.info("未获取到股票历史数据: symbol={}", symbol);
-            return 0;
+            return null;
         }
+        return new StockHistorySyncPipeline.Fetched(symbol, latestDbDate, entities);
+    }
 
-        // 3. 数据转换阶段
-        long mapStartTime = System.currentTimeMillis();
-        List<StockHistory> entities = stockMapper.toStockHistoryList(historyList);
-        long mapDuration = System.currentTimeMillis() - mapStartTime;
-        log.info("⏱️ 数据转换耗时: {}ms, 记录数={}", mapDuration, entities.size());
+    /**
+     * 计算阶段：排序、过滤已入库记录并推进技术指标
+     * @param fetched 网络阶段的拉取结果
+     * @return 待写入的新记录及指标状态；没有新记录时为null
+     */
+    StockHistorySyncPipeline.Analyzed analyzeStage(StockHistorySyncPipeline.Fetched fetched) {
+        String symbol = fetched.symbol();
+        LocalDate latestDbDate = fetched.latestDbDate();
+        List<StockHistory> entities = fetched.rows();
 
-        // 4. 数据排序阶段：按日期降序排列（最新到最旧），确保K线分析能正确获取前一天数据
+        // 4. 数据排序阶段：按日期升序排列（最旧到最新），增量指标需要逐根向前推进
         long sortStartTime = System.currentTimeMillis();
-        entities.sort((a, b) -> b.getDay().compareTo(a.getDay()));
+        entities.sort((a, b) -> a.getDay().compareTo(b.getDay()));
         long sortDuration = System.currentTimeMillis() - sortStartTime;
-        log.info("⏱️ 数据排序完成，按日期降序排列，耗时: {}ms", sortDuration);
+        log.info("⏱️ 数据排序完成，按日期升序排列，耗时: {}ms", sortDuration);
 
         // 5. 关键优化：过滤出数据库中已经存在的记录，只保留新记录
         long filterStartTime = System.currentTimeMillis();
@@ -228,36 +401,101 @@ public class StockHistoryFetchService {
         // 如果没有新记录，不需要执行后续处理
         if (newRecords.isEmpty()) {
             log.info("✅ symbol={}的数据已是最新，没有新记录需要写入", symbol);
-            return 0;
+            return null;
         }
 
-        // 6. K线分析阶段（仅处理新记录）
+        // 6. K线分析阶段（仅处理新记录）：从截至数据库最新记录的指标状态出发，每根新K线常数时间推进
         long analysisStartTime = System.currentTimeMillis();
-        for (int i = 0; i < newRecords.size(); i++) {
-            StockHistory current = newRecords.get(i);
-            StockHistory previous = (i + 1 < newRecords.size()) ? newRecords.get(i + 1) : null;
-            // 向下查找前一天数据（有可能是已有的旧数据）
-            if (previous == null && existingLatestDate != null) {
-                // 如果新新记录列表末尾无上一条记录，从旧数据库中查找
-                previous = stockHistoryRepository.findPreviousDayDataForStock(symbol, current.getDay());
-            }
-            // 会传入整个数据列表，思维是这个列表包含了最旧的数据。会找到应沾的指标值
-            kLineAnalysisService.analyzeKLine(current, previous, entities);
+        KLineIndicatorState state = loadIndicatorState(symbol, latestDbDate);
+        for (StockHistory current : newRecords) {
+            kLineAnalysisService.analyzeKLineIncremental(current, state);
         }
         long analysisDuration = System.currentTimeMillis() - analysisStartTime;
         log.info("⏱️ K线分析耗时: {}ms, 记录数={}", analysisDuration, newRecords.size());
+        return new StockHistorySyncPipeline.Analyzed(symbol, newRecords, state, latestDbDate == null);
+    }
 
+    /**
+     * 流水线写入阶段：全量同步的股票在计算线程中经StockHistoryBulkLoader直接装载，
+     * 增量同步的新记录交给跨股票合并写入器；写入成功后指标状态进入待保存队列，每批股票结束时统一保存
+     * @param analyzed 计算阶段的输出
+     * @return 写入完成后得到插入的记录数
+     */
+    CompletableFuture<Integer> writeBehindStage(StockHistorySyncPipeline.Analyzed analyzed) {
+        CompletableFuture<Integer> written = analyzed.fullSync()
+                ? CompletableFuture.completedFuture(bulkLoader.load(analyzed.newRecords()))
+                : batchWriter.submit(analyzed.symbol(), analyzed.newRecords());
+        return written.thenApply(inserted -> {
+            pendingStates.add(analyzed.state().toEntity(analyzed.symbol()));
+            return inserted;
+        });
+    }
+
+    /**
+     * 保存流水线写入阶段积累的指标状态；若保存失败，下次同步时会从已入库数据重建
+     */
+    private void savePendingStates() {
+        List<StockIndicatorState> states = new ArrayList<>();
+        for (StockIndicatorState state; (state = pendingStates.poll()) != null; ) {
+            states.add(state);
+        }
+        if (!states.isEmpty()) {
+            indicatorStateRepository.saveAll(states);
+        }
+    }
+
+    /**
+     * 写入阶段：把一只或多只股票的新记录合并为一次批量插入，再保存各自的指标状态
+     * @param batch 计算阶段的输出
+     * @return 插入的记录数
+     */
+    int writeStage(List<StockHistorySyncPipeline.Analyzed> batch) {
         // 7. 批量插入阶段（仅插入新记录）
         long insertStartTime = System.currentTimeMillis();
-        int[] result = stockHistoryRepository.batchInsertStockHistory(newRecords);
+        List<StockHistory> rows = new ArrayList<>();
+        for (StockHistorySyncPipeline.Analyzed analyzed : batch) {
+            rows.addAll(analyzed.newRecords());
+        }
+        int[] result = stockHistoryRepository.batchInsertStockHistory(rows);
         long insertDuration = System.currentTimeMillis() - insertStartTime;
-        log.info("⏱️ 批量插入耗时: {}ms, 记录数={}", insertDuration, result.length);
+        log.info("⏱️ 批量插入耗时: {}ms, 股票数={}, 记录数={}", insertDuration, batch.size(), result.length);
+
+        // 8. 保存指标状态；若保存失败，下次同步时会从已入库数据重建
+        List<StockIndicatorState> states = new ArrayList<>(batch.size());
+        for (StockHistorySyncPipeline.Analyzed analyzed : batch) {
+            states.add(analyzed.state().toEntity(analyzed.symbol()));
+        }
+        indicatorStateRepository.saveAll(states);
+        return result.length;
+    }
 
-        long totalDuration = System.currentTimeMillis() - totalStartTime;
-        log.info("✅ 成功保存股票历史数据: symbol={}, 新增数据数={}, 总耗时={}ms (获取:{}ms, 转换:{}ms, 过滤:{}ms, 分析:{}ms, 插入:{}ms)",
-                symbol, result.length, totalDuration, fetchDuration, mapDuration, filterDuration, analysisDuration, insertDuration);
+    /**
+     * 加载截至数据库最新记录的指标状态
+     * 状态缺失或与数据库最新日期不一致时（首次升级、上次保存失败等），
+     * 用最近INDICATOR_BOOTSTRAP_BARS条已入库数据重放重建，EMA在该长度下已充分收敛
+     * @param symbol 股票代码
+     * @param latestDbDate 数据库中最新记录日期，全量同步时为null
+     * @return 可直接推进新K线的指标状态
+     */
+    private KLineIndicatorState loadIndicatorState(String symbol, LocalDate latestDbDate) {
+        if (latestDbDate == null) {
+            return new KLineIndicatorState();
+        }
+        KLineIndicatorState state = indicatorStateRepository.findById(symbol)
+                .map(KLineIndicatorState::fromEntity)
+                .orElse(null);
+        if (state != null && latestDbDate.equals(state.getTradeDate())) {
+            return state;
+        }
 
-        return result.length;  // 返回实际插入的记录数
+        List<StockHistory> recent = stockHistoryRepository.findRecentBySymbol(symbol, INDICATOR_BOOTSTRAP_BARS);
+        log.info("指标状态缺失或已过期，使用最近{}条数据重建: symbol={}", recent.size(), symbol);
+        state = new KLineIndicatorState();
+        for (int i = recent.size() - 1; i >= 0; i--) {
+            // 此处不在事务中，查询结果为游离实体，重放写入的分析字段不会回写数据库
+            kLineAnalysisService.analyzeKLineIncremental(recent.get(i), state);
+        }
+        return state;
     }
 
     /**
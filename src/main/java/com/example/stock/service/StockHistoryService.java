@@ -1,7 +1,10 @@
 package com.example.stock.service;
 
+import com.example.stock.dto.StockHistoryCursor;
+import com.example.stock.dto.StockHistoryPage;
 import com.example.stock.entity.StockHistory;
 import com.example.stock.repository.StockHistoryRepository;
+import com.example.stock.service.search.SymbolSearchService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,6 +14,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
 /**
  * 股票历史数据服务类
  * 提供股票历史数据相关的业务逻辑处理
@@ -21,7 +29,70 @@ public class StockHistoryService {
     
     private static final Logger logger = LoggerFactory.getLogger(StockHistoryService.class);
     
+    /**
+     * 键集分页每页最大记录数
+     */
+    public static final int MAX_PAGE_SIZE = 500;
+
     private final StockHistoryRepository stockHistoryRepository;
+    private final SymbolSearchService symbolSearchService;
+
+    /**
+     * 键集分页查询历史数据
+     * 按 (trade_date, symbol) 降序排列，以上一页末条/首条记录为游标向后/向前翻页，不统计总数，
+     * 任意深度的翻页耗时都与第一页相同；after和before都为空时返回第一页
+     * @param symbol 股票代码（可选）：代码、数字代码、名称或拼音首字母的前缀，解析为确切代码后按IN条件查询
+     * @param after 下一页游标（返回比它更早的记录）
+     * @param before 上一页游标（返回比它更新的记录），与after同时给出时忽略after
+     * @param size 每页大小（1~500）
+     * @return 分页结果
+     */
+    public StockHistoryPage findHistoryPage(String symbol, StockHistoryCursor after, StockHistoryCursor before,
+                                            int size) {
+        long startTime = System.currentTimeMillis();
+        int pageSize = Math.max(1, Math.min(MAX_PAGE_SIZE, size));
+        String keyword = symbol == null || symbol.isBlank() ? null : symbol.trim().toLowerCase(Locale.ROOT);
+        List<String> symbols = keyword == null ? null : symbolSearchService.resolve(keyword);
+        if (symbols != null && symbols.isEmpty()) {
+            logger.info("键集分页查询: 输入'{}'没有匹配的股票", keyword);
+            return new StockHistoryPage(List.of(), pageSize, keyword, null, null);
+        }
+        boolean backward = before != null;
+        StockHistoryCursor cursor = backward ? before : after != null ? after : StockHistoryCursor.NEWEST;
+
+        // 多取一条用于判断翻页方向上是否还有数据
+        List<StockHistory> rows;
+        if (symbols != null) {
+            rows = backward
+                    ? stockHistoryRepository.findSymbolsPageNewerThan(symbols, cursor.day(), cursor.symbol(), pageSize + 1)
+                    : stockHistoryRepository.findSymbolsPageOlderThan(symbols, cursor.day(), cursor.symbol(), pageSize + 1);
+        } else {
+            rows = backward
+                    ? stockHistoryRepository.findPageNewerThan(cursor.day(), cursor.symbol(), pageSize + 1)
+                    : stockHistoryRepository.findPageOlderThan(cursor.day(), cursor.symbol(), pageSize + 1);
+        }
+        boolean more = rows.size() > pageSize;
+        if (backward && !more && !before.equals(StockHistoryCursor.OLDEST)) {
+            // 向前翻到了开头，直接返回完整的第一页，避免第一页不满
+            return findHistoryPage(symbol, null, null, size);
+        }
+        List<StockHistory> content = more ? rows.subList(0, pageSize) : rows;
+        if (backward) {
+            content = new ArrayList<>(content);
+            Collections.reverse(content);
+        }
+
+        boolean hasNext = backward ? !cursor.equals(StockHistoryCursor.OLDEST) : more;
+        boolean hasPrevious = backward ? more : !cursor.equals(StockHistoryCursor.NEWEST);
+        String nextCursor = hasNext && !content.isEmpty()
+                ? StockHistoryCursor.of(content.get(content.size() - 1)).encode() : null;
+        String prevCursor = hasPrevious && !content.isEmpty()
+                ? StockHistoryCursor.of(content.get(0)).encode() : null;
+
+        logger.info("键集分页查询完成: symbol={}, 游标={}{}, 返回{}条, 耗时{}ms", keyword, backward ? "before " : "after ",
+                cursor, content.size(), System.currentTimeMillis() - startTime);
+        return new StockHistoryPage(content, pageSize, keyword, nextCursor, prevCursor);
+    }
     
     /**
      * 根据股票代码分页查询历史数据（优化版本）
@@ -43,9 +114,12 @@ public class StockHistoryService {
                 logger.info("开始查询所有股票历史数据（优化版），分页参数: page={}, size={}", page, size);
                 result = stockHistoryRepository.findAllWithoutCount(pageable);
             } else {
-                // 根据股票代码模糊查询历史数据（使用无count查询优化）
-                logger.info("开始查询股票 {} 的历史数据（优化版），分页参数: page={}, size={}", symbol, page, size);
-                result = stockHistoryRepository.findBySymbolContainingWithoutCount(symbol, pageable);
+                // 把输入解析为确切的股票代码后按IN条件查询历史数据（使用无count查询优化）
+                List<String> symbols = symbolSearchService.resolve(symbol);
+                logger.info("开始查询股票 {} 的历史数据（优化版），匹配{}只，分页参数: page={}, size={}",
+                        symbol, symbols.size(), page, size);
+                result = symbols.isEmpty() ? Page.empty(pageable)
+                        : stockHistoryRepository.findBySymbolInWithoutCount(symbols, pageable);
             }
             
             long duration = System.currentTimeMillis() - startTime;
@@ -73,9 +147,12 @@ public class StockHistoryService {
                 logger.info("开始查询所有股票历史数据，分页参数: page={}, size={}", pageable.getPageNumber(), pageable.getPageSize());
                 result = stockHistoryRepository.findAll(pageable);
             } else {
-                // 根据股票代码模糊查询历史数据
-                logger.info("开始查询股票 {} 的历史数据，分页参数: page={}, size={}", symbol, pageable.getPageNumber(), pageable.getPageSize());
-                result = stockHistoryRepository.findBySymbolContaining(symbol, pageable);
+                // 把输入解析为确切的股票代码后按IN条件查询历史数据
+                List<String> symbols = symbolSearchService.resolve(symbol);
+                logger.info("开始查询股票 {} 的历史数据，匹配{}只，分页参数: page={}, size={}",
+                        symbol, symbols.size(), pageable.getPageNumber(), pageable.getPageSize());
+                result = symbols.isEmpty() ? Page.empty(pageable)
+                        : stockHistoryRepository.findBySymbolIn(symbols, pageable);
             }
             
             long duration = System.currentTimeMillis() - startTime;
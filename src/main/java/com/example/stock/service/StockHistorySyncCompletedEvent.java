@@ -0,0 +1,13 @@
+package com.example.stock.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * 历史数据批量同步完成事件
+ * 由StockHistoryFetchService在一轮同步结束后发布，行情快照等派生数据据此刷新
+ * @param processedCount 本轮处理的股票数
+ * @param skippedCount 本轮跳过的股票数
+ * @param finishedAt 完成时间
+ */
+public record StockHistorySyncCompletedEvent(int processedCount, int skippedCount, LocalDateTime finishedAt) {
+}
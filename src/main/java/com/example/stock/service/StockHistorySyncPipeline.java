@@ -0,0 +1,183 @@
+package com.example.stock.service;
+
+import com.example.stock.entity.StockHistory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 历史数据同步流水线
+ * 把单只股票的同步拆成三个阶段，各阶段独立并行：
+ * 网络阶段（historyFetchExecutor，受SinaRateLimiter限速）拉取并解析K线，
+ * 计算阶段（analysisThreads个线程）排序、过滤已入库记录并推进技术指标，
+ * 写入阶段把新记录交给StockHistoryBatchWriter，与其他股票的记录合并为一次批量插入。
+ * 网络与计算阶段之间是有界队列，写入器暂存已满时计算阶段阻塞，上游随之阻塞等待（背压），
+ * 网络等待期间计算和写入照常进行。
+ * 每次批量同步创建一个实例
+ */
+@Slf4j
+public final class StockHistorySyncPipeline implements AutoCloseable {
+
+    /**
+     * 流水线配置
+     * @param analysisThreads 计算阶段线程数
+     * @param queueCapacity 网络与计算阶段之间的队列容量（股票数）
+     */
+    public record Options(int analysisThreads, int queueCapacity) {
+        public Options {
+            analysisThreads = Math.max(1, analysisThreads);
+            queueCapacity = Math.max(1, queueCapacity);
+        }
+    }
+
+    /**
+     * 网络阶段输出：拉取到的K线（已解析为实体）
+     * @param symbol 股票代码
+     * @param latestDbDate 拉取前数据库中最新记录日期，全量同步时为null
+     * @param rows 拉取到的K线
+     */
+    record Fetched(String symbol, LocalDate latestDbDate, List<StockHistory> rows) {
+    }
+
+    /**
+     * 计算阶段输出：待写入的新记录及推进后的指标状态
+     * @param symbol 股票代码
+     * @param newRecords 数据库中尚不存在的新记录（已完成分析，按日期升序）
+     * @param state 推进到最后一条新记录的指标状态
+     * @param fullSync 是否为全量同步（拉取前数据库中没有该股票的记录）
+     */
+    record Analyzed(String symbol, List<StockHistory> newRecords, KLineIndicatorState state, boolean fullSync) {
+    }
+
+    private record AnalyzeTask(Fetched fetched, CompletableFuture<Integer> result) {
+    }
+
+    private static final AnalyzeTask ANALYZE_END = new AnalyzeTask(null, null);
+
+    private final Function<String, Fetched> fetchStage;
+    private final Function<Fetched, Analyzed> analyzeStage;
+    private final Function<Analyzed, CompletableFuture<Integer>> writeStage;
+    private final Executor networkExecutor;
+
+    private final BlockingQueue<AnalyzeTask> analyzeQueue;
+    private final List<Thread> analysisWorkers = new ArrayList<>();
+
+    private final AtomicLong writtenRows = new AtomicLong();
+    private final AtomicLong writtenSymbols = new AtomicLong();
+
+    /**
+     * @param fetchStage 网络阶段：返回null表示无需同步
+     * @param analyzeStage 计算阶段：返回null表示没有新记录
+     * @param writeStage 写入阶段：异步写入一只股票的新记录，写入完成后得到写入的行数
+     * @param networkExecutor 网络阶段线程池
+     * @param options 流水线配置
+     */
+    StockHistorySyncPipeline(Function<String, Fetched> fetchStage, Function<Fetched, Analyzed> analyzeStage,
+                             Function<Analyzed, CompletableFuture<Integer>> writeStage, Executor networkExecutor,
+                             Options options) {
+        this.fetchStage = fetchStage;
+        this.analyzeStage = analyzeStage;
+        this.writeStage = writeStage;
+        this.networkExecutor = networkExecutor;
+        this.analyzeQueue = new ArrayBlockingQueue<>(options.queueCapacity());
+        for (int i = 0; i < options.analysisThreads(); i++) {
+            analysisWorkers.add(startWorker("history-analyze-" + i, this::runAnalysis));
+        }
+    }
+
+    /**
+     * 提交一只股票
+     * @param symbol 股票代码
+     * @return 写入完成后得到插入的记录数（无新数据为0），任一阶段出错时异常完成
+     */
+    public CompletableFuture<Integer> submit(String symbol) {
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        networkExecutor.execute(() -> {
+            try {
+                Fetched fetched = fetchStage.apply(symbol);
+                if (fetched == null) {
+                    result.complete(0);
+                } else {
+                    analyzeQueue.put(new AnalyzeTask(fetched, result));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.completeExceptionally(e);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    private void runAnalysis() {
+        try {
+            while (true) {
+                AnalyzeTask task = analyzeQueue.take();
+                if (task == ANALYZE_END) {
+                    return;
+                }
+                CompletableFuture<Integer> result = task.result();
+                try {
+                    Analyzed analyzed = analyzeStage.apply(task.fetched());
+                    if (analyzed == null || analyzed.newRecords().isEmpty()) {
+                        result.complete(0);
+                    } else {
+                        writeStage.apply(analyzed).whenComplete((rows, error) -> {
+                            if (error != null) {
+                                result.completeExceptionally(error);
+                            } else {
+                                writtenRows.addAndGet(rows);
+                                writtenSymbols.incrementAndGet();
+                                result.complete(rows);
+                            }
+                        });
+                    }
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 停止计算线程
+     * 调用前应先等待所有submit返回的结果完成
+     */
+    @Override
+    public void close() {
+        try {
+            for (int i = 0; i < analysisWorkers.size(); i++) {
+                analyzeQueue.put(ANALYZE_END);
+            }
+            for (Thread worker : analysisWorkers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            analysisWorkers.forEach(Thread::interrupt);
+        }
+        log.info("同步流水线关闭: 共写入{}只股票{}条记录", writtenSymbols.get(), writtenRows.get());
+    }
+
+    public long getWrittenRows() {
+        return writtenRows.get();
+    }
+
+    private static Thread startWorker(String name, Runnable body) {
+        Thread thread = new Thread(body, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.stock.service;
+
+import com.example.stock.repository.StockHistoryRepository;
+import com.example.stock.repository.StockLatestSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 股票最新行情汇总服务
+ * stock_latest_summary由批量写入stock_history时同步维护；应用启动时若汇总表为空则在后台线程从stock_history重建一次，
+ * 重建完成前筛选使用分组聚合查询。
+ * 汇总表可用时，历史最高价和52周最高价类筛选只需读取汇总表，否则退回对stock_history的分组聚合查询
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockLatestSummaryService {
+
+    /**
+     * 早于A股最早交易日的日期，用于以全部历史调用带开始日期的聚合查询
+     */
+    private static final String EARLIEST_TRADE_DATE = "1990-01-01";
+
+    private final StockLatestSummaryRepository stockLatestSummaryRepository;
+    private final StockHistoryRepository stockHistoryRepository;
+
+    private volatile boolean ready;
+
+    /**
+     * 应用启动后在后台线程检查汇总表，为空时从stock_history重建，不阻塞启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread thread = new Thread(this::initialize, "latest-summary-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 检查汇总表，为空时从stock_history重建；完成后汇总表才被筛选使用
+     */
+    public void initialize() {
+        try {
+            if (stockLatestSummaryRepository.count() == 0) {
+                log.info("最新行情汇总表为空，开始从stock_history重建");
+                stockHistoryRepository.rebuildLatestSummary();
+            }
+            ready = true;
+        } catch (Exception e) {
+            log.error("初始化最新行情汇总表失败，筛选将使用分组聚合查询: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return 汇总表是否已完整可用
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 筛选最新收盘价低于最高价指定百分比的股票
+     * 未指定开始日期且汇总表可用时直接读取汇总表，否则按开始日期对stock_history做分组聚合
+     * @param startDate 统计最高价的开始日期，为null时使用全部历史
+     * @param dropPercentage 跌幅百分比阈值
+     * @return 符合条件的股票列表，包含symbol, max_high, current_price
+     */
+    public List<Map<String, Object>> findBelowHistoricalHigh(LocalDate startDate, double dropPercentage) {
+        if (startDate != null) {
+            return stockHistoryRepository.findStocksBelowHistoricalHighWithParams(startDate.toString(), dropPercentage);
+        }
+        if (ready) {
+            return stockLatestSummaryRepository.findBelowAllTimeHigh(dropPercentage);
+        }
+        return stockHistoryRepository.findStocksBelowHistoricalHighWithParams(EARLIEST_TRADE_DATE, dropPercentage);
+    }
+
+    /**
+     * 筛选最新收盘价在52周最高价指定百分比以内的股票
+     * @param withinPercentage 与52周最高价的最大差距（百分比）
+     * @return 符合条件的股票列表，包含symbol, year_high, current_price；汇总表不可用时为null
+     */
+    public List<Map<String, Object>> findNearYearHigh(double withinPercentage) {
+        return ready ? stockLatestSummaryRepository.findNearYearHigh(withinPercentage) : null;
+    }
+}
@@ -2,12 +2,15 @@ package com.example.stock.service;
 
 import com.example.stock.entity.Stock;
 import com.example.stock.repository.StockRepository;
+import com.example.stock.service.search.SymbolSearchService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * 股票数据查询服务类
  * 提供股票数据的查询业务逻辑
@@ -16,10 +19,11 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class StockQueryService {
     private final StockRepository stockRepository;
+    private final SymbolSearchService symbolSearchService;
 
     /**
      * 分页查询股票数据（支持按代码搜索）
-     * @param symbol 股票代码搜索参数（可选）
+     * @param symbol 股票代码搜索参数（可选）：代码、数字代码、名称或拼音首字母的前缀
      * @param page 页码
      * @param size 每页大小
      * @return 股票数据分页结果
@@ -29,7 +33,8 @@ public class StockQueryService {
         if (symbol == null || symbol.isEmpty()) {
             return stockRepository.findAll(pageable);
         } else {
-            return stockRepository.findBySymbolContaining(symbol, pageable);
+            List<String> symbols = symbolSearchService.resolve(symbol);
+            return symbols.isEmpty() ? Page.empty(pageable) : stockRepository.findBySymbolIn(symbols, pageable);
         }
     }
 }
@@ -0,0 +1,153 @@
+package com.example.stock.service;
+
+import com.example.stock.dto.StockDTO;
+import com.example.stock.entity.StockSymbol;
+import com.example.stock.repository.StockHistoryRepository;
+import com.example.stock.repository.StockSymbolRepository;
+import com.example.stock.service.client.SinaStockClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 股票代码全集服务类
+ * 维护真实上市股票代码的持久化注册表，数据来源为新浪分页行情列表和已有的历史数据，
+ * 历史数据同步只遍历注册表中的代码，不再逐个探测整段号码
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockSymbolUniverseService {
+    private final SinaStockClient stockClient;
+    private final StockSymbolRepository stockSymbolRepository;
+    private final StockHistoryRepository stockHistoryRepository;
+
+    static final String SOURCE_LISTING = "LISTING";
+    static final String SOURCE_HISTORY = "HISTORY";
+
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_PAGES = 200;
+    private static final int LAST_SEEN_CHUNK_SIZE = 1000;
+
+    /**
+     * 刷新并返回股票代码全集（按代码升序）
+     * 行情列表每天最多拉取一次；注册表为空时额外合并stock_history中出现过的代码
+     * @return 股票代码列表，刷新失败且注册表为空时返回空列表
+     */
+    public List<String> refreshAndGetSymbols() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("刷新股票代码全集失败，使用已持久化的代码: {}", e.getMessage(), e);
+        }
+        return stockSymbolRepository.findAllSymbols();
+    }
+
+    /**
+     * 增量刷新股票代码全集
+     * 只逐条写入新增代码和名称变化的记录，其余仍在行情列表中的代码按块批量更新最近出现日期
+     */
+    public void refresh() {
+        LocalDate today = LocalDate.now();
+        LocalDate latestListingDate = stockSymbolRepository.findLatestListingDate();
+        if (today.equals(latestListingDate)) {
+            log.info("股票代码全集今日已刷新，跳过");
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        Map<String, StockSymbol> existing = stockSymbolRepository.findAll().stream()
+                .collect(Collectors.toMap(StockSymbol::getSymbol, Function.identity()));
+        boolean firstBuild = existing.isEmpty();
+
+        List<StockSymbol> changed = new ArrayList<>();
+        List<String> seen = new ArrayList<>();
+        int listed = mergeListing(existing, changed, seen, today);
+        int fromHistory = firstBuild ? mergeHistorySymbols(existing, changed, today) : 0;
+
+        if (!changed.isEmpty()) {
+            stockSymbolRepository.saveAll(changed);
+        }
+        int touched = 0;
+        for (int from = 0; from < seen.size(); from += LAST_SEEN_CHUNK_SIZE) {
+            touched += stockSymbolRepository.markListed(
+                    seen.subList(from, Math.min(from + LAST_SEEN_CHUNK_SIZE, seen.size())), today);
+        }
+        log.info("股票代码全集刷新完成: 行情列表{}只, 历史数据补充{}只, 写入{}条, 更新最近出现日期{}条, 注册表共{}只, 耗时{}ms",
+                listed, fromHistory, changed.size(), touched, existing.size(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 分页拉取沪深A股行情列表并合并到注册表
+     * 新增和名称变化的记录放入changed逐条写入，其余已有代码只放入seen，由调用方批量更新最近出现日期
+     * @return 行情列表中的股票数
+     */
+    private int mergeListing(Map<String, StockSymbol> existing, List<StockSymbol> changed, List<String> seen,
+                             LocalDate today) {
+        int listed = 0;
+        for (int page = 1; page <= MAX_PAGES; page++) {
+            StockDTO[] stocks = stockClient.fetchStocksByPage(page);
+            if (stocks == null || stocks.length == 0) {
+                break;
+            }
+            for (StockDTO dto : stocks) {
+                if (!StringUtils.hasText(dto.getSymbol())) {
+                    continue;
+                }
+                listed++;
+                StockSymbol symbol = existing.get(dto.getSymbol());
+                if (symbol == null) {
+                    symbol = new StockSymbol(dto.getSymbol(), codeOf(dto.getSymbol(), dto.getCode()),
+                            dto.getName(), SOURCE_LISTING, today, today);
+                    existing.put(symbol.getSymbol(), symbol);
+                    changed.add(symbol);
+                } else if (StringUtils.hasText(dto.getName()) && !Objects.equals(dto.getName(), symbol.getName())) {
+                    symbol.setName(dto.getName());
+                    symbol.setSource(SOURCE_LISTING);
+                    symbol.setLastSeen(today);
+                    changed.add(symbol);
+                } else {
+                    seen.add(symbol.getSymbol());
+                }
+            }
+            if (stocks.length < PAGE_SIZE) {
+                break;
+            }
+        }
+        return listed;
+    }
+
+    /**
+     * 合并stock_history中已出现过的代码（包括已退市或暂停上市的股票）
+     * @return 新增的代码数
+     */
+    private int mergeHistorySymbols(Map<String, StockSymbol> existing, List<StockSymbol> changed, LocalDate today) {
+        int added = 0;
+        for (String symbol : stockHistoryRepository.findAllSymbols()) {
+            if (existing.containsKey(symbol)) {
+                continue;
+            }
+            StockSymbol stockSymbol = new StockSymbol(symbol, codeOf(symbol, null), null, SOURCE_HISTORY, today, today);
+            existing.put(symbol, stockSymbol);
+            changed.add(stockSymbol);
+            added++;
+        }
+        return added;
+    }
+
+    private String codeOf(String symbol, String code) {
+        if (StringUtils.hasText(code)) {
+            return code;
+        }
+        return symbol.length() > 2 ? symbol.substring(2) : symbol;
+    }
+}
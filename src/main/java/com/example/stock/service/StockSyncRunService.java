@@ -0,0 +1,166 @@
+package com.example.stock.service;
+
+import com.example.stock.entity.StockSyncCheckpoint;
+import com.example.stock.entity.StockSyncRun;
+import com.example.stock.repository.StockSyncCheckpointRepository;
+import com.example.stock.repository.StockSyncRunRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 同步运行记录与检查点服务类
+ * 每次批量同步在stock_sync_run中登记一条运行记录，并为每个号段维护检查点；
+ * 进程在同步途中退出后，下次同步（包括启动时的同步）续跑最近一次未完成的运行，
+ * 已完成的号段整体跳过，未完成的号段从检查点之后的代码继续
+ */
+@Slf4j
+@Service
+public class StockSyncRunService {
+    private static final List<String> UNFINISHED = List.of(StockSyncRun.STATUS_RUNNING, StockSyncRun.STATUS_FAILED);
+
+    private final StockSyncRunRepository runRepository;
+    private final StockSyncCheckpointRepository checkpointRepository;
+    private final int checkpointInterval;
+    private final Duration resumeMaxAge;
+
+    public StockSyncRunService(StockSyncRunRepository runRepository,
+                               StockSyncCheckpointRepository checkpointRepository,
+                               @Value("${stock.sync.checkpoint-interval:200}") int checkpointInterval,
+                               @Value("${stock.sync.resume-max-age-hours:24}") long resumeMaxAgeHours) {
+        this.runRepository = runRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.checkpointInterval = Math.max(1, checkpointInterval);
+        this.resumeMaxAge = Duration.ofHours(resumeMaxAgeHours);
+    }
+
+    /**
+     * 每处理多少只股票推进一次检查点
+     */
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * 开始一次同步：存在未过期的未完成运行时续跑该运行，否则新建运行记录
+     * 过期的未完成运行标记为ABANDONED，其已完成部分由同步日志保证不会重复拉取
+     * @return 运行记录及其号段检查点
+     */
+    public SyncRun startOrResume() {
+        LocalDateTime now = LocalDateTime.now();
+        StockSyncRun resumed = null;
+        for (StockSyncRun run : runRepository.findByStatusInOrderByIdDesc(UNFINISHED)) {
+            if (resumed == null && run.getStartedAt().isAfter(now.minus(resumeMaxAge))) {
+                resumed = run;
+            } else {
+                run.setStatus(StockSyncRun.STATUS_ABANDONED);
+                run.setFinishedAt(now);
+                runRepository.save(run);
+                log.info("同步运行#{}已过期，不再续跑（开始于{}）", run.getId(), run.getStartedAt());
+            }
+        }
+
+        if (resumed != null) {
+            resumed.setStatus(StockSyncRun.STATUS_RUNNING);
+            resumed.setResumeCount(resumed.getResumeCount() + 1);
+            resumed.setUpdatedAt(now);
+            runRepository.save(resumed);
+            Map<String, StockSyncCheckpoint> checkpoints = new HashMap<>();
+            for (StockSyncCheckpoint checkpoint : checkpointRepository.findByRunId(resumed.getId())) {
+                checkpoints.put(checkpoint.getSegment(), checkpoint);
+            }
+            log.info("续跑同步运行#{}（开始于{}，第{}次续跑），已有检查点: {}", resumed.getId(), resumed.getStartedAt(),
+                    resumed.getResumeCount(), checkpoints.values().stream()
+                            .map(c -> c.getSegment() + "=" + (c.isCompleted() ? "完成" : c.getCursorSymbol()))
+                            .toList());
+            return new SyncRun(resumed, checkpoints);
+        }
+
+        StockSyncRun run = new StockSyncRun();
+        run.setStatus(StockSyncRun.STATUS_RUNNING);
+        run.setStartedAt(now);
+        run.setUpdatedAt(now);
+        runRepository.save(run);
+        log.info("开始同步运行#{}", run.getId());
+        return new SyncRun(run, new HashMap<>());
+    }
+
+    /**
+     * 推进号段检查点并累加运行计数
+     * 调用方须保证cursorSymbol及之前的代码都已处理完毕（其同步日志可能仍在StockSyncStateStore的缓冲中）
+     * @param run 运行记录
+     * @param segment 号段标识
+     * @param cursorSymbol 号段内最后一个已完成的股票代码
+     * @param completed 号段是否已全部完成
+     * @param processed 本批新处理的股票数
+     * @param skipped 本批跳过的股票数
+     * @param failed 本批失败的股票数
+     */
+    public void checkpoint(SyncRun run, String segment, String cursorSymbol, boolean completed,
+                           int processed, int skipped, int failed) {
+        LocalDateTime now = LocalDateTime.now();
+        StockSyncCheckpoint checkpoint = run.checkpoints().computeIfAbsent(segment, key -> {
+            StockSyncCheckpoint created = new StockSyncCheckpoint();
+            created.setRunId(run.record().getId());
+            created.setSegment(key);
+            return created;
+        });
+        if (cursorSymbol != null) {
+            checkpoint.setCursorSymbol(cursorSymbol);
+        }
+        checkpoint.setCompleted(completed);
+        checkpoint.setUpdatedAt(now);
+        checkpointRepository.save(checkpoint);
+
+        StockSyncRun record = run.record();
+        record.setProcessedCount(record.getProcessedCount() + processed);
+        record.setSkippedCount(record.getSkippedCount() + skipped);
+        record.setFailedCount(record.getFailedCount() + failed);
+        record.setUpdatedAt(now);
+        runRepository.save(record);
+    }
+
+    /**
+     * 结束一次同步
+     * @param run 运行记录
+     * @param status COMPLETED 或 FAILED（FAILED的运行会在下次同步时续跑）
+     */
+    public void finish(SyncRun run, String status) {
+        StockSyncRun record = run.record();
+        LocalDateTime now = LocalDateTime.now();
+        record.setStatus(status);
+        record.setUpdatedAt(now);
+        record.setFinishedAt(now);
+        runRepository.save(record);
+        log.info("同步运行#{}结束: 状态={}, 累计处理{}只, 跳过{}只, 失败{}只", record.getId(), status,
+                record.getProcessedCount(), record.getSkippedCount(), record.getFailedCount());
+    }
+
+    /**
+     * 一次同步的运行记录及其号段检查点（号段标识 → 检查点）
+     */
+    public record SyncRun(StockSyncRun record, Map<String, StockSyncCheckpoint> checkpoints) {
+
+        /**
+         * 号段是否已在之前的运行中全部完成
+         */
+        public boolean isSegmentCompleted(String segment) {
+            StockSyncCheckpoint checkpoint = checkpoints.get(segment);
+            return checkpoint != null && checkpoint.isCompleted();
+        }
+
+        /**
+         * 号段内最后一个已完成的股票代码，没有检查点时为null
+         */
+        public String cursorOf(String segment) {
+            StockSyncCheckpoint checkpoint = checkpoints.get(segment);
+            return checkpoint == null ? null : checkpoint.getCursorSymbol();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.stock.service;
+
+import com.example.stock.repository.StockSyncLogRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 股票同步状态存储
+ * 在stock_sync_log之上提供内存缓存和写缓冲：
+ * 读取时先查缓存，只把缓存中没有的股票交给数据库做一次IN查询；
+ * 写入时只更新缓存和缓冲区，缓冲区达到stock.sync.log-flush-size条或每隔stock.sync.log-flush-interval-ms
+ * 用多行 INSERT ... ON DUPLICATE KEY UPDATE 一次写入，应用关闭时写出剩余记录。
+ * 缓冲中的记录若因进程崩溃丢失，下次同步会按stock_history的最新日期跳过远程请求，不影响数据正确性
+ */
+@Slf4j
+@Service
+public class StockSyncStateStore {
+    private final StockSyncLogRepository stockSyncLogRepository;
+    private final int flushSize;
+
+    /**
+     * 已知的同步日期（与数据库一致或更新），不存在的股票不缓存
+     */
+    private final Map<String, LocalDate> syncDates = new ConcurrentHashMap<>();
+
+    /**
+     * 尚未写入数据库的同步日期
+     */
+    private final Map<String, LocalDate> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+
+    public StockSyncStateStore(StockSyncLogRepository stockSyncLogRepository,
+                               @Value("${stock.sync.log-flush-size:500}") int flushSize) {
+        this.stockSyncLogRepository = stockSyncLogRepository;
+        this.flushSize = Math.max(1, flushSize);
+    }
+
+    /**
+     * 查询指定股票中同步日期不早于给定日期的股票
+     * @param symbols 股票代码
+     * @param since 最早同步日期
+     * @return 满足条件的股票代码
+     */
+    public Set<String> findSyncedSince(Collection<String> symbols, LocalDate since) {
+        Set<String> synced = new HashSet<>();
+        List<String> unknown = new ArrayList<>();
+        for (String symbol : symbols) {
+            LocalDate syncDate = syncDates.get(symbol);
+            if (syncDate == null) {
+                unknown.add(symbol);
+            } else if (!syncDate.isBefore(since)) {
+                synced.add(symbol);
+            }
+        }
+        cacheHits.addAndGet(symbols.size() - unknown.size());
+        cacheMisses.addAndGet(unknown.size());
+        if (!unknown.isEmpty()) {
+            // 只从数据库加载缓存中没有的股票，并把它们已有的同步日期放入缓存
+            stockSyncLogRepository.findAllById(unknown).forEach(syncLog -> {
+                LocalDate syncDate = syncDates.merge(syncLog.getSymbol(), syncLog.getSyncDate(),
+                        (cached, loaded) -> cached.isAfter(loaded) ? cached : loaded);
+                if (!syncDate.isBefore(since)) {
+                    synced.add(syncLog.getSymbol());
+                }
+            });
+        }
+        return synced;
+    }
+
+    /**
+     * 记录股票的同步日期，先写缓存和缓冲区，缓冲区满时立即写入数据库
+     * @param symbol 股票代码
+     * @param syncDate 同步日期
+     */
+    public void record(String symbol, LocalDate syncDate) {
+        syncDates.put(symbol, syncDate);
+        pending.put(symbol, syncDate);
+        if (pending.size() >= flushSize) {
+            flush();
+        }
+    }
+
+    /**
+     * 定时写出缓冲区
+     */
+    @Scheduled(fixedDelayString = "${stock.sync.log-flush-interval-ms:5000}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("定时写入同步日志失败，将在下次重试: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 应用关闭时写出剩余的同步日志
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        int rows = flush();
+        log.info("应用关闭，已写出剩余同步日志{}条；累计写入{}次共{}条，缓存命中{}次，未命中{}次",
+                rows, flushCount.get(), flushedRows.get(), cacheHits.get(), cacheMisses.get());
+    }
+
+    /**
+     * 把缓冲区中的同步日期写入数据库，按同步日期分组各执行一组多行upsert
+     * 写入失败时记录放回缓冲区（不覆盖期间新记录的日期），异常继续抛出
+     * @return 写入的记录数
+     */
+    public synchronized int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        Map<LocalDate, List<String>> byDate = new HashMap<>();
+        Map<String, LocalDate> drained = new HashMap<>();
+        for (String symbol : new ArrayList<>(pending.keySet())) {
+            LocalDate syncDate = pending.remove(symbol);
+            if (syncDate != null) {
+                drained.put(symbol, syncDate);
+                byDate.computeIfAbsent(syncDate, date -> new ArrayList<>()).add(symbol);
+            }
+        }
+        try {
+            for (Map.Entry<LocalDate, List<String>> entry : byDate.entrySet()) {
+                stockSyncLogRepository.batchUpsertSyncDate(entry.getValue(), entry.getKey());
+            }
+        } catch (RuntimeException e) {
+            drained.forEach(pending::putIfAbsent);
+            throw e;
+        }
+        flushCount.incrementAndGet();
+        flushedRows.addAndGet(drained.size());
+        log.debug("写入同步日志{}条", drained.size());
+        return drained.size();
+    }
+
+    /**
+     * 缓冲区中尚未写入数据库的记录数
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+}
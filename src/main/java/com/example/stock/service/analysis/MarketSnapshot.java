@@ -0,0 +1,116 @@
+package com.example.stock.service.analysis;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 全市场行情快照
+ * 每只股票一个有限回看窗口的PriceSeries，构建后不再修改；刷新时生成新快照整体替换，
+ * 因此筛选线程可以无锁并发读取
+ */
+public final class MarketSnapshot {
+
+    private static final MarketSnapshot EMPTY = new MarketSnapshot(Collections.emptyMap(), null, null, 0, 0, null);
+
+    private final Map<String, PriceSeries> seriesBySymbol;
+    private final LocalDate latestTradeDate;
+    private final LocalDate coverageStart;
+    private final long version;
+    private final long maxRowId;
+    private final LocalDateTime builtAt;
+
+    MarketSnapshot(Map<String, PriceSeries> seriesBySymbol, LocalDate latestTradeDate, LocalDate coverageStart,
+                   long version, long maxRowId, LocalDateTime builtAt) {
+        this.seriesBySymbol = Collections.unmodifiableMap(seriesBySymbol);
+        this.latestTradeDate = latestTradeDate;
+        this.coverageStart = coverageStart;
+        this.version = version;
+        this.maxRowId = maxRowId;
+        this.builtAt = builtAt;
+    }
+
+    public static MarketSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 由已构建好的序列直接创建快照（用于测试和基准测试），回看窗口起点取各序列中最早的交易日
+     */
+    public static MarketSnapshot of(Map<String, PriceSeries> seriesBySymbol) {
+        int earliest = Integer.MAX_VALUE;
+        for (PriceSeries series : seriesBySymbol.values()) {
+            if (!series.isEmpty()) {
+                earliest = Math.min(earliest, series.epochDay(0));
+            }
+        }
+        LocalDate coverageStart = earliest == Integer.MAX_VALUE ? null : LocalDate.ofEpochDay(earliest);
+        return new MarketSnapshot(seriesBySymbol, latestTradeDate(seriesBySymbol.values()), coverageStart,
+                0, 0, LocalDateTime.now());
+    }
+
+    /**
+     * @return 各序列中最晚的交易日，全部为空时为null
+     */
+    static LocalDate latestTradeDate(Iterable<PriceSeries> allSeries) {
+        int latest = Integer.MIN_VALUE;
+        for (PriceSeries series : allSeries) {
+            if (!series.isEmpty()) {
+                latest = Math.max(latest, series.epochDay(series.lastIndex()));
+            }
+        }
+        return latest == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(latest);
+    }
+
+    /**
+     * @return 股票代码到价格序列的只读映射
+     */
+    public Map<String, PriceSeries> getSeriesBySymbol() {
+        return seriesBySymbol;
+    }
+
+    /**
+     * @return 指定股票的价格序列，不存在时为null
+     */
+    public PriceSeries getSeries(String symbol) {
+        return seriesBySymbol.get(symbol);
+    }
+
+    public int getSymbolCount() {
+        return seriesBySymbol.size();
+    }
+
+    /**
+     * @return 快照中最新的交易日期，空快照为null
+     */
+    public LocalDate getLatestTradeDate() {
+        return latestTradeDate;
+    }
+
+    /**
+     * 判断快照是否包含指定日期的行情（日期不早于回看窗口起点）
+     * 注意每只股票还受最大K线数限制，需要更早数据的条件应自行查库
+     */
+    public boolean covers(LocalDate date) {
+        return coverageStart != null && !date.isBefore(coverageStart);
+    }
+
+    /**
+     * @return 快照版本号，每次重建或增量刷新后递增，可作为数据版本用于缓存失效
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return 构建时stock_history的最大主键（数据水位），增量刷新从这里往后读取
+     */
+    public long getMaxRowId() {
+        return maxRowId;
+    }
+
+    public LocalDateTime getBuiltAt() {
+        return builtAt;
+    }
+}
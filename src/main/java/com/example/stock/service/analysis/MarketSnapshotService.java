@@ -0,0 +1,242 @@
+package com.example.stock.service.analysis;
+
+import com.example.stock.service.StockHistorySyncCompletedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 全市场行情快照服务
+ * 用一次顺序扫描把最近lookback-days天的行情读入每只股票的PriceSeries，筛选条件直接在内存中计算；
+ * 每轮历史数据同步完成后按主键水位增量读取新增行并追加到对应序列，不再重复加载整张stock_history表。
+ * 应用启动后在后台线程构建首个快照，不阻塞不依赖快照的查询；数据版本可直接取主键水位，不需要等待快照
+ */
+@Slf4j
+@Service
+public class MarketSnapshotService {
+
+    private static final String SELECT_COLUMNS = """
+            SELECT symbol, trade_date, open, high, low, close, volume, ma_price5, ma_price10, ma_price30
+            FROM stock_history
+            """;
+
+    /**
+     * 新出现的股票按此数量分批加载
+     */
+    private static final int SYMBOL_CHUNK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int lookbackDays;
+    private final int maxBars;
+
+    private volatile MarketSnapshot snapshot = MarketSnapshot.empty();
+    private volatile boolean built;
+
+    public MarketSnapshotService(JdbcTemplate jdbcTemplate,
+                                 @Value("${stock.snapshot.lookback-days:400}") int lookbackDays,
+                                 @Value("${stock.snapshot.max-bars:300}") int maxBars) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lookbackDays = lookbackDays;
+        this.maxBars = maxBars;
+    }
+
+    /**
+     * 应用启动后在后台线程构建快照
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread thread = new Thread(() -> {
+            try {
+                getSnapshot();
+            } catch (Exception e) {
+                log.error("后台构建行情快照失败，首次使用时重试: {}", e.getMessage(), e);
+            }
+        }, "market-snapshot-build");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 获取当前快照，后台构建尚未完成时等待构建完成
+     * @return 当前快照（只读）
+     */
+    public MarketSnapshot getSnapshot() {
+        if (!built) {
+            synchronized (this) {
+                if (!built) {
+                    rebuild();
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 当前数据水位：stock_history的最大主键，一次索引查询，不等待快照构建
+     * 快照按同一水位增量刷新，水位不变时快照内容也不变，可作为缓存的数据版本
+     * @return 最大主键，表为空时为0
+     */
+    public long getWatermark() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM stock_history", Long.class);
+        return maxId == null ? 0 : maxId;
+    }
+
+    /**
+     * 历史数据同步完成后增量刷新快照
+     */
+    @EventListener
+    public void onSyncCompleted(StockHistorySyncCompletedEvent event) {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("同步完成后刷新行情快照失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 全量重建快照
+     * @return 新快照
+     */
+    public synchronized MarketSnapshot rebuild() {
+        long startTime = System.currentTimeMillis();
+        long maxId = getWatermark();
+        LocalDate cutoff = LocalDate.now().minusDays(lookbackDays);
+
+        Map<String, PriceSeries> seriesBySymbol = new HashMap<>();
+        SeriesCollector collector = new SeriesCollector(seriesBySymbol);
+        jdbcTemplate.query(SELECT_COLUMNS + " WHERE trade_date >= ? ORDER BY symbol, trade_date",
+                collector::accept, Date.valueOf(cutoff));
+        collector.finish();
+
+        MarketSnapshot previous = snapshot;
+        snapshot = new MarketSnapshot(seriesBySymbol, MarketSnapshot.latestTradeDate(seriesBySymbol.values()), cutoff,
+                previous.getVersion() + 1, maxId, LocalDateTime.now());
+        built = true;
+        log.info("行情快照构建完成: 股票{}只, K线{}根, 最新交易日{}, 耗时{}ms",
+                snapshot.getSymbolCount(), collector.rows, snapshot.getLatestTradeDate(),
+                System.currentTimeMillis() - startTime);
+        return snapshot;
+    }
+
+    /**
+     * 增量刷新快照
+     * 读取主键大于上次水位的新行：已有股票复制序列后追加更新日期的K线（旧快照保持不变），
+     * 新出现的股票按回看窗口整段加载；日期不晚于序列末尾的行视为对已有K线的更新而忽略
+     * @return 新快照；没有新增数据时返回当前快照
+     */
+    public synchronized MarketSnapshot refresh() {
+        if (!built) {
+            return rebuild();
+        }
+        long startTime = System.currentTimeMillis();
+        MarketSnapshot current = snapshot;
+        long maxId = getWatermark();
+        if (maxId <= current.getMaxRowId()) {
+            log.info("行情快照无新增数据，保持版本{}", current.getVersion());
+            return current;
+        }
+
+        Map<String, PriceSeries> appended = new HashMap<>();
+        TreeSet<String> newSymbols = new TreeSet<>();
+        int[] rows = new int[1];
+        // 回看窗口之前的行不会进入快照，日期下界同时让按年分区的表只访问最近的分区
+        jdbcTemplate.query(SELECT_COLUMNS + " WHERE id > ? AND id <= ? AND trade_date >= ?"
+                + " ORDER BY symbol, trade_date", rs -> {
+            String symbol = rs.getString("symbol");
+            PriceSeries existing = current.getSeries(symbol);
+            if (existing == null) {
+                newSymbols.add(symbol);
+                return;
+            }
+            PriceSeries series = appended.computeIfAbsent(symbol, s -> existing.copy(8));
+            int epochDay = (int) rs.getDate("trade_date").toLocalDate().toEpochDay();
+            if (series.isEmpty() || epochDay > series.epochDay(series.lastIndex())) {
+                appendRow(rs, series, epochDay);
+                rows[0]++;
+            }
+        }, current.getMaxRowId(), maxId, Date.valueOf(LocalDate.now().minusDays(lookbackDays)));
+
+        Map<String, PriceSeries> seriesBySymbol = new HashMap<>(current.getSeriesBySymbol());
+        for (PriceSeries series : appended.values()) {
+            series.retainLast(maxBars);
+            series.trimToSize();
+            seriesBySymbol.put(series.getSymbol(), series);
+        }
+        loadSymbols(new ArrayList<>(newSymbols), seriesBySymbol);
+
+        snapshot = new MarketSnapshot(seriesBySymbol, MarketSnapshot.latestTradeDate(seriesBySymbol.values()),
+                LocalDate.now().minusDays(lookbackDays), current.getVersion() + 1, maxId, LocalDateTime.now());
+        log.info("行情快照增量刷新完成: 追加K线{}根, 更新股票{}只, 新增股票{}只, 最新交易日{}, 耗时{}ms",
+                rows[0], appended.size(), newSymbols.size(), snapshot.getLatestTradeDate(),
+                System.currentTimeMillis() - startTime);
+        return snapshot;
+    }
+
+    private void loadSymbols(List<String> symbols, Map<String, PriceSeries> target) {
+        LocalDate cutoff = LocalDate.now().minusDays(lookbackDays);
+        for (int from = 0; from < symbols.size(); from += SYMBOL_CHUNK_SIZE) {
+            List<String> chunk = symbols.subList(from, Math.min(from + SYMBOL_CHUNK_SIZE, symbols.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            List<Object> args = new ArrayList<>(chunk);
+            args.add(Date.valueOf(cutoff));
+            SeriesCollector collector = new SeriesCollector(target);
+            jdbcTemplate.query(SELECT_COLUMNS + " WHERE symbol IN (" + placeholders + ") AND trade_date >= ?"
+                    + " ORDER BY symbol, trade_date", collector::accept, args.toArray());
+            collector.finish();
+        }
+    }
+
+    private static void appendRow(ResultSet rs, PriceSeries series, int epochDay) throws SQLException {
+        series.add(epochDay,
+                rs.getDouble("open"), rs.getDouble("high"), rs.getDouble("low"), rs.getDouble("close"),
+                rs.getLong("volume"),
+                rs.getDouble("ma_price5"), rs.getDouble("ma_price10"), rs.getDouble("ma_price30"));
+    }
+
+    /**
+     * 把按 (symbol, trade_date) 排序的结果集逐行收集为每只股票一个序列
+     */
+    private final class SeriesCollector {
+        private final Map<String, PriceSeries> target;
+        private PriceSeries current;
+        private int rows;
+
+        SeriesCollector(Map<String, PriceSeries> target) {
+            this.target = target;
+        }
+
+        void accept(ResultSet rs) throws SQLException {
+            String symbol = rs.getString("symbol");
+            if (current == null || !current.getSymbol().equals(symbol)) {
+                finish();
+                current = new PriceSeries(symbol, maxBars);
+            }
+            appendRow(rs, current, (int) rs.getDate("trade_date").toLocalDate().toEpochDay());
+            rows++;
+        }
+
+        void finish() {
+            if (current != null) {
+                current.retainLast(maxBars);
+                current.trimToSize();
+                target.put(current.getSymbol(), current);
+                current = null;
+            }
+        }
+    }
+}
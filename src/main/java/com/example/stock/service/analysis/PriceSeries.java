@@ -0,0 +1,277 @@
+package com.example.stock.service.analysis;
+
+import com.example.stock.entity.StockHistory;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 单只股票的列式价格序列
+ * 按日期升序把交易日（epoch day）、开高低收、成交量和新浪返回的5/10/30日均价存为并行的基本类型数组，
+ * 指标计算直接顺序扫描数组，不经过携带大量包装类型字段的StockHistory实体
+ * 数组按容量预分配，只有下标 [0, size) 内的数据有效；非线程安全，构建完成后可多线程只读访问
+ */
+public final class PriceSeries {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final String symbol;
+    private int size;
+    private int[] epochDays;
+    private double[] open;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+    private long[] volume;
+    private double[] maPrice5;
+    private double[] maPrice10;
+    private double[] maPrice30;
+
+    public PriceSeries(String symbol) {
+        this(symbol, DEFAULT_CAPACITY);
+    }
+
+    public PriceSeries(String symbol, int capacity) {
+        this.symbol = symbol;
+        int initial = Math.max(1, capacity);
+        this.epochDays = new int[initial];
+        this.open = new double[initial];
+        this.high = new double[initial];
+        this.low = new double[initial];
+        this.close = new double[initial];
+        this.volume = new long[initial];
+        this.maPrice5 = new double[initial];
+        this.maPrice10 = new double[initial];
+        this.maPrice30 = new double[initial];
+    }
+
+    /**
+     * 由历史数据实体构建序列，实体列表可以是任意顺序
+     * @param symbol 股票代码
+     * @param histories 同一只股票的历史数据
+     * @return 按日期升序排列的价格序列
+     */
+    public static PriceSeries fromHistories(String symbol, List<StockHistory> histories) {
+        StockHistory[] sorted = histories.toArray(new StockHistory[0]);
+        Arrays.sort(sorted, Comparator.comparing(StockHistory::getDay));
+        PriceSeries series = new PriceSeries(symbol, sorted.length);
+        for (StockHistory history : sorted) {
+            series.add(history);
+        }
+        return series;
+    }
+
+    /**
+     * 追加一条历史数据，调用方须保证日期升序
+     */
+    public void add(StockHistory history) {
+        add((int) history.getDay().toEpochDay(), history.getOpen(), history.getHigh(), history.getLow(),
+                history.getClose(), history.getVolume(),
+                history.getMaPrice5(), history.getMaPrice10(), history.getMaPrice30());
+    }
+
+    /**
+     * 追加一根K线，调用方须保证日期升序
+     */
+    public void add(int epochDay, double open, double high, double low, double close, long volume,
+                    double maPrice5, double maPrice10, double maPrice30) {
+        if (size == epochDays.length) {
+            grow();
+        }
+        epochDays[size] = epochDay;
+        this.open[size] = open;
+        this.high[size] = high;
+        this.low[size] = low;
+        this.close[size] = close;
+        this.volume[size] = volume;
+        this.maPrice5[size] = maPrice5;
+        this.maPrice10[size] = maPrice10;
+        this.maPrice30[size] = maPrice30;
+        size++;
+    }
+
+    /**
+     * 复制序列，新序列预留extraCapacity根K线的追加空间，修改副本不影响原序列
+     */
+    public PriceSeries copy(int extraCapacity) {
+        PriceSeries copy = new PriceSeries(symbol, size + Math.max(0, extraCapacity));
+        System.arraycopy(epochDays, 0, copy.epochDays, 0, size);
+        System.arraycopy(open, 0, copy.open, 0, size);
+        System.arraycopy(high, 0, copy.high, 0, size);
+        System.arraycopy(low, 0, copy.low, 0, size);
+        System.arraycopy(close, 0, copy.close, 0, size);
+        System.arraycopy(volume, 0, copy.volume, 0, size);
+        System.arraycopy(maPrice5, 0, copy.maPrice5, 0, size);
+        System.arraycopy(maPrice10, 0, copy.maPrice10, 0, size);
+        System.arraycopy(maPrice30, 0, copy.maPrice30, 0, size);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * 丢弃最早的K线，只保留最近maxBars根
+     */
+    public void retainLast(int maxBars) {
+        int drop = size - maxBars;
+        if (drop <= 0) {
+            return;
+        }
+        int keep = size - drop;
+        System.arraycopy(epochDays, drop, epochDays, 0, keep);
+        System.arraycopy(open, drop, open, 0, keep);
+        System.arraycopy(high, drop, high, 0, keep);
+        System.arraycopy(low, drop, low, 0, keep);
+        System.arraycopy(close, drop, close, 0, keep);
+        System.arraycopy(volume, drop, volume, 0, keep);
+        System.arraycopy(maPrice5, drop, maPrice5, 0, keep);
+        System.arraycopy(maPrice10, drop, maPrice10, 0, keep);
+        System.arraycopy(maPrice30, drop, maPrice30, 0, keep);
+        size = keep;
+    }
+
+    /**
+     * 把数组容量收缩到实际大小，适合构建完成后长期驻留内存的序列
+     */
+    public void trimToSize() {
+        if (size < epochDays.length) {
+            resize(Math.max(1, size));
+        }
+    }
+
+    private void grow() {
+        resize(epochDays.length + (epochDays.length >> 1) + 1);
+    }
+
+    private void resize(int capacity) {
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        open = Arrays.copyOf(open, capacity);
+        high = Arrays.copyOf(high, capacity);
+        low = Arrays.copyOf(low, capacity);
+        close = Arrays.copyOf(close, capacity);
+        volume = Arrays.copyOf(volume, capacity);
+        maPrice5 = Arrays.copyOf(maPrice5, capacity);
+        maPrice10 = Arrays.copyOf(maPrice10, capacity);
+        maPrice30 = Arrays.copyOf(maPrice30, capacity);
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return 第i根K线的交易日期
+     */
+    public LocalDate day(int i) {
+        return LocalDate.ofEpochDay(epochDays[i]);
+    }
+
+    /**
+     * @return 最后一根K线的下标，序列为空时为-1
+     */
+    public int lastIndex() {
+        return size - 1;
+    }
+
+    /**
+     * 查找交易日期不早于指定日期的第一根K线
+     * @return 下标；全部早于该日期时返回size()
+     */
+    public int indexOnOrAfter(LocalDate date) {
+        int key = (int) date.toEpochDay();
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (epochDays[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    public int epochDay(int i) {
+        return epochDays[i];
+    }
+
+    public double open(int i) {
+        return open[i];
+    }
+
+    public double high(int i) {
+        return high[i];
+    }
+
+    public double low(int i) {
+        return low[i];
+    }
+
+    public double close(int i) {
+        return close[i];
+    }
+
+    public long volume(int i) {
+        return volume[i];
+    }
+
+    public double maPrice5(int i) {
+        return maPrice5[i];
+    }
+
+    public double maPrice10(int i) {
+        return maPrice10[i];
+    }
+
+    public double maPrice30(int i) {
+        return maPrice30[i];
+    }
+
+    // 以下方法直接返回底层数组（不复制），仅下标 [0, size) 有效，调用方不得修改
+
+    public int[] epochDays() {
+        return epochDays;
+    }
+
+    public double[] opens() {
+        return open;
+    }
+
+    public double[] highs() {
+        return high;
+    }
+
+    public double[] lows() {
+        return low;
+    }
+
+    public double[] closes() {
+        return close;
+    }
+
+    public long[] volumes() {
+        return volume;
+    }
+
+    public double[] maPrices5() {
+        return maPrice5;
+    }
+
+    public double[] maPrices10() {
+        return maPrice10;
+    }
+
+    public double[] maPrices30() {
+        return maPrice30;
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.stock.service.analysis;
+
+/**
+ * 基于PriceSeries列式数组的技术指标计算
+ * 所有方法只做顺序数组扫描，不创建对象：区间统计直接返回基本类型，
+ * 整列指标写入调用方提供的输出数组（可在多次计算间复用），数据不足的位置写入NaN
+ * 指标口径与KLineAnalysisService的增量计算一致：EMA以首个值为初值递推，RSI为窗口内涨跌幅简单累计，布林带为总体标准差
+ * 区间参数均为 [from, to) 半开区间
+ */
+public final class PriceSeriesAnalyzer {
+
+    /**
+     * MACD从第26根K线起输出
+     */
+    public static final int MACD_MIN_BARS = 26;
+
+    private static final double ZERO_LOSS = 1e-9;
+
+    private PriceSeriesAnalyzer() {
+    }
+
+    // ==================== 区间统计 ====================
+
+    /**
+     * @return 区间内最大值，区间为空时返回NaN
+     */
+    public static double max(double[] values, int from, int to) {
+        if (from >= to) {
+            return Double.NaN;
+        }
+        double max = values[from];
+        for (int i = from + 1; i < to; i++) {
+            if (values[i] > max) {
+                max = values[i];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return 区间内最小值，区间为空时返回NaN
+     */
+    public static double min(double[] values, int from, int to) {
+        if (from >= to) {
+            return Double.NaN;
+        }
+        double min = values[from];
+        for (int i = from + 1; i < to; i++) {
+            if (values[i] < min) {
+                min = values[i];
+            }
+        }
+        return min;
+    }
+
+    /**
+     * @return 区间内平均值，区间为空时返回NaN
+     */
+    public static double average(double[] values, int from, int to) {
+        if (from >= to) {
+            return Double.NaN;
+        }
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return sum / (to - from);
+    }
+
+    /**
+     * @return 区间内平均值，区间为空时返回NaN
+     */
+    public static double average(long[] values, int from, int to) {
+        if (from >= to) {
+            return Double.NaN;
+        }
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return (double) sum / (to - from);
+    }
+
+    /**
+     * @return 区间内收盘价高于开盘价（阳线）的天数
+     */
+    public static int countRiseDays(PriceSeries series, int from, int to) {
+        double[] open = series.opens();
+        double[] close = series.closes();
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (close[i] > open[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 统计区间内日内振幅 (最高-最低)/最低 超过阈值的天数
+     * @param thresholdPercent 振幅阈值（百分比，如20表示20%）
+     */
+    public static int countWideRangeDays(PriceSeries series, int from, int to, double thresholdPercent) {
+        double[] high = series.highs();
+        double[] low = series.lows();
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if ((high[i] - low[i]) / low[i] * 100 > thresholdPercent) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return 第i根K线相对前一根收盘价的涨跌幅（百分比），没有前一根或前收盘价为0时返回0
+     */
+    public static double changePercent(PriceSeries series, int i) {
+        if (i <= 0) {
+            return 0;
+        }
+        double previous = series.close(i - 1);
+        return previous == 0 ? 0 : (series.close(i) - previous) / previous * 100;
+    }
+
+    /**
+     * 判断第i根K线是否出现上穿：前一根 fast <= slow，当根 fast > slow，且四个值均大于0
+     */
+    public static boolean isCrossUp(double[] fast, double[] slow, int i) {
+        if (i <= 0) {
+            return false;
+        }
+        return fast[i] > 0 && slow[i] > 0 && fast[i - 1] > 0 && slow[i - 1] > 0
+                && fast[i - 1] <= slow[i - 1] && fast[i] > slow[i];
+    }
+
+    /**
+     * 判断第i根K线是否出现下穿：前一根 fast >= slow，当根 fast < slow，且四个值均大于0
+     */
+    public static boolean isCrossDown(double[] fast, double[] slow, int i) {
+        if (i <= 0) {
+            return false;
+        }
+        return fast[i] > 0 && slow[i] > 0 && fast[i - 1] > 0 && slow[i - 1] > 0
+                && fast[i - 1] >= slow[i - 1] && fast[i] < slow[i];
+    }
+
+    // ==================== 整列指标 ====================
+
+    /**
+     * 简单移动平均，前period-1个位置为NaN
+     */
+    public static void sma(double[] values, int size, int period, double[] out) {
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += values[i];
+            if (i >= period) {
+                sum -= values[i - period];
+            }
+            out[i] = i + 1 >= period ? sum / period : Double.NaN;
+        }
+    }
+
+    /**
+     * 指数移动平均，以首个值为初值递推
+     */
+    public static void ema(double[] values, int size, int period, double[] out) {
+        double multiplier = 2.0 / (period + 1);
+        double ema = 0;
+        for (int i = 0; i < size; i++) {
+            ema = i == 0 ? values[0] : (values[i] - ema) * multiplier + ema;
+            out[i] = ema;
+        }
+    }
+
+    /**
+     * MACD：DIF = EMA12 - EMA26，DEA = EMA(DIF, 9)，柱 = 2 * (DIF - DEA)
+     * 前MACD_MIN_BARS-1个位置为NaN
+     */
+    public static void macd(double[] closes, int size, double[] dif, double[] dea, double[] bar) {
+        double m12 = 2.0 / 13;
+        double m26 = 2.0 / 27;
+        double m9 = 2.0 / 10;
+        double ema12 = 0;
+        double ema26 = 0;
+        double signal = 0;
+        for (int i = 0; i < size; i++) {
+            double close = closes[i];
+            if (i == 0) {
+                ema12 = close;
+                ema26 = close;
+            } else {
+                ema12 = (close - ema12) * m12 + ema12;
+                ema26 = (close - ema26) * m26 + ema26;
+            }
+            double d = ema12 - ema26;
+            signal = i == 0 ? d : (d - signal) * m9 + signal;
+            if (i + 1 >= MACD_MIN_BARS) {
+                dif[i] = d;
+                dea[i] = signal;
+                bar[i] = 2 * (d - signal);
+            } else {
+                dif[i] = Double.NaN;
+                dea[i] = Double.NaN;
+                bar[i] = Double.NaN;
+            }
+        }
+    }
+
+    /**
+     * RSI = 100 - 100 / (1 + 窗口内累计涨幅 / 累计跌幅)，窗口内无下跌时为100
+     * 前period个位置为NaN
+     */
+    public static void rsi(double[] closes, int size, int period, double[] out) {
+        double gain = 0;
+        double loss = 0;
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                double change = closes[i] - closes[i - 1];
+                if (change > 0) {
+                    gain += change;
+                } else {
+                    loss -= change;
+                }
+            }
+            if (i > period) {
+                double evicted = closes[i - period] - closes[i - period - 1];
+                if (evicted > 0) {
+                    gain = Math.max(0, gain - evicted);
+                } else {
+                    loss = Math.max(0, loss + evicted);
+                }
+            }
+            if (i < period) {
+                out[i] = Double.NaN;
+            } else {
+                out[i] = loss <= ZERO_LOSS ? 100.0 : 100 - 100 / (1 + gain / loss);
+            }
+        }
+    }
+
+    /**
+     * 布林带：中轨为period日均值，上下轨为中轨 ± k倍总体标准差
+     * 前period-1个位置为NaN
+     */
+    public static void boll(double[] closes, int size, int period, double k,
+                            double[] middle, double[] upper, double[] lower) {
+        double sum = 0;
+        double sumSq = 0;
+        for (int i = 0; i < size; i++) {
+            double close = closes[i];
+            sum += close;
+            sumSq += close * close;
+            if (i >= period) {
+                double evicted = closes[i - period];
+                sum -= evicted;
+                sumSq -= evicted * evicted;
+            }
+            if (i + 1 < period) {
+                middle[i] = Double.NaN;
+                upper[i] = Double.NaN;
+                lower[i] = Double.NaN;
+            } else {
+                double mean = sum / period;
+                double std = Math.sqrt(Math.max(0, sumSq / period - mean * mean));
+                middle[i] = mean;
+                upper[i] = mean + k * std;
+                lower[i] = mean - k * std;
+            }
+        }
+    }
+
+    /**
+     * 滚动窗口最大值（含当前位置的最近window个值），单调队列实现，O(n)
+     * @param deque 调用方提供的下标队列，长度不小于size
+     */
+    public static void rollingMax(double[] values, int size, int window, double[] out, int[] deque) {
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < size; i++) {
+            while (tail > head && values[deque[tail - 1]] <= values[i]) {
+                tail--;
+            }
+            deque[tail++] = i;
+            if (deque[head] <= i - window) {
+                head++;
+            }
+            out[i] = values[deque[head]];
+        }
+    }
+
+    /**
+     * 滚动窗口最小值（含当前位置的最近window个值），单调队列实现，O(n)
+     * @param deque 调用方提供的下标队列，长度不小于size
+     */
+    public static void rollingMin(double[] values, int size, int window, double[] out, int[] deque) {
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < size; i++) {
+            while (tail > head && values[deque[tail - 1]] >= values[i]) {
+                tail--;
+            }
+            deque[tail++] = i;
+            if (deque[head] <= i - window) {
+                head++;
+            }
+            out[i] = values[deque[head]];
+        }
+    }
+
+    /**
+     * 计算截至第end根K线的连续涨跌天数：正数为连续上涨天数，负数为连续下跌天数（收盘价持平视为下跌）
+     */
+    public static int consecutiveDays(double[] closes, int end) {
+        if (end <= 0) {
+            return 0;
+        }
+        boolean rising = closes[end] > closes[end - 1];
+        int days = 0;
+        for (int i = end; i > 0; i--) {
+            if ((closes[i] > closes[i - 1]) != rising) {
+                break;
+            }
+            days++;
+        }
+        return rising ? days : -days;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.stock.service.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP传输层指标
+ * 统计请求数、失败数、耗时以及连接池占用情况，用于评估连接复用效果和调优并发参数。
+ * 耗时从发出请求计到响应体读取完毕，包含流式解析期间的传输时间
+ */
+@Slf4j
+@Component
+public class HttpTransportMetrics {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+
+    public HttpTransportMetrics(PoolingHttpClientConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
+    }
+
+    /**
+     * 记录一次请求
+     * @param latencyNanos 请求耗时（纳秒），得到响应时计到响应体读取完毕
+     * @param success 是否得到响应（非2xx状态码也视为得到响应）
+     */
+    public void record(long latencyNanos, boolean success) {
+        requests.increment();
+        if (!success) {
+            failures.increment();
+        }
+        totalLatencyNanos.add(latencyNanos);
+        maxLatencyNanos.accumulate(latencyNanos);
+    }
+
+    /**
+     * @return 当前连接池统计（租用、空闲、等待、上限）
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * @return 平均请求耗时（毫秒），无请求时为0
+     */
+    public double getAverageLatencyMillis() {
+        long count = requests.sum();
+        return count == 0 ? 0 : totalLatencyNanos.sum() / 1_000_000d / count;
+    }
+
+    public long getMaxLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get());
+    }
+
+    /**
+     * 输出一行指标汇总日志
+     */
+    public void logSummary() {
+        PoolStats stats = getPoolStats();
+        log.info("HTTP传输指标: 请求{}次, 失败{}次, 平均耗时{}ms, 最大耗时{}ms, 连接池[租用:{}, 空闲:{}, 等待:{}, 上限:{}]",
+                getRequestCount(), getFailureCount(), String.format("%.1f", getAverageLatencyMillis()),
+                getMaxLatencyMillis(), stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax());
+    }
+}
@@ -0,0 +1,396 @@
+package com.example.stock.service.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * 新浪K线接口响应的流式解析器
+ * 直接从响应InputStream按字节解析，每根K线写入同一个可复用的KLineBar后回调，
+ * 不保留原始响应字符串，也不生成中间DTO列表
+ * 兼容字段名带引号/不带引号、数值带引号/不带引号以及null值
+ * 非线程安全，每次解析应使用新的实例
+ */
+public class SinaKLineParser {
+
+    private static final byte[] KEY_DAY = bytes("day");
+    private static final byte[] KEY_OPEN = bytes("open");
+    private static final byte[] KEY_HIGH = bytes("high");
+    private static final byte[] KEY_LOW = bytes("low");
+    private static final byte[] KEY_CLOSE = bytes("close");
+    private static final byte[] KEY_VOLUME = bytes("volume");
+    private static final byte[] KEY_MA_PRICE5 = bytes("ma_price5");
+    private static final byte[] KEY_MA_PRICE10 = bytes("ma_price10");
+    private static final byte[] KEY_MA_PRICE30 = bytes("ma_price30");
+    private static final byte[] KEY_MA_VOLUME5 = bytes("ma_volume5");
+    private static final byte[] KEY_MA_VOLUME10 = bytes("ma_volume10");
+    private static final byte[] KEY_MA_VOLUME30 = bytes("ma_volume30");
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[8192];
+    private int pos;
+    private int limit;
+
+    private final byte[] keyBuf = new byte[32];
+    private int keyLen;
+    private byte[] valBuf = new byte[64];
+    private int valLen;
+    private boolean valNull;
+
+    private final KLineBar bar = new KLineBar();
+
+    public SinaKLineParser(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * 单根K线的可复用容器，回调结束后内容会被下一根K线覆盖
+     */
+    public static final class KLineBar {
+        public LocalDate day;
+        public double open;
+        public double high;
+        public double low;
+        public double close;
+        public long volume;
+        public double maPrice5;
+        public double maPrice10;
+        public double maPrice30;
+        public long maVolume5;
+        public long maVolume10;
+        public long maVolume30;
+
+        void reset() {
+            day = null;
+            open = high = low = close = 0;
+            volume = 0;
+            maPrice5 = maPrice10 = maPrice30 = 0;
+            maVolume5 = maVolume10 = maVolume30 = 0;
+        }
+    }
+
+    /**
+     * 解析整个响应
+     * @param handler 每根有效K线（含交易日期）的回调，KLineBar实例会被复用
+     * @return 解析出的K线数量；响应为null时返回0
+     * @throws IOException 读取失败或响应格式非法
+     */
+    public int parse(Consumer<KLineBar> handler) throws IOException {
+        int c = nextNonWhitespace();
+        if (c == -1) {
+            return 0;
+        }
+        if (c == 'n') {
+            // 无效symbol时接口返回 "null"
+            expectLiteral("ull");
+            return 0;
+        }
+        if (c != '[') {
+            throw error("期望 '[' 但读到 '" + (char) c + "'");
+        }
+        int count = 0;
+        while (true) {
+            c = nextNonWhitespace();
+            if (c == ']') {
+                return count;
+            }
+            if (c == ',') {
+                continue;
+            }
+            if (c != '{') {
+                throw error("期望 '{' 但读到 " + describe(c));
+            }
+            bar.reset();
+            parseObject();
+            if (bar.day != null) {
+                handler.accept(bar);
+                count++;
+            }
+        }
+    }
+
+    private void parseObject() throws IOException {
+        while (true) {
+            int c = nextNonWhitespace();
+            if (c == '}') {
+                return;
+            }
+            if (c == ',') {
+                continue;
+            }
+            readKey(c);
+            if (nextNonWhitespace() != ':') {
+                throw error("字段名后缺少 ':'");
+            }
+            readValue(nextNonWhitespace());
+            if (!valNull) {
+                assignField();
+            }
+        }
+    }
+
+    private void assignField() {
+        if (keyIs(KEY_DAY)) {
+            bar.day = parseDay();
+        } else if (keyIs(KEY_OPEN)) {
+            bar.open = parseDouble();
+        } else if (keyIs(KEY_HIGH)) {
+            bar.high = parseDouble();
+        } else if (keyIs(KEY_LOW)) {
+            bar.low = parseDouble();
+        } else if (keyIs(KEY_CLOSE)) {
+            bar.close = parseDouble();
+        } else if (keyIs(KEY_VOLUME)) {
+            bar.volume = parseLong();
+        } else if (keyIs(KEY_MA_PRICE5)) {
+            bar.maPrice5 = parseDouble();
+        } else if (keyIs(KEY_MA_PRICE10)) {
+            bar.maPrice10 = parseDouble();
+        } else if (keyIs(KEY_MA_PRICE30)) {
+            bar.maPrice30 = parseDouble();
+        } else if (keyIs(KEY_MA_VOLUME5)) {
+            bar.maVolume5 = parseLong();
+        } else if (keyIs(KEY_MA_VOLUME10)) {
+            bar.maVolume10 = parseLong();
+        } else if (keyIs(KEY_MA_VOLUME30)) {
+            bar.maVolume30 = parseLong();
+        }
+        // 其他字段忽略
+    }
+
+    private void readKey(int first) throws IOException {
+        keyLen = 0;
+        if (first == '"') {
+            int c;
+            while ((c = read()) != '"') {
+                if (c == -1) {
+                    throw error("字段名未结束");
+                }
+                appendKey(c);
+            }
+        } else {
+            // 兼容不带引号的字段名
+            appendKey(first);
+            int c;
+            while ((c = peek()) != ':' && !isWhitespace(c)) {
+                if (c == -1) {
+                    throw error("字段名未结束");
+                }
+                appendKey(read());
+            }
+        }
+    }
+
+    private void appendKey(int c) {
+        // 超长字段名不可能是需要的字段，截断即可
+        if (keyLen < keyBuf.length) {
+            keyBuf[keyLen] = (byte) c;
+        }
+        keyLen++;
+    }
+
+    private void readValue(int first) throws IOException {
+        valLen = 0;
+        valNull = false;
+        if (first == '"') {
+            int c;
+            while ((c = read()) != '"') {
+                if (c == -1) {
+                    throw error("字符串值未结束");
+                }
+                if (c == '\\') {
+                    c = read();
+                }
+                appendValue(c);
+            }
+            return;
+        }
+        if (first == 'n') {
+            expectLiteral("ull");
+            valNull = true;
+            return;
+        }
+        if (first == '{' || first == '[') {
+            throw error("不支持嵌套值");
+        }
+        appendValue(first);
+        int c;
+        while ((c = peek()) != ',' && c != '}' && c != -1 && !isWhitespace(c)) {
+            appendValue(read());
+        }
+    }
+
+    private void appendValue(int c) {
+        if (valLen == valBuf.length) {
+            valBuf = Arrays.copyOf(valBuf, valBuf.length * 2);
+        }
+        valBuf[valLen++] = (byte) c;
+    }
+
+    private boolean keyIs(byte[] expected) {
+        return keyLen == expected.length && Arrays.equals(keyBuf, 0, keyLen, expected, 0, expected.length);
+    }
+
+    private LocalDate parseDay() {
+        if (valLen < 10 || valBuf[4] != '-' || valBuf[7] != '-') {
+            return null;
+        }
+        int year = digits(0, 4);
+        int month = digits(5, 7);
+        int day = digits(8, 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    private int digits(int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int d = valBuf[i] - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    /**
+     * 解析十进制小数；有效数字不超过15位且小数位不超过22位时直接计算（结果与Double.parseDouble一致），
+     * 其他情况回退到Double.parseDouble
+     */
+    private double parseDouble() {
+        if (valLen == 0) {
+            return 0;
+        }
+        int i = 0;
+        boolean negative = false;
+        if (valBuf[0] == '-' || valBuf[0] == '+') {
+            negative = valBuf[0] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significant = 0;
+        int scale = 0;
+        boolean dot = false;
+        for (; i < valLen; i++) {
+            int c = valBuf[i];
+            if (c == '.' && !dot) {
+                dot = true;
+                continue;
+            }
+            int d = c - '0';
+            if (d < 0 || d > 9) {
+                return slowParseDouble();
+            }
+            if (mantissa != 0 || d != 0) {
+                significant++;
+            }
+            if (significant > 15) {
+                return slowParseDouble();
+            }
+            mantissa = mantissa * 10 + d;
+            if (dot) {
+                scale++;
+            }
+        }
+        if (scale >= POW10.length) {
+            return slowParseDouble();
+        }
+        double value = mantissa / POW10[scale];
+        return negative ? -value : value;
+    }
+
+    private double slowParseDouble() {
+        try {
+            return Double.parseDouble(new String(valBuf, 0, valLen, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private long parseLong() {
+        if (valLen == 0) {
+            return 0;
+        }
+        int i = 0;
+        boolean negative = valBuf[0] == '-';
+        if (negative || valBuf[0] == '+') {
+            i++;
+        }
+        long value = 0;
+        for (; i < valLen; i++) {
+            int d = valBuf[i] - '0';
+            if (d < 0 || d > 9) {
+                // 带小数点等非整数格式
+                return (long) parseDouble();
+            }
+            value = value * 10 + d;
+        }
+        return negative ? -value : value;
+    }
+
+    private void expectLiteral(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (read() != rest.charAt(i)) {
+                throw error("非法字面量");
+            }
+        }
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != -1 && isWhitespace(c));
+        return c;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++] & 0xff;
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos] & 0xff;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private IOException error(String message) {
+        return new IOException("K线数据格式错误: " + message);
+    }
+
+    private static String describe(int c) {
+        return c == -1 ? "EOF" : "'" + (char) c + "'";
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.stock.service.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 新浪接口请求限流器
+ * 全局令牌桶控制每秒请求数，按主机的信号量控制同时进行中的请求数，
+ * 替代原先同步流程中按股票、按号段的固定休眠
+ */
+@Slf4j
+@Component
+public class SinaRateLimiter {
+
+    private final double permitsPerSecond;
+    private final double burst;
+    private final int maxConcurrentPerHost;
+
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final AtomicLong acquiredCount = new AtomicLong();
+    private final AtomicLong waitedNanos = new AtomicLong();
+
+    private double availableTokens;
+    private long lastRefillNanos;
+
+    public SinaRateLimiter(
+            @Value("${stock.http.rate-limit.permits-per-second:3}") double permitsPerSecond,
+            @Value("${stock.http.rate-limit.burst:3}") double burst,
+            @Value("${stock.http.rate-limit.max-concurrent-per-host:4}") int maxConcurrentPerHost) {
+        if (permitsPerSecond <= 0 || burst < 1 || maxConcurrentPerHost < 1) {
+            throw new IllegalArgumentException("限流参数非法: permitsPerSecond=" + permitsPerSecond
+                    + ", burst=" + burst + ", maxConcurrentPerHost=" + maxConcurrentPerHost);
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+        this.availableTokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+        log.info("新浪接口限流配置: {}次/秒, 突发容量={}, 单主机并发上限={}", permitsPerSecond, burst, maxConcurrentPerHost);
+    }
+
+    /**
+     * 在限流约束下执行一次远程调用
+     * 先占用目标主机的并发名额，再从全局令牌桶取得令牌，调用结束后释放并发名额
+     * @param url 请求地址，用于确定目标主机
+     * @param call 实际的远程调用
+     * @return 远程调用的返回值
+     */
+    public <T> T execute(String url, Supplier<T> call) {
+        Semaphore hostSemaphore = hostPermits.computeIfAbsent(hostOf(url), h -> new Semaphore(maxConcurrentPerHost, true));
+        try {
+            hostSemaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待主机并发名额时被中断: " + url, e);
+        }
+        try {
+            acquireToken();
+            return call.get();
+        } finally {
+            hostSemaphore.release();
+        }
+    }
+
+    /**
+     * 从令牌桶取得一个令牌，令牌不足时预支并休眠到令牌可用
+     */
+    private void acquireToken() {
+        long waitNanos = reserveToken();
+        if (waitNanos > 0) {
+            waitedNanos.addAndGet(waitNanos);
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待限流令牌时被中断", e);
+            }
+        }
+        acquiredCount.incrementAndGet();
+    }
+
+    /**
+     * 预订一个令牌
+     * @return 需要等待的纳秒数，0表示立即可用
+     */
+    private synchronized long reserveToken() {
+        long now = System.nanoTime();
+        availableTokens = Math.min(burst, availableTokens + (now - lastRefillNanos) * permitsPerSecond / 1_000_000_000d);
+        lastRefillNanos = now;
+        availableTokens -= 1;
+        if (availableTokens >= 0) {
+            return 0;
+        }
+        // 令牌为负表示已被预支，等待时间为补足欠额所需的时间
+        return (long) (-availableTokens / permitsPerSecond * 1_000_000_000d);
+    }
+
+    private String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    /**
+     * @return 累计发放的令牌数
+     */
+    public long getAcquiredCount() {
+        return acquiredCount.get();
+    }
+
+    /**
+     * @return 累计因限流等待的毫秒数
+     */
+    public long getWaitedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitedNanos.get());
+    }
+}
@@ -4,11 +4,16 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.TypeReference;
 import com.example.stock.dto.StockDTO;
 import com.example.stock.dto.StockHistoryDTO;
+import com.example.stock.entity.StockHistory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -22,20 +27,23 @@ import java.util.stream.Collectors;
 public class SinaStockClient {
     private static final Logger logger = LoggerFactory.getLogger(SinaStockClient.class);
     private final RestTemplate restTemplate;
+    private final SinaRateLimiter rateLimiter;
     // 新浪财经沪深A股列表接口地址
     // 📊 API_BASE_URL（基础接口 - 灵活分页）
     // 用途：支持自定义参数的基础接口，用于获取股票实时行情数据
     // 特点：高度可定制，支持分页，可自定义每页数量和排序方式
     // 使用场景：批量分页获取股票数据，需要自定义每页数量，需要按特定字段排序
     // 调用方法：fetchStocksByPage() 使用 buildFullUrl() 构建完整URL
-    private static final String API_BASE_URL = "https://vip.stock.finance.sina.com.cn/quotes_service/api/json_v2.php/Market_Center.getHQNodeData";
-    // 📈 API_URL（快速接口 - 固定参数）
+    // 可通过 stock.sina.hq-node-url 指向本地替身服务（SinaStubServer）
+    static final String API_BASE_URL = "https://vip.stock.finance.sina.com.cn/quotes_service/api/json_v2.php/Market_Center.getHQNodeData";
+    // 📈 API_URL_QUERY（快速接口 - 固定参数）
     // 用途：快速获取少量股票实时行情数据
     // 特点：参数固定，无法定制，只获取第1页30条数据
     // 固定参数：page=1(第一页), num=30(每页30条), node=hs_a(沪深A股), sort=code(按代码排序), asc=1(升序)
     // 使用场景：快速测试接口可用性，获取少量示例数据，不需要遍历所有股票
     // 调用方法：fetchAllStocks() 直接使用此URL获取数据
-    private static final String API_URL = "https://vip.stock.finance.sina.com.cn/quotes_service/api/json_v2.php/Market_Center.getHQNodeData?page=1&num=30&node=hs_a&sort=code&asc=1&_s_r_a=init";
+    // 在 API_BASE_URL（或 stock.sina.hq-node-url）之后追加的固定参数
+    private static final String API_URL_QUERY = "?page=1&num=30&node=hs_a&sort=code&asc=1&_s_r_a=init";
 
     // 📉 API_HISTORY_URL（历史数据接口）
     // 用途：获取单只股票的历史K线数据
@@ -44,14 +52,26 @@ public class SinaStockClient {
     // 使用场景：技术分析、历史数据回溯、构建股票历史数据库
     // 调用方法：getStockHistory() 使用此URL并添加symbol、scale、datalen、end_date参数
     // 完整示例：https://money.finance.sina.com.cn/quotes_service/api/json_v2.php/CN_MarketData.getKLineData?symbol=sz000001&scale=240&datalen=70000&end_date=20250405
-    private static final String API_HISTORY_URL = "https://money.finance.sina.com.cn/quotes_service/api/json_v2.php/CN_MarketData.getKLineData";
+    // 可通过 stock.sina.kline-url 指向本地替身服务（SinaStubServer）
+    static final String API_HISTORY_URL = "https://money.finance.sina.com.cn/quotes_service/api/json_v2.php/CN_MarketData.getKLineData";
+
+    private final String hqNodeUrl;
+    private final String kLineUrl;
 
     /**
      * 构造函数，通过依赖注入获取RestTemplate实例
      * @param restTemplate RestTemplate实例
+     * @param rateLimiter 新浪接口请求限流器
+     * @param hqNodeUrl 行情列表接口地址，默认为新浪 getHQNodeData
+     * @param kLineUrl 历史K线接口地址，默认为新浪 getKLineData
      */
-    public SinaStockClient(RestTemplate restTemplate) {
+    public SinaStockClient(RestTemplate restTemplate, SinaRateLimiter rateLimiter,
+                           @Value("${stock.sina.hq-node-url:" + API_BASE_URL + "}") String hqNodeUrl,
+                           @Value("${stock.sina.kline-url:" + API_HISTORY_URL + "}") String kLineUrl) {
         this.restTemplate = restTemplate;
+        this.rateLimiter = rateLimiter;
+        this.hqNodeUrl = hqNodeUrl;
+        this.kLineUrl = kLineUrl;
     }
 
     /**
@@ -61,7 +81,7 @@ public class SinaStockClient {
      */
     public StockDTO[] fetchStocksByPage(int page) {
         String url = buildFullUrl(page);
-        return restTemplate.getForObject(url, StockDTO[].class);
+        return rateLimiter.execute(url, () -> restTemplate.getForObject(url, StockDTO[].class));
     }
 
     /**
@@ -71,7 +91,7 @@ public class SinaStockClient {
      */
     private String buildFullUrl(int page) {
         Map<String, String> params = buildParams(page);
-        StringBuilder urlBuilder = new StringBuilder(API_BASE_URL);
+        StringBuilder urlBuilder = new StringBuilder(hqNodeUrl);
         urlBuilder.append('?');
         params.forEach((key, value) -> urlBuilder.append(key).append('=').append(value).append('&'));
         // 删除最后一个多余的'&'
@@ -88,7 +108,8 @@ public class SinaStockClient {
      */
     public StockDTO[] fetchAllStocks() {
         // 调用 API 获取 JSON 数据
-        return restTemplate.getForObject(API_URL, StockDTO[].class);
+        String url = hqNodeUrl + API_URL_QUERY;
+        return rateLimiter.execute(url, () -> restTemplate.getForObject(url, StockDTO[].class));
         // 将数组转换为 List
         //return Arrays.asList(stocks);
     }
@@ -129,18 +150,11 @@ public class SinaStockClient {
         // 从symbol中提取code（去除前缀）
         String code = symbol.substring(2);
 
-        String endDate = LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE);
-        // 构造历史数据API请求URL，包含以下参数：
-        // symbol: 股票代码（如sh600000、sz000001）
-        // scale: K线周期，240表示日线（其他可选值：5/15/30/60分钟）
-        // datalen: 数据长度，默认70000表示获取尽可能多的历史数据，可指定为较小值进行增量获取
-        // end_date: 结束日期，格式为yyyyMMdd
-        String url = String.format("%s?symbol=%s&scale=240&datalen=%d&end_date=%s",
-                API_HISTORY_URL, symbol, datalen, endDate);
+        String url = buildHistoryUrl(symbol, datalen);
         String jsonResponse = "";
         try {
         // 1. 获取原始 JSON 响应
-        jsonResponse = restTemplate.getForObject(url, String.class);
+        jsonResponse = rateLimiter.execute(url, () -> restTemplate.getForObject(url, String.class));
 
         // 2. 处理无效 symbol 返回的 "null" 字符串
         if ("null".equals(jsonResponse.trim())) {
@@ -172,6 +186,62 @@ public class SinaStockClient {
     }
 
 
+    /**
+     * 流式获取单只股票历史数据（日线），直接生成StockHistory实体
+     * 从响应InputStream逐根解析K线，不保留原始响应字符串和中间DTO列表，适用于全量回补等大数据量场景
+     * @param symbol 股票代码（如sh600000）
+     * @param datalen 获取end_date之前多少个单位（自然日）的历史数据
+     * @return 股票历史实体列表（保持接口返回顺序），失败时返回空列表
+     */
+    public List<StockHistory> getStockHistoryRows(String symbol, int datalen) {
+        String code = symbol.substring(2);
+        String url = buildHistoryUrl(symbol, datalen);
+        try {
+            List<StockHistory> rows = rateLimiter.execute(url, () -> restTemplate.execute(url, HttpMethod.GET, null,
+                    response -> parseHistoryRows(response.getBody(), symbol, code)));
+            return rows != null ? rows : Collections.emptyList();
+        } catch (Exception e) {
+            logger.error("股票数据流式解析失败: symbol={}, url={}, error={}", symbol, url, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private List<StockHistory> parseHistoryRows(InputStream body, String symbol, String code) throws IOException {
+        List<StockHistory> rows = new ArrayList<>();
+        new SinaKLineParser(body).parse(bar -> {
+            StockHistory history = new StockHistory();
+            history.setSymbol(symbol);
+            history.setCode(code);
+            history.setDay(bar.day);
+            history.setOpen(bar.open);
+            history.setHigh(bar.high);
+            history.setLow(bar.low);
+            history.setClose(bar.close);
+            history.setVolume(bar.volume);
+            history.setMaPrice5(bar.maPrice5);
+            history.setMaPrice10(bar.maPrice10);
+            history.setMaPrice30(bar.maPrice30);
+            history.setMaVolume5(bar.maVolume5);
+            history.setMaVolume10(bar.maVolume10);
+            history.setMaVolume30(bar.maVolume30);
+            rows.add(history);
+        });
+        return rows;
+    }
+
+    /**
+     * 构造历史数据API请求URL
+     * symbol: 股票代码（如sh600000、sz000001）
+     * scale: K线周期，240表示日线（其他可选值：5/15/30/60分钟）
+     * datalen: 数据长度，默认70000表示获取尽可能多的历史数据，可指定为较小值进行增量获取
+     * end_date: 结束日期，格式为yyyyMMdd
+     */
+    private String buildHistoryUrl(String symbol, int datalen) {
+        String endDate = LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE);
+        return String.format("%s?symbol=%s&scale=240&datalen=%d&end_date=%s",
+                kLineUrl, symbol, datalen, endDate);
+    }
+
     /**
      * 解析JSON数据为DTO对象
      * @param jsonArray 原始JSON数组
@@ -0,0 +1,76 @@
+package com.example.stock.service.client.stub;
+
+import com.example.stock.entity.StockHistory;
+import com.example.stock.service.client.SinaKLineParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 由录制的新浪K线响应提供数据
+ * 目录下每个 {symbol}.json 文件是一次 getKLineData 的原始响应（如 sh600000.json），每次请求时流式解析
+ */
+public class RecordedSinaData implements SinaStubData {
+
+    private static final String SUFFIX = ".json";
+
+    private final Path directory;
+    private final List<String> symbols;
+
+    public RecordedSinaData(Path directory) {
+        this.directory = directory;
+        try (Stream<Path> files = Files.list(directory)) {
+            this.symbols = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SUFFIX))
+                    .map(name -> name.substring(0, name.length() - SUFFIX.length()))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取录制数据目录失败: " + directory, e);
+        }
+    }
+
+    @Override
+    public List<String> symbols() {
+        return symbols;
+    }
+
+    @Override
+    public List<StockHistory> history(String symbol) {
+        Path file = directory.resolve(symbol + SUFFIX);
+        if (!symbols.contains(symbol) || !Files.isRegularFile(file)) {
+            return Collections.emptyList();
+        }
+        List<StockHistory> histories = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(file)) {
+            new SinaKLineParser(in).parse(bar -> {
+                StockHistory history = new StockHistory();
+                history.setSymbol(symbol);
+                history.setCode(symbol.substring(2));
+                history.setDay(bar.day);
+                history.setOpen(bar.open);
+                history.setHigh(bar.high);
+                history.setLow(bar.low);
+                history.setClose(bar.close);
+                history.setVolume(bar.volume);
+                history.setMaPrice5(bar.maPrice5);
+                history.setMaPrice10(bar.maPrice10);
+                history.setMaPrice30(bar.maPrice30);
+                history.setMaVolume5(bar.maVolume5);
+                history.setMaVolume10(bar.maVolume10);
+                history.setMaVolume30(bar.maVolume30);
+                histories.add(history);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("解析录制数据失败: " + file, e);
+        }
+        return histories;
+    }
+}
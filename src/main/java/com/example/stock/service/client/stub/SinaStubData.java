@@ -0,0 +1,31 @@
+package com.example.stock.service.client.stub;
+
+import com.example.stock.entity.StockHistory;
+
+import java.util.List;
+
+/**
+ * 新浪接口替身服务的数据来源
+ */
+public interface SinaStubData {
+
+    /**
+     * @return 按代码升序排列的全部股票symbol
+     */
+    List<String> symbols();
+
+    /**
+     * @param symbol 股票代码（如sh600000）
+     * @return 按日期升序排列的全部K线，未知代码返回空列表
+     */
+    List<StockHistory> history(String symbol);
+
+    /**
+     * 行情列表接口只需要每只股票最后两根K线（最新价与昨收），实现可以据此缓存
+     * @return 最多count根最新K线，按日期升序
+     */
+    default List<StockHistory> latestBars(String symbol, int count) {
+        List<StockHistory> histories = history(symbol);
+        return histories.subList(Math.max(0, histories.size() - count), histories.size());
+    }
+}
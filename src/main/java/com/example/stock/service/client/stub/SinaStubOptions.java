@@ -0,0 +1,30 @@
+package com.example.stock.service.client.stub;
+
+/**
+ * 新浪接口替身服务的故障注入参数
+ * @param latencyMillis 每次响应前的固定延迟（毫秒）
+ * @param jitterMillis 在固定延迟之上随机增加的最大延迟（毫秒）
+ * @param errorRate 返回HTTP 500的概率
+ * @param throttleRate 随机返回HTTP 456（新浪的访问频率限制响应）的概率
+ * @param maxRequestsPerSecond 每秒请求数上限，超出的请求返回HTTP 456，0表示不限制
+ * @param seed 故障注入使用的随机种子
+ */
+public record SinaStubOptions(long latencyMillis, long jitterMillis, double errorRate, double throttleRate,
+                              int maxRequestsPerSecond, long seed) {
+
+    public SinaStubOptions {
+        if (latencyMillis < 0 || jitterMillis < 0 || maxRequestsPerSecond < 0
+                || errorRate < 0 || errorRate > 1 || throttleRate < 0 || throttleRate > 1) {
+            throw new IllegalArgumentException("替身服务参数非法: latency=" + latencyMillis + ", jitter=" + jitterMillis
+                    + ", errorRate=" + errorRate + ", throttleRate=" + throttleRate
+                    + ", maxRequestsPerSecond=" + maxRequestsPerSecond);
+        }
+    }
+
+    /**
+     * @return 无延迟、无故障的参数
+     */
+    public static SinaStubOptions none() {
+        return new SinaStubOptions(0, 0, 0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.stock.service.client.stub;
+
+import com.example.stock.entity.StockHistory;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 按新浪接口的原始格式输出响应
+ */
+public final class SinaStubResponses {
+
+    private SinaStubResponses() {
+    }
+
+    /**
+     * getKLineData 格式：价格和成交量为字符串，均价均量为数字
+     */
+    public static String kLineJson(List<StockHistory> histories) {
+        StringBuilder sb = new StringBuilder(histories.size() * 220);
+        sb.append('[');
+        for (int i = 0; i < histories.size(); i++) {
+            StockHistory h = histories.get(i);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(String.format(Locale.ROOT,
+                    "{\"day\":\"%s\",\"open\":\"%.3f\",\"high\":\"%.3f\",\"low\":\"%.3f\",\"close\":\"%.3f\","
+                            + "\"volume\":\"%d\",\"ma_price5\":%.3f,\"ma_volume5\":%d,\"ma_price10\":%.3f,"
+                            + "\"ma_volume10\":%d,\"ma_price30\":%.3f,\"ma_volume30\":%d}",
+                    h.getDay(), h.getOpen(), h.getHigh(), h.getLow(), h.getClose(), h.getVolume(),
+                    h.getMaPrice5(), h.getMaVolume5(), h.getMaPrice10(), h.getMaVolume10(),
+                    h.getMaPrice30(), h.getMaVolume30()));
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * getHQNodeData 格式的单只股票行情，由最新K线和昨收价推算
+     * @param latest 最新K线
+     * @param previousClose 昨收价，没有前一根K线时传入开盘价
+     */
+    public static String quoteJson(StockHistory latest, double previousClose) {
+        double change = latest.getClose() - previousClose;
+        double changePercent = previousClose > 0 ? change / previousClose * 100 : 0;
+        double amount = latest.getVolume() * (latest.getHigh() + latest.getLow() + latest.getClose()) / 3;
+        return String.format(Locale.ROOT,
+                "{\"symbol\":\"%s\",\"code\":\"%s\",\"name\":\"%s\",\"trade\":\"%.3f\",\"pricechange\":%.3f,"
+                        + "\"changepercent\":%.3f,\"buy\":\"%.3f\",\"sell\":\"%.3f\",\"settlement\":\"%.3f\","
+                        + "\"open\":\"%.3f\",\"high\":\"%.3f\",\"low\":\"%.3f\",\"volume\":%d,\"amount\":%.0f,"
+                        + "\"ticktime\":\"15:00:00\",\"per\":0,\"pb\":0,\"mktcap\":0,\"nmc\":0,\"turnoverratio\":0}",
+                latest.getSymbol(), latest.getCode(), latest.getSymbol().toUpperCase(Locale.ROOT),
+                latest.getClose(), change, changePercent, latest.getClose(), latest.getClose(), previousClose,
+                latest.getOpen(), latest.getHigh(), latest.getLow(), latest.getVolume(), amount);
+    }
+}
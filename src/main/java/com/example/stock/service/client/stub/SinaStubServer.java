@@ -0,0 +1,295 @@
+package com.example.stock.service.client.stub;
+
+import com.example.stock.entity.StockHistory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 新浪接口本地替身服务
+ * 基于JDK内置HttpServer，在与新浪相同的路径上提供 getKLineData 和 getHQNodeData 两个接口，
+ * 数据来自合成行情或录制的响应；可注入固定/随机延迟、HTTP 500错误和HTTP 456限流响应，
+ * 用于离线测量端到端同步吞吐并调整并发与限流参数。
+ * 每个请求在独立线程中处理，延迟不会串行化
+ */
+@Slf4j
+public class SinaStubServer implements AutoCloseable {
+
+    public static final String KLINE_PATH = "/quotes_service/api/json_v2.php/CN_MarketData.getKLineData";
+    public static final String HQ_NODE_PATH = "/quotes_service/api/json_v2.php/Market_Center.getHQNodeData";
+
+    /**
+     * 新浪在访问过于频繁时返回的状态码
+     */
+    public static final int THROTTLED_STATUS = 456;
+
+    private static final int DEFAULT_DATALEN = 70000;
+    private static final int DEFAULT_PAGE_SIZE = 40;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final SinaStubData data;
+    private final SinaStubOptions options;
+    private final Random random;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+    private final AtomicLong servedBars = new AtomicLong();
+
+    private long windowSecond = -1;
+    private int windowCount;
+
+    private SinaStubServer(HttpServer server, SinaStubData data, SinaStubOptions options) {
+        this.server = server;
+        this.data = data;
+        this.options = options;
+        this.random = new Random(options.seed());
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "sina-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(KLINE_PATH, exchange -> handle(exchange, this::kLine));
+        server.createContext(HQ_NODE_PATH, exchange -> handle(exchange, this::hqNode));
+    }
+
+    /**
+     * 在本机回环地址上启动替身服务
+     * @param port 端口，0表示随机分配
+     * @param data 数据来源
+     * @param options 故障注入参数
+     * @return 已启动的服务
+     */
+    public static SinaStubServer start(int port, SinaStubData data, SinaStubOptions options) throws IOException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        SinaStubServer stub = new SinaStubServer(httpServer, data, options);
+        httpServer.start();
+        log.info("新浪接口替身服务已启动: {}, 股票{}只, {}", stub.getBaseUrl(), data.symbols().size(), options);
+        return stub;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + getPort();
+    }
+
+    /**
+     * @return 可直接配置为 stock.sina.kline-url 的地址
+     */
+    public String getKLineUrl() {
+        return getBaseUrl() + KLINE_PATH;
+    }
+
+    /**
+     * @return 可直接配置为 stock.sina.hq-node-url 的地址
+     */
+    public String getHqNodeUrl() {
+        return getBaseUrl() + HQ_NODE_PATH;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    /**
+     * @return 累计返回的K线根数
+     */
+    public long getServedBars() {
+        return servedBars.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        log.info("新浪接口替身服务已停止: 请求{}次, 错误{}次, 限流{}次, 返回K线{}根",
+                requestCount.get(), errorCount.get(), throttledCount.get(), servedBars.get());
+    }
+
+    private void handle(HttpExchange exchange, Responder responder) throws IOException {
+        try (exchange) {
+            requestCount.incrementAndGet();
+            delay();
+            if (isThrottled()) {
+                throttledCount.incrementAndGet();
+                send(exchange, THROTTLED_STATUS, "text/html", "<html><body>Forbidden</body></html>");
+                return;
+            }
+            if (options.errorRate() > 0 && random.nextDouble() < options.errorRate()) {
+                errorCount.incrementAndGet();
+                send(exchange, 500, "text/html", "<html><body>Internal Server Error</body></html>");
+                return;
+            }
+            String body = responder.respond(parseQuery(exchange.getRequestURI().getRawQuery()));
+            send(exchange, 200, "application/json", body);
+        } catch (RuntimeException e) {
+            log.error("替身服务处理请求失败: {}", exchange.getRequestURI(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * getKLineData：返回end_date（含）之前最近datalen根K线，未知代码返回字符串null
+     */
+    private String kLine(Map<String, String> query) {
+        List<StockHistory> histories = data.history(query.getOrDefault("symbol", ""));
+        if (histories.isEmpty()) {
+            return "null";
+        }
+        int end = histories.size();
+        LocalDate endDate = parseDate(query.get("end_date"));
+        if (endDate != null) {
+            while (end > 0 && histories.get(end - 1).getDay().isAfter(endDate)) {
+                end--;
+            }
+        }
+        int datalen = parseInt(query.get("datalen"), DEFAULT_DATALEN);
+        List<StockHistory> window = histories.subList(Math.max(0, end - Math.max(1, datalen)), end);
+        servedBars.addAndGet(window.size());
+        return SinaStubResponses.kLineJson(window);
+    }
+
+    /**
+     * getHQNodeData：按代码排序分页返回每只股票的最新行情，超出最后一页时返回空数组
+     */
+    private String hqNode(Map<String, String> query) {
+        List<String> symbols = data.symbols();
+        int page = Math.max(1, parseInt(query.get("page"), 1));
+        int num = Math.max(1, parseInt(query.get("num"), DEFAULT_PAGE_SIZE));
+        boolean ascending = !"0".equals(query.get("asc"));
+        StringBuilder sb = new StringBuilder(num * 400).append('[');
+        int from = (page - 1) * num;
+        for (int i = from; i < Math.min(symbols.size(), from + num); i++) {
+            String symbol = symbols.get(ascending ? i : symbols.size() - 1 - i);
+            List<StockHistory> latest = data.latestBars(symbol, 2);
+            if (latest.isEmpty()) {
+                continue;
+            }
+            StockHistory last = latest.get(latest.size() - 1);
+            double previousClose = latest.size() > 1 ? latest.get(0).getClose() : last.getOpen();
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            sb.append(SinaStubResponses.quoteJson(last, previousClose));
+        }
+        return sb.append(']').toString();
+    }
+
+    private void delay() {
+        long millis = options.latencyMillis();
+        if (options.jitterMillis() > 0) {
+            millis += (long) (random.nextDouble() * options.jitterMillis());
+        }
+        if (millis > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean isThrottled() {
+        if (options.throttleRate() > 0 && random.nextDouble() < options.throttleRate()) {
+            return true;
+        }
+        if (options.maxRequestsPerSecond() <= 0) {
+            return false;
+        }
+        long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        synchronized (this) {
+            if (second != windowSecond) {
+                windowSecond = second;
+                windowCount = 0;
+            }
+            return ++windowCount > options.maxRequestsPerSecond();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return value == null ? null : LocalDate.parse(value, DateTimeFormatter.BASIC_ISO_DATE);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Responder {
+        String respond(Map<String, String> query);
+    }
+}
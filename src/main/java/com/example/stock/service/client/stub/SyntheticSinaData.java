@@ -0,0 +1,61 @@
+package com.example.stock.service.client.stub;
+
+import com.example.stock.entity.StockHistory;
+import com.example.stock.service.synthetic.SyntheticMarketGenerator;
+import com.example.stock.service.synthetic.SyntheticMarketSpec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 由合成行情生成器提供数据
+ * K线每次请求时按需生成（结果只由规格决定），行情列表用到的最新K线按股票缓存
+ */
+public class SyntheticSinaData implements SinaStubData {
+
+    private static final int CACHED_BARS = 2;
+
+    private final SyntheticMarketGenerator generator;
+    private final List<String> symbols;
+    private final Map<String, Integer> indexBySymbol;
+    private final Map<String, List<StockHistory>> latestBySymbol = new ConcurrentHashMap<>();
+
+    public SyntheticSinaData(SyntheticMarketSpec spec) {
+        this.generator = new SyntheticMarketGenerator(spec);
+        Map<String, Integer> indexes = new HashMap<>();
+        List<String> all = new ArrayList<>(spec.symbolCount());
+        for (int i = 0; i < spec.symbolCount(); i++) {
+            String symbol = SyntheticMarketGenerator.symbol(i);
+            indexes.put(symbol, i);
+            all.add(symbol);
+        }
+        Collections.sort(all);
+        this.symbols = Collections.unmodifiableList(all);
+        this.indexBySymbol = indexes;
+    }
+
+    @Override
+    public List<String> symbols() {
+        return symbols;
+    }
+
+    @Override
+    public List<StockHistory> history(String symbol) {
+        Integer index = indexBySymbol.get(symbol);
+        return index == null ? Collections.emptyList() : generator.generate(index);
+    }
+
+    @Override
+    public List<StockHistory> latestBars(String symbol, int count) {
+        if (count > CACHED_BARS) {
+            return SinaStubData.super.latestBars(symbol, count);
+        }
+        List<StockHistory> latest = latestBySymbol.computeIfAbsent(symbol,
+                s -> new ArrayList<>(SinaStubData.super.latestBars(s, CACHED_BARS)));
+        return latest.subList(Math.max(0, latest.size() - count), latest.size());
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.stock.service.screen;
+
+import java.time.LocalDate;
+
+/**
+ * 一次均线金叉
+ * @param symbol 股票代码
+ * @param tradeDate 发生金叉的交易日
+ * @param close 当日收盘价
+ * @param fastMa 当日快均线
+ * @param slowMa 当日慢均线
+ */
+public record GoldenCross(String symbol, LocalDate tradeDate, double close, double fastMa, double slowMa) {
+}
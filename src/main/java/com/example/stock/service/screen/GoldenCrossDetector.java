@@ -0,0 +1,193 @@
+package com.example.stock.service.screen;
+
+import com.example.stock.service.analysis.MarketSnapshot;
+import com.example.stock.service.analysis.MarketSnapshotService;
+import com.example.stock.service.analysis.PriceSeries;
+import com.example.stock.service.analysis.PriceSeriesAnalyzer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 均线金叉检测
+ * 支持任意快慢均线组合和日期区间：日期落在行情快照窗口内时直接在内存序列上判断，
+ * 否则用一条带LAG窗口函数的集合查询同时取得每只股票区间内各K线及其前一根K线，
+ * 停牌股票的前一根K线也在同一查询中解析，往返次数与股票数量无关；
+ * 每个子查询都带trade_date上下界，stock_history按年分区时只访问区间涉及的分区
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GoldenCrossDetector {
+
+    /**
+     * 区间起点至少早于快照窗口起点这么多天才走内存，保证区间内首根K线的前一根也在序列中
+     */
+    private static final int SNAPSHOT_MARGIN_DAYS = 30;
+
+    /**
+     * 查库时向前寻找前一根K线的最大天数，停牌超过此天数的股票不判断区间首日的金叉
+     */
+    private static final int PREVIOUS_BAR_LOOKBACK_DAYS = 365;
+
+    private static final String CROSS_QUERY = """
+            SELECT symbol, trade_date, close, fast_ma, slow_ma FROM (
+                SELECT symbol, trade_date, close, %1$s AS fast_ma, %2$s AS slow_ma,
+                       LAG(%1$s) OVER (PARTITION BY symbol ORDER BY trade_date) AS prev_fast,
+                       LAG(%2$s) OVER (PARTITION BY symbol ORDER BY trade_date) AS prev_slow
+                FROM (
+                    SELECT h.symbol, h.trade_date, h.close, h.ma_price5, h.ma_price10, h.ma_price30
+                    FROM stock_history h
+                    JOIN (
+                        SELECT symbol, MAX(trade_date) AS trade_date
+                        FROM stock_history
+                        WHERE trade_date < ? AND trade_date >= ?
+                        GROUP BY symbol
+                    ) prev ON h.symbol = prev.symbol AND h.trade_date = prev.trade_date
+                    WHERE h.trade_date < ? AND h.trade_date >= ?
+                    UNION ALL
+                    SELECT symbol, trade_date, close, ma_price5, ma_price10, ma_price30
+                    FROM stock_history
+                    WHERE trade_date >= ? AND trade_date <= ?
+                ) bars
+            ) t
+            WHERE trade_date >= ?
+                AND fast_ma > 0 AND slow_ma > 0 AND prev_fast > 0 AND prev_slow > 0
+                AND prev_fast <= prev_slow AND fast_ma > slow_ma
+            ORDER BY symbol, trade_date
+            """;
+
+    private final MarketSnapshotService marketSnapshotService;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 检测日期区间内的全部金叉
+     * @param pair 均线组合
+     * @param from 开始日期（含），为null时使用快照中的最新交易日
+     * @param to 结束日期（含），为null时与开始日期相同
+     * @return 按股票代码、日期排序的金叉列表
+     */
+    public List<GoldenCross> detect(MaPair pair, LocalDate from, LocalDate to) {
+        MarketSnapshot snapshot = marketSnapshotService.getSnapshot();
+        DateRange range = DateRange.resolve(from, to, snapshot);
+        if (range == null) {
+            return new ArrayList<>();
+        }
+        long startTime = System.currentTimeMillis();
+        List<GoldenCross> crosses;
+        boolean inMemory = canUseSnapshot(snapshot, range.from());
+        if (inMemory) {
+            crosses = new ArrayList<>();
+            int fromDay = (int) range.from().toEpochDay();
+            int toDay = (int) range.to().toEpochDay();
+            for (PriceSeries series : snapshot.getSeriesBySymbol().values()) {
+                collectCrosses(series, pair, fromDay, toDay, crosses);
+            }
+            crosses.sort(Comparator.comparing(GoldenCross::symbol).thenComparing(GoldenCross::tradeDate));
+        } else {
+            crosses = queryDatabase(pair, range.from(), range.to());
+        }
+        log.info("均线金叉检测完成: {}, {}~{}, 找到{}次, 来源{}, 耗时{}ms", pair.getDescription(),
+                range.from(), range.to(), crosses.size(), inMemory ? "行情快照" : "数据库",
+                System.currentTimeMillis() - startTime);
+        return crosses;
+    }
+
+    /**
+     * @return 区间起点是否足够晚，可以只用快照判断
+     */
+    static boolean canUseSnapshot(MarketSnapshot snapshot, LocalDate from) {
+        return snapshot.covers(from.minusDays(SNAPSHOT_MARGIN_DAYS));
+    }
+
+    /**
+     * 查找序列在日期区间内最后一次金叉
+     * @param fromDay 开始日期（epoch day，含）
+     * @param toDay 结束日期（epoch day，含）
+     * @return K线下标，没有金叉时为-1
+     */
+    static int lastCrossIndex(PriceSeries series, MaPair pair, int fromDay, int toDay) {
+        double[] fast = pair.fast(series);
+        double[] slow = pair.slow(series);
+        int[] days = series.epochDays();
+        for (int i = series.lastIndex(); i > 0 && days[i] >= fromDay; i--) {
+            if (days[i] <= toDay && PriceSeriesAnalyzer.isCrossUp(fast, slow, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void collectCrosses(PriceSeries series, MaPair pair, int fromDay, int toDay,
+                                       List<GoldenCross> target) {
+        double[] fast = pair.fast(series);
+        double[] slow = pair.slow(series);
+        int[] days = series.epochDays();
+        for (int i = Math.max(1, series.indexOnOrAfter(LocalDate.ofEpochDay(fromDay)));
+             i < series.size() && days[i] <= toDay; i++) {
+            if (PriceSeriesAnalyzer.isCrossUp(fast, slow, i)) {
+                target.add(new GoldenCross(series.getSymbol(), series.day(i), series.close(i), fast[i], slow[i]));
+            }
+        }
+    }
+
+    /**
+     * 用一条集合查询在数据库中检测区间内的金叉
+     */
+    List<GoldenCross> queryDatabase(MaPair pair, LocalDate from, LocalDate to) {
+        String sql = String.format(CROSS_QUERY, pair.getFastColumn(), pair.getSlowColumn());
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new GoldenCross(
+                        rs.getString("symbol"),
+                        rs.getDate("trade_date").toLocalDate(),
+                        rs.getDouble("close"),
+                        rs.getDouble("fast_ma"),
+                        rs.getDouble("slow_ma")),
+                Date.valueOf(from), Date.valueOf(from.minusDays(PREVIOUS_BAR_LOOKBACK_DAYS)),
+                Date.valueOf(from), Date.valueOf(from.minusDays(PREVIOUS_BAR_LOOKBACK_DAYS)),
+                Date.valueOf(from), Date.valueOf(to), Date.valueOf(from));
+    }
+
+    /**
+     * 每只股票只保留区间内最后一次金叉
+     * @param crosses 按股票代码、日期排序的金叉列表
+     */
+    public static Map<String, GoldenCross> latestBySymbol(List<GoldenCross> crosses) {
+        Map<String, GoldenCross> latest = new LinkedHashMap<>();
+        for (GoldenCross cross : crosses) {
+            latest.put(cross.symbol(), cross);
+        }
+        return latest;
+    }
+
+    /**
+     * 检测日期区间（均含）
+     */
+    record DateRange(LocalDate from, LocalDate to) {
+
+        /**
+         * 补全缺省日期，开始晚于结束时交换
+         * @return 日期区间；未指定日期且快照为空时为null
+         */
+        static DateRange resolve(LocalDate from, LocalDate to, MarketSnapshot snapshot) {
+            if (from == null) {
+                from = to != null ? to : snapshot.getLatestTradeDate();
+            }
+            if (from == null) {
+                return null;
+            }
+            if (to == null) {
+                to = from;
+            }
+            return from.isAfter(to) ? new DateRange(to, from) : new DateRange(from, to);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.stock.service.screen;
+
+import com.example.stock.service.analysis.PriceSeries;
+
+/**
+ * 均线金叉使用的快慢均线组合
+ * code与分析页面表单提交的maPair参数取值一致，column为stock_history中对应的均价列
+ */
+public enum MaPair {
+    /** 5日均线上穿10日均线 */
+    MA5_MA10("5_10", 5, 10, "ma_price5", "ma_price10"),
+    /** 10日均线上穿30日均线 */
+    MA10_MA30("10_30", 10, 30, "ma_price10", "ma_price30"),
+    /** 5日均线上穿30日均线 */
+    MA5_MA30("5_30", 5, 30, "ma_price5", "ma_price30");
+
+    private final String code;
+    private final int fastPeriod;
+    private final int slowPeriod;
+    private final String fastColumn;
+    private final String slowColumn;
+
+    MaPair(String code, int fastPeriod, int slowPeriod, String fastColumn, String slowColumn) {
+        this.code = code;
+        this.fastPeriod = fastPeriod;
+        this.slowPeriod = slowPeriod;
+        this.fastColumn = fastColumn;
+        this.slowColumn = slowColumn;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getFastColumn() {
+        return fastColumn;
+    }
+
+    public String getSlowColumn() {
+        return slowColumn;
+    }
+
+    /**
+     * @return 如"5日均线上穿10日均线"
+     */
+    public String getDescription() {
+        return fastPeriod + "日均线上穿" + slowPeriod + "日均线";
+    }
+
+    /**
+     * @return 序列中快均线的均价列（只读）
+     */
+    public double[] fast(PriceSeries series) {
+        return column(series, fastPeriod);
+    }
+
+    /**
+     * @return 序列中慢均线的均价列（只读）
+     */
+    public double[] slow(PriceSeries series) {
+        return column(series, slowPeriod);
+    }
+
+    private static double[] column(PriceSeries series, int period) {
+        return switch (period) {
+            case 5 -> series.maPrices5();
+            case 10 -> series.maPrices10();
+            default -> series.maPrices30();
+        };
+    }
+
+    /**
+     * 把表单提交的代码转换为均线组合
+     * @param code 均线组合代码，为空或未知时使用5日/10日
+     */
+    public static MaPair fromCode(String code) {
+        for (MaPair pair : values()) {
+            if (pair.code.equals(code)) {
+                return pair;
+            }
+        }
+        return MA5_MA10;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.stock.service.screen;
+
+import com.example.stock.dto.StockAnalysisDTO;
+import com.example.stock.entity.ScreenResult;
+import com.example.stock.repository.ScreenResultRepository;
+import com.example.stock.service.StockHistorySyncCompletedEvent;
+import com.example.stock.service.analysis.MarketSnapshot;
+import com.example.stock.service.analysis.MarketSnapshotService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 每日筛选结果落表服务
+ * 内置条件只依赖收盘数据，每轮同步完成后按行情快照的最新交易日、以默认参数对全部条件做一次单遍筛选，
+ * 每个命中条件按其各自的取值写一行，在一个事务中替换screen_result中该交易日的结果；早于stock.screen.materialize.retention-days天的结果被清理。
+ * 每行记录计算所基于的stock_history主键水位，分析页面以默认参数查询、且最近一次落表之后数据没有变化时直接读表，
+ * 否则（如同一交易日重新同步后尚未重新落表）现场计算；也可按日期回看历史交易日的结果
+ */
+@Slf4j
+@Service
+public class ScreenMaterializationService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ScreenResultRepository screenResultRepository;
+    private final ScreeningEngine screeningEngine;
+    private final MarketSnapshotService marketSnapshotService;
+    private final boolean enabled;
+    private final int retentionDays;
+
+    public ScreenMaterializationService(JdbcTemplate jdbcTemplate,
+                                        TransactionTemplate transactionTemplate,
+                                        ScreenResultRepository screenResultRepository,
+                                        ScreeningEngine screeningEngine,
+                                        MarketSnapshotService marketSnapshotService,
+                                        @Value("${stock.screen.materialize.enabled:true}") boolean enabled,
+                                        @Value("${stock.screen.materialize.retention-days:730}") int retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.screenResultRepository = screenResultRepository;
+        this.screeningEngine = screeningEngine;
+        this.marketSnapshotService = marketSnapshotService;
+        this.enabled = enabled;
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * 历史数据同步完成后落表最新交易日的筛选结果
+     */
+    @EventListener
+    public void onSyncCompleted(StockHistorySyncCompletedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            materialize();
+        } catch (Exception e) {
+            log.error("同步完成后落表筛选结果失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 对全部内置条件按默认参数求值，替换最新交易日的落表结果
+     * 先刷新行情快照（已被其他监听器刷新时只是一次水位查询），保证使用同步后的数据
+     * @return 落表的交易日，没有行情数据时为null
+     */
+    public LocalDate materialize() {
+        long startTime = System.currentTimeMillis();
+        MarketSnapshot snapshot = marketSnapshotService.refresh();
+        LocalDate tradeDate = snapshot.getLatestTradeDate();
+        if (tradeDate == null) {
+            log.info("行情快照为空，跳过筛选结果落表");
+            return null;
+        }
+
+        List<String> allCodes = Arrays.stream(ScreeningCondition.values()).map(ScreeningCondition::getCode).toList();
+        List<Object[]> rows = new ArrayList<>();
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        for (ScreeningEngine.Row row : screeningEngine.screenRows(allCodes, ScreeningParams.defaults())) {
+            for (ScreeningEngine.Match match : row.getMatches()) {
+                rows.add(new Object[]{Date.valueOf(tradeDate), match.getCondition().getCode(), row.getSymbol(),
+                        match.getPrice(), match.getHistoricalHigh(), match.getHistoricalLow(),
+                        match.getDropPercentage(), match.getVolatilityCount(), match.getDescription(),
+                        snapshot.getMaxRowId(), createdAt});
+            }
+        }
+
+        LocalDate retainFrom = tradeDate.minusDays(retentionDays);
+        int[] purged = new int[1];
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM screen_result WHERE trade_date = ?", Date.valueOf(tradeDate));
+            jdbcTemplate.batchUpdate("""
+                    INSERT INTO screen_result
+                        (trade_date, condition_code, symbol, current_price, historical_high, historical_low,
+                         drop_percentage, volatility_count, matched_condition, data_watermark, created_at)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                    """, rows, new int[]{Types.DATE, Types.VARCHAR, Types.VARCHAR, Types.DOUBLE, Types.DOUBLE,
+                    Types.DOUBLE, Types.DOUBLE, Types.INTEGER, Types.VARCHAR, Types.BIGINT, Types.TIMESTAMP});
+            purged[0] = jdbcTemplate.update("DELETE FROM screen_result WHERE trade_date < ?", Date.valueOf(retainFrom));
+        });
+        log.info("筛选结果落表完成: 交易日{}, 条件{}个, 结果{}行, 清理{}之前的结果{}行, 耗时{}ms",
+                tradeDate, ScreeningCondition.values().length, rows.size(), retainFrom, purged[0],
+                System.currentTimeMillis() - startTime);
+        return tradeDate;
+    }
+
+    /**
+     * @return 已落表的交易日，最近的在前
+     */
+    public List<LocalDate> findTradeDates() {
+        return screenResultRepository.findTradeDates();
+    }
+
+    /**
+     * 读取最近一次落表的结果，仅当它基于不早于watermark的数据计算时返回
+     * 同一交易日重新同步后、重新落表之前，表中仍是旧数据的结果，此时返回空，由调用方现场计算
+     * @param conditionCodes 条件代码
+     * @param watermark 当前stock_history主键水位（MarketSnapshotService.getWatermark()）
+     * @return 与ScreeningEngine.screen(conditionCodes, ScreeningParams.defaults())一致的结果；未落表或已过期时为空
+     */
+    public Optional<List<StockAnalysisDTO>> findLatest(Collection<String> conditionCodes, long watermark) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        LocalDate latest = screenResultRepository.findLatestTradeDateSince(watermark);
+        if (latest == null) {
+            return Optional.empty();
+        }
+        return Optional.of(findByDate(latest, conditionCodes));
+    }
+
+    /**
+     * 读取指定交易日的落表结果，同一股票命中多个条件时合并为一行
+     * @param tradeDate 交易日
+     * @param conditionCodes 条件代码，未知代码被忽略
+     * @return 按股票代码排序的结果
+     */
+    public List<StockAnalysisDTO> findByDate(LocalDate tradeDate, Collection<String> conditionCodes) {
+        Map<String, ScreeningCondition> conditions = new HashMap<>();
+        ScreeningCondition.fromCodes(conditionCodes).forEach(condition -> conditions.put(condition.getCode(), condition));
+        if (conditions.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // 同一股票的多个条件按条件枚举顺序合并，与一次筛选多个条件时的字段取值和描述顺序一致
+        Map<String, List<ScreenResult>> bySymbol = new LinkedHashMap<>();
+        for (ScreenResult result : screenResultRepository.findByTradeDateAndConditions(tradeDate, conditions.keySet())) {
+            bySymbol.computeIfAbsent(result.getSymbol(), symbol -> new ArrayList<>()).add(result);
+        }
+        List<StockAnalysisDTO> results = new ArrayList<>(bySymbol.size());
+        for (Map.Entry<String, List<ScreenResult>> entry : bySymbol.entrySet()) {
+            entry.getValue().sort(Comparator.comparing(result -> conditions.get(result.getConditionCode())));
+            ScreeningEngine.Row row = new ScreeningEngine.Row(entry.getKey());
+            for (ScreenResult result : entry.getValue()) {
+                row.match(conditions.get(result.getConditionCode()), result.getMatchedCondition(),
+                        result.getCurrentPrice() != null ? result.getCurrentPrice() : 0);
+                if (result.getHistoricalHigh() != null) {
+                    row.historicalHigh(result.getHistoricalHigh());
+                }
+                if (result.getHistoricalLow() != null) {
+                    row.historicalLow(result.getHistoricalLow());
+                }
+                if (result.getDropPercentage() != null) {
+                    row.dropPercentage(result.getDropPercentage());
+                }
+                if (result.getVolatilityCount() != null) {
+                    row.volatilityCount(result.getVolatilityCount());
+                }
+            }
+            results.add(row.build());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.stock.service.screen;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 股票筛选条件
+ * code与分析页面表单提交的conditions参数取值一致
+ */
+public enum ScreeningCondition {
+    /** 条件1: 低于历史最高值指定百分比以上 */
+    BELOW_HISTORICAL_HIGH("below_75_percent"),
+    /** 条件2: 最近半年高波动且当前处于低位 */
+    HIGH_VOLATILITY_LOW_PRICE("high_volatility_low_price"),
+    /** 条件3: 最近10个交易日至少8天收阳 */
+    CONTINUOUS_RISE("continuous_rise"),
+    /** 条件4: 距离年度最高价5%以内 */
+    NEAR_YEAR_HIGH("near_year_high"),
+    /** 条件5: 最近一天成交量是前30天均量的2倍以上 */
+    VOLUME_SURGE("volume_surge"),
+    /** 条件6: 5日均线上穿10日均线 */
+    MA_GOLDEN_CROSS("ma_golden_cross");
+
+    private final String code;
+
+    ScreeningCondition(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * 把表单提交的条件代码转换为条件集合，未知代码被忽略
+     * @param codes 条件代码
+     * @return 条件集合（按条件编号排序）
+     */
+    public static Set<ScreeningCondition> fromCodes(Collection<String> codes) {
+        Set<ScreeningCondition> conditions = EnumSet.noneOf(ScreeningCondition.class);
+        if (codes == null) {
+            return conditions;
+        }
+        for (ScreeningCondition condition : values()) {
+            if (codes.contains(condition.code)) {
+                conditions.add(condition);
+            }
+        }
+        return conditions;
+    }
+}
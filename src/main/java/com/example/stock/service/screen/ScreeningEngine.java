@@ -0,0 +1,541 @@
+package com.example.stock.service.screen;
+
+import com.example.stock.dto.StockAnalysisDTO;
+import com.example.stock.service.StockLatestSummaryService;
+import com.example.stock.service.analysis.MarketSnapshot;
+import com.example.stock.service.analysis.MarketSnapshotService;
+import com.example.stock.service.analysis.PriceSeries;
+import com.example.stock.service.analysis.PriceSeriesAnalyzer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 多条件单遍筛选引擎
+ * 把所选条件编译为一组按股票求值的规则，在行情快照上只遍历一次，
+ * 用fork-join按股票分片并行计算；每只股票最多输出一行，matchedConditions列出其命中的全部条件
+ * 条件1（全部历史最高价）和条件4（52周最高价）需要超出快照窗口的历史，由stock_latest_summary汇总表预先得到命中表后按股票查表
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ScreeningEngine {
+
+    private static final double LOW_PRICE_RATIO_THRESHOLD = 0.4;
+    private static final double WIDE_RANGE_PERCENT = 20;
+    private static final double NEAR_YEAR_HIGH_PCT = 5.0;
+    private static final double VOLUME_SURGE_MULTIPLIER = 2.0;
+
+    /**
+     * 单个fork-join任务直接处理的最大股票数
+     */
+    private static final int FORK_THRESHOLD = 256;
+
+    /**
+     * 多个命中条件描述之间的分隔符
+     */
+    static final String CONDITION_SEPARATOR = "；";
+
+    private final MarketSnapshotService marketSnapshotService;
+    private final StockLatestSummaryService stockLatestSummaryService;
+    private final GoldenCrossDetector goldenCrossDetector;
+
+    /**
+     * 按条件筛选股票，多个条件之间为“或”关系
+     * @param conditionCodes 条件代码（与页面表单一致），未知代码被忽略
+     * @param params 筛选参数
+     * @return 按股票代码排序的结果，每只股票一行
+     */
+    public List<StockAnalysisDTO> screen(Collection<String> conditionCodes, ScreeningParams params) {
+        List<Row> rows = screenRows(conditionCodes, params);
+        List<StockAnalysisDTO> results = new ArrayList<>(rows.size());
+        rows.forEach(row -> results.add(row.build()));
+        return results;
+    }
+
+    /**
+     * 与screen相同的单遍筛选，返回保留每个命中条件各自取值的结果行
+     * @param conditionCodes 条件代码，未知代码被忽略
+     * @param params 筛选参数
+     * @return 按股票代码排序的命中行
+     */
+    List<Row> screenRows(Collection<String> conditionCodes, ScreeningParams params) {
+        Set<ScreeningCondition> conditions = ScreeningCondition.fromCodes(conditionCodes);
+        if (conditions.isEmpty()) {
+            return new ArrayList<>();
+        }
+        long startTime = System.currentTimeMillis();
+        MarketSnapshot snapshot = marketSnapshotService.getSnapshot();
+
+        // 1. 编译条件：查表类条件先完成数据库查询，序列类条件只准备阈值和日期
+        long compileStart = System.currentTimeMillis();
+        List<SymbolRule> rules = new ArrayList<>();
+        List<LookupRule> lookups = new ArrayList<>();
+        for (ScreeningCondition condition : conditions) {
+            SymbolRule rule = compile(condition, params, snapshot);
+            rules.add(rule);
+            if (rule instanceof LookupRule lookup) {
+                lookups.add(lookup);
+            }
+        }
+        long compileTime = System.currentTimeMillis() - compileStart;
+
+        // 2. 单遍并行求值
+        long evaluateStart = System.currentTimeMillis();
+        PriceSeries[] allSeries = snapshot.getSeriesBySymbol().values().toArray(new PriceSeries[0]);
+        List<Row> results = ForkJoinPool.commonPool()
+                .invoke(new ScreenTask(allSeries, 0, allSeries.length, rules));
+
+        // 3. 查表命中但快照中没有行情的股票（如长期停牌）单独补充
+        for (String symbol : lookupOnlySymbols(lookups, snapshot)) {
+            Row row = new Row(symbol);
+            for (LookupRule lookup : lookups) {
+                lookup.applyTo(symbol, row);
+            }
+            results.add(row);
+        }
+        results.sort(Comparator.comparing(Row::getSymbol));
+        long evaluateTime = System.currentTimeMillis() - evaluateStart;
+
+        log.info("条件筛选完成: 条件{}, 股票{}只, 命中{}只, 总耗时{}ms（编译{}ms, 求值{}ms）",
+                conditions, allSeries.length, results.size(), System.currentTimeMillis() - startTime,
+                compileTime, evaluateTime);
+        return results;
+    }
+
+    private static Set<String> lookupOnlySymbols(List<LookupRule> lookups, MarketSnapshot snapshot) {
+        Set<String> symbols = new LinkedHashSet<>();
+        for (LookupRule lookup : lookups) {
+            for (String symbol : lookup.matches.keySet()) {
+                if (snapshot.getSeries(symbol) == null) {
+                    symbols.add(symbol);
+                }
+            }
+        }
+        return symbols;
+    }
+
+    private SymbolRule compile(ScreeningCondition condition, ScreeningParams params, MarketSnapshot snapshot) {
+        return switch (condition) {
+            case BELOW_HISTORICAL_HIGH -> compileBelowHistoricalHigh(params);
+            case HIGH_VOLATILITY_LOW_PRICE -> highVolatilityLowPrice(LocalDate.now().minusMonths(6).plusDays(1));
+            case CONTINUOUS_RISE -> ScreeningEngine::continuousRise;
+            case NEAR_YEAR_HIGH -> compileNearYearHigh();
+            case VOLUME_SURGE -> ScreeningEngine::volumeSurge;
+            case MA_GOLDEN_CROSS -> compileGoldenCross(params, snapshot);
+        };
+    }
+
+    // ==================== 条件1: 低于历史最高值 ====================
+
+    private SymbolRule compileBelowHistoricalHigh(ScreeningParams params) {
+        double dropThreshold = params.dropPercentageOrDefault();
+        String label = "低于历史最高值" + String.format("%.1f", dropThreshold) + "%以上";
+        List<Map<String, Object>> rows;
+        try {
+            rows = stockLatestSummaryService.findBelowHistoricalHigh(params.startDate(), dropThreshold);
+        } catch (Exception e) {
+            log.error("数据库聚合查询失败，改为在行情快照窗口内计算最高价: {}", e.getMessage());
+            return belowHighWithinSnapshot(params.startDate(), dropThreshold, label);
+        }
+
+        Map<String, double[]> matches = new HashMap<>(rows.size() * 2);
+        for (Map<String, Object> row : rows) {
+            double maxHigh = row.get("max_high") != null ? ((Number) row.get("max_high")).doubleValue() : 0.0;
+            double currentPrice = row.get("current_price") != null ? ((Number) row.get("current_price")).doubleValue() : 0.0;
+            matches.put((String) row.get("symbol"), new double[]{currentPrice, maxHigh});
+        }
+        return new LookupRule(matches, (values, row) -> {
+            double currentPrice = values[0];
+            double maxHigh = values[1];
+            row.match(ScreeningCondition.BELOW_HISTORICAL_HIGH, label, currentPrice);
+            row.historicalHigh(maxHigh);
+            row.dropPercentage((maxHigh - currentPrice) / maxHigh * 100);
+        });
+    }
+
+    /**
+     * 回退方案：只在快照回看窗口内统计最高价
+     */
+    private static SymbolRule belowHighWithinSnapshot(LocalDate startDate, double dropThreshold, String label) {
+        return (series, row) -> {
+            int from = startDate != null ? series.indexOnOrAfter(startDate) : 0;
+            int to = series.size();
+            if (from >= to) {
+                return;
+            }
+            double maxHigh = PriceSeriesAnalyzer.max(series.highs(), from, to);
+            double currentPrice = series.close(series.lastIndex());
+            double drop = (maxHigh - currentPrice) / maxHigh * 100;
+            if (drop >= dropThreshold) {
+                row.match(ScreeningCondition.BELOW_HISTORICAL_HIGH, label, currentPrice);
+                row.historicalHigh(maxHigh);
+                row.dropPercentage(drop);
+            }
+        };
+    }
+
+    // ==================== 条件2~5: 基于行情快照 ====================
+
+    private static SymbolRule highVolatilityLowPrice(LocalDate since) {
+        return (series, row) -> {
+            int from = series.indexOnOrAfter(since);
+            int to = series.size();
+            if (to - from < 30) {
+                return;
+            }
+            int volatilityCount = PriceSeriesAnalyzer.countWideRangeDays(series, from, to, WIDE_RANGE_PERCENT);
+            if (volatilityCount < 3) {
+                return;
+            }
+            double recentHigh = PriceSeriesAnalyzer.max(series.highs(), from, to);
+            double recentLow = PriceSeriesAnalyzer.min(series.lows(), from, to);
+            double currentPrice = series.close(series.lastIndex());
+            if (currentPrice <= recentLow + (recentHigh - recentLow) * LOW_PRICE_RATIO_THRESHOLD) {
+                row.match(ScreeningCondition.HIGH_VOLATILITY_LOW_PRICE,
+                        "高波动且处于低位（半年内波动" + volatilityCount + "次）", currentPrice);
+                row.historicalHigh(recentHigh);
+                row.historicalLow(recentLow);
+                row.volatilityCount(volatilityCount);
+            }
+        };
+    }
+
+    private static void continuousRise(PriceSeries series, Row row) {
+        int to = series.size();
+        if (to < 10) {
+            return;
+        }
+        int riseDays = PriceSeriesAnalyzer.countRiseDays(series, to - 10, to);
+        if (riseDays >= 8) {
+            row.match(ScreeningCondition.CONTINUOUS_RISE,
+                    "连续上涨（10天中" + riseDays + "天上涨）", series.close(series.lastIndex()));
+        }
+    }
+
+    /**
+     * 条件4优先读取汇总表中的52周最高价，汇总表不可用时在快照上计算
+     */
+    private SymbolRule compileNearYearHigh() {
+        List<Map<String, Object>> rows;
+        try {
+            rows = stockLatestSummaryService.findNearYearHigh(NEAR_YEAR_HIGH_PCT);
+        } catch (Exception e) {
+            log.error("读取最新行情汇总失败，改为在行情快照上计算年度最高价: {}", e.getMessage());
+            rows = null;
+        }
+        if (rows == null) {
+            return nearYearHigh(LocalDate.now().minusYears(1).plusDays(1));
+        }
+        Map<String, double[]> matches = new HashMap<>(rows.size() * 2);
+        for (Map<String, Object> row : rows) {
+            matches.put((String) row.get("symbol"), new double[]{
+                    ((Number) row.get("current_price")).doubleValue(), ((Number) row.get("year_high")).doubleValue()});
+        }
+        return new LookupRule(matches, (values, row) -> {
+            double currentPrice = values[0];
+            double yearHigh = values[1];
+            double difference = (yearHigh - currentPrice) / yearHigh * 100;
+            row.match(ScreeningCondition.NEAR_YEAR_HIGH, nearYearHighLabel(difference), currentPrice);
+            row.historicalHigh(yearHigh);
+            row.dropPercentage(difference);
+        });
+    }
+
+    private static String nearYearHighLabel(double difference) {
+        return "接近年度最高点（相差" + String.format("%.2f", difference) + "%）";
+    }
+
+    private static SymbolRule nearYearHigh(LocalDate since) {
+        return (series, row) -> {
+            int from = series.indexOnOrAfter(since);
+            int to = series.size();
+            if (from >= to) {
+                return;
+            }
+            double yearHigh = PriceSeriesAnalyzer.max(series.highs(), from, to);
+            if (yearHigh == 0) {
+                return;
+            }
+            double currentPrice = series.close(series.lastIndex());
+            double difference = (yearHigh - currentPrice) / yearHigh * 100;
+            if (difference <= NEAR_YEAR_HIGH_PCT && difference >= 0) {
+                row.match(ScreeningCondition.NEAR_YEAR_HIGH, nearYearHighLabel(difference), currentPrice);
+                row.historicalHigh(yearHigh);
+                row.dropPercentage(difference);
+            }
+        };
+    }
+
+    private static void volumeSurge(PriceSeries series, Row row) {
+        if (series.size() < 31) {
+            return;
+        }
+        int last = series.lastIndex();
+        long latestVolume = series.volume(last);
+        double avgVolume = PriceSeriesAnalyzer.average(series.volumes(), last - 30, last);
+        if (avgVolume > 0 && latestVolume > avgVolume * VOLUME_SURGE_MULTIPLIER) {
+            row.match(ScreeningCondition.VOLUME_SURGE,
+                    "成交量激增（是平均量的" + String.format("%.2f", latestVolume / avgVolume) + "倍）", series.close(last));
+        }
+    }
+
+    // ==================== 条件6: 均线金叉 ====================
+
+    private SymbolRule compileGoldenCross(ScreeningParams params, MarketSnapshot snapshot) {
+        MaPair pair = params.maPairOrDefault();
+        GoldenCrossDetector.DateRange range = GoldenCrossDetector.DateRange.resolve(
+                params.goldenCrossDate(), params.goldenCrossEndDate(), snapshot);
+        if (range == null) {
+            return (series, row) -> { };
+        }
+        boolean singleDay = range.from().equals(range.to());
+        if (GoldenCrossDetector.canUseSnapshot(snapshot, range.from())) {
+            int fromDay = (int) range.from().toEpochDay();
+            int toDay = (int) range.to().toEpochDay();
+            return (series, row) -> {
+                int i = GoldenCrossDetector.lastCrossIndex(series, pair, fromDay, toDay);
+                if (i >= 0) {
+                    row.match(ScreeningCondition.MA_GOLDEN_CROSS,
+                            goldenCrossLabel(pair, singleDay ? null : series.day(i)), series.close(i));
+                }
+            };
+        }
+        // 区间早于快照窗口时用一条集合查询在数据库中检测
+        Map<String, double[]> matches = new HashMap<>();
+        List<GoldenCross> crosses = goldenCrossDetector.queryDatabase(pair, range.from(), range.to());
+        for (GoldenCross cross : GoldenCrossDetector.latestBySymbol(crosses).values()) {
+            matches.put(cross.symbol(), new double[]{cross.close(), cross.tradeDate().toEpochDay()});
+        }
+        return new LookupRule(matches, (values, row) -> row.match(ScreeningCondition.MA_GOLDEN_CROSS,
+                goldenCrossLabel(pair, singleDay ? null : LocalDate.ofEpochDay((long) values[1])), values[0]));
+    }
+
+    private static String goldenCrossLabel(MaPair pair, LocalDate crossDate) {
+        return "均线金叉（" + pair.getDescription() + (crossDate != null ? "，" + crossDate : "") + "）";
+    }
+
+    // ==================== 规则与结果累积 ====================
+
+    /**
+     * 单只股票上的一条筛选规则，命中时写入结果行
+     */
+    @FunctionalInterface
+    interface SymbolRule {
+        void evaluate(PriceSeries series, Row row);
+    }
+
+    /**
+     * 预先查询好命中表的规则，按股票代码查表
+     */
+    private static final class LookupRule implements SymbolRule {
+        private final Map<String, double[]> matches;
+        private final LookupAction action;
+
+        LookupRule(Map<String, double[]> matches, LookupAction action) {
+            this.matches = matches;
+            this.action = action;
+        }
+
+        @Override
+        public void evaluate(PriceSeries series, Row row) {
+            applyTo(series.getSymbol(), row);
+        }
+
+        void applyTo(String symbol, Row row) {
+            double[] values = matches.get(symbol);
+            if (values != null) {
+                action.apply(values, row);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface LookupAction {
+        void apply(double[] values, Row row);
+    }
+
+    /**
+     * 单只股票的结果累积器
+     * 每个命中条件保留各自的价格、最高/最低价等取值；合并为一行时，这些字段取最先命中且有值的条件
+     */
+    static final class Row {
+        private final String symbol;
+        private final List<Match> matches = new ArrayList<>(2);
+
+        Row(String symbol) {
+            this.symbol = symbol;
+        }
+
+        String getSymbol() {
+            return symbol;
+        }
+
+        /**
+         * 记录一个命中条件，随后的historicalHigh等取值写入该条件
+         */
+        void match(ScreeningCondition condition, String description, double price) {
+            matches.add(new Match(condition, description, price));
+        }
+
+        void historicalHigh(double value) {
+            lastMatch().historicalHigh = value;
+        }
+
+        void historicalLow(double value) {
+            lastMatch().historicalLow = value;
+        }
+
+        void dropPercentage(double value) {
+            lastMatch().dropPercentage = value;
+        }
+
+        void volatilityCount(int value) {
+            lastMatch().volatilityCount = value;
+        }
+
+        private Match lastMatch() {
+            return matches.get(matches.size() - 1);
+        }
+
+        boolean isMatched() {
+            return !matches.isEmpty();
+        }
+
+        /**
+         * @return 命中的条件及各自的取值，按命中顺序（即条件枚举顺序）
+         */
+        List<Match> getMatches() {
+            return matches;
+        }
+
+        StockAnalysisDTO build() {
+            List<String> descriptions = new ArrayList<>(matches.size());
+            Double historicalHigh = null;
+            Double historicalLow = null;
+            Double dropPercentage = null;
+            Integer volatilityCount = null;
+            for (Match match : matches) {
+                descriptions.add(match.description);
+                historicalHigh = historicalHigh != null ? historicalHigh : match.historicalHigh;
+                historicalLow = historicalLow != null ? historicalLow : match.historicalLow;
+                dropPercentage = dropPercentage != null ? dropPercentage : match.dropPercentage;
+                volatilityCount = volatilityCount != null ? volatilityCount : match.volatilityCount;
+            }
+            return StockAnalysisDTO.builder()
+                    .symbol(symbol)
+                    .currentPrice(matches.isEmpty() ? null : matches.get(0).price)
+                    .historicalHigh(historicalHigh)
+                    .historicalLow(historicalLow)
+                    .dropPercentage(dropPercentage)
+                    .volatilityCount(volatilityCount)
+                    .matchedCondition(String.join(CONDITION_SEPARATOR, descriptions))
+                    .matchedConditions(descriptions)
+                    .build();
+        }
+    }
+
+    /**
+     * 一个命中条件及其取值
+     */
+    static final class Match {
+        private final ScreeningCondition condition;
+        private final String description;
+        private final double price;
+        private Double historicalHigh;
+        private Double historicalLow;
+        private Double dropPercentage;
+        private Integer volatilityCount;
+
+        Match(ScreeningCondition condition, String description, double price) {
+            this.condition = condition;
+            this.description = description;
+            this.price = price;
+        }
+
+        ScreeningCondition getCondition() {
+            return condition;
+        }
+
+        String getDescription() {
+            return description;
+        }
+
+        double getPrice() {
+            return price;
+        }
+
+        Double getHistoricalHigh() {
+            return historicalHigh;
+        }
+
+        Double getHistoricalLow() {
+            return historicalLow;
+        }
+
+        Double getDropPercentage() {
+            return dropPercentage;
+        }
+
+        Integer getVolatilityCount() {
+            return volatilityCount;
+        }
+    }
+
+    /**
+     * 按股票区间拆分的fork-join筛选任务
+     */
+    private static final class ScreenTask extends RecursiveTask<List<Row>> {
+        private final PriceSeries[] series;
+        private final int from;
+        private final int to;
+        private final List<SymbolRule> rules;
+
+        ScreenTask(PriceSeries[] series, int from, int to, List<SymbolRule> rules) {
+            this.series = series;
+            this.from = from;
+            this.to = to;
+            this.rules = rules;
+        }
+
+        @Override
+        protected List<Row> compute() {
+            if (to - from <= FORK_THRESHOLD) {
+                List<Row> results = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    PriceSeries current = series[i];
+                    if (current.isEmpty()) {
+                        continue;
+                    }
+                    Row row = new Row(current.getSymbol());
+                    for (SymbolRule rule : rules) {
+                        rule.evaluate(current, row);
+                    }
+                    if (row.isMatched()) {
+                        results.add(row);
+                    }
+                }
+                return results;
+            }
+            int mid = (from + to) >>> 1;
+            ScreenTask left = new ScreenTask(series, from, mid, rules);
+            left.fork();
+            List<Row> right = new ScreenTask(series, mid, to, rules).compute();
+            List<Row> results = left.join();
+            results.addAll(right);
+            return results;
+        }
+    }
+}
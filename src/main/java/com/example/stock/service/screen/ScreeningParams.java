@@ -0,0 +1,37 @@
+package com.example.stock.service.screen;
+
+import java.time.LocalDate;
+
+/**
+ * 筛选参数
+ * @param startDate 条件1统计历史最高价的开始日期，为null时使用全部历史
+ * @param dropPercentage 条件1的跌幅阈值（百分比），为null时使用默认值25%
+ * @param goldenCrossDate 条件6的金叉开始日期，为null时使用行情快照中的最新交易日
+ * @param goldenCrossEndDate 条件6的金叉结束日期，为null时与开始日期相同（只检测一天）
+ * @param maPair 条件6的均线组合，为null时使用5日/10日
+ */
+public record ScreeningParams(LocalDate startDate, Double dropPercentage, LocalDate goldenCrossDate,
+                              LocalDate goldenCrossEndDate, MaPair maPair) {
+
+    public static final double DEFAULT_DROP_PERCENTAGE = 25.0;
+
+    public static ScreeningParams defaults() {
+        return new ScreeningParams(null, null, null, null, null);
+    }
+
+    public double dropPercentageOrDefault() {
+        return dropPercentage != null ? dropPercentage : DEFAULT_DROP_PERCENTAGE;
+    }
+
+    public MaPair maPairOrDefault() {
+        return maPair != null ? maPair : MaPair.MA5_MA10;
+    }
+
+    /**
+     * @return 是否等价于默认参数（每日落表的screen_result即按默认参数计算）
+     */
+    public boolean isDefault() {
+        return startDate == null && dropPercentageOrDefault() == DEFAULT_DROP_PERCENTAGE
+                && goldenCrossDate == null && goldenCrossEndDate == null && maPairOrDefault() == MaPair.MA5_MA10;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.stock.service.screen;
+
+import com.example.stock.dto.StockAnalysisDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 筛选结果缓存
+ * 行情数据每天只在同步后变化，同一组条件和参数在两次同步之间的结果不变。
+ * 按 (条件集合, 筛选参数, 数据版本, 计算日期) 缓存结果，条目数超过stock.screen.cache.max-entries时淘汰最久未使用的；
+ * 数据版本取stock_history主键水位（与行情快照的增量刷新水位一致），计算日期用于依赖当天日期的条件（如近6个月区间）。
+ * 同步完成后invalidateAll()清空缓存并返回最近使用的键，由调用方按新数据预热
+ */
+@Slf4j
+@Component
+public class ScreeningResultCache {
+
+    /**
+     * 缓存键
+     * @param conditions 筛选条件
+     * @param params 筛选参数
+     * @param dataVersion 数据版本（stock_history主键水位）
+     * @param asOf 计算日期
+     */
+    public record Key(Set<ScreeningCondition> conditions, ScreeningParams params, long dataVersion, LocalDate asOf) {
+        public Key {
+            conditions = Set.copyOf(conditions);
+        }
+    }
+
+    private final int maxEntries;
+    private final int prewarmEntries;
+    private final LinkedHashMap<Key, List<StockAnalysisDTO>> entries;
+
+    /**
+     * 每次invalidateAll()加一；计算期间缓存被清空时，计算结果不再写入
+     */
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ScreeningResultCache(@Value("${stock.screen.cache.max-entries:64}") int maxEntries,
+                                @Value("${stock.screen.cache.prewarm-entries:8}") int prewarmEntries) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.prewarmEntries = Math.max(0, prewarmEntries);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<StockAnalysisDTO>> eldest) {
+                if (size() > ScreeningResultCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 取缓存结果，未命中时计算并写入
+     * 计算在锁外进行，并发的相同请求可能各自计算一次
+     * @param key 缓存键
+     * @param loader 未命中时的计算
+     * @return 命中时为缓存结果的副本，未命中时为loader的结果；修改返回的列表不影响缓存
+     */
+    public List<StockAnalysisDTO> get(Key key, Supplier<List<StockAnalysisDTO>> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            List<StockAnalysisDTO> cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return new ArrayList<>(cached);
+            }
+            misses.increment();
+            loadGeneration = generation;
+        }
+        List<StockAnalysisDTO> results = loader.get();
+        synchronized (this) {
+            if (maxEntries > 0 && loadGeneration == generation) {
+                entries.put(key, Collections.unmodifiableList(new ArrayList<>(results)));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 清空缓存
+     * @return 最近使用的至多prewarm-entries个键（最近使用的在前），供按新数据预热
+     */
+    public synchronized List<Key> invalidateAll() {
+        List<Key> recent = new ArrayList<>(entries.keySet());
+        Collections.reverse(recent);
+        entries.clear();
+        generation++;
+        return new ArrayList<>(recent.subList(0, Math.min(prewarmEntries, recent.size())));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return 命中率，无请求时为0
+     */
+    public double getHitRatio() {
+        long total = hits.sum() + misses.sum();
+        return total == 0 ? 0 : (double) hits.sum() / total;
+    }
+
+    /**
+     * 输出一行缓存指标日志
+     */
+    public void logSummary() {
+        log.info("筛选结果缓存: 命中{}次, 未命中{}次, 命中率{}%, 淘汰{}次, 当前{}条",
+                getHitCount(), getMissCount(), String.format("%.1f", getHitRatio() * 100), getEvictionCount(), size());
+    }
+}
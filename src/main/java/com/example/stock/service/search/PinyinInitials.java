@@ -0,0 +1,79 @@
+package com.example.stock.service.search;
+
+import net.sourceforge.pinyin4j.PinyinHelper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 股票名称拼音首字母
+ * 汉字取拼音首字母，字母和数字原样保留（转小写），其余符号（如*ST中的*）忽略；
+ * 多音字（如"银行"的"行"）生成全部读音组合，组合数超过上限时只保留前若干个
+ */
+final class PinyinInitials {
+
+    /**
+     * 单个名称最多生成的首字母组合数
+     */
+    static final int MAX_VARIANTS = 16;
+
+    private PinyinInitials() {
+    }
+
+    /**
+     * @param name 股票名称（如"浦发银行"）
+     * @return 首字母组合（如 [pfyh, pfyx]），名称为空时为空列表
+     */
+    static List<String> of(String name) {
+        if (name == null || name.isBlank()) {
+            return List.of();
+        }
+        List<StringBuilder> variants = new ArrayList<>();
+        variants.add(new StringBuilder());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            Set<Character> initials = initialsOf(c);
+            if (initials.isEmpty()) {
+                continue;
+            }
+            List<StringBuilder> next = new ArrayList<>(variants.size() * initials.size());
+            for (StringBuilder variant : variants) {
+                for (char initial : initials) {
+                    if (next.size() < MAX_VARIANTS) {
+                        next.add(new StringBuilder(variant).append(initial));
+                    }
+                }
+            }
+            variants = next;
+        }
+        List<String> result = new ArrayList<>(variants.size());
+        for (StringBuilder variant : variants) {
+            if (!variant.isEmpty()) {
+                result.add(variant.toString());
+            }
+        }
+        return result;
+    }
+
+    private static Set<Character> initialsOf(char c) {
+        Set<Character> initials = new LinkedHashSet<>(2);
+        if (c < 128) {
+            if (Character.isLetterOrDigit(c)) {
+                initials.add(Character.toLowerCase(c));
+            }
+            return initials;
+        }
+        String[] readings = PinyinHelper.toHanyuPinyinStringArray(c);
+        if (readings != null) {
+            for (String reading : readings) {
+                if (!reading.isEmpty()) {
+                    initials.add(reading.toLowerCase(Locale.ROOT).charAt(0));
+                }
+            }
+        }
+        return initials;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.stock.service.search;
+
+/**
+ * 股票检索结果
+ * @param symbol 股票代码（如sh600000）
+ * @param code 数字代码（如600000）
+ * @param name 股票名称，注册表中没有名称时为null
+ */
+public record SymbolMatch(String symbol, String code, String name) {
+}
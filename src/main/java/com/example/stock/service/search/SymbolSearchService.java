@@ -0,0 +1,163 @@
+package com.example.stock.service.search;
+
+import com.example.stock.entity.StockSymbol;
+import com.example.stock.repository.StockSymbolRepository;
+import com.example.stock.service.StockHistorySyncCompletedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 股票代码/名称检索服务
+ * 用内存前缀树把用户输入（完整或部分代码、数字代码、名称、拼音首字母）解析为确切的股票代码，
+ * 之后的行情和历史数据查询都是按代码的等值/IN查询，可以走 (symbol, trade_date) 索引，不再使用 LIKE '%x%' 全表扫描。
+ * 数据来自 stock_symbol 代码注册表，应用启动和每轮历史数据同步完成后重建
+ */
+@Slf4j
+@Service
+public class SymbolSearchService {
+
+    /**
+     * 一次解析最多返回的股票数，避免过短的输入展开成过长的IN列表
+     */
+    public static final int MAX_MATCHES = 500;
+
+    /**
+     * 完整股票代码，注册表中没有时也原样作为查询条件
+     */
+    private static final Pattern FULL_SYMBOL = Pattern.compile("(sh|sz|bj)\\d{6}");
+
+    private final StockSymbolRepository stockSymbolRepository;
+
+    private volatile Index index;
+
+    public SymbolSearchService(StockSymbolRepository stockSymbolRepository) {
+        this.stockSymbolRepository = stockSymbolRepository;
+    }
+
+    /**
+     * 应用启动后构建检索索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("构建股票检索索引失败，将在首次检索时重试: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 历史数据同步完成后代码注册表可能已更新，重建索引
+     */
+    @EventListener
+    public void onSyncCompleted(StockHistorySyncCompletedEvent event) {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("同步完成后重建股票检索索引失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 从代码注册表重建检索索引
+     * @return 索引中的股票数
+     */
+    public int rebuild() {
+        long startTime = System.currentTimeMillis();
+        List<StockSymbol> symbols = stockSymbolRepository.findAll();
+        index = Index.build(symbols);
+        log.info("股票检索索引构建完成: 股票{}只, 耗时{}ms", symbols.size(), System.currentTimeMillis() - startTime);
+        return symbols.size();
+    }
+
+    /**
+     * 把用户输入解析为确切的股票代码
+     * @param input 代码、数字代码、名称或拼音首字母的前缀（不区分大小写）
+     * @return 按代码升序排列的股票代码，最多 MAX_MATCHES 个；输入为空或没有命中时为空列表
+     */
+    public List<String> resolve(String input) {
+        String key = normalize(input);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        List<String> matches = getIndex().trie.find(key);
+        if (matches.isEmpty() && FULL_SYMBOL.matcher(key).matches()) {
+            return List.of(key);
+        }
+        if (matches.size() > MAX_MATCHES) {
+            log.info("股票检索输入'{}'命中{}只，只取前{}只", input, matches.size(), MAX_MATCHES);
+            return matches.subList(0, MAX_MATCHES);
+        }
+        return matches;
+    }
+
+    /**
+     * 检索建议
+     * @param input 输入前缀
+     * @param limit 最多返回的条数
+     * @return 命中的股票（代码、数字代码、名称）
+     */
+    public List<SymbolMatch> suggest(String input, int limit) {
+        Index current = getIndex();
+        List<String> symbols = resolve(input);
+        List<SymbolMatch> matches = new ArrayList<>(Math.min(limit, symbols.size()));
+        for (String symbol : symbols) {
+            if (matches.size() >= limit) {
+                break;
+            }
+            StockSymbol stockSymbol = current.bySymbol.get(symbol);
+            matches.add(stockSymbol != null
+                    ? new SymbolMatch(symbol, stockSymbol.getCode(), stockSymbol.getName())
+                    : new SymbolMatch(symbol, symbol.substring(2), null));
+        }
+        return matches;
+    }
+
+    private Index getIndex() {
+        Index current = index;
+        if (current == null) {
+            synchronized (this) {
+                if (index == null) {
+                    rebuild();
+                }
+                current = index;
+            }
+        }
+        return current;
+    }
+
+    static String normalize(String input) {
+        return input == null ? "" : input.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 不可变的检索索引，重建时整体替换
+     */
+    private record Index(SymbolTrie trie, Map<String, StockSymbol> bySymbol) {
+
+        static Index build(List<StockSymbol> symbols) {
+            SymbolTrie trie = new SymbolTrie();
+            Map<String, StockSymbol> bySymbol = new HashMap<>(symbols.size() * 2);
+            for (StockSymbol stockSymbol : symbols) {
+                String symbol = stockSymbol.getSymbol();
+                bySymbol.put(symbol, stockSymbol);
+                trie.add(normalize(symbol), symbol);
+                trie.add(normalize(stockSymbol.getCode()), symbol);
+                trie.add(normalize(stockSymbol.getName()), symbol);
+                for (String initials : PinyinInitials.of(stockSymbol.getName())) {
+                    trie.add(initials, symbol);
+                }
+            }
+            return new Index(trie.freeze(), bySymbol);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.stock.service.search;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 股票检索前缀树
+ * 每个键（代码、数字代码、名称、拼音首字母）逐字符插入，节点上保存以该前缀开头的全部股票代码；
+ * 构建完成后冻结为有序数组，前缀查询只需沿输入走一遍，耗时与股票总数无关。
+ * 冻结后只读，可被多个线程同时查询
+ */
+final class SymbolTrie {
+
+    private static final String[] EMPTY = new String[0];
+
+    private final Node root = new Node();
+    private boolean frozen;
+
+    /**
+     * 插入一个检索键
+     * @param key 检索键（调用方负责统一大小写）
+     * @param symbol 命中该键时返回的股票代码
+     */
+    void add(String key, String symbol) {
+        if (frozen) {
+            throw new IllegalStateException("前缀树已冻结");
+        }
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+            node.building.add(symbol);
+        }
+    }
+
+    /**
+     * 把各节点的代码集合转为有序数组并释放构建期结构
+     */
+    SymbolTrie freeze() {
+        freeze(root);
+        frozen = true;
+        return this;
+    }
+
+    private static void freeze(Node node) {
+        node.symbols = node.building == null ? EMPTY : node.building.toArray(EMPTY);
+        node.building = null;
+        for (Node child : node.children.values()) {
+            freeze(child);
+        }
+    }
+
+    /**
+     * 前缀查询
+     * @param prefix 输入前缀
+     * @return 按代码升序排列的命中股票（只读），没有命中时为空列表
+     */
+    List<String> find(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return List.of();
+        }
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        return node == null ? List.of() : Collections.unmodifiableList(Arrays.asList(node.symbols));
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private TreeSet<String> building = new TreeSet<>();
+        private String[] symbols = EMPTY;
+    }
+}
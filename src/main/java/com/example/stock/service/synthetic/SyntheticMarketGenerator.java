@@ -0,0 +1,250 @@
+package com.example.stock.service.synthetic;
+
+import com.example.stock.entity.StockHistory;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 确定性合成行情生成器
+ * 每只股票使用由种子和序号派生的独立随机源，单只股票的数据与生成顺序、并发方式无关。
+ * 价格为带漂移的随机游走，波动率在平静/正常/剧烈三种状态间按马尔可夫链切换；
+ * 包含开盘跳空、涨跌停（含一字板）、停牌（停牌日无K线，复牌时大幅跳空）、上市日期错开和ST股的5%涨跌幅限制。
+ * 均价/均量按各股票自身的K线（不含停牌日）滚动计算，与新浪接口返回的口径一致
+ */
+public final class SyntheticMarketGenerator {
+
+    /**
+     * 沪市主板、深市主板、创业板、科创板各2500只
+     */
+    static final int MAX_SYMBOLS = 10_000;
+
+    private static final int SYMBOLS_PER_BOARD = MAX_SYMBOLS / 4;
+
+    /**
+     * 平静、正常、剧烈三种状态下的日波动率
+     */
+    private static final double[] REGIME_VOLATILITY = {0.012, 0.022, 0.045};
+
+    private static final double REGIME_SWITCH_PROBABILITY = 0.02;
+    private static final double SUSPENSION_PROBABILITY = 0.002;
+    private static final double GAP_PROBABILITY = 0.03;
+    private static final double FAT_TAIL_PROBABILITY = 0.01;
+    private static final double ONE_PRICE_LIMIT_PROBABILITY = 0.3;
+    private static final double ST_PROBABILITY = 0.05;
+    private static final double LISTED_AT_START_PROBABILITY = 0.7;
+
+    private final SyntheticMarketSpec spec;
+    private final List<LocalDate> tradingDays;
+
+    public SyntheticMarketGenerator(SyntheticMarketSpec spec) {
+        this.spec = spec;
+        this.tradingDays = Collections.unmodifiableList(tradingDays(spec.startDate(), spec.endDate()));
+    }
+
+    public SyntheticMarketSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * @return 全市场交易日历（工作日，去掉元旦、劳动节和国庆假期）
+     */
+    public List<LocalDate> getTradingDays() {
+        return tradingDays;
+    }
+
+    /**
+     * 按序号生成股票代码，四个板块轮流分配
+     * @param index 序号（从0开始）
+     * @return 股票symbol（如sh600000、sz000001、sz300001、sh688001）
+     */
+    public static String symbol(int index) {
+        if (index < 0 || index >= MAX_SYMBOLS) {
+            throw new IllegalArgumentException("股票序号超出范围: " + index);
+        }
+        int offset = index / 4;
+        return switch (index % 4) {
+            case 0 -> String.format("sh%06d", 600000 + offset);
+            case 1 -> String.format("sz%06d", 1 + offset);
+            case 2 -> String.format("sz%06d", 300001 + offset);
+            default -> String.format("sh%06d", 688001 + offset);
+        };
+    }
+
+    /**
+     * 生成单只股票的全部K线
+     * @param index 序号（从0开始，小于规格中的股票数量）
+     * @return 按日期升序排列的K线，均价均量已填充，技术分析字段为空
+     */
+    public List<StockHistory> generate(int index) {
+        if (index >= spec.symbolCount()) {
+            throw new IllegalArgumentException("股票序号超出规格: " + index);
+        }
+        Random random = new Random(symbolSeed(spec.seed(), index));
+        String symbol = symbol(index);
+        boolean growthBoard = index % 4 >= 2;
+        double limit = growthBoard ? 0.20 : (random.nextDouble() < ST_PROBABILITY ? 0.05 : 0.10);
+        int days = tradingDays.size();
+        int listing = random.nextDouble() < LISTED_AT_START_PROBABILITY ? 0 : random.nextInt(Math.max(1, days * 9 / 10));
+        double drift = random.nextGaussian() * 0.0004;
+        double price = round(Math.min(300, Math.max(2, Math.exp(Math.log(12) + random.nextGaussian() * 0.7))));
+        double baseVolume = Math.exp(Math.log(3_000_000) + random.nextGaussian() * 0.8);
+
+        List<StockHistory> histories = new ArrayList<>(days - listing);
+        MovingAverages averages = new MovingAverages();
+        int regime = 1;
+        int suspendedUntil = -1;
+        boolean resumed = false;
+        for (int d = listing; d < days; d++) {
+            if (random.nextDouble() < REGIME_SWITCH_PROBABILITY) {
+                regime = (regime + 1 + random.nextInt(2)) % REGIME_VOLATILITY.length;
+            }
+            if (d < suspendedUntil) {
+                continue;
+            }
+            if (d > listing && random.nextDouble() < SUSPENSION_PROBABILITY) {
+                suspendedUntil = d + suspensionDays(random);
+                resumed = true;
+                continue;
+            }
+
+            double volatility = REGIME_VOLATILITY[regime];
+            double limitUp = round(price * (1 + limit));
+            double limitDown = Math.max(0.01, round(price * (1 - limit)));
+
+            double gapSigma = resumed ? volatility * 3
+                    : random.nextDouble() < GAP_PROBABILITY ? volatility * 2 : volatility * 0.3;
+            double open = clamp(round(price * (1 + random.nextGaussian() * gapSigma)), limitDown, limitUp);
+            double shock = random.nextGaussian() * (random.nextDouble() < FAT_TAIL_PROBABILITY ? 3 : 1);
+            double close = clamp(round(price * (1 + drift + volatility * shock)), limitDown, limitUp);
+
+            double high;
+            double low;
+            boolean onePrice = (close == limitUp || close == limitDown)
+                    && random.nextDouble() < ONE_PRICE_LIMIT_PROBABILITY;
+            if (onePrice) {
+                open = close;
+                high = close;
+                low = close;
+            } else {
+                double bodyHigh = Math.max(open, close);
+                double bodyLow = Math.min(open, close);
+                high = clamp(round(bodyHigh * (1 + Math.abs(random.nextGaussian()) * volatility * 0.5)),
+                        bodyHigh, limitUp);
+                low = clamp(round(bodyLow * (1 - Math.abs(random.nextGaussian()) * volatility * 0.5)),
+                        limitDown, bodyLow);
+            }
+
+            double move = Math.abs(close / price - 1);
+            double volume = baseVolume * Math.exp(0.5 * random.nextGaussian()) * (1 + 15 * move);
+            if (onePrice) {
+                volume *= 0.15;
+            }
+
+            StockHistory history = new StockHistory();
+            history.setSymbol(symbol);
+            history.setCode(symbol.substring(2));
+            history.setDay(tradingDays.get(d));
+            history.setOpen(open);
+            history.setHigh(high);
+            history.setLow(low);
+            history.setClose(close);
+            history.setVolume(Math.max(100, Math.round(volume / 100) * 100));
+            averages.push(history);
+            histories.add(history);
+
+            price = close;
+            resumed = false;
+        }
+        return histories;
+    }
+
+    /**
+     * 由全局种子和股票序号派生互不相关的单股种子
+     */
+    static long symbolSeed(long seed, int index) {
+        long z = seed + 0x9E3779B97F4A7C15L * (index + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 停牌天数：多数为数日的短期停牌，少数为数月的重大事项停牌
+     */
+    private static int suspensionDays(Random random) {
+        return random.nextDouble() < 0.8 ? 1 + random.nextInt(5) : 5 + random.nextInt(115);
+    }
+
+    static List<LocalDate> tradingDays(LocalDate from, LocalDate to) {
+        List<LocalDate> days = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            if (day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY
+                    && !isHoliday(day)) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+
+    private static boolean isHoliday(LocalDate day) {
+        return (day.getMonth() == Month.JANUARY && day.getDayOfMonth() == 1)
+                || (day.getMonth() == Month.MAY && day.getDayOfMonth() == 1)
+                || (day.getMonth() == Month.OCTOBER && day.getDayOfMonth() <= 7);
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * 5/10/30日滚动均价与均量，K线不足周期时为0
+     */
+    private static final class MovingAverages {
+        private static final int[] PERIODS = {5, 10, 30};
+
+        private final double[] closes = new double[30];
+        private final long[] volumes = new long[30];
+        private final double[] closeSums = new double[PERIODS.length];
+        private final long[] volumeSums = new long[PERIODS.length];
+        private int count;
+
+        void push(StockHistory history) {
+            double[] maPrices = new double[PERIODS.length];
+            long[] maVolumes = new long[PERIODS.length];
+            for (int p = 0; p < PERIODS.length; p++) {
+                int period = PERIODS[p];
+                closeSums[p] += history.getClose();
+                volumeSums[p] += history.getVolume();
+                if (count >= period) {
+                    int expired = (count - period) % closes.length;
+                    closeSums[p] -= closes[expired];
+                    volumeSums[p] -= volumes[expired];
+                }
+                if (count >= period - 1) {
+                    maPrices[p] = Math.round(closeSums[p] / period * 1000) / 1000.0;
+                    maVolumes[p] = volumeSums[p] / period;
+                }
+            }
+            closes[count % closes.length] = history.getClose();
+            volumes[count % volumes.length] = history.getVolume();
+            count++;
+
+            history.setMaPrice5(maPrices[0]);
+            history.setMaPrice10(maPrices[1]);
+            history.setMaPrice30(maPrices[2]);
+            history.setMaVolume5(maVolumes[0]);
+            history.setMaVolume10(maVolumes[1]);
+            history.setMaVolume30(maVolumes[2]);
+        }
+    }
+}
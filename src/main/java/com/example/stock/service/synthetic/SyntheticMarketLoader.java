@@ -0,0 +1,145 @@
+package com.example.stock.service.synthetic;
+
+import com.example.stock.entity.StockHistory;
+import com.example.stock.entity.StockIndicatorState;
+import com.example.stock.repository.StockHistoryBulkLoader;
+import com.example.stock.repository.StockHistoryRepository;
+import com.example.stock.repository.StockIndicatorStateRepository;
+import com.example.stock.service.KLineAnalysisService;
+import com.example.stock.service.KLineIndicatorState;
+import com.example.stock.service.StockHistorySyncCompletedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 合成行情装载服务
+ * 生成的K线与真实全量同步走同一条路径：逐根增量技术分析后经StockHistoryBulkLoader写入（同时维护最新行情汇总），
+ * 并保存每只股票的指标状态，因此装载后的库可以直接用于筛选、增量同步等功能的离线压测。
+ * 切换stock.history.bulk-load.enabled分别装载一次，即可对比LOAD DATA与批量插入两条路径的全市场回补耗时。
+ * 配置stock.synthetic.load-on-startup=true时，应用启动后若stock_history为空则按配置规格自动装载
+ */
+@Slf4j
+@Service
+public class SyntheticMarketLoader {
+
+    /**
+     * 跨股票累积到此行数后写入一次
+     */
+    private static final int INSERT_BATCH_ROWS = 20_000;
+
+    private static final int PROGRESS_LOG_INTERVAL = 100;
+
+    private final StockHistoryRepository stockHistoryRepository;
+    private final StockHistoryBulkLoader bulkLoader;
+    private final StockIndicatorStateRepository indicatorStateRepository;
+    private final KLineAnalysisService kLineAnalysisService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean loadOnStartup;
+    private final SyntheticMarketSpec startupSpec;
+
+    public SyntheticMarketLoader(StockHistoryRepository stockHistoryRepository,
+                                 StockHistoryBulkLoader bulkLoader,
+                                 StockIndicatorStateRepository indicatorStateRepository,
+                                 KLineAnalysisService kLineAnalysisService,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Value("${stock.synthetic.load-on-startup:false}") boolean loadOnStartup,
+                                 @Value("${stock.synthetic.symbols:5000}") int symbols,
+                                 @Value("${stock.synthetic.years:20}") int years,
+                                 @Value("${stock.synthetic.seed:" + SyntheticMarketSpec.DEFAULT_SEED + "}") long seed) {
+        this.stockHistoryRepository = stockHistoryRepository;
+        this.bulkLoader = bulkLoader;
+        this.indicatorStateRepository = indicatorStateRepository;
+        this.kLineAnalysisService = kLineAnalysisService;
+        this.eventPublisher = eventPublisher;
+        this.loadOnStartup = loadOnStartup;
+        this.startupSpec = loadOnStartup ? new SyntheticMarketSpec(symbols, years, seed, null) : null;
+    }
+
+    /**
+     * 应用启动后按配置装载合成行情，只在stock_history为空时执行，避免覆盖真实数据
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!loadOnStartup) {
+            return;
+        }
+        if (stockHistoryRepository.count() > 0) {
+            log.warn("stock_history已有数据，跳过合成行情装载");
+            return;
+        }
+        load(startupSpec);
+    }
+
+    /**
+     * 生成并写入合成行情
+     * @param spec 生成规格
+     * @return 写入的K线数
+     */
+    public long load(SyntheticMarketSpec spec) {
+        long startTime = System.currentTimeMillis();
+        SyntheticMarketGenerator generator = new SyntheticMarketGenerator(spec);
+        log.info("开始装载合成行情: 股票{}只, {}~{}, 交易日{}天, 种子{}", spec.symbolCount(),
+                spec.startDate(), spec.endDate(), generator.getTradingDays().size(), spec.seed());
+
+        long rows;
+        List<String> deferredIndexes = bulkLoader.deferIndexesIfEmpty();
+        try {
+            rows = generateAndWrite(spec, generator, startTime);
+        } finally {
+            bulkLoader.restoreIndexes(deferredIndexes);
+        }
+
+        log.info("合成行情装载完成: 股票{}只, K线{}行, 耗时{}ms", spec.symbolCount(), rows,
+                System.currentTimeMillis() - startTime);
+        bulkLoader.logSummary();
+        eventPublisher.publishEvent(new StockHistorySyncCompletedEvent(spec.symbolCount(), 0, LocalDateTime.now()));
+        return rows;
+    }
+
+    private long generateAndWrite(SyntheticMarketSpec spec, SyntheticMarketGenerator generator, long startTime) {
+        List<StockHistory> pending = new ArrayList<>(INSERT_BATCH_ROWS + generator.getTradingDays().size());
+        List<StockIndicatorState> states = new ArrayList<>();
+        long rows = 0;
+        for (int i = 0; i < spec.symbolCount(); i++) {
+            List<StockHistory> histories = generator.generate(i);
+            if (histories.isEmpty()) {
+                continue;
+            }
+            KLineIndicatorState state = new KLineIndicatorState();
+            for (StockHistory history : histories) {
+                kLineAnalysisService.analyzeKLineIncremental(history, state);
+            }
+            pending.addAll(histories);
+            states.add(state.toEntity(histories.get(0).getSymbol()));
+
+            if (pending.size() >= INSERT_BATCH_ROWS) {
+                rows += flush(pending, states);
+            }
+            if ((i + 1) % PROGRESS_LOG_INTERVAL == 0) {
+                log.info("合成行情装载进度: {}/{}, 已写入{}行, 耗时{}ms", i + 1, spec.symbolCount(), rows,
+                        System.currentTimeMillis() - startTime);
+            }
+        }
+        rows += flush(pending, states);
+        return rows;
+    }
+
+    private int flush(List<StockHistory> pending, List<StockIndicatorState> states) {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        int written = bulkLoader.load(pending);
+        indicatorStateRepository.saveAll(states);
+        pending.clear();
+        states.clear();
+        return written;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.stock.service.synthetic;
+
+import java.time.LocalDate;
+
+/**
+ * 合成行情规格
+ * 相同的规格（含结束日期）总是生成逐字节相同的数据
+ * @param symbolCount 股票数量
+ * @param years 覆盖的年数
+ * @param seed 随机种子
+ * @param endDate 最后一个交易日（含），为null时使用今天
+ */
+public record SyntheticMarketSpec(int symbolCount, int years, long seed, LocalDate endDate) {
+
+    public static final long DEFAULT_SEED = 20240101L;
+
+    public SyntheticMarketSpec {
+        if (symbolCount <= 0 || symbolCount > SyntheticMarketGenerator.MAX_SYMBOLS) {
+            throw new IllegalArgumentException("股票数量须在1到" + SyntheticMarketGenerator.MAX_SYMBOLS + "之间: " + symbolCount);
+        }
+        if (years <= 0) {
+            throw new IllegalArgumentException("年数须大于0: " + years);
+        }
+        if (endDate == null) {
+            endDate = LocalDate.now();
+        }
+    }
+
+    public static SyntheticMarketSpec of(int symbolCount, int years) {
+        return new SyntheticMarketSpec(symbolCount, years, DEFAULT_SEED, null);
+    }
+
+    public LocalDate startDate() {
+        return endDate.minusYears(years).plusDays(1);
+    }
+}
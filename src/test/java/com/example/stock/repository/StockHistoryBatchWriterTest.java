@@ -0,0 +1,128 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.StockHistory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 历史数据合并写入器测试类
+ * 验证按行数和等待时间触发合并写入、合并失败时逐只隔离、关闭时写出剩余记录
+ */
+@DisplayName("历史数据合并写入器测试")
+class StockHistoryBatchWriterTest {
+
+    private final StockHistoryRepository repository = mock(StockHistoryRepository.class);
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private StockHistoryBatchWriter writer;
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    private void recordBatches() {
+        when(repository.batchInsertStockHistory(anyList())).thenAnswer(invocation -> {
+            List<StockHistory> rows = invocation.getArgument(0);
+            batches.add(rows.stream().map(StockHistory::getSymbol).distinct().toList());
+            return new int[rows.size()];
+        });
+    }
+
+    @Test
+    @DisplayName("测试1: 达到行数上限时多只股票合并为一次写入")
+    void testFlushOnMaxRows() {
+        recordBatches();
+        writer = new StockHistoryBatchWriter(repository, 6, 60_000);
+
+        CompletableFuture<Integer> first = writer.submit("sh600000", rows("sh600000", 2));
+        CompletableFuture<Integer> second = writer.submit("sh600001", rows("sh600001", 2));
+        CompletableFuture<Integer> third = writer.submit("sh600002", rows("sh600002", 2));
+
+        assertEquals(2, first.orTimeout(5, TimeUnit.SECONDS).join());
+        assertEquals(2, second.join());
+        assertEquals(2, third.join());
+        assertEquals(List.of(List.of("sh600000", "sh600001", "sh600002")), batches);
+        assertEquals(1, writer.getFlushCount());
+        assertEquals(6, writer.getFlushedRows());
+    }
+
+    @Test
+    @DisplayName("测试2: 未达行数上限时等待时间到后写入")
+    void testFlushOnLatency() {
+        recordBatches();
+        writer = new StockHistoryBatchWriter(repository, 1000, 50);
+
+        CompletableFuture<Integer> result = writer.submit("sz000001", rows("sz000001", 1));
+
+        assertEquals(1, result.orTimeout(5, TimeUnit.SECONDS).join());
+        assertEquals(List.of(List.of("sz000001")), batches);
+    }
+
+    @Test
+    @DisplayName("测试3: 合并写入失败时逐只重试，只有出错的股票失败")
+    void testFailureIsolatedToSymbol() {
+        when(repository.batchInsertStockHistory(anyList())).thenAnswer(invocation -> {
+            List<StockHistory> rows = invocation.getArgument(0);
+            if (rows.stream().anyMatch(row -> row.getSymbol().equals("sh600001"))) {
+                throw new DataIntegrityViolationException("Data too long");
+            }
+            batches.add(rows.stream().map(StockHistory::getSymbol).distinct().toList());
+            return new int[rows.size()];
+        });
+        writer = new StockHistoryBatchWriter(repository, 1000, 60_000);
+
+        CompletableFuture<Integer> ok = writer.submit("sh600000", rows("sh600000", 2));
+        CompletableFuture<Integer> bad = writer.submit("sh600001", rows("sh600001", 1));
+        CompletableFuture<Integer> alsoOk = writer.submit("sh600002", rows("sh600002", 3));
+        assertEquals(3, writer.flush());
+
+        assertEquals(2, ok.join());
+        assertEquals(3, alsoOk.join());
+        CompletionException error = assertThrows(CompletionException.class, bad::join);
+        assertInstanceOf(DataIntegrityViolationException.class, error.getCause());
+        assertEquals(List.of(List.of("sh600000"), List.of("sh600002")), batches);
+        assertEquals(1, writer.getIsolatedFlushes());
+    }
+
+    @Test
+    @DisplayName("测试4: 关闭时写出剩余记录，之后拒绝提交")
+    void testCloseFlushesRemainder() {
+        recordBatches();
+        writer = new StockHistoryBatchWriter(repository, 1000, 60_000);
+
+        CompletableFuture<Integer> result = writer.submit("sh688001", rows("sh688001", 4));
+        writer.close();
+
+        assertEquals(4, result.join());
+        assertEquals(4, writer.getFlushedRows());
+        assertThrows(IllegalStateException.class, () -> writer.submit("sh688002", rows("sh688002", 1)));
+        verify(repository, times(1)).batchInsertStockHistory(anyList());
+    }
+
+    private static List<StockHistory> rows(String symbol, int count) {
+        List<StockHistory> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StockHistory history = new StockHistory();
+            history.setSymbol(symbol);
+            history.setDay(LocalDate.of(2024, 6, 3).plusDays(i));
+            rows.add(history);
+        }
+        return rows;
+    }
+}
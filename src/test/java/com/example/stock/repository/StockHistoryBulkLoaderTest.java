@@ -0,0 +1,126 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.StockHistory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.example.stock.repository.StockHistoryTestData.bar;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 历史数据全量回补装载器测试类
+ * 验证LOAD DATA文本编码、只在LOAD DATA语句失败时回退批量插入，以及只在空表时延迟建索引
+ */
+@DisplayName("历史数据全量回补装载器测试")
+class StockHistoryBulkLoaderTest {
+
+    @Test
+    @DisplayName("测试1: 记录编码为制表符分隔文本，NULL写作\\N，布尔写作0/1")
+    void testEncodeLoadData() {
+        StockHistory history = bar("sh600000", LocalDate.of(2024, 6, 3), 10.5);
+        history.setIsDoji(true);
+        history.setIsHammer(false);
+        history.setCode("60\t0\\00");
+
+        String[] lines = new String(StockHistoryCustomRepositoryImpl.encodeLoadData(List.of(history, history)),
+                StandardCharsets.UTF_8).split("\n", -1);
+
+        assertEquals(3, lines.length);
+        assertEquals("", lines[2]);
+        String[] fields = lines[0].split("\t", -1);
+        assertEquals(52, fields.length, "字段数应与写入列一致");
+        assertEquals("sh600000", fields[0]);
+        assertEquals("60\\t0\\\\00", fields[1]);
+        assertEquals("2024-06-03", fields[2]);
+        assertEquals("10.5", fields[3]);
+        assertEquals("\\N", fields[14], "change_percent为空");
+        assertEquals("1", fields[27], "is_doji");
+        assertEquals("0", fields[28], "is_hammer");
+        assertEquals("\\N", fields[51], "is_touch_boll_lower为空");
+    }
+
+    @Test
+    @DisplayName("测试2: LOAD DATA失败时回退为批量插入，之后不再尝试")
+    void testFallbackOnFailure() {
+        StockHistoryRepository repository = mock(StockHistoryRepository.class);
+        when(repository.supportsBulkLoad()).thenReturn(true);
+        when(repository.bulkLoadStockHistory(anyList()))
+                .thenThrow(new LoadDataFailedException("LOAD DATA执行失败",
+                        new InvalidDataAccessResourceUsageException("Loading local data is disabled")));
+        when(repository.batchInsertStockHistory(anyList())).thenAnswer(invocation ->
+                new int[invocation.<List<?>>getArgument(0).size()]);
+        StockHistoryBulkLoader loader = new StockHistoryBulkLoader(repository, true, true);
+
+        List<StockHistory> rows = List.of(bar("sz000001", LocalDate.of(2024, 6, 3), 10.5),
+                bar("sz000001", LocalDate.of(2024, 6, 4), 10.5));
+        assertEquals(2, loader.load(rows));
+        assertEquals(2, loader.load(rows));
+
+        verify(repository, times(1)).bulkLoadStockHistory(anyList());
+        verify(repository, times(2)).batchInsertStockHistory(anyList());
+        assertEquals(4, loader.getBatchRows());
+        assertEquals(0, loader.getBulkRows());
+        assertEquals(List.of(), loader.deferIndexesIfEmpty());
+    }
+
+    @Test
+    @DisplayName("测试3: LOAD DATA之外的失败照常抛出，不关闭LOAD DATA")
+    void testOtherFailurePropagates() {
+        StockHistoryRepository repository = mock(StockHistoryRepository.class);
+        when(repository.supportsBulkLoad()).thenReturn(true);
+        when(repository.bulkLoadStockHistory(anyList()))
+                .thenThrow(new DataIntegrityViolationException("stock_latest_summary写入失败"))
+                .thenReturn(1);
+        StockHistoryBulkLoader loader = new StockHistoryBulkLoader(repository, true, true);
+
+        List<StockHistory> rows = List.of(bar("sz000001", LocalDate.of(2024, 6, 3), 10.5));
+        assertThrows(DataIntegrityViolationException.class, () -> loader.load(rows));
+        assertEquals(1, loader.load(rows));
+
+        verify(repository, times(2)).bulkLoadStockHistory(anyList());
+        verify(repository, never()).batchInsertStockHistory(anyList());
+        assertEquals(1, loader.getBulkRows());
+    }
+
+    @Test
+    @DisplayName("测试4: 只在stock_history为空时删除二级索引")
+    void testDeferIndexesOnlyWhenEmpty() {
+        StockHistoryRepository repository = mock(StockHistoryRepository.class);
+        when(repository.supportsBulkLoad()).thenReturn(true);
+        List<String> definitions = List.of("ADD INDEX `idx_symbol_date` (`symbol`, `trade_date` DESC)");
+        when(repository.dropSecondaryIndexes()).thenReturn(definitions);
+        StockHistoryBulkLoader loader = new StockHistoryBulkLoader(repository, true, true);
+
+        when(repository.existsByIdNotNull()).thenReturn(true);
+        assertEquals(List.of(), loader.deferIndexesIfEmpty());
+        verify(repository, never()).dropSecondaryIndexes();
+
+        when(repository.existsByIdNotNull()).thenReturn(false);
+        assertEquals(definitions, loader.deferIndexesIfEmpty());
+        loader.restoreIndexes(definitions);
+        verify(repository).restoreSecondaryIndexes(definitions);
+
+        StockHistoryBulkLoader withoutDefer = new StockHistoryBulkLoader(repository, true, false);
+        assertEquals(List.of(), withoutDefer.deferIndexesIfEmpty());
+        verify(repository, times(1)).dropSecondaryIndexes();
+    }
+
+    @Test
+    @DisplayName("测试5: H2数据源不支持LOAD DATA，也不删除索引")
+    void testH2NotSupported() {
+        StockHistoryCustomRepositoryImpl repository = new StockHistoryCustomRepositoryImpl(
+                new JdbcTemplate(StockHistoryTestData.h2DataSource("bulk")));
+
+        assertFalse(repository.supportsBulkLoad());
+        assertEquals(List.of(), repository.dropSecondaryIndexes());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.stock.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * stock_history索引管理测试类
+ * 验证已有索引与声明的匹配、EXPLAIN结果解析、命名参数转换，以及非MySQL数据源不做操作
+ */
+@DisplayName("stock_history索引管理测试")
+class StockHistoryIndexManagerTest {
+
+    private static final StockHistoryIndexManager.IndexSpec UNIQUE_KEY = StockHistoryIndexManager.INDEXES.get(0);
+    private static final StockHistoryIndexManager.IndexSpec COVERING = StockHistoryIndexManager.INDEXES.get(1);
+
+    @Test
+    @DisplayName("测试1: 已有索引以声明的列开头即满足，唯一键要求列完全一致且唯一")
+    void testSatisfies() {
+        assertTrue(StockHistoryIndexManager.satisfies(List.of("symbol", "trade_date"), true, UNIQUE_KEY));
+        assertFalse(StockHistoryIndexManager.satisfies(List.of("symbol", "trade_date"), false, UNIQUE_KEY),
+                "普通索引不能代替唯一键");
+        assertFalse(StockHistoryIndexManager.satisfies(List.of("symbol", "trade_date", "close"), true, UNIQUE_KEY));
+
+        assertTrue(StockHistoryIndexManager.satisfies(
+                List.of("symbol", "trade_date", "high", "close", "low"), false, COVERING));
+        assertFalse(StockHistoryIndexManager.satisfies(List.of("symbol", "trade_date", "close"), false, COVERING),
+                "旧的idx_symbol_date_close不含high，不能覆盖筛选");
+        assertFalse(StockHistoryIndexManager.satisfies(List.of("symbol", "high"), false, COVERING));
+    }
+
+    @Test
+    @DisplayName("测试2: 全表扫描且没有可用索引时标记缺失索引，派生表跳过")
+    void testEvaluatePlan() {
+        List<StockHistoryIndexManager.QueryPlanCheck> checks = StockHistoryIndexManager.evaluate("区间筛选", List.of(
+                planRow("<derived2>", "ALL", null, null, 5000L),
+                planRow("sh", "ref", "uk_symbol_trade_date", "uk_symbol_trade_date", 1L),
+                planRow("stock_history", "ALL", null, null, 1200000L)));
+
+        assertEquals(2, checks.size());
+        assertEquals("uk_symbol_trade_date", checks.get(0).key());
+        assertFalse(checks.get(0).missingIndex());
+        assertTrue(checks.get(1).missingIndex());
+        assertEquals(1200000L, checks.get(1).rows());
+    }
+
+    @Test
+    @DisplayName("测试3: 仓库原生查询的命名参数按出现顺序转换为位置参数")
+    void testToPositional() {
+        StockHistoryIndexManager.HotQuery query = StockHistoryIndexManager.toPositional("前一交易日",
+                "SELECT MAX(trade_date) FROM stock_history WHERE trade_date < :currentDate AND trade_date >= :since"
+                        + " AND trade_date <> :currentDate",
+                Map.of("currentDate", "2024-06-03", "since", "2024-05-03"));
+
+        assertEquals("SELECT MAX(trade_date) FROM stock_history WHERE trade_date < ? AND trade_date >= ?"
+                + " AND trade_date <> ?", query.sql());
+        assertArrayEquals(new Object[]{"2024-06-03", "2024-05-03", "2024-06-03"}, query.args());
+    }
+
+    @Test
+    @DisplayName("测试4: H2数据源不创建索引也不执行EXPLAIN")
+    void testH2NoOp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:index" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE stock_history (id BIGINT PRIMARY KEY, symbol VARCHAR(20), trade_date DATE)");
+
+        new StockHistoryIndexManager(jdbcTemplate, true, true).onApplicationReady();
+
+        Integer indexes = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.indexes
+                WHERE table_name = 'STOCK_HISTORY' AND index_type_name <> 'PRIMARY KEY'
+                """, Integer.class);
+        assertEquals(0, indexes);
+    }
+
+    private static Map<String, Object> planRow(String table, String type, String possibleKeys, String key, Long rows) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("table", table);
+        row.put("type", type);
+        row.put("possible_keys", possibleKeys);
+        row.put("key", key);
+        row.put("rows", rows);
+        return row;
+    }
+}
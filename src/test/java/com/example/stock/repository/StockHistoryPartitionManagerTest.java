@@ -0,0 +1,53 @@
+package com.example.stock.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * stock_history分区管理测试类
+ * 验证按年分区子句的生成、未来分区的补齐计算，以及非MySQL数据源不做任何操作
+ */
+@DisplayName("stock_history分区管理测试")
+class StockHistoryPartitionManagerTest {
+
+    @Test
+    @DisplayName("测试1: 每年一个分区，最后是兜底分区")
+    void testPartitionClause() {
+        assertEquals("PARTITION BY RANGE COLUMNS(trade_date) ("
+                        + "PARTITION p2024 VALUES LESS THAN ('2025-01-01'), "
+                        + "PARTITION p2025 VALUES LESS THAN ('2026-01-01'), "
+                        + "PARTITION pmax VALUES LESS THAN (MAXVALUE))",
+                StockHistoryPartitionManager.partitionClause(2024, 2025));
+    }
+
+    @Test
+    @DisplayName("测试2: 从最后一个年份分区之后补齐到目标年份")
+    void testMissingYears() {
+        List<String> partitions = List.of("p1990", "p1991", "p2025", "pmax");
+
+        assertEquals(List.of(2026, 2027), StockHistoryPartitionManager.missingYears(partitions, 2027));
+        assertEquals(List.of(), StockHistoryPartitionManager.missingYears(partitions, 2025));
+        assertEquals(List.of(), StockHistoryPartitionManager.missingYears(List.of("pmax"), 2027));
+    }
+
+    @Test
+    @DisplayName("测试3: H2数据源不做分区操作")
+    void testNoOpOnH2() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:partition" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("h2-stock-schema.sql")).execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        new StockHistoryPartitionManager(jdbcTemplate, true, true, 2).ensurePartitions();
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_history", Integer.class));
+    }
+}
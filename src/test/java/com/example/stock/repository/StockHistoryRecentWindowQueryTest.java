@@ -0,0 +1,81 @@
+package com.example.stock.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.stock.repository.StockHistoryTestData.bar;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 带日期下界的近期窗口查询测试类
+ * 在内嵌H2上验证先查近期窗口、找不到再查全部历史的结果与原查询一致
+ */
+@DataJpaTest
+@DisplayName("近期窗口查询测试")
+class StockHistoryRecentWindowQueryTest {
+
+    @Autowired
+    private StockHistoryRepository stockHistoryRepository;
+
+    @Test
+    @DisplayName("测试1: 最新交易日期先查近期，长期停牌的股票回退到全部历史")
+    void testLatestTradeDateBySymbol() {
+        LocalDate recent = LocalDate.now().minusDays(3);
+        stockHistoryRepository.saveAll(List.of(
+                bar("sh600000", recent.minusDays(1), 10, 10),
+                bar("sh600000", recent, 10, 10),
+                bar("sz000001", LocalDate.of(2015, 6, 12), 10, 10)));
+
+        assertEquals(recent, stockHistoryRepository.findLatestTradeDateBySymbol("sh600000"));
+        assertEquals(LocalDate.of(2015, 6, 12), stockHistoryRepository.findLatestTradeDateBySymbol("sz000001"));
+        assertNull(stockHistoryRepository.findLatestTradeDateBySymbol("sh688001"));
+    }
+
+    @Test
+    @DisplayName("测试2: 前一交易日超出近期窗口时回退到全部历史")
+    void testPreviousTradeDate() {
+        stockHistoryRepository.saveAll(List.of(
+                bar("sh600000", LocalDate.of(2024, 1, 31), 10, 10),
+                bar("sh600000", LocalDate.of(2024, 2, 8), 10, 10),
+                bar("sh600000", LocalDate.of(2024, 6, 3), 10, 10)));
+
+        assertEquals(LocalDate.of(2024, 2, 8), stockHistoryRepository.findPreviousTradeDate(LocalDate.of(2024, 2, 19)));
+        assertEquals(LocalDate.of(2024, 2, 8), stockHistoryRepository.findPreviousTradeDate(LocalDate.of(2024, 6, 3)));
+        assertNull(stockHistoryRepository.findPreviousTradeDate(LocalDate.of(2024, 1, 31)));
+    }
+
+    @Test
+    @DisplayName("测试3: 区间最高价与最新收盘价在一次分组中求出")
+    void testBelowHistoricalHigh() {
+        stockHistoryRepository.saveAll(List.of(
+                bar("sh600000", LocalDate.of(2023, 12, 29), 100, 90),
+                bar("sh600000", LocalDate.of(2024, 3, 1), 20, 18),
+                bar("sh600000", LocalDate.of(2024, 6, 3), 12, 10),
+                bar("sz000001", LocalDate.of(2024, 3, 1), 19, 18),
+                bar("sz000001", LocalDate.of(2024, 6, 3), 20, 20)));
+
+        List<Map<String, Object>> rows = stockHistoryRepository.findStocksBelowHistoricalHighWithParams("2024-01-01", 25.0);
+
+        assertEquals(1, rows.size());
+        Map<String, Object> row = rows.get(0);
+        assertEquals("sh600000", value(row, "symbol"));
+        assertEquals(20.0, ((Number) value(row, "max_high")).doubleValue());
+        assertEquals(10.0, ((Number) value(row, "current_price")).doubleValue());
+
+        // 统计区间包含2023年的高点
+        rows = stockHistoryRepository.findStocksBelowHistoricalHighWithParams("2000-01-01", 25.0);
+        assertEquals(1, rows.size());
+        assertEquals(100.0, ((Number) value(rows.get(0), "max_high")).doubleValue());
+    }
+
+    private static Object value(Map<String, Object> row, String column) {
+        return row.entrySet().stream().filter(entry -> entry.getKey().equalsIgnoreCase(column))
+                .map(Map.Entry::getValue).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.StockHistory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.stock.repository.StockHistoryTestData.bar;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 历史数据流式读取测试类
+ * 使用H2内存库验证逐只股票按日期升序交付序列、开始日期过滤以及可空字段的读取
+ */
+@DisplayName("历史数据流式读取测试")
+class StockHistoryStreamingReadTest {
+
+    private StockHistoryCustomRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new StockHistoryCustomRepositoryImpl(new JdbcTemplate(StockHistoryTestData.h2DataSource("stream")));
+    }
+
+    @Test
+    @DisplayName("测试1: 每只股票回调一次，序列按日期升序")
+    void testSeriesPerSymbol() {
+        LocalDate start = LocalDate.of(2024, 1, 2);
+        List<StockHistory> rows = new ArrayList<>();
+        for (String symbol : List.of("sz000001", "sh600000", "sh600519")) {
+            for (int i = 2999; i >= 0; i--) {
+                rows.add(bar(symbol, start.plusDays(i), 10 + i * 0.01));
+            }
+        }
+        repository.batchInsertStockHistory(rows);
+
+        List<String> symbols = new ArrayList<>();
+        int count = repository.streamSymbolSeries(null, series -> {
+            assertEquals(3000, series.size());
+            assertTrue(series.stream().allMatch(h -> h.getSymbol().equals(series.get(0).getSymbol())));
+            for (int i = 1; i < series.size(); i++) {
+                assertTrue(series.get(i - 1).getDay().isBefore(series.get(i).getDay()));
+            }
+            symbols.add(series.get(0).getSymbol());
+        });
+
+        assertEquals(3, count);
+        assertEquals(List.of("sh600000", "sh600519", "sz000001"), symbols);
+    }
+
+    @Test
+    @DisplayName("测试2: 开始日期过滤，可空字段保持为null")
+    void testSinceAndNullableColumns() {
+        LocalDate start = LocalDate.of(2024, 6, 3);
+        StockHistory flagged = bar("sh600000", start.plusDays(1), 11);
+        flagged.setIsDoji(true);
+        flagged.setRsi6(72.5);
+        flagged.setKlineType(2);
+        repository.batchInsertStockHistory(List.of(bar("sh600000", start, 10), flagged,
+                bar("sz000001", start, 8)));
+
+        List<List<StockHistory>> series = new ArrayList<>();
+        repository.streamSymbolSeries(start.plusDays(1), series::add);
+
+        assertEquals(1, series.size());
+        StockHistory read = series.get(0).get(0);
+        assertEquals(start.plusDays(1), read.getDay());
+        assertEquals(11.0, read.getClose());
+        assertEquals(1000L, read.getVolume());
+        assertEquals(Boolean.TRUE, read.getIsDoji());
+        assertEquals(72.5, read.getRsi6());
+        assertEquals(2, read.getKlineType());
+        assertNull(read.getIsHammer());
+        assertNull(read.getMacdDif());
+        assertNull(read.getConsecutiveRiseDays());
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.StockHistory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.LocalDate;
+
+/**
+ * 仓储测试共用的H2数据源与K线构造
+ */
+final class StockHistoryTestData {
+
+    private StockHistoryTestData() {
+    }
+
+    /**
+     * 创建独立的MySQL模式H2内存库，并按h2-stock-schema.sql建表
+     */
+    static DriverManagerDataSource h2DataSource(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("h2-stock-schema.sql")).execute(dataSource);
+        return dataSource;
+    }
+
+    /**
+     * 开盘价与均线等于收盘价，最高/最低价为收盘价±0.5，成交量1000
+     */
+    static StockHistory bar(String symbol, LocalDate day, double close) {
+        StockHistory bar = new StockHistory();
+        bar.setSymbol(symbol);
+        bar.setCode(symbol.substring(2));
+        bar.setDay(day);
+        bar.setOpen(close);
+        bar.setHigh(close + 0.5);
+        bar.setLow(close - 0.5);
+        bar.setClose(close);
+        bar.setVolume(1000L);
+        bar.setMaPrice5(close);
+        bar.setMaPrice10(close);
+        bar.setMaPrice30(close);
+        return bar;
+    }
+
+    /**
+     * 指定最高价的K线，其余字段同bar(symbol, day, close)
+     */
+    static StockHistory bar(String symbol, LocalDate day, double high, double close) {
+        StockHistory bar = bar(symbol, day, close);
+        bar.setHigh(high);
+        return bar;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.StockHistory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.stock.repository.StockHistoryTestData.bar;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 最新行情汇总维护测试类
+ * 使用H2内存库验证批量写入时汇总表的增量合并、回补重算、全量回补直接计算以及全量重建
+ */
+@DisplayName("最新行情汇总维护测试")
+class StockLatestSummaryMaintenanceTest {
+
+    private static final double DELTA = 1e-9;
+
+    private JdbcTemplate jdbcTemplate;
+    private StockHistoryCustomRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(StockHistoryTestData.h2DataSource("summary"));
+        repository = new StockHistoryCustomRepositoryImpl(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("测试1: 首次写入从stock_history计算，之后的新K线直接合并")
+    void testIncrementalMerge() {
+        LocalDate start = LocalDate.of(2023, 1, 2);
+        List<StockHistory> first = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            double price = i == 10 ? 50 : 10 + i * 0.01;
+            first.add(bar("sh600000", start.plusDays(i), price));
+        }
+        repository.batchInsertStockHistory(first);
+
+        Map<String, Object> summary = summary("sh600000");
+        assertEquals(Date.valueOf(start.plusDays(399)), summary.get("latest_date"));
+        assertEquals(50.5, ((Number) summary.get("all_time_high")).doubleValue(), DELTA);
+        assertEquals(Date.valueOf(start.plusDays(10)), summary.get("all_time_high_date"));
+        // 第10天的高点已不在52周窗口内
+        assertEquals(13.99 + 0.5, ((Number) summary.get("high_52w")).doubleValue(), DELTA);
+        assertEquals(Date.valueOf(start.plusDays(399)), summary.get("high_52w_date"));
+
+        repository.batchInsertStockHistory(List.of(bar("sh600000", start.plusDays(400), 60)));
+
+        summary = summary("sh600000");
+        assertEquals(Date.valueOf(start.plusDays(400)), summary.get("latest_date"));
+        assertEquals(60.0, ((Number) summary.get("close")).doubleValue(), DELTA);
+        assertEquals(60.5, ((Number) summary.get("all_time_high")).doubleValue(), DELTA);
+        assertEquals(60.5, ((Number) summary.get("high_52w")).doubleValue(), DELTA);
+        assertEquals(Date.valueOf(start.plusDays(400)), summary.get("high_52w_date"));
+    }
+
+    @Test
+    @DisplayName("测试2: 52周最低点滑出窗口时重新计算")
+    void testExtremeLeavesWindow() {
+        LocalDate start = LocalDate.of(2023, 1, 2);
+        List<StockHistory> first = new ArrayList<>();
+        for (int i = 0; i < 365; i++) {
+            first.add(bar("sz000001", start.plusDays(i), i == 0 ? 5 : 10));
+        }
+        repository.batchInsertStockHistory(first);
+        assertEquals(4.5, ((Number) summary("sz000001").get("low_52w")).doubleValue(), DELTA);
+
+        repository.batchInsertStockHistory(List.of(bar("sz000001", start.plusDays(366), 10)));
+
+        Map<String, Object> summary = summary("sz000001");
+        assertEquals(9.5, ((Number) summary.get("low_52w")).doubleValue(), DELTA);
+        assertEquals(Date.valueOf(start.plusDays(2)), summary.get("low_52w_date"));
+        assertEquals(10.5, ((Number) summary.get("all_time_high")).doubleValue(), DELTA);
+    }
+
+    @Test
+    @DisplayName("测试3: 全量重建与增量维护结果一致")
+    void testRebuild() {
+        LocalDate start = LocalDate.of(2024, 3, 1);
+        for (int i = 0; i < 30; i++) {
+            repository.batchInsertStockHistory(List.of(
+                    bar("sh600000", start.plusDays(i), 10 + (i % 7)),
+                    bar("sz000001", start.plusDays(i), 20 - (i % 5))));
+        }
+        List<Map<String, Object>> maintained = jdbcTemplate.queryForList(
+                "SELECT * FROM stock_latest_summary ORDER BY symbol");
+
+        jdbcTemplate.update("DELETE FROM stock_latest_summary");
+        assertEquals(2, repository.rebuildLatestSummary());
+
+        List<Map<String, Object>> rebuilt = jdbcTemplate.queryForList(
+                "SELECT * FROM stock_latest_summary ORDER BY symbol");
+        assertEquals(withoutTimestamp(maintained), withoutTimestamp(rebuilt));
+    }
+
+    @Test
+    @DisplayName("测试4: 全量回补的汇总直接由本批K线计算，与回读stock_history的结果一致")
+    void testFullHistoryWithoutReadBack() {
+        LocalDate start = LocalDate.of(2023, 1, 2);
+        List<StockHistory> rows = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            rows.add(bar("sh600000", start.plusDays(i), i == 10 ? 50 : 10 + (i % 9)));
+        }
+        repository.batchInsertStockHistory(rows);
+        Map<String, Object> recomputed = summary("sh600000");
+
+        // 清空stock_history后仍能得到相同的汇总，说明没有回读
+        jdbcTemplate.update("DELETE FROM stock_history");
+        jdbcTemplate.update("DELETE FROM stock_latest_summary");
+        repository.updateLatestSummaries(rows, true);
+
+        assertEquals(recomputed, summary("sh600000"));
+    }
+
+    private Map<String, Object> summary(String symbol) {
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT * FROM stock_latest_summary WHERE symbol = ?", symbol);
+        row.remove("UPDATED_AT");
+        return row;
+    }
+
+    private static List<Map<String, Object>> withoutTimestamp(List<Map<String, Object>> rows) {
+        rows.forEach(row -> row.remove("UPDATED_AT"));
+        return rows;
+    }
+}
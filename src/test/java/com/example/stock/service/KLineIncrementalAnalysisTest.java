@@ -0,0 +1,204 @@
+package com.example.stock.service;
+
+import com.example.stock.entity.StockHistory;
+import com.example.stock.entity.StockIndicatorState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * K线增量技术分析测试类
+ * 验证基于增量状态的指标与按历史列表计算的结果一致，以及状态持久化后可继续推进
+ */
+@DisplayName("K线增量技术分析测试")
+class KLineIncrementalAnalysisTest {
+
+    private static final double DELTA = 1e-6;
+
+    private KLineAnalysisService kLineAnalysisService;
+
+    @BeforeEach
+    void setUp() {
+        kLineAnalysisService = new KLineAnalysisService();
+    }
+
+    @Test
+    @DisplayName("测试1: RSI、布林带、均线交叉和连续涨跌天数与列表计算一致")
+    void testMatchesListAnalysis() {
+        List<StockHistory> bars = randomBars(120, 42);
+        KLineIndicatorState state = new KLineIndicatorState();
+
+        for (int i = 0; i < bars.size(); i++) {
+            StockHistory incremental = copyOf(bars.get(i));
+            kLineAnalysisService.analyzeKLineIncremental(incremental, state);
+
+            StockHistory expected = copyOf(bars.get(i));
+            List<StockHistory> history = new ArrayList<>();
+            history.add(expected);
+            for (int j = i - 1; j >= 0; j--) {
+                history.add(bars.get(j));
+            }
+            kLineAnalysisService.analyzeKLine(expected, i > 0 ? bars.get(i - 1) : null, history);
+
+            String at = "第" + i + "根K线";
+            assertEquals(expected.getChangePercent(), incremental.getChangePercent(), DELTA, at);
+            assertEquals(expected.getConsecutiveRiseDays(), incremental.getConsecutiveRiseDays(), at);
+            assertEquals(expected.getIsMa5GoldenCross(), incremental.getIsMa5GoldenCross(), at);
+            assertEquals(expected.getIsMa10DeathCross(), incremental.getIsMa10DeathCross(), at);
+            assertEquals(expected.getIsBreakLow(), incremental.getIsBreakLow(), at);
+            assertNullableEquals(expected.getRsi6(), incremental.getRsi6(), at);
+            assertNullableEquals(expected.getRsi12(), incremental.getRsi12(), at);
+            assertNullableEquals(expected.getRsi24(), incremental.getRsi24(), at);
+            assertNullableEquals(expected.getBollMiddle(), incremental.getBollMiddle(), at);
+            assertNullableEquals(expected.getBollUpper(), incremental.getBollUpper(), at);
+            assertNullableEquals(expected.getBollLower(), incremental.getBollLower(), at);
+        }
+        assertEquals(bars.size(), state.getBarCount());
+        assertEquals(bars.get(bars.size() - 1).getDay(), state.getTradeDate());
+    }
+
+    @Test
+    @DisplayName("测试2: MACD按EMA递推计算，第26根K线起输出")
+    void testMacdRecursiveEma() {
+        List<StockHistory> bars = randomBars(60, 7);
+        KLineIndicatorState state = new KLineIndicatorState();
+
+        double ema12 = 0;
+        double ema26 = 0;
+        double dea = 0;
+        for (int i = 0; i < bars.size(); i++) {
+            StockHistory bar = bars.get(i);
+            double close = bar.getClose();
+            ema12 = i == 0 ? close : ema12 + (close - ema12) * 2 / 13;
+            ema26 = i == 0 ? close : ema26 + (close - ema26) * 2 / 27;
+            double dif = ema12 - ema26;
+            dea = i == 0 ? dif : dea + (dif - dea) * 2 / 10;
+
+            kLineAnalysisService.analyzeKLineIncremental(bar, state);
+
+            if (i < 25) {
+                assertNull(bar.getMacdDif());
+            } else {
+                assertEquals(dif, bar.getMacdDif(), DELTA);
+                assertEquals(dea, bar.getMacdDea(), DELTA);
+                assertEquals(2 * (dif - dea), bar.getMacdBar(), DELTA);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("测试3: 状态持久化后继续推进结果不变")
+    void testStateRoundTrip() {
+        List<StockHistory> bars = randomBars(80, 99);
+        KLineIndicatorState continuous = new KLineIndicatorState();
+        KLineIndicatorState restored = new KLineIndicatorState();
+
+        for (int i = 0; i < bars.size(); i++) {
+            StockHistory a = copyOf(bars.get(i));
+            StockHistory b = copyOf(bars.get(i));
+            kLineAnalysisService.analyzeKLineIncremental(a, continuous);
+            kLineAnalysisService.analyzeKLineIncremental(b, restored);
+
+            StockIndicatorState entity = restored.toEntity("sh600000");
+            assertEquals("sh600000", entity.getSymbol());
+            restored = KLineIndicatorState.fromEntity(entity);
+
+            assertNullableEquals(a.getMacdDif(), b.getMacdDif(), "MACD");
+            assertNullableEquals(a.getRsi24(), b.getRsi24(), "RSI24");
+            assertNullableEquals(a.getBollUpper(), b.getBollUpper(), "BOLL");
+            assertEquals(a.getConsecutiveRiseDays(), b.getConsecutiveRiseDays());
+            assertEquals(a.getIsBreakHigh(), b.getIsBreakHigh());
+        }
+    }
+
+    @Test
+    @DisplayName("测试4: 首根K线无前收盘价")
+    void testFirstBar() {
+        StockHistory bar = bar(LocalDate.of(2024, 1, 2), 10.0, 10.5, 9.8, 10.2);
+        KLineIndicatorState state = new KLineIndicatorState();
+
+        kLineAnalysisService.analyzeKLineIncremental(bar, state);
+
+        assertEquals(0.0, bar.getChangePercent());
+        assertEquals(Integer.valueOf(0), bar.getConsecutiveRiseDays());
+        assertNull(bar.getRsi6());
+        assertNull(bar.getBollMiddle());
+        assertEquals(Integer.valueOf(1), bar.getKlineType());
+        assertEquals(1, state.getBarCount());
+    }
+
+    private static void assertNullableEquals(Double expected, Double actual, String message) {
+        if (expected == null) {
+            assertNull(actual, message);
+        } else {
+            assertNotNull(actual, message);
+            assertEquals(expected, actual, DELTA, message);
+        }
+    }
+
+    /**
+     * 生成随机游走K线，均线取真实滚动平均值
+     */
+    private static List<StockHistory> randomBars(int count, long seed) {
+        Random random = new Random(seed);
+        List<StockHistory> bars = new ArrayList<>();
+        double close = 10;
+        LocalDate day = LocalDate.of(2023, 1, 2);
+        for (int i = 0; i < count; i++) {
+            double open = close;
+            close = Math.max(1, Math.round((close * (1 + (random.nextDouble() - 0.5) * 0.08)) * 100) / 100.0);
+            double high = Math.max(open, close) + random.nextInt(20) / 100.0;
+            double low = Math.min(open, close) - random.nextInt(20) / 100.0;
+            StockHistory bar = bar(day.plusDays(i), open, high, low, close);
+            bar.setVolume(1_000_000L + random.nextInt(500_000));
+            bars.add(bar);
+        }
+        for (int i = 0; i < count; i++) {
+            StockHistory bar = bars.get(i);
+            bar.setMaPrice5(movingAverage(bars, i, 5));
+            bar.setMaPrice10(movingAverage(bars, i, 10));
+            bar.setMaPrice30(movingAverage(bars, i, 30));
+            bar.setMaVolume5(1_200_000L);
+        }
+        return bars;
+    }
+
+    private static double movingAverage(List<StockHistory> bars, int index, int period) {
+        if (index + 1 < period) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = index - period + 1; i <= index; i++) {
+            sum += bars.get(i).getClose();
+        }
+        return sum / period;
+    }
+
+    private static StockHistory bar(LocalDate day, double open, double high, double low, double close) {
+        StockHistory bar = new StockHistory();
+        bar.setSymbol("sh600000");
+        bar.setDay(day);
+        bar.setOpen(open);
+        bar.setHigh(high);
+        bar.setLow(low);
+        bar.setClose(close);
+        return bar;
+    }
+
+    private static StockHistory copyOf(StockHistory source) {
+        StockHistory copy = bar(source.getDay(), source.getOpen(), source.getHigh(), source.getLow(), source.getClose());
+        copy.setVolume(source.getVolume());
+        copy.setMaPrice5(source.getMaPrice5());
+        copy.setMaPrice10(source.getMaPrice10());
+        copy.setMaPrice30(source.getMaPrice30());
+        copy.setMaVolume5(source.getMaVolume5());
+        return copy;
+    }
+}
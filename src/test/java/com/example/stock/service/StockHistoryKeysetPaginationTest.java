@@ -0,0 +1,121 @@
+package com.example.stock.service;
+
+import com.example.stock.dto.StockHistoryCursor;
+import com.example.stock.dto.StockHistoryPage;
+import com.example.stock.entity.StockHistory;
+import com.example.stock.entity.StockSymbol;
+import com.example.stock.repository.StockHistoryRepository;
+import com.example.stock.repository.StockSymbolRepository;
+import com.example.stock.service.search.SymbolSearchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 历史数据键集分页测试类
+ * 在内嵌H2上验证前后翻页连续不重不漏、首页/末页边界以及按检索结果过滤的分页
+ */
+@DataJpaTest
+@DisplayName("历史数据键集分页测试")
+class StockHistoryKeysetPaginationTest {
+
+    private static final String[] SYMBOLS = {"sh600000", "sh600001", "sz000001"};
+    private static final int DAYS = 20;
+
+    @Autowired
+    private StockHistoryRepository stockHistoryRepository;
+
+    @Autowired
+    private StockSymbolRepository stockSymbolRepository;
+
+    private StockHistoryService service;
+
+    @BeforeEach
+    void setUp() {
+        List<StockHistory> rows = new ArrayList<>();
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        for (String symbol : SYMBOLS) {
+            String name = symbol.equals("sz000001") ? "平安银行" : "测试" + symbol.substring(7);
+            stockSymbolRepository.save(new StockSymbol(symbol, symbol.substring(2), name, "LISTING", start, start));
+            for (int i = 0; i < DAYS; i++) {
+                StockHistory history = new StockHistory();
+                history.setSymbol(symbol);
+                history.setCode(symbol.substring(2));
+                history.setDay(start.plusDays(i));
+                history.setClose(10 + i);
+                rows.add(history);
+            }
+        }
+        stockHistoryRepository.saveAll(rows);
+        service = new StockHistoryService(stockHistoryRepository, new SymbolSearchService(stockSymbolRepository));
+    }
+
+    @Test
+    @DisplayName("测试1: 向后翻完全部记录不重不漏，向前翻回到第一页")
+    void testForwardAndBackward() {
+        List<String> seen = new ArrayList<>();
+        List<StockHistoryPage> pages = new ArrayList<>();
+        StockHistoryPage page = service.findHistoryPage(null, null, null, 7);
+        assertFalse(page.isHasPrevious());
+        while (true) {
+            pages.add(page);
+            page.content().forEach(h -> seen.add(StockHistoryCursor.of(h).encode()));
+            if (!page.isHasNext()) {
+                break;
+            }
+            page = service.findHistoryPage(null, StockHistoryCursor.parse(page.nextCursor()), null, 7);
+        }
+
+        assertEquals(SYMBOLS.length * DAYS, seen.size());
+        assertEquals(seen.size(), seen.stream().distinct().count());
+        List<String> sorted = new ArrayList<>(seen);
+        sorted.sort((a, b) -> b.compareTo(a)); // (日期, 代码) 降序
+        assertEquals(sorted, seen);
+
+        // 从第三页向前翻得到第二页
+        StockHistoryPage back = service.findHistoryPage(null, null, StockHistoryCursor.parse(pages.get(2).prevCursor()), 7);
+        assertEquals(pages.get(1).content(), back.content());
+        assertTrue(back.isHasNext());
+        assertTrue(back.isHasPrevious());
+
+        // 从第二页向前翻到开头时返回完整的第一页
+        StockHistoryPage first = service.findHistoryPage(null, null, StockHistoryCursor.parse(back.prevCursor()), 7);
+        assertEquals(pages.get(0).content(), first.content());
+        assertFalse(first.isHasPrevious());
+    }
+
+    @Test
+    @DisplayName("测试2: 末页与单只股票分页")
+    void testLastPageAndSingleSymbol() {
+        StockHistoryPage last = service.findHistoryPage(null, null, StockHistoryCursor.OLDEST, 7);
+        assertEquals(7, last.content().size());
+        assertFalse(last.isHasNext());
+        assertTrue(last.isHasPrevious());
+        assertEquals(LocalDate.of(2024, 1, 1), last.content().get(last.content().size() - 1).getDay());
+
+        StockHistoryPage single = service.findHistoryPage("SZ000001", null, null, 15);
+        assertEquals(15, single.content().size());
+        assertTrue(single.content().stream().allMatch(h -> h.getSymbol().equals("sz000001")));
+        StockHistoryPage rest = service.findHistoryPage("sz000001", StockHistoryCursor.parse(single.nextCursor()), null, 15);
+        assertEquals(DAYS - 15, rest.content().size());
+        assertFalse(rest.isHasNext());
+
+        StockHistoryPage prefix = service.findHistoryPage("6000", null, null, 100);
+        assertEquals(2 * DAYS, prefix.content().size());
+        StockHistoryPage byInitials = service.findHistoryPage("payh", null, null, 100);
+        assertEquals(DAYS, byInitials.content().size());
+        assertTrue(byInitials.content().stream().allMatch(h -> h.getSymbol().equals("sz000001")));
+        StockHistoryPage none = service.findHistoryPage("0001", null, null, 100);
+        assertTrue(none.content().isEmpty());
+        assertFalse(none.isHasNext());
+        assertThrows(IllegalArgumentException.class, () -> StockHistoryCursor.parse("2024-01-01"));
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -97,7 +98,7 @@ class StockHistoryServiceOptimizationTest {
         System.out.println("⏱️ 测试带count查询的性能");
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "day"));
         long startTime = System.nanoTime();
-        Page<StockHistory> withCountResult = stockHistoryRepository.findBySymbolContaining(TEST_SYMBOL, pageable);
+        Page<StockHistory> withCountResult = stockHistoryRepository.findBySymbolIn(List.of(TEST_SYMBOL), pageable);
         long endTime = System.nanoTime();
         long withCountDuration = TimeUnit.NANOSECONDS.toMillis(endTime - startTime);
         System.out.println("   带count查询耗时: " + withCountDuration + "ms, 返回记录数: " + withCountResult.getContent().size());
@@ -105,7 +106,7 @@ class StockHistoryServiceOptimizationTest {
         // 测试无count查询的性能
         System.out.println("⏱️ 测试无count查询的性能");
         startTime = System.nanoTime();
-        Page<StockHistory> withoutCountResult = stockHistoryRepository.findBySymbolContainingWithoutCount(TEST_SYMBOL, pageable);
+        Page<StockHistory> withoutCountResult = stockHistoryRepository.findBySymbolInWithoutCount(List.of(TEST_SYMBOL), pageable);
         endTime = System.nanoTime();
         long withoutCountDuration = TimeUnit.NANOSECONDS.toMillis(endTime - startTime);
         System.out.println("   无count查询耗时: " + withoutCountDuration + "ms, 返回记录数: " + withoutCountResult.getContent().size());
@@ -0,0 +1,155 @@
+package com.example.stock.service;
+
+import com.example.stock.entity.StockHistory;
+import com.example.stock.repository.StockHistoryBatchWriter;
+import com.example.stock.repository.StockHistoryRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 历史数据同步流水线测试类
+ * 验证写入阶段合并多只股票、下游阻塞时的背压以及单只股票出错不影响其他股票
+ */
+@DisplayName("历史数据同步流水线测试")
+class StockHistorySyncPipelineTest {
+
+    @Test
+    @DisplayName("测试1: 写入阶段经合并写入器把多只股票合为少数几次批量插入")
+    void testWriterCoalescesSymbols() {
+        StockHistoryRepository repository = mock(StockHistoryRepository.class);
+        List<Integer> batchRows = new CopyOnWriteArrayList<>();
+        when(repository.batchInsertStockHistory(anyList())).thenAnswer(invocation -> {
+            List<StockHistory> rows = invocation.getArgument(0);
+            batchRows.add(rows.size());
+            return new int[rows.size()];
+        });
+        StockHistoryBatchWriter writer = new StockHistoryBatchWriter(repository, 30, 500);
+        ExecutorService network = Executors.newFixedThreadPool(4);
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        try (StockHistorySyncPipeline pipeline = new StockHistorySyncPipeline(
+                symbol -> fetched(symbol, 3),
+                fetched -> new StockHistorySyncPipeline.Analyzed(fetched.symbol(), fetched.rows(), null, false),
+                analyzed -> writer.submit(analyzed.symbol(), analyzed.newRecords()),
+                network, new StockHistorySyncPipeline.Options(2, 64))) {
+            for (int i = 0; i < 20; i++) {
+                results.add(pipeline.submit("sh6000" + String.format("%02d", i)));
+            }
+            CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+            assertEquals(60, pipeline.getWrittenRows());
+        } finally {
+            network.shutdownNow();
+            writer.close();
+        }
+
+        results.forEach(result -> assertEquals(3, result.join()));
+        // 每批至少30行即10只股票，20只股票最多写入3次（末批可能由等待时间触发）
+        assertEquals(60, batchRows.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchRows.size() <= 3, "应合并写入: " + batchRows);
+    }
+
+    @Test
+    @DisplayName("测试2: 写入阻塞时上游停止拉取")
+    void testBackpressure() throws Exception {
+        CountDownLatch writerReleased = new CountDownLatch(1);
+        AtomicInteger fetchedCount = new AtomicInteger();
+        ExecutorService network = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        try (StockHistorySyncPipeline pipeline = new StockHistorySyncPipeline(
+                symbol -> {
+                    fetchedCount.incrementAndGet();
+                    return fetched(symbol, 1);
+                },
+                fetched -> new StockHistorySyncPipeline.Analyzed(fetched.symbol(), fetched.rows(), null, false),
+                analyzed -> {
+                    // 模拟写入器暂存已满，提交方阻塞
+                    try {
+                        writerReleased.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return CompletableFuture.completedFuture(analyzed.newRecords().size());
+                },
+                network, new StockHistorySyncPipeline.Options(1, 1))) {
+            for (int i = 0; i < 50; i++) {
+                results.add(pipeline.submit("sz0000" + String.format("%02d", i)));
+            }
+            TimeUnit.MILLISECONDS.sleep(300);
+            // 计算线程阻塞在写入上的1只 + 计算队列1只 + 每个网络线程阻塞在put上的1只
+            assertTrue(fetchedCount.get() <= 2 + 8, "拉取数应受队列容量限制: " + fetchedCount.get());
+            assertTrue(results.stream().noneMatch(CompletableFuture::isDone));
+
+            writerReleased.countDown();
+            CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+        } finally {
+            network.shutdownNow();
+        }
+        assertEquals(50, fetchedCount.get());
+    }
+
+    @Test
+    @DisplayName("测试3: 单只股票出错只影响自身结果")
+    void testFailureIsolatedToSymbol() {
+        ExecutorService network = Executors.newFixedThreadPool(2);
+        CompletableFuture<Integer> ok;
+        CompletableFuture<Integer> fetchFailed;
+        CompletableFuture<Integer> analyzeFailed;
+        CompletableFuture<Integer> nothingNew;
+        try (StockHistorySyncPipeline pipeline = new StockHistorySyncPipeline(
+                symbol -> {
+                    if (symbol.equals("sh600001")) {
+                        throw new IllegalStateException("接口超时");
+                    }
+                    return symbol.equals("sh600003") ? null : fetched(symbol, 2);
+                },
+                fetched -> {
+                    if (fetched.symbol().equals("sh600002")) {
+                        throw new IllegalArgumentException("数据异常");
+                    }
+                    return new StockHistorySyncPipeline.Analyzed(fetched.symbol(), fetched.rows(), null, false);
+                },
+                analyzed -> CompletableFuture.completedFuture(analyzed.newRecords().size()),
+                network, new StockHistorySyncPipeline.Options(1, 8))) {
+            ok = pipeline.submit("sh600000");
+            fetchFailed = pipeline.submit("sh600001");
+            analyzeFailed = pipeline.submit("sh600002");
+            nothingNew = pipeline.submit("sh600003");
+            CompletableFuture.allOf(ok, fetchFailed, analyzeFailed, nothingNew).handle((v, e) -> null).join();
+        } finally {
+            network.shutdownNow();
+        }
+
+        assertEquals(2, ok.join());
+        assertEquals(0, nothingNew.join());
+        CompletionException fetchError = assertThrows(CompletionException.class, fetchFailed::join);
+        assertInstanceOf(IllegalStateException.class, fetchError.getCause());
+        CompletionException analyzeError = assertThrows(CompletionException.class, analyzeFailed::join);
+        assertInstanceOf(IllegalArgumentException.class, analyzeError.getCause());
+    }
+
+    private static StockHistorySyncPipeline.Fetched fetched(String symbol, int bars) {
+        List<StockHistory> rows = new ArrayList<>();
+        for (int i = 0; i < bars; i++) {
+            StockHistory history = new StockHistory();
+            history.setSymbol(symbol);
+            history.setDay(LocalDate.of(2024, 1, 2).plusDays(i));
+            rows.add(history);
+        }
+        return new StockHistorySyncPipeline.Fetched(symbol, null, rows);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.stock.service;
+
+import com.example.stock.dto.StockDTO;
+import com.example.stock.entity.StockSymbol;
+import com.example.stock.repository.StockHistoryRepository;
+import com.example.stock.repository.StockSymbolRepository;
+import com.example.stock.service.client.SinaStockClient;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * 股票代码全集刷新测试类
+ * 在内嵌H2上验证只逐条写入新增和改名的代码，其余代码批量更新最近出现日期
+ */
+@DataJpaTest
+@DisplayName("股票代码全集刷新测试")
+class StockSymbolUniverseServiceTest {
+
+    @Autowired
+    private StockSymbolRepository stockSymbolRepository;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("测试1: 新增和改名逐条写入，其余代码批量更新最近出现日期")
+    void testRefreshWritesOnlyChangedSymbols() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        stockSymbolRepository.saveAll(List.of(
+                new StockSymbol("sh600000", "600000", "浦发银行", StockSymbolUniverseService.SOURCE_LISTING, yesterday, yesterday),
+                new StockSymbol("sz000001", "000001", "平安银行", StockSymbolUniverseService.SOURCE_HISTORY, yesterday, yesterday),
+                new StockSymbol("sz000002", "000002", "万科A", StockSymbolUniverseService.SOURCE_LISTING, yesterday, yesterday)));
+
+        SinaStockClient client = mock(SinaStockClient.class);
+        when(client.fetchStocksByPage(anyInt())).thenReturn(new StockDTO[]{
+                stock("sh600000", "浦发银行"), stock("sz000001", "平安银行"), stock("sz000002", "万 科Ａ"),
+                stock("sh688001", "华兴源创")});
+        StockSymbolRepository repository = mock(StockSymbolRepository.class, delegatesTo(stockSymbolRepository));
+        new StockSymbolUniverseService(client, repository, mock(StockHistoryRepository.class)).refresh();
+
+        verify(repository).saveAll(argThat(changed -> {
+            List<String> symbols = ((List<StockSymbol>) changed).stream().map(StockSymbol::getSymbol).toList();
+            return symbols.equals(List.of("sz000002", "sh688001"));
+        }));
+        verify(repository).markListed(List.of("sh600000", "sz000001"), LocalDate.now());
+
+        LocalDate today = LocalDate.now();
+        for (StockSymbol symbol : stockSymbolRepository.findAll()) {
+            assertEquals(today, symbol.getLastSeen(), symbol.getSymbol());
+            assertEquals(StockSymbolUniverseService.SOURCE_LISTING, symbol.getSource(), symbol.getSymbol());
+        }
+        assertEquals("万 科Ａ", stockSymbolRepository.findById("sz000002").orElseThrow().getName());
+        assertEquals(today, stockSymbolRepository.findLatestListingDate());
+    }
+
+    private StockDTO stock(String symbol, String name) {
+        StockDTO dto = new StockDTO();
+        dto.setSymbol(symbol);
+        dto.setCode(symbol.substring(2));
+        dto.setName(name);
+        return dto;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.stock.service;
+
+import com.example.stock.entity.StockSyncCheckpoint;
+import com.example.stock.entity.StockSyncLog;
+import com.example.stock.entity.StockSyncRun;
+import com.example.stock.repository.StockHistoryBatchWriter;
+import com.example.stock.repository.StockHistoryBulkLoader;
+import com.example.stock.repository.StockHistoryPartitionManager;
+import com.example.stock.repository.StockHistoryRepository;
+import com.example.stock.repository.StockIndicatorStateRepository;
+import com.example.stock.repository.StockSyncCheckpointRepository;
+import com.example.stock.repository.StockSyncLogRepository;
+import com.example.stock.repository.StockSyncRunRepository;
+import com.example.stock.service.client.HttpTransportMetrics;
+import com.example.stock.service.client.SinaRateLimiter;
+import com.example.stock.service.client.SinaStockClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 同步检查点续跑测试类
+ * 在内嵌H2（MySQL模式）上模拟进程中途退出后的再次同步：已完成的号段和检查点之前的代码不再请求，
+ * 同步日志经缓冲按多行upsert写入，运行记录最终标记为完成
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:syncrun;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("同步检查点续跑测试")
+class StockSyncResumeTest {
+
+    @Autowired
+    private StockSyncRunRepository runRepository;
+
+    @Autowired
+    private StockSyncCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private StockSyncLogRepository syncLogRepository;
+
+    private SinaStockClient stockClient;
+    private StockSyncRunService syncRunService;
+    private StockHistoryFetchService fetchService;
+
+    @BeforeEach
+    void setUp() {
+        checkpointRepository.deleteAll();
+        runRepository.deleteAll();
+        syncLogRepository.deleteAll();
+
+        stockClient = mock(SinaStockClient.class);
+        when(stockClient.getStockHistoryRows(anyString(), anyInt())).thenReturn(new ArrayList<>());
+        StockSymbolUniverseService universeService = mock(StockSymbolUniverseService.class);
+        when(universeService.refreshAndGetSymbols()).thenReturn(
+                List.of("sh600000", "sh600001", "sh600002", "sh600003", "sh600004", "sh688001", "sz000001"));
+
+        syncRunService = new StockSyncRunService(runRepository, checkpointRepository, 2, 24);
+        fetchService = new StockHistoryFetchService(stockClient, mock(StockHistoryRepository.class),
+                new StockSyncStateStore(syncLogRepository, 3),
+                mock(KLineAnalysisService.class), Runnable::run, Runnable::run, mock(SinaRateLimiter.class),
+                mock(HttpTransportMetrics.class), universeService, mock(StockIndicatorStateRepository.class),
+                mock(ApplicationEventPublisher.class), syncRunService,
+                new StockHistorySyncPipeline.Options(1, 4), mock(StockHistoryBatchWriter.class),
+                mock(StockHistoryBulkLoader.class), mock(StockHistoryPartitionManager.class));
+    }
+
+    @Test
+    @DisplayName("测试1: 从中断运行的检查点续跑")
+    void testResumeFromCheckpoint() {
+        // 模拟上次运行：沪市主板完成到sh600001后进程退出，科创板已完成
+        StockSyncRunService.SyncRun crashed = syncRunService.startOrResume();
+        syncRunService.checkpoint(crashed, "600-605", "sh600001", false, 2, 0, 0);
+        syncRunService.checkpoint(crashed, "688", "sh688001", true, 1, 0, 0);
+
+        fetchService.fetchAllStockHistory();
+
+        verify(stockClient, never()).getStockHistoryRows(eq("sh600000"), anyInt());
+        verify(stockClient, never()).getStockHistoryRows(eq("sh600001"), anyInt());
+        verify(stockClient, never()).getStockHistoryRows(eq("sh688001"), anyInt());
+        for (String symbol : List.of("sh600002", "sh600003", "sh600004", "sz000001")) {
+            verify(stockClient).getStockHistoryRows(eq(symbol), anyInt());
+            assertEquals(LocalDate.now(), syncLogRepository.findBySymbol(symbol).map(StockSyncLog::getSyncDate).orElse(null));
+        }
+
+        List<StockSyncRun> runs = runRepository.findAll();
+        assertEquals(1, runs.size());
+        StockSyncRun run = runs.get(0);
+        assertEquals(StockSyncRun.STATUS_COMPLETED, run.getStatus());
+        assertEquals(1, run.getResumeCount());
+        assertEquals(7, run.getProcessedCount() + run.getSkippedCount());
+        List<StockSyncCheckpoint> checkpoints = checkpointRepository.findByRunId(run.getId());
+        assertEquals(5, checkpoints.size());
+        assertTrue(checkpoints.stream().allMatch(StockSyncCheckpoint::isCompleted));
+    }
+
+    @Test
+    @DisplayName("测试2: 过期的未完成运行不再续跑，已同步股票按同步日志跳过")
+    void testStaleRunAbandoned() {
+        StockSyncRunService.SyncRun stale = syncRunService.startOrResume();
+        syncRunService.checkpoint(stale, "600-605", "sh600004", true, 5, 0, 0);
+        stale.record().setStartedAt(LocalDateTime.now().minusDays(2));
+        runRepository.save(stale.record());
+        syncLogRepository.batchUpsertSyncDate(List.of("sh600000", "sz000001"), LocalDate.now());
+
+        fetchService.fetchAllStockHistory();
+
+        assertEquals(StockSyncRun.STATUS_ABANDONED, runRepository.findById(stale.record().getId()).orElseThrow().getStatus());
+        verify(stockClient, never()).getStockHistoryRows(eq("sh600000"), anyInt());
+        verify(stockClient, never()).getStockHistoryRows(eq("sz000001"), anyInt());
+        verify(stockClient).getStockHistoryRows(eq("sh600001"), anyInt());
+        assertEquals(2, runRepository.count());
+        assertEquals(1, runRepository.findByStatusInOrderByIdDesc(List.of(StockSyncRun.STATUS_COMPLETED)).size());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.stock.service;
+
+import com.example.stock.entity.StockSyncLog;
+import com.example.stock.repository.StockSyncLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 同步状态存储测试类
+ * 验证读缓存只查询未知股票、写缓冲按条数触发写入、写入失败时记录保留
+ */
+@DisplayName("同步状态存储测试")
+class StockSyncStateStoreTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 28);
+
+    private StockSyncLogRepository repository;
+    private StockSyncStateStore store;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(StockSyncLogRepository.class);
+        store = new StockSyncStateStore(repository, 3);
+    }
+
+    @Test
+    @DisplayName("测试1: 缓存命中的股票不再查询数据库")
+    void testReadThroughCache() {
+        when(repository.findAllById(any())).thenReturn(List.of(
+                new StockSyncLog("sh600000", TODAY), new StockSyncLog("sh600001", TODAY.minusDays(1))));
+
+        assertEquals(Set.of("sh600000"), store.findSyncedSince(List.of("sh600000", "sh600001", "sh600002"), TODAY));
+        assertEquals(3, store.getCacheMisses());
+
+        store.record("sh600001", TODAY);
+        assertEquals(Set.of("sh600000", "sh600001"), store.findSyncedSince(List.of("sh600000", "sh600001"), TODAY));
+        assertEquals(2, store.getCacheHits());
+        verify(repository, times(1)).findAllById(any());
+        // 没有同步日志的股票仍需查询
+        store.findSyncedSince(List.of("sh600002"), TODAY);
+        verify(repository, times(2)).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("测试2: 缓冲区满时按同步日期分组批量写入")
+    @SuppressWarnings("unchecked")
+    void testFlushOnSize() {
+        store.record("sh600000", TODAY);
+        store.record("sh600001", TODAY);
+        verify(repository, never()).batchUpsertSyncDate(any(), any());
+        assertEquals(2, store.getPendingCount());
+
+        store.record("sh600002", TODAY.minusDays(1));
+        verify(repository).batchUpsertSyncDate(argThat((Collection<String> symbols) ->
+                symbols.size() == 2 && symbols.containsAll(List.of("sh600000", "sh600001"))), eq(TODAY));
+        verify(repository).batchUpsertSyncDate(eq(List.of("sh600002")), eq(TODAY.minusDays(1)));
+        assertEquals(0, store.getPendingCount());
+        assertEquals(0, store.flush());
+    }
+
+    @Test
+    @DisplayName("测试3: 写入失败时记录放回缓冲区，关闭时写出")
+    void testFailedFlushRetained() {
+        when(repository.batchUpsertSyncDate(any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("连接断开"))
+                .thenReturn(2);
+        store.record("sh600000", TODAY);
+        store.record("sh600001", TODAY);
+
+        store.scheduledFlush(); // 定时写入失败只记录日志
+        assertEquals(2, store.getPendingCount());
+
+        store.flushOnShutdown();
+        assertEquals(0, store.getPendingCount());
+        verify(repository, times(2)).batchUpsertSyncDate(any(), eq(TODAY));
+    }
+}
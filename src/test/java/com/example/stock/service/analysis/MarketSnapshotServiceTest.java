@@ -0,0 +1,96 @@
+package com.example.stock.service.analysis;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内存行情快照服务测试类
+ * 使用H2内存库验证快照的全量构建、回看窗口和增量刷新
+ */
+@DisplayName("内存行情快照服务测试")
+class MarketSnapshotServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private MarketSnapshotService service;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:snapshot" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+                CREATE TABLE stock_history (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    symbol VARCHAR(20) NOT NULL,
+                    trade_date DATE NOT NULL,
+                    open DOUBLE, high DOUBLE, low DOUBLE, close DOUBLE, volume BIGINT,
+                    ma_price5 DOUBLE, ma_price10 DOUBLE, ma_price30 DOUBLE)
+                """);
+        service = new MarketSnapshotService(jdbcTemplate, 100, 50);
+        today = LocalDate.now();
+    }
+
+    @Test
+    @DisplayName("测试1: 全量构建只保留回看窗口和最大K线数")
+    void testRebuild() {
+        for (int i = 200; i >= 0; i--) {
+            insert("sh600000", today.minusDays(i), 10 + i * 0.01);
+        }
+        insert("sz000001", today.minusDays(1), 8.0);
+        insert("sz000001", today.minusDays(300), 7.0);
+
+        MarketSnapshot snapshot = service.getSnapshot();
+
+        assertEquals(2, snapshot.getSymbolCount());
+        assertEquals(today, snapshot.getLatestTradeDate());
+        PriceSeries series = snapshot.getSeries("sh600000");
+        assertEquals(50, series.size());
+        assertEquals(today, series.day(series.lastIndex()));
+        assertEquals(today.minusDays(49), series.day(0));
+        assertEquals(1, snapshot.getSeries("sz000001").size());
+        assertSame(snapshot, service.getSnapshot());
+    }
+
+    @Test
+    @DisplayName("测试2: 增量刷新追加新K线并加载新股票，旧快照不变")
+    void testRefresh() {
+        insert("sh600000", today.minusDays(2), 10.0);
+        insert("sh600000", today.minusDays(1), 10.5);
+        MarketSnapshot before = service.getSnapshot();
+
+        insert("sh600000", today, 11.0);
+        insert("sh600000", today.minusDays(1), 99.0); // 已有日期的重复行被忽略
+        insert("sz300750", today.minusDays(3), 200.0);
+        insert("sz300750", today, 210.0);
+
+        MarketSnapshot after = service.refresh();
+
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(2, before.getSeries("sh600000").size());
+        PriceSeries series = after.getSeries("sh600000");
+        assertEquals(3, series.size());
+        assertEquals(11.0, series.close(2));
+        assertEquals(10.5, series.close(1));
+        assertEquals(2, after.getSeries("sz300750").size());
+        assertEquals(today, after.getLatestTradeDate());
+        assertEquals(after.getMaxRowId(), service.getWatermark(), "水位与快照刷新水位一致");
+
+        assertSame(after, service.refresh());
+    }
+
+    private void insert(String symbol, LocalDate day, double close) {
+        jdbcTemplate.update("""
+                INSERT INTO stock_history (symbol, trade_date, open, high, low, close, volume, ma_price5, ma_price10, ma_price30)
+                VALUES (?, ?, ?, ?, ?, ?, ?, 0, 0, 0)
+                """, symbol, Date.valueOf(day), close, close * 1.01, close * 0.99, close, 1000L);
+    }
+}
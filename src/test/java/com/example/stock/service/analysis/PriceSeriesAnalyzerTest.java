@@ -0,0 +1,168 @@
+package com.example.stock.service.analysis;
+
+import com.example.stock.entity.StockHistory;
+import com.example.stock.service.KLineAnalysisService;
+import com.example.stock.service.KLineIndicatorState;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 列式价格序列及指标计算测试类
+ * 验证PriceSeries的构建与PriceSeriesAnalyzer的指标与实体路径计算结果一致
+ */
+@DisplayName("列式价格序列指标计算测试")
+class PriceSeriesAnalyzerTest {
+
+    private static final double DELTA = 1e-6;
+
+    @Test
+    @DisplayName("测试1: 由乱序实体构建序列并按日期升序")
+    void testFromHistories() {
+        List<StockHistory> histories = randomHistories(50, 1);
+        List<StockHistory> shuffled = new ArrayList<>(histories);
+        Collections.shuffle(shuffled, new Random(3));
+
+        PriceSeries series = PriceSeries.fromHistories("sh600000", shuffled);
+
+        assertEquals(50, series.size());
+        assertEquals("sh600000", series.getSymbol());
+        for (int i = 0; i < series.size(); i++) {
+            StockHistory history = histories.get(i);
+            assertEquals(history.getDay(), series.day(i));
+            assertEquals(history.getClose(), series.close(i));
+            assertEquals(history.getVolume(), series.volume(i));
+        }
+        assertEquals(10, series.indexOnOrAfter(histories.get(10).getDay()));
+        assertEquals(0, series.indexOnOrAfter(LocalDate.of(2000, 1, 1)));
+        assertEquals(50, series.indexOnOrAfter(LocalDate.of(2100, 1, 1)));
+
+        series.retainLast(20);
+        assertEquals(20, series.size());
+        assertEquals(histories.get(30).getDay(), series.day(0));
+        assertEquals(histories.get(49).getClose(), series.close(series.lastIndex()));
+    }
+
+    @Test
+    @DisplayName("测试2: MACD、RSI、布林带与增量实体路径一致")
+    void testMatchesEntityPath() {
+        List<StockHistory> histories = randomHistories(150, 42);
+        PriceSeries series = PriceSeries.fromHistories("sh600000", histories);
+        int n = series.size();
+
+        double[] dif = new double[n];
+        double[] dea = new double[n];
+        double[] bar = new double[n];
+        double[] rsi6 = new double[n];
+        double[] rsi24 = new double[n];
+        double[] middle = new double[n];
+        double[] upper = new double[n];
+        double[] lower = new double[n];
+        PriceSeriesAnalyzer.macd(series.closes(), n, dif, dea, bar);
+        PriceSeriesAnalyzer.rsi(series.closes(), n, 6, rsi6);
+        PriceSeriesAnalyzer.rsi(series.closes(), n, 24, rsi24);
+        PriceSeriesAnalyzer.boll(series.closes(), n, 20, 2.0, middle, upper, lower);
+
+        KLineAnalysisService service = new KLineAnalysisService();
+        KLineIndicatorState state = new KLineIndicatorState();
+        for (int i = 0; i < n; i++) {
+            StockHistory history = histories.get(i);
+            service.analyzeKLineIncremental(history, state);
+
+            assertNullable(history.getMacdDif(), dif[i]);
+            assertNullable(history.getMacdDea(), dea[i]);
+            assertNullable(history.getMacdBar(), bar[i]);
+            assertNullable(history.getRsi6(), rsi6[i]);
+            assertNullable(history.getRsi24(), rsi24[i]);
+            assertNullable(history.getBollMiddle(), middle[i]);
+            assertNullable(history.getBollUpper(), upper[i]);
+            assertNullable(history.getBollLower(), lower[i]);
+            assertEquals(history.getConsecutiveRiseDays(),
+                    i < 2 ? 0 : PriceSeriesAnalyzer.consecutiveDays(series.closes(), i));
+        }
+    }
+
+    @Test
+    @DisplayName("测试3: 滚动最值、均线与区间统计")
+    void testRollingAndRange() {
+        PriceSeries series = PriceSeries.fromHistories("sz000001", randomHistories(200, 9));
+        int n = series.size();
+        double[] highs = series.highs();
+
+        double[] rollingMax = new double[n];
+        double[] rollingMin = new double[n];
+        double[] sma = new double[n];
+        int[] deque = new int[n];
+        PriceSeriesAnalyzer.rollingMax(highs, n, 20, rollingMax, deque);
+        PriceSeriesAnalyzer.rollingMin(series.lows(), n, 20, rollingMin, deque);
+        PriceSeriesAnalyzer.sma(series.closes(), n, 5, sma);
+
+        for (int i = 0; i < n; i++) {
+            int from = Math.max(0, i - 19);
+            assertEquals(PriceSeriesAnalyzer.max(highs, from, i + 1), rollingMax[i]);
+            assertEquals(PriceSeriesAnalyzer.min(series.lows(), from, i + 1), rollingMin[i]);
+            if (i < 4) {
+                assertTrue(Double.isNaN(sma[i]));
+            } else {
+                assertEquals(PriceSeriesAnalyzer.average(series.closes(), i - 4, i + 1), sma[i], DELTA);
+            }
+        }
+
+        assertTrue(Double.isNaN(PriceSeriesAnalyzer.max(highs, 5, 5)));
+        int rise = 0;
+        for (int i = n - 10; i < n; i++) {
+            rise += series.close(i) > series.open(i) ? 1 : 0;
+        }
+        assertEquals(rise, PriceSeriesAnalyzer.countRiseDays(series, n - 10, n));
+        assertEquals(0, PriceSeriesAnalyzer.countWideRangeDays(series, 0, n, 50));
+    }
+
+    @Test
+    @DisplayName("测试4: 均线上穿下穿判断")
+    void testCross() {
+        double[] fast = {9.0, 9.5, 10.2, 10.1, 9.8};
+        double[] slow = {10.0, 10.0, 10.0, 10.0, 10.0};
+
+        assertFalse(PriceSeriesAnalyzer.isCrossUp(fast, slow, 0));
+        assertFalse(PriceSeriesAnalyzer.isCrossUp(fast, slow, 1));
+        assertTrue(PriceSeriesAnalyzer.isCrossUp(fast, slow, 2));
+        assertFalse(PriceSeriesAnalyzer.isCrossUp(fast, slow, 3));
+        assertTrue(PriceSeriesAnalyzer.isCrossDown(fast, slow, 4));
+    }
+
+    private static void assertNullable(Double expected, double actual) {
+        if (expected == null) {
+            assertTrue(Double.isNaN(actual));
+        } else {
+            assertEquals(expected, actual, DELTA);
+        }
+    }
+
+    private static List<StockHistory> randomHistories(int count, long seed) {
+        Random random = new Random(seed);
+        List<StockHistory> histories = new ArrayList<>();
+        double close = 20;
+        LocalDate day = LocalDate.of(2022, 1, 3);
+        for (int i = 0; i < count; i++) {
+            double open = close;
+            close = Math.max(1, Math.round(close * (1 + (random.nextDouble() - 0.5) * 0.06) * 100) / 100.0);
+            StockHistory history = new StockHistory();
+            history.setSymbol("sh600000");
+            history.setDay(day.plusDays(i));
+            history.setOpen(open);
+            history.setClose(close);
+            history.setHigh(Math.max(open, close) + random.nextInt(30) / 100.0);
+            history.setLow(Math.min(open, close) - random.nextInt(30) / 100.0);
+            history.setVolume(500_000L + random.nextInt(1_000_000));
+            histories.add(history);
+        }
+        return histories;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.stock.service.client;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+import com.example.stock.dto.StockHistoryDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 新浪K线流式解析器测试类
+ * 验证流式解析结果与Fastjson解析结果一致，以及各种边界格式
+ */
+@DisplayName("新浪K线流式解析器测试")
+class SinaKLineParserTest {
+
+    private static final String SAMPLE = """
+            [{"day":"2024-01-02","open":"10.110","high":"10.500","low":"9.980","close":"10.320","volume":"58387902",\
+            "ma_price5":10.822,"ma_volume5":60123456,"ma_price10":10.78,"ma_volume10":59876543,"ma_price30":10.72,"ma_volume30":58987654},
+            {"day":"2024-01-03","open":"10.320","high":"10.330","low":"10.010","close":"10.050","volume":"41234567"}]
+            """;
+
+    @Test
+    @DisplayName("测试1: 流式解析结果与Fastjson解析一致")
+    void testMatchesFastjson() throws IOException {
+        List<StockHistoryDTO> expected = JSON.parseObject(SAMPLE, new TypeReference<List<StockHistoryDTO>>() {});
+        List<double[]> prices = new ArrayList<>();
+        List<long[]> volumes = new ArrayList<>();
+        List<LocalDate> days = new ArrayList<>();
+
+        int count = parser(SAMPLE).parse(bar -> {
+            days.add(bar.day);
+            prices.add(new double[]{bar.open, bar.high, bar.low, bar.close, bar.maPrice5, bar.maPrice10, bar.maPrice30});
+            volumes.add(new long[]{bar.volume, bar.maVolume5, bar.maVolume10, bar.maVolume30});
+        });
+
+        assertEquals(expected.size(), count);
+        for (int i = 0; i < count; i++) {
+            StockHistoryDTO dto = expected.get(i);
+            assertEquals(dto.getDay(), days.get(i));
+            assertArrayEquals(new double[]{dto.getOpen(), dto.getHigh(), dto.getLow(), dto.getClose(),
+                    dto.getMaPrice5(), dto.getMaPrice10(), dto.getMaPrice30()}, prices.get(i));
+            assertArrayEquals(new long[]{dto.getVolume(), dto.getMaVolume5(), dto.getMaVolume10(), dto.getMaVolume30()},
+                    volumes.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("测试2: 无效symbol返回null时解析为空")
+    void testNullResponse() throws IOException {
+        assertEquals(0, parser("null").parse(bar -> fail("不应回调")));
+        assertEquals(0, parser("  ").parse(bar -> fail("不应回调")));
+        assertEquals(0, parser("[]").parse(bar -> fail("不应回调")));
+    }
+
+    @Test
+    @DisplayName("测试3: 兼容无引号字段名、null值和小数成交量")
+    void testLenientFormat() throws IOException {
+        List<Long> volumes = new ArrayList<>();
+        List<Double> closes = new ArrayList<>();
+        int count = parser("[{day:\"2024-05-06\",close:12.5,volume:\"1200.00\",ma_price5:null}]").parse(bar -> {
+            volumes.add(bar.volume);
+            closes.add(bar.close);
+            assertEquals(0, bar.maPrice5);
+        });
+
+        assertEquals(1, count);
+        assertEquals(1200L, volumes.get(0));
+        assertEquals(12.5, closes.get(0));
+    }
+
+    @Test
+    @DisplayName("测试4: 跨越读缓冲区边界的大响应")
+    void testLargeResponse() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        LocalDate day = LocalDate.of(2000, 1, 3);
+        for (int i = 0; i < 5000; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"day\":\"").append(day.plusDays(i)).append("\",\"close\":\"")
+                    .append(i).append(".125\",\"volume\":\"").append(i * 100L).append("\"}");
+        }
+        json.append(']');
+
+        long[] sum = new long[1];
+        int count = parser(json.toString()).parse(bar -> {
+            assertEquals(bar.volume / 100 + 0.125, bar.close);
+            sum[0] += bar.volume;
+        });
+
+        assertEquals(5000, count);
+        assertEquals(100L * 4999 * 5000 / 2, sum[0]);
+    }
+
+    @Test
+    @DisplayName("测试5: 格式非法时抛出IOException")
+    void testMalformed() {
+        assertThrows(IOException.class, () -> parser("{\"day\":1}").parse(bar -> { }));
+        assertThrows(IOException.class, () -> parser("[{\"day\":\"2024-01-02\"").parse(bar -> { }));
+    }
+
+    private SinaKLineParser parser(String json) {
+        InputStream in = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+        return new SinaKLineParser(in);
+    }
+}
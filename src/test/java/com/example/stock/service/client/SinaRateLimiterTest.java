@@ -0,0 +1,79 @@
+package com.example.stock.service.client;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 新浪接口限流器测试类
+ * 验证令牌桶速率控制和单主机并发上限
+ */
+@DisplayName("新浪接口限流器测试")
+class SinaRateLimiterTest {
+
+    private static final String URL = "https://money.finance.sina.com.cn/quotes_service/api/json_v2.php";
+
+    @Test
+    @DisplayName("测试1: 令牌耗尽后按速率放行")
+    void testTokenBucketRate() {
+        // 每秒20个令牌，突发容量1：第1次立即放行，其后每次间隔约50ms
+        SinaRateLimiter limiter = new SinaRateLimiter(20, 1, 4);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 11; i++) {
+            limiter.execute(URL, () -> null);
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMs >= 450, "10个额外令牌至少需要约500ms, 实际: " + elapsedMs + "ms");
+        assertEquals(11, limiter.getAcquiredCount());
+    }
+
+    @Test
+    @DisplayName("测试2: 同一主机并发请求不超过上限")
+    void testPerHostConcurrencyCap() throws Exception {
+        SinaRateLimiter limiter = new SinaRateLimiter(1000, 1000, 2);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                futures.add(pool.submit(() -> limiter.execute(URL, () -> {
+                    int current = inFlight.incrementAndGet();
+                    maxInFlight.accumulateAndGet(current, Math::max);
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    inFlight.decrementAndGet();
+                    return null;
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertTrue(maxInFlight.get() <= 2, "同一主机同时进行中的请求数不应超过2, 实际: " + maxInFlight.get());
+    }
+
+    @Test
+    @DisplayName("测试3: 非法参数被拒绝")
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new SinaRateLimiter(0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new SinaRateLimiter(1, 1, 0));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.stock.service.client.stub;
+
+import com.example.stock.dto.StockDTO;
+import com.example.stock.entity.StockHistory;
+import com.example.stock.service.client.SinaRateLimiter;
+import com.example.stock.service.client.SinaStockClient;
+import com.example.stock.service.synthetic.SyntheticMarketGenerator;
+import com.example.stock.service.synthetic.SyntheticMarketSpec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 新浪接口替身服务测试类
+ * 通过可配置地址的SinaStockClient访问替身服务，验证K线与行情列表响应、录制数据回放以及故障注入
+ */
+@DisplayName("新浪接口替身服务测试")
+class SinaStubServerTest {
+
+    private static final SyntheticMarketSpec SPEC = new SyntheticMarketSpec(250, 2, 11L, LocalDate.now());
+
+    @Test
+    @DisplayName("测试1: 历史K线按datalen截取合成行情的最新部分，行情列表按页返回")
+    void testServesSyntheticData() throws Exception {
+        try (SinaStubServer stub = SinaStubServer.start(0, new SyntheticSinaData(SPEC), SinaStubOptions.none())) {
+            SinaStockClient client = client(stub);
+            List<StockHistory> expected = new SyntheticMarketGenerator(SPEC).generate(0);
+
+            List<StockHistory> rows = client.getStockHistoryRows(SyntheticMarketGenerator.symbol(0), 20);
+            assertEquals(20, rows.size());
+            StockHistory last = expected.get(expected.size() - 1);
+            assertEquals(last.getDay(), rows.get(19).getDay());
+            assertEquals(last.getClose(), rows.get(19).getClose(), 1e-9);
+            assertEquals(last.getMaPrice30(), rows.get(19).getMaPrice30(), 1e-9);
+            assertEquals(expected.size(), client.getStockHistory(SyntheticMarketGenerator.symbol(0)).size());
+            assertTrue(client.getStockHistoryRows("sh699999", 20).isEmpty(), "未知代码返回null");
+
+            StockDTO[] first = client.fetchStocksByPage(1);
+            StockDTO[] third = client.fetchStocksByPage(3);
+            assertEquals(100, first.length);
+            assertEquals(50, third.length);
+            assertEquals(0, client.fetchStocksByPage(4).length);
+            assertTrue(first[0].getSymbol().compareTo(first[99].getSymbol()) < 0);
+            assertNotNull(first[0].getTradePrice());
+            assertEquals(6, stub.getRequestCount());
+        }
+    }
+
+    @Test
+    @DisplayName("测试2: 录制目录中的原始响应按文件名回放")
+    void testServesRecordedData(@TempDir Path directory) throws Exception {
+        List<StockHistory> recorded = new SyntheticMarketGenerator(SPEC).generate(1);
+        String symbol = SyntheticMarketGenerator.symbol(1);
+        Files.writeString(directory.resolve(symbol + ".json"), SinaStubResponses.kLineJson(recorded));
+
+        try (SinaStubServer stub = SinaStubServer.start(0, new RecordedSinaData(directory), SinaStubOptions.none())) {
+            SinaStockClient client = client(stub);
+            List<StockHistory> rows = client.getStockHistoryRows(symbol, 70000);
+            assertEquals(recorded.size(), rows.size());
+            assertEquals(recorded.get(0).getDay(), rows.get(0).getDay());
+            assertEquals(1, client.fetchStocksByPage(1).length);
+        }
+    }
+
+    @Test
+    @DisplayName("测试3: 超过每秒请求上限时返回456，客户端按失败处理")
+    void testThrottlingAndLatency() throws Exception {
+        SinaStubOptions options = new SinaStubOptions(20, 0, 0, 0, 2, 1L);
+        try (SinaStubServer stub = SinaStubServer.start(0, new SyntheticSinaData(SPEC), options)) {
+            SinaStockClient client = client(stub);
+            long start = System.nanoTime();
+            int empty = 0;
+            for (int i = 0; i < 5; i++) {
+                if (client.getStockHistoryRows(SyntheticMarketGenerator.symbol(i), 10).isEmpty()) {
+                    empty++;
+                }
+            }
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(5, stub.getRequestCount());
+            assertEquals(empty, stub.getThrottledCount());
+            assertTrue(empty >= 1, "5次请求中至少有一次超出每秒2次的上限");
+            assertTrue(elapsedMillis >= 100, "每次响应至少延迟20ms");
+        }
+
+        SinaStubOptions failing = new SinaStubOptions(0, 0, 1, 0, 0, 1L);
+        try (SinaStubServer stub = SinaStubServer.start(0, new SyntheticSinaData(SPEC), failing)) {
+            assertTrue(client(stub).getStockHistoryRows(SyntheticMarketGenerator.symbol(0), 10).isEmpty());
+            assertEquals(1, stub.getErrorCount());
+        }
+    }
+
+    private static SinaStockClient client(SinaStubServer stub) {
+        return new SinaStockClient(new RestTemplate(), new SinaRateLimiter(1000, 1000, 8),
+                stub.getHqNodeUrl(), stub.getKLineUrl());
+    }
+}
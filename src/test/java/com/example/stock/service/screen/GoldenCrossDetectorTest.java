@@ -0,0 +1,97 @@
+package com.example.stock.service.screen;
+
+import com.example.stock.service.analysis.MarketSnapshotService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 均线金叉检测测试类
+ * 使用H2内存库验证集合查询与内存快照两种路径结果一致，包括停牌股票和不同均线组合
+ */
+@DisplayName("均线金叉检测测试")
+class GoldenCrossDetectorTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private GoldenCrossDetector detector;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:cross" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+                CREATE TABLE stock_history (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    symbol VARCHAR(20) NOT NULL,
+                    trade_date DATE NOT NULL,
+                    open DOUBLE, high DOUBLE, low DOUBLE, close DOUBLE, volume BIGINT,
+                    ma_price5 DOUBLE, ma_price10 DOUBLE, ma_price30 DOUBLE)
+                """);
+        detector = new GoldenCrossDetector(new MarketSnapshotService(jdbcTemplate, 400, 300), jdbcTemplate);
+        today = LocalDate.now();
+
+        // sh600000: 第3天5日均线上穿10日均线
+        insert("sh600000", 5, 9.0, 10.0, 11.0);
+        insert("sh600000", 4, 9.5, 10.0, 11.0);
+        insert("sh600000", 3, 10.5, 10.0, 11.0);
+        insert("sh600000", 2, 10.8, 10.2, 11.0);
+        // sz000001: 第5天后停牌，第1天复牌即金叉，前一根K线在区间之外
+        insert("sz000001", 5, 9.0, 10.0, 9.5);
+        insert("sz000001", 1, 10.5, 10.0, 9.5);
+        // sz300750: 10日均线在第2天上穿30日均线
+        insert("sz300750", 3, 12.0, 9.0, 10.0);
+        insert("sz300750", 2, 12.0, 11.0, 10.0);
+    }
+
+    @Test
+    @DisplayName("测试1: 集合查询解析停牌股票的前一根K线")
+    void testDatabaseQuery() {
+        List<GoldenCross> crosses = detector.queryDatabase(MaPair.MA5_MA10, today.minusDays(3), today);
+
+        assertEquals(2, crosses.size());
+        assertEquals("sh600000", crosses.get(0).symbol());
+        assertEquals(today.minusDays(3), crosses.get(0).tradeDate());
+        assertEquals("sz000001", crosses.get(1).symbol());
+        assertEquals(today.minusDays(1), crosses.get(1).tradeDate());
+    }
+
+    @Test
+    @DisplayName("测试2: 内存快照路径与集合查询结果一致")
+    void testSnapshotMatchesDatabase() {
+        for (MaPair pair : MaPair.values()) {
+            List<GoldenCross> fromSnapshot = detector.detect(pair, today.minusDays(4), today);
+            List<GoldenCross> fromDatabase = detector.queryDatabase(pair, today.minusDays(4), today);
+            assertEquals(fromDatabase, fromSnapshot, pair.name());
+        }
+        List<GoldenCross> ma10Ma30 = detector.detect(MaPair.MA10_MA30, today.minusDays(4), today);
+        assertEquals(1, ma10Ma30.size());
+        assertEquals("sz300750", ma10Ma30.get(0).symbol());
+    }
+
+    @Test
+    @DisplayName("测试3: 单日检测默认取最新交易日")
+    void testDefaultsToLatestTradeDate() {
+        List<GoldenCross> crosses = detector.detect(MaPair.MA5_MA10, null, null);
+
+        assertEquals(1, crosses.size());
+        assertEquals("sz000001", crosses.get(0).symbol());
+        assertEquals(10.0, crosses.get(0).close(), 1e-9);
+    }
+
+    private void insert(String symbol, int daysAgo, double ma5, double ma10, double ma30) {
+        jdbcTemplate.update("""
+                INSERT INTO stock_history (symbol, trade_date, open, high, low, close, volume,
+                    ma_price5, ma_price10, ma_price30) VALUES (?, ?, 10, 10, 10, 10, 1000, ?, ?, ?)
+                """, symbol, Date.valueOf(today.minusDays(daysAgo)), ma5, ma10, ma30);
+    }
+}
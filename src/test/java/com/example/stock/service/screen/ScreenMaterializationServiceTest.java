@@ -0,0 +1,170 @@
+package com.example.stock.service.screen;
+
+import com.example.stock.dto.StockAnalysisDTO;
+import com.example.stock.repository.ScreenResultRepository;
+import com.example.stock.service.analysis.MarketSnapshot;
+import com.example.stock.service.analysis.MarketSnapshotService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * 每日筛选结果落表测试类
+ * 在内嵌H2上验证按交易日替换写入、过期结果清理、读取时按股票合并条件，以及只在落表结果基于当前数据水位时读表
+ */
+@DataJpaTest
+@DisplayName("每日筛选结果落表测试")
+class ScreenMaterializationServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 6, 3);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ScreenResultRepository screenResultRepository;
+
+    private ScreeningEngine screeningEngine;
+    private MarketSnapshotService marketSnapshotService;
+    private ScreenMaterializationService service;
+    private final Map<ScreeningCondition, Map<String, StockAnalysisDTO>> screened = new EnumMap<>(ScreeningCondition.class);
+
+    @BeforeEach
+    void setUp() {
+        screeningEngine = mock(ScreeningEngine.class);
+        marketSnapshotService = mock(MarketSnapshotService.class);
+        service = new ScreenMaterializationService(jdbcTemplate, new TransactionTemplate(transactionManager),
+                screenResultRepository, screeningEngine, marketSnapshotService, true, 30);
+        when(screeningEngine.screenRows(anyCollection(), any())).thenReturn(new ArrayList<>());
+    }
+
+    @Test
+    @DisplayName("测试1: 一次筛选全部条件，每个命中条件落一行，读取时同一股票合并为一行")
+    void testMaterializeAndRead() {
+        snapshotAt(DAY);
+        screens(ScreeningCondition.BELOW_HISTORICAL_HIGH, Map.of(
+                "sh600000", dto("sh600000", 8.0, 12.0, 33.3, "低于历史最高值25.0%以上")));
+        screens(ScreeningCondition.VOLUME_SURGE, Map.of(
+                "sh600000", dto("sh600000", 8.0, null, null, "成交量放大"),
+                "sz000001", dto("sz000001", 15.0, null, null, "成交量放大")));
+
+        assertEquals(DAY, service.materialize());
+        verify(screeningEngine, times(1)).screenRows(
+                argThat(codes -> codes.size() == ScreeningCondition.values().length), eq(ScreeningParams.defaults()));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM screen_result", Integer.class));
+
+        List<StockAnalysisDTO> all = service.findByDate(DAY, List.of("volume_surge", "below_75_percent", "unknown"));
+        assertEquals(2, all.size());
+        StockAnalysisDTO first = all.get(0);
+        assertEquals("sh600000", first.getSymbol());
+        assertEquals(List.of("低于历史最高值25.0%以上", "成交量放大"), first.getMatchedConditions(),
+                "按条件枚举顺序合并");
+        assertEquals(12.0, first.getHistoricalHigh());
+        assertEquals(33.3, first.getDropPercentage());
+        assertEquals("sz000001", all.get(1).getSymbol());
+
+        assertEquals(1, service.findByDate(DAY, List.of("below_75_percent")).size());
+        assertEquals(List.of(), service.findByDate(DAY.minusDays(1), List.of("below_75_percent")));
+        assertEquals(List.of(DAY), service.findTradeDates());
+    }
+
+    @Test
+    @DisplayName("测试2: 同一交易日重复落表时整日替换，超出保留天数的结果被清理")
+    void testReplaceAndRetention() {
+        LocalDate old = DAY.minusDays(40);
+        snapshotAt(old);
+        screens(ScreeningCondition.CONTINUOUS_RISE, Map.of("sh600000", dto("sh600000", 10.0, null, null, "连续上涨")));
+        service.materialize();
+
+        snapshotAt(DAY);
+        service.materialize();
+        screens(ScreeningCondition.CONTINUOUS_RISE, Map.of("sz000001", dto("sz000001", 11.0, null, null, "连续上涨")));
+        service.materialize();
+
+        assertEquals(List.of(DAY), service.findTradeDates(), "40天前的结果超出30天保留期");
+        List<StockAnalysisDTO> results = service.findByDate(DAY, List.of("continuous_rise"));
+        assertEquals(1, results.size());
+        assertEquals("sz000001", results.get(0).getSymbol());
+    }
+
+    @Test
+    @DisplayName("测试3: 只有落表所基于的数据水位不低于当前水位时才读表")
+    void testFindLatest() {
+        snapshotAt(DAY, 100);
+        screens(ScreeningCondition.NEAR_YEAR_HIGH, Map.of("sh600000", dto("sh600000", 10.0, 10.2, null, "接近52周新高")));
+        service.materialize();
+        assertEquals(1, service.findLatest(List.of("near_year_high"), 100).orElseThrow().size());
+
+        // 同一交易日重新同步写入了新数据，落表之前不读旧结果
+        assertEquals(Optional.empty(), service.findLatest(List.of("near_year_high"), 120));
+
+        snapshotAt(DAY, 120);
+        service.materialize();
+        assertTrue(service.findLatest(List.of("near_year_high"), 120).isPresent());
+    }
+
+    private void snapshotAt(LocalDate latestTradeDate) {
+        snapshotAt(latestTradeDate, 0);
+    }
+
+    private void snapshotAt(LocalDate latestTradeDate, long maxRowId) {
+        MarketSnapshot snapshot = mock(MarketSnapshot.class);
+        when(snapshot.getLatestTradeDate()).thenReturn(latestTradeDate);
+        when(snapshot.getMaxRowId()).thenReturn(maxRowId);
+        when(marketSnapshotService.refresh()).thenReturn(snapshot);
+        when(marketSnapshotService.getSnapshot()).thenReturn(snapshot);
+    }
+
+    /**
+     * 设置某个条件的命中结果，引擎按条件枚举顺序把各条件的命中合并为每只股票一行
+     */
+    private void screens(ScreeningCondition condition, Map<String, StockAnalysisDTO> results) {
+        screened.put(condition, results);
+        when(screeningEngine.screenRows(anyCollection(), eq(ScreeningParams.defaults()))).thenAnswer(invocation -> {
+            Map<String, ScreeningEngine.Row> rows = new TreeMap<>();
+            screened.forEach((matched, bySymbol) -> bySymbol.values().forEach(dto -> {
+                ScreeningEngine.Row row = rows.computeIfAbsent(dto.getSymbol(), ScreeningEngine.Row::new);
+                row.match(matched, dto.getMatchedCondition(), dto.getCurrentPrice());
+                if (dto.getHistoricalHigh() != null) {
+                    row.historicalHigh(dto.getHistoricalHigh());
+                }
+                if (dto.getDropPercentage() != null) {
+                    row.dropPercentage(dto.getDropPercentage());
+                }
+            }));
+            return new ArrayList<>(rows.values());
+        });
+    }
+
+    private static StockAnalysisDTO dto(String symbol, Double price, Double high, Double drop, String condition) {
+        return StockAnalysisDTO.builder()
+                .symbol(symbol)
+                .currentPrice(price)
+                .historicalHigh(high)
+                .dropPercentage(drop)
+                .matchedCondition(condition)
+                .matchedConditions(List.of(condition))
+                .build();
+    }
+}
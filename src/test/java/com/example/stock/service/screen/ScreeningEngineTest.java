@@ -0,0 +1,146 @@
+package com.example.stock.service.screen;
+
+import com.example.stock.dto.StockAnalysisDTO;
+import com.example.stock.service.StockLatestSummaryService;
+import com.example.stock.service.analysis.MarketSnapshot;
+import com.example.stock.service.analysis.MarketSnapshotService;
+import com.example.stock.service.analysis.PriceSeries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 多条件单遍筛选引擎测试类
+ * 在内存快照上验证多个条件合并为每只股票一行，以及条件1查表结果的合并
+ */
+@DisplayName("多条件单遍筛选引擎测试")
+class ScreeningEngineTest {
+
+    private MarketSnapshotService marketSnapshotService;
+    private StockLatestSummaryService stockLatestSummaryService;
+    private ScreeningEngine engine;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        marketSnapshotService = mock(MarketSnapshotService.class);
+        stockLatestSummaryService = mock(StockLatestSummaryService.class);
+        engine = new ScreeningEngine(marketSnapshotService, stockLatestSummaryService,
+                new GoldenCrossDetector(marketSnapshotService, null));
+        today = LocalDate.now();
+    }
+
+    @Test
+    @DisplayName("测试1: 同一股票命中多个条件时只输出一行")
+    void testMultipleConditionsMergedIntoOneRow() {
+        Map<String, PriceSeries> seriesBySymbol = new HashMap<>();
+        seriesBySymbol.put("sh600000", risingWithVolumeSurge("sh600000"));
+        seriesBySymbol.put("sz000001", flat("sz000001"));
+        when(marketSnapshotService.getSnapshot()).thenReturn(MarketSnapshot.of(seriesBySymbol));
+        when(stockLatestSummaryService.findNearYearHigh(anyDouble())).thenReturn(null); // 汇总表不可用时在快照上计算
+
+        List<StockAnalysisDTO> results = engine.screen(
+                List.of("continuous_rise", "volume_surge", "near_year_high"), ScreeningParams.defaults());
+
+        assertEquals(1, results.size());
+        StockAnalysisDTO dto = results.get(0);
+        assertEquals("sh600000", dto.getSymbol());
+        assertEquals(3, dto.getMatchedConditions().size());
+        assertEquals(String.join(ScreeningEngine.CONDITION_SEPARATOR, dto.getMatchedConditions()),
+                dto.getMatchedCondition());
+        assertEquals(19.0, dto.getCurrentPrice(), 1e-9);
+        verify(stockLatestSummaryService).findNearYearHigh(anyDouble());
+
+        // 结果行保留每个命中条件的条件代码和各自的取值，供按条件落表
+        List<ScreeningEngine.Match> matches = engine.screenRows(
+                List.of("continuous_rise", "volume_surge", "near_year_high"), ScreeningParams.defaults()).get(0).getMatches();
+        assertEquals(List.of(ScreeningCondition.CONTINUOUS_RISE, ScreeningCondition.NEAR_YEAR_HIGH,
+                ScreeningCondition.VOLUME_SURGE), matches.stream().map(ScreeningEngine.Match::getCondition).toList());
+        assertEquals(dto.getMatchedConditions(), matches.stream().map(ScreeningEngine.Match::getDescription).toList());
+        assertNull(matches.get(0).getHistoricalHigh());
+        assertEquals(dto.getHistoricalHigh(), matches.get(1).getHistoricalHigh());
+    }
+
+    @Test
+    @DisplayName("测试2: 条件1查表命中与快照条件合并，快照外的股票单独补充")
+    void testLookupMergedWithSnapshotConditions() {
+        Map<String, PriceSeries> seriesBySymbol = new HashMap<>();
+        seriesBySymbol.put("sh600000", risingWithVolumeSurge("sh600000"));
+        when(marketSnapshotService.getSnapshot()).thenReturn(MarketSnapshot.of(seriesBySymbol));
+        when(stockLatestSummaryService.findBelowHistoricalHigh(null, 25.0)).thenReturn(List.of(
+                Map.of("symbol", "sh600000", "max_high", 40.0, "current_price", 19.0),
+                Map.of("symbol", "sz000002", "max_high", 20.0, "current_price", 10.0)));
+
+        List<StockAnalysisDTO> results = engine.screen(
+                Set.of("below_75_percent", "volume_surge"), ScreeningParams.defaults());
+
+        assertEquals(2, results.size());
+        StockAnalysisDTO first = results.get(0);
+        assertEquals("sh600000", first.getSymbol());
+        assertEquals(2, first.getMatchedConditions().size());
+        assertEquals(40.0, first.getHistoricalHigh(), 1e-9);
+        StockAnalysisDTO second = results.get(1);
+        assertEquals("sz000002", second.getSymbol());
+        assertEquals(50.0, second.getDropPercentage(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("测试3: 均线金叉默认取快照最新交易日")
+    void testGoldenCrossOnLatestTradeDate() {
+        PriceSeries series = new PriceSeries("sh600000");
+        for (int i = 39; i >= 1; i--) {
+            series.add(epochDay(i), 10, 10, 10, 10, 100, 9.8, 10.0, 9.5);
+        }
+        series.add(epochDay(0), 10, 10, 10, 10, 100, 10.2, 10.0, 9.5);
+        when(marketSnapshotService.getSnapshot()).thenReturn(MarketSnapshot.of(Map.of("sh600000", series)));
+
+        List<StockAnalysisDTO> results = engine.screen(List.of("ma_golden_cross"), ScreeningParams.defaults());
+
+        assertEquals(1, results.size());
+        assertEquals("sh600000", results.get(0).getSymbol());
+        verifyNoInteractions(stockLatestSummaryService);
+    }
+
+    @Test
+    @DisplayName("测试4: 未知条件代码被忽略")
+    void testUnknownConditions() {
+        assertTrue(engine.screen(List.of("unknown"), ScreeningParams.defaults()).isEmpty());
+        verifyNoInteractions(marketSnapshotService);
+    }
+
+    /**
+     * 40根K线：最后10天连续上涨至年内最高，最后一天放量
+     */
+    private PriceSeries risingWithVolumeSurge(String symbol) {
+        PriceSeries series = new PriceSeries(symbol);
+        for (int i = 39; i >= 0; i--) {
+            double close = i >= 10 ? 10 : 19 - i;
+            double open = i >= 10 ? close : close - 0.5;
+            long volume = i == 0 ? 5_000 : 1_000;
+            series.add(epochDay(i), open, close, open, close, volume, close, close, close);
+        }
+        return series;
+    }
+
+    private PriceSeries flat(String symbol) {
+        PriceSeries series = new PriceSeries(symbol);
+        for (int i = 39; i >= 0; i--) {
+            double high = i == 20 ? 30 : 10;
+            series.add(epochDay(i), 10, high, 10, 10, 1_000, 10, 10, 10);
+        }
+        return series;
+    }
+
+    private int epochDay(int daysAgo) {
+        return (int) today.minusDays(daysAgo).toEpochDay();
+    }
+}
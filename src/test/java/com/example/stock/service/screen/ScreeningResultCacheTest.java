@@ -0,0 +1,107 @@
+package com.example.stock.service.screen;
+
+import com.example.stock.dto.StockAnalysisDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 筛选结果缓存测试类
+ * 验证按条件、参数和数据版本命中、LRU淘汰、同步后清空与预热键，以及计算期间被清空时不写入旧结果
+ */
+@DisplayName("筛选结果缓存测试")
+class ScreeningResultCacheTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 3);
+
+    @Test
+    @DisplayName("测试1: 相同条件、参数和数据版本命中，版本或参数变化时重新计算")
+    void testHitAndMiss() {
+        ScreeningResultCache cache = new ScreeningResultCache(8, 4);
+        AtomicInteger loads = new AtomicInteger();
+
+        ScreeningParams params = new ScreeningParams(null, 30.0, null, null, null);
+        ScreeningResultCache.Key key = key(params, 1, ScreeningCondition.BELOW_HISTORICAL_HIGH,
+                ScreeningCondition.MA_GOLDEN_CROSS);
+        cache.get(key, () -> load(loads, "sh600000"));
+        cache.get(key(params, 1, ScreeningCondition.MA_GOLDEN_CROSS, ScreeningCondition.BELOW_HISTORICAL_HIGH),
+                () -> load(loads, "sz000001")).clear();
+
+        assertEquals(1, loads.get(), "条件顺序不影响命中");
+        assertEquals("sh600000", cache.get(key, () -> load(loads, "sz000001")).get(0).getSymbol(),
+                "调用方修改返回列表不影响缓存");
+
+        cache.get(key(params, 2, ScreeningCondition.BELOW_HISTORICAL_HIGH, ScreeningCondition.MA_GOLDEN_CROSS),
+                () -> load(loads, "sh600000"));
+        cache.get(key(new ScreeningParams(null, 25.0, null, null, null), 2,
+                ScreeningCondition.BELOW_HISTORICAL_HIGH, ScreeningCondition.MA_GOLDEN_CROSS), () -> load(loads, "sh600000"));
+
+        assertEquals(3, loads.get());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(0.4, cache.getHitRatio(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("测试2: 超过容量时淘汰最久未使用的条目")
+    void testLruEviction() {
+        ScreeningResultCache cache = new ScreeningResultCache(2, 4);
+        AtomicInteger loads = new AtomicInteger();
+        ScreeningResultCache.Key a = key(new ScreeningParams(null, 10.0, null, null, null), 1,
+                ScreeningCondition.BELOW_HISTORICAL_HIGH);
+        ScreeningResultCache.Key b = key(new ScreeningParams(null, 20.0, null, null, null), 1,
+                ScreeningCondition.BELOW_HISTORICAL_HIGH);
+        ScreeningResultCache.Key c = key(new ScreeningParams(null, 30.0, null, null, null), 1,
+                ScreeningCondition.BELOW_HISTORICAL_HIGH);
+
+        cache.get(a, () -> load(loads, "a"));
+        cache.get(b, () -> load(loads, "b"));
+        cache.get(a, () -> load(loads, "a"));
+        cache.get(c, () -> load(loads, "c"));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        cache.get(a, () -> load(loads, "a"));
+        assertEquals(3, loads.get(), "a最近使用过，被淘汰的是b");
+        cache.get(b, () -> load(loads, "b"));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    @DisplayName("测试3: 清空时返回最近使用的键，计算期间被清空的结果不写入")
+    void testInvalidateAll() {
+        ScreeningResultCache cache = new ScreeningResultCache(8, 2);
+        AtomicInteger loads = new AtomicInteger();
+        ScreeningResultCache.Key a = key(ScreeningParams.defaults(), 1, ScreeningCondition.BELOW_HISTORICAL_HIGH);
+        ScreeningResultCache.Key b = key(ScreeningParams.defaults(), 1, ScreeningCondition.MA_GOLDEN_CROSS);
+        ScreeningResultCache.Key c = key(ScreeningParams.defaults(), 1, ScreeningCondition.NEAR_YEAR_HIGH);
+        cache.get(a, () -> load(loads, "a"));
+        cache.get(b, () -> load(loads, "b"));
+        cache.get(c, () -> load(loads, "c"));
+        cache.get(a, () -> load(loads, "a"));
+
+        assertEquals(List.of(a, c), cache.invalidateAll());
+        assertEquals(0, cache.size());
+
+        cache.get(b, () -> {
+            cache.invalidateAll();
+            return load(loads, "b");
+        });
+        assertEquals(0, cache.size(), "旧数据计算的结果不应写入");
+    }
+
+    private static ScreeningResultCache.Key key(ScreeningParams params, long version, ScreeningCondition... conditions) {
+        return new ScreeningResultCache.Key(EnumSet.copyOf(List.of(conditions)), params, version, TODAY);
+    }
+
+    private static List<StockAnalysisDTO> load(AtomicInteger loads, String symbol) {
+        loads.incrementAndGet();
+        return List.of(StockAnalysisDTO.builder().symbol(symbol).build());
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.stock.service.search;
+
+import com.example.stock.entity.StockSymbol;
+import com.example.stock.repository.StockSymbolRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 股票检索服务测试类
+ * 验证代码、数字代码、名称、拼音首字母（含多音字）的前缀解析以及重建
+ */
+@DisplayName("股票检索服务测试")
+class SymbolSearchServiceTest {
+
+    private StockSymbolRepository stockSymbolRepository;
+    private SymbolSearchService service;
+
+    @BeforeEach
+    void setUp() {
+        stockSymbolRepository = mock(StockSymbolRepository.class);
+        when(stockSymbolRepository.findAll()).thenReturn(List.of(
+                symbol("sh600000", "浦发银行"),
+                symbol("sh600036", "招商银行"),
+                symbol("sz000001", "平安银行"),
+                symbol("sz000002", "万科A"),
+                symbol("sh600004", "*ST白云"),
+                symbol("bj830799", null)));
+        service = new SymbolSearchService(stockSymbolRepository);
+    }
+
+    @Test
+    @DisplayName("测试1: 代码和数字代码前缀")
+    void testSymbolAndCodePrefix() {
+        assertEquals(List.of("sh600000", "sh600004", "sh600036"), service.resolve("SH600"));
+        assertEquals(List.of("sh600000", "sh600004"), service.resolve(" 60000 "));
+        assertEquals(List.of("sz000001", "sz000002"), service.resolve("00000"));
+        assertEquals(List.of("bj830799"), service.resolve("830"));
+        assertEquals(List.of(), service.resolve(""));
+        assertEquals(List.of(), service.resolve(null));
+        assertEquals(List.of(), service.resolve("sh601"));
+        // 注册表中没有的完整代码原样返回
+        assertEquals(List.of("sh601318"), service.resolve("sh601318"));
+    }
+
+    @Test
+    @DisplayName("测试2: 名称和拼音首字母前缀（含多音字）")
+    void testNameAndPinyinInitials() {
+        assertEquals(List.of("sh600000"), service.resolve("浦发"));
+        assertEquals(List.of(), service.resolve("银行")); // 只做前缀匹配
+        assertEquals(List.of("sh600000"), service.resolve("pfyh"));
+        assertEquals(List.of("sh600000"), service.resolve("PFYX"));
+        assertEquals(List.of("sh600036"), service.resolve("zsyh"));
+        assertEquals(List.of("sz000002"), service.resolve("wka"));
+        assertEquals(List.of("sh600004"), service.resolve("stby"));
+        assertEquals(List.of("sh600004"), service.resolve("*st"));
+
+        List<SymbolMatch> matches = service.suggest("pa", 10);
+        assertEquals(List.of(new SymbolMatch("sz000001", "000001", "平安银行")), matches);
+        assertEquals(2, service.suggest("sh600", 2).size());
+    }
+
+    @Test
+    @DisplayName("测试3: 重建后反映注册表变化，命中过多时截断")
+    void testRebuildAndTruncate() {
+        assertEquals(List.of(), service.resolve("sh688"));
+
+        List<StockSymbol> many = new ArrayList<>();
+        for (int i = 0; i < SymbolSearchService.MAX_MATCHES + 100; i++) {
+            many.add(symbol("sh688" + String.format("%03d", i), "科创" + i));
+        }
+        when(stockSymbolRepository.findAll()).thenReturn(many);
+        assertEquals(many.size(), service.rebuild());
+
+        assertEquals(List.of("sh688001"), service.resolve("sh688001"));
+        assertEquals(SymbolSearchService.MAX_MATCHES, service.resolve("sh688").size());
+        assertEquals(List.of(), service.resolve("浦发"));
+        verify(stockSymbolRepository, times(2)).findAll();
+    }
+
+    private static StockSymbol symbol(String symbol, String name) {
+        LocalDate today = LocalDate.now();
+        return new StockSymbol(symbol, symbol.substring(2), name, "LISTING", today, today);
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.stock.service.synthetic;
+
+import com.example.stock.entity.StockHistory;
+import com.example.stock.repository.StockHistoryBulkLoader;
+import com.example.stock.repository.StockHistoryCustomRepositoryImpl;
+import com.example.stock.repository.StockHistoryRepository;
+import com.example.stock.repository.StockIndicatorStateRepository;
+import com.example.stock.service.KLineAnalysisService;
+import com.example.stock.service.StockHistorySyncCompletedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 合成行情生成器测试类
+ * 验证同一规格生成结果完全一致、K线满足价格与涨跌停约束，以及经批量写入路径装载到H2
+ */
+@DisplayName("合成行情生成器测试")
+class SyntheticMarketGeneratorTest {
+
+    private static final LocalDate END_DATE = LocalDate.of(2024, 6, 28);
+
+    @Test
+    @DisplayName("测试1: 相同规格生成相同数据，不同种子生成不同数据")
+    void testDeterministic() {
+        SyntheticMarketSpec spec = new SyntheticMarketSpec(8, 3, 42L, END_DATE);
+        SyntheticMarketGenerator first = new SyntheticMarketGenerator(spec);
+        SyntheticMarketGenerator second = new SyntheticMarketGenerator(spec);
+
+        for (int i = spec.symbolCount() - 1; i >= 0; i--) { // 生成顺序不影响结果
+            assertEquals(first.generate(i), second.generate(i));
+        }
+        assertNotEquals(first.generate(0),
+                new SyntheticMarketGenerator(new SyntheticMarketSpec(8, 3, 43L, END_DATE)).generate(0));
+    }
+
+    @Test
+    @DisplayName("测试2: K线满足OHLC关系和涨跌幅限制，并包含涨跌停与停牌")
+    void testBarInvariants() {
+        SyntheticMarketSpec spec = new SyntheticMarketSpec(40, 5, SyntheticMarketSpec.DEFAULT_SEED, END_DATE);
+        SyntheticMarketGenerator generator = new SyntheticMarketGenerator(spec);
+        List<LocalDate> calendar = generator.getTradingDays();
+        Set<String> symbols = new HashSet<>();
+        int limitHits = 0;
+        int suspensions = 0;
+
+        for (int i = 0; i < spec.symbolCount(); i++) {
+            List<StockHistory> histories = generator.generate(i);
+            assertTrue(symbols.add(SyntheticMarketGenerator.symbol(i)));
+            double maxMove = i % 4 >= 2 ? 0.20 : 0.10;
+            int calendarIndex = calendar.indexOf(histories.get(0).getDay());
+            for (int j = 0; j < histories.size(); j++) {
+                StockHistory h = histories.get(j);
+                assertTrue(h.getLow() > 0 && h.getLow() <= Math.min(h.getOpen(), h.getClose()), h.toString());
+                assertTrue(h.getHigh() >= Math.max(h.getOpen(), h.getClose()), h.toString());
+                assertTrue(h.getVolume() >= 100 && h.getVolume() % 100 == 0);
+                if (j == 0) {
+                    continue;
+                }
+                double previousClose = histories.get(j - 1).getClose();
+                double move = Math.abs(h.getClose() / previousClose - 1);
+                assertTrue(move <= maxMove + 0.01 / previousClose + 1e-9, h.toString());
+                if (Math.abs(move - maxMove) < 0.005) {
+                    limitHits++;
+                }
+                int next = calendar.indexOf(h.getDay());
+                if (next > calendarIndex + 1) {
+                    suspensions++;
+                }
+                calendarIndex = next;
+            }
+            StockHistory last = histories.get(histories.size() - 1);
+            if (histories.size() >= 30) {
+                double sum = 0;
+                for (int j = histories.size() - 30; j < histories.size(); j++) {
+                    sum += histories.get(j).getClose();
+                }
+                assertEquals(sum / 30, last.getMaPrice30(), 0.001);
+            }
+        }
+        assertTrue(limitHits > 0, "应包含涨跌停K线");
+        assertTrue(suspensions > 0, "应包含停牌");
+    }
+
+    @Test
+    @DisplayName("测试3: 经批量写入路径装载到H2，并维护汇总表和指标状态")
+    void testLoadIntoH2() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:synthetic" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("h2-stock-schema.sql")).execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        StockHistoryCustomRepositoryImpl customRepository = new StockHistoryCustomRepositoryImpl(jdbcTemplate);
+        StockHistoryRepository stockHistoryRepository = mock(StockHistoryRepository.class);
+        when(stockHistoryRepository.batchInsertStockHistory(anyList()))
+                .thenAnswer(invocation -> customRepository.batchInsertStockHistory(invocation.getArgument(0)));
+        // H2不支持LOAD DATA，装载器回退为批量插入
+        when(stockHistoryRepository.supportsBulkLoad()).thenAnswer(invocation -> customRepository.supportsBulkLoad());
+        StockHistoryBulkLoader bulkLoader = new StockHistoryBulkLoader(stockHistoryRepository, true, true);
+        StockIndicatorStateRepository indicatorStateRepository = mock(StockIndicatorStateRepository.class);
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        SyntheticMarketLoader loader = new SyntheticMarketLoader(stockHistoryRepository, bulkLoader, indicatorStateRepository,
+                new KLineAnalysisService(), eventPublisher, false, 0, 0, 0);
+
+        SyntheticMarketSpec spec = new SyntheticMarketSpec(6, 2, 7L, END_DATE);
+        long rows = loader.load(spec);
+
+        SyntheticMarketGenerator generator = new SyntheticMarketGenerator(spec);
+        long expected = 0;
+        for (int i = 0; i < spec.symbolCount(); i++) {
+            expected += generator.generate(i).size();
+        }
+        assertEquals(expected, rows);
+        assertEquals(expected, bulkLoader.getBatchRows());
+        assertEquals(0, bulkLoader.getBulkRows());
+        assertEquals(expected, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_history", Long.class));
+        assertEquals(spec.symbolCount(),
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_latest_summary", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM stock_history WHERE consecutive_rise_days IS NULL",
+                Integer.class), "技术分析字段应已填充");
+        verify(indicatorStateRepository, atLeastOnce()).saveAll(anyList());
+        verify(eventPublisher).publishEvent(any(StockHistorySyncCompletedEvent.class));
+    }
+}
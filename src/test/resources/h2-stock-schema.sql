@@ -0,0 +1,29 @@
+-- H2（MODE=MySQL）测试用表结构，与生产库中stock_history、stock_latest_summary的列一致
+CREATE TABLE stock_history (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    symbol VARCHAR(20) NOT NULL, code VARCHAR(10), trade_date DATE NOT NULL,
+    open DOUBLE, high DOUBLE, low DOUBLE, close DOUBLE, volume BIGINT,
+    ma_price5 DOUBLE, ma_price10 DOUBLE, ma_price30 DOUBLE,
+    ma_volume5 BIGINT, ma_volume10 BIGINT, ma_volume30 BIGINT,
+    change_percent DOUBLE, amplitude DOUBLE, turnover_rate DOUBLE,
+    is_ma5_golden_cross BOOLEAN, is_ma5_death_cross BOOLEAN,
+    is_ma10_golden_cross BOOLEAN, is_ma10_death_cross BOOLEAN,
+    is_ma_bullish BOOLEAN, is_ma_bearish BOOLEAN,
+    kline_type INT, upper_shadow_ratio DOUBLE, lower_shadow_ratio DOUBLE, body_ratio DOUBLE,
+    is_doji BOOLEAN, is_hammer BOOLEAN, is_inverted_hammer BOOLEAN,
+    consecutive_rise_days INT, is_break_high BOOLEAN, is_break_low BOOLEAN,
+    volume_ratio DOUBLE, is_volume_surge BOOLEAN, is_volume_shrink BOOLEAN,
+    is_price_volume_match BOOLEAN,
+    macd_dif DOUBLE, macd_dea DOUBLE, macd_bar DOUBLE,
+    is_macd_golden_cross BOOLEAN, is_macd_death_cross BOOLEAN,
+    rsi6 DOUBLE, rsi12 DOUBLE, rsi24 DOUBLE, is_overbought BOOLEAN, is_oversold BOOLEAN,
+    boll_upper DOUBLE, boll_middle DOUBLE, boll_lower DOUBLE,
+    is_touch_boll_upper BOOLEAN, is_touch_boll_lower BOOLEAN,
+    UNIQUE (symbol, trade_date));
+
+CREATE TABLE stock_latest_summary (
+    symbol VARCHAR(20) PRIMARY KEY, latest_date DATE NOT NULL, close DOUBLE,
+    ma_price5 DOUBLE, ma_price10 DOUBLE, ma_price30 DOUBLE,
+    all_time_high DOUBLE, all_time_high_date DATE,
+    high_52w DOUBLE, high_52w_date DATE, low_52w DOUBLE, low_52w_date DATE,
+    updated_at TIMESTAMP);